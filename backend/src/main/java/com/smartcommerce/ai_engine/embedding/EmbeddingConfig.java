@@ -0,0 +1,24 @@
+package com.smartcommerce.ai_engine.embedding;
+
+import com.smartcommerce.ai_engine.gateway.LlmGatewayProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EmbeddingProperties.class)
+@Slf4j
+public class EmbeddingConfig {
+
+    @Bean
+    public TextEmbedder textEmbedder(EmbeddingProperties properties, LlmGatewayProperties gatewayProperties,
+            @Value("${gemini.api.key:}") String apiKey) {
+        if ("hashing".equalsIgnoreCase(properties.provider())) {
+            log.warn("Usando embedder local por hashing ({} dimensiones)", properties.dimensions());
+            return new HashingTextEmbedder(properties.dimensions());
+        }
+        return new GeminiTextEmbedder(properties, gatewayProperties.gemini().baseUrl(), apiKey);
+    }
+}
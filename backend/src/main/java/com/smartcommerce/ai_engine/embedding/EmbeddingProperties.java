@@ -0,0 +1,22 @@
+package com.smartcommerce.ai_engine.embedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuración de embeddings ({@code app.ai.embedding.*}).
+ *
+ * @param provider   {@code gemini} para embedContent o {@code hashing} para
+ *                   un embedder local determinístico (pruebas, gateway stub)
+ * @param dimensions tamaño del vector; debe coincidir con las columnas
+ *                   {@code vector(n)} de la base
+ */
+@ConfigurationProperties(prefix = "app.ai.embedding")
+public record EmbeddingProperties(
+        @DefaultValue("gemini") String provider,
+        @DefaultValue("text-embedding-004") String model,
+        @DefaultValue("768") int dimensions,
+        @DefaultValue("5s") Duration timeout) {
+}
@@ -0,0 +1,105 @@
+package com.smartcommerce.ai_engine.embedding;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embeddings sobre el endpoint embedContent de Gemini.
+ */
+public class GeminiTextEmbedder implements TextEmbedder {
+
+    private static final String API_KEY_HEADER = "x-goog-api-key";
+
+    private final RestClient client;
+    private final String model;
+    private final int dimensions;
+
+    public GeminiTextEmbedder(EmbeddingProperties properties, String baseUrl, String apiKey) {
+        this.model = properties.model();
+        this.dimensions = properties.dimensions();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.timeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.timeout());
+        this.client = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .defaultHeader(API_KEY_HEADER, apiKey)
+                .build();
+    }
+
+    @Override
+    public float[] embed(String text) {
+        JsonNode response = client.post()
+                .uri("/models/{model}:embedContent", model)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(embedRequest(text))
+                .retrieve()
+                .body(JsonNode.class);
+        return toVector(response != null ? response.path("embedding") : null);
+    }
+
+    /**
+     * Usa batchEmbedContents: una sola llamada para todo el lote.
+     */
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        JsonNode response = client.post()
+                .uri("/models/{model}:batchEmbedContents", model)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("requests", texts.stream().map(this::embedRequest).toList()))
+                .retrieve()
+                .body(JsonNode.class);
+
+        JsonNode embeddings = response != null ? response.path("embeddings") : null;
+        if (embeddings == null || embeddings.size() != texts.size()) {
+            throw new IllegalStateException("Se esperaban " + texts.size() + " embeddings en la respuesta");
+        }
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (JsonNode embedding : embeddings) {
+            vectors.add(toVector(embedding));
+        }
+        return vectors;
+    }
+
+    private Map<String, Object> embedRequest(String text) {
+        return Map.of(
+                "model", "models/" + model,
+                "content", Map.of("parts", List.of(Map.of("text", text))),
+                "outputDimensionality", dimensions);
+    }
+
+    private float[] toVector(JsonNode embedding) {
+        JsonNode values = embedding != null ? embedding.path("values") : null;
+        if (values == null || values.size() != dimensions) {
+            throw new IllegalStateException("Embedding inesperado: se esperaban " + dimensions + " valores");
+        }
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) values.get(i).asDouble();
+        }
+        return vector;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public String model() {
+        return model;
+    }
+}
@@ -0,0 +1,66 @@
+package com.smartcommerce.ai_engine.embedding;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Embedder local y determinístico (feature hashing de palabras y trigramas de
+ * caracteres, normalizado a norma 1). No captura sinónimos como un modelo
+ * real, pero sí variaciones de redacción y mayúsculas/acentos; sirve para
+ * pruebas y para el gateway stub, sin red.
+ */
+public class HashingTextEmbedder implements TextEmbedder {
+
+    private final int dimensions;
+
+    public HashingTextEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            add(vector, word, 1.0f);
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, padded.substring(i, i + 3), 0.5f);
+            }
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private void add(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode() * 0x9E3779B1;
+        int index = Math.floorMod(hash, dimensions);
+        // El bit alto decide el signo para que las colisiones tiendan a cancelarse
+        vector[index] += hash < 0 ? -weight : weight;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public String model() {
+        return "hashing-" + dimensions;
+    }
+}
@@ -0,0 +1,33 @@
+package com.smartcommerce.ai_engine.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte texto en un vector denso para búsquedas por similitud. Los
+ * vectores devueltos tienen siempre {@link #dimensions()} componentes.
+ */
+public interface TextEmbedder {
+
+    float[] embed(String text);
+
+    /**
+     * Embeddings de varios textos, en el mismo orden. Las implementaciones
+     * remotas lo resuelven en una sola llamada.
+     */
+    default List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+
+    int dimensions();
+
+    /**
+     * Identifica el modelo que generó los vectores; vectores de modelos
+     * distintos no son comparables entre sí.
+     */
+    String model();
+}
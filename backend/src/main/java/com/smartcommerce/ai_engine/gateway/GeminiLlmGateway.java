@@ -0,0 +1,106 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Implementación sobre la API REST de Gemini (generateContent /
+ * streamGenerateContent). Comparte un único {@link HttpClient} (pool de
+ * conexiones HTTP/2) y crea un {@link RestClient} por operación para aplicar
+ * timeouts distintos.
+ */
+public class GeminiLlmGateway implements LlmGateway {
+
+    private static final String API_KEY_HEADER = "x-goog-api-key";
+
+    private final Map<LlmOperation, RestClient> clients = new EnumMap<>(LlmOperation.class);
+    private final String model;
+
+    public GeminiLlmGateway(LlmGatewayProperties.Gemini properties, String apiKey) {
+        this.model = properties.model();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.connectTimeout())
+                .build();
+        for (LlmOperation operation : LlmOperation.values()) {
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(properties.timeoutFor(operation));
+            clients.put(operation, RestClient.builder()
+                    .baseUrl(properties.baseUrl())
+                    .requestFactory(requestFactory)
+                    .defaultHeader(API_KEY_HEADER, apiKey)
+                    .build());
+        }
+    }
+
+    @Override
+    public String generate(LlmRequest request) {
+        return clients.get(request.operation()).post()
+                .uri("/models/{model}:generateContent", model)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(toRequestBody(request))
+                .retrieve()
+                .body(String.class);
+    }
+
+    @Override
+    public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+        clients.get(request.operation()).post()
+                .uri("/models/{model}:streamGenerateContent?alt=sse", model)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .body(toRequestBody(request))
+                .exchange((httpRequest, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new RestClientResponseException("Gemini respondió " + response.getStatusCode().value(),
+                                response.getStatusCode(), response.getStatusText(), response.getHeaders(),
+                                response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while (!cancelled.getAsBoolean() && (line = reader.readLine()) != null) {
+                            if (line.startsWith("data:")) {
+                                onEvent.accept(line.substring(5).trim());
+                            }
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    static Map<String, Object> toRequestBody(LlmRequest request) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("contents", request.contents().stream()
+                .map(message -> Map.of(
+                        "role", message.role(),
+                        "parts", List.of(Map.of("text", message.text()))))
+                .toList());
+        if (request.systemInstruction() != null) {
+            body.put("systemInstruction", Map.of("parts", List.of(Map.of("text", request.systemInstruction()))));
+        }
+
+        Map<String, Object> generationConfig = new HashMap<>();
+        generationConfig.put("temperature", request.temperature());
+        generationConfig.put("maxOutputTokens", request.maxOutputTokens());
+        if (request.jsonResponse()) {
+            generationConfig.put("response_mime_type", "application/json");
+        }
+        body.put("generationConfig", generationConfig);
+        return body;
+    }
+}
@@ -0,0 +1,217 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Decodifica respuestas generateContent sin construir el árbol JsonNode del
+ * sobre: recorre los tokens con {@link JsonParser} hasta
+ * {@code candidates[0].content.parts[].text}, salteando el resto
+ * (safetyRatings, usageMetadata, etc.) con {@code skipChildren}.
+ *
+ * Para respuestas JSON, el texto del primer part se toma directamente del
+ * buffer del parser, se recortan las marcas de bloque de código buscando el
+ * primer '{' o '[' y el último '}' o ']' en una sola pasada, y se enlaza al
+ * tipo destino sin copias intermedias.
+ */
+public class GeminiResponseDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    public GeminiResponseDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Texto del primer candidato (concatenando sus parts). Cadena vacía si el
+     * evento no trae texto, como el último chunk de un stream.
+     */
+    public String text(String envelope) {
+        StringBuilder text = new StringBuilder();
+        visitParts(envelope, (chars, offset, length) -> {
+            text.append(chars, offset, length);
+            return true;
+        });
+        return text.toString();
+    }
+
+    /**
+     * Enlaza el JSON contenido en el texto del primer part al tipo indicado.
+     */
+    public <T> T decode(String envelope, Class<T> type) {
+        Object[] result = new Object[1];
+        boolean found = visitParts(envelope, (chars, offset, length) -> {
+            result[0] = bind(chars, offset, length, type);
+            return false;
+        });
+        if (!found) {
+            throw new LlmResponseFormatException("La respuesta de IA no contiene texto");
+        }
+        return type.cast(result[0]);
+    }
+
+    /**
+     * Tokens de {@code usageMetadata} y {@code finishReason} del primer
+     * candidato, recorriendo el sobre completo sin leer el texto generado.
+     */
+    public LlmResponseMetadata metadata(String envelope) {
+        Integer promptTokens = null;
+        Integer outputTokens = null;
+        Integer totalTokens = null;
+        String finishReason = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(envelope)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return LlmResponseMetadata.EMPTY;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        finishReason = finishReason(parser);
+                    }
+                    // Resto del arreglo: candidatos adicionales, si los hay
+                    while (parser.currentToken() != JsonToken.END_ARRAY && parser.nextToken() != null) {
+                        parser.skipChildren();
+                    }
+                } else if ("usageMetadata".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        JsonToken count = parser.nextToken();
+                        if (count != JsonToken.VALUE_NUMBER_INT) {
+                            parser.skipChildren();
+                        } else if ("promptTokenCount".equals(name)) {
+                            promptTokens = parser.getIntValue();
+                        } else if ("candidatesTokenCount".equals(name)) {
+                            outputTokens = parser.getIntValue();
+                        } else if ("totalTokenCount".equals(name)) {
+                            totalTokens = parser.getIntValue();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new LlmResponseFormatException("Respuesta de IA ilegible", e);
+        }
+        return new LlmResponseMetadata(promptTokens, outputTokens, totalTokens, finishReason);
+    }
+
+    /**
+     * Lee {@code finishReason} del candidato actual y deja el parser en su
+     * cierre.
+     */
+    private String finishReason(JsonParser parser) throws IOException {
+        String finishReason = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("finishReason".equals(field) && value == JsonToken.VALUE_STRING) {
+                finishReason = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return finishReason;
+    }
+
+    private <T> T bind(char[] chars, int offset, int length, Class<T> type) {
+        int end = offset + length;
+        int start = offset;
+        while (start < end && chars[start] != '{' && chars[start] != '[') {
+            start++;
+        }
+        int last = end - 1;
+        while (last >= start && chars[last] != '}' && chars[last] != ']') {
+            last--;
+        }
+        if (start >= end || last < start) {
+            throw new LlmResponseFormatException("No se encontró JSON válido en la respuesta de la IA");
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(chars, start, last - start + 1)) {
+            return objectMapper.readValue(parser, type);
+        } catch (IOException e) {
+            throw new LlmResponseFormatException("JSON inválido en la respuesta de la IA", e);
+        }
+    }
+
+    /**
+     * Recorre los parts del primer candidato entregando el texto de cada uno
+     * tal como está en el buffer del parser (válido solo durante la llamada).
+     *
+     * @return true si se encontró al menos un part con texto
+     */
+    private boolean visitParts(String envelope, PartVisitor visitor) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(envelope)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new LlmResponseFormatException("Respuesta de IA inesperada");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    return parser.nextToken() == JsonToken.START_OBJECT && visitCandidate(parser, visitor);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            throw new LlmResponseFormatException("Respuesta de IA ilegible", e);
+        }
+    }
+
+    private boolean visitCandidate(JsonParser parser, PartVisitor visitor) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("content".equals(field) && value == JsonToken.START_OBJECT) {
+                return visitContent(parser, visitor);
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private boolean visitContent(JsonParser parser, PartVisitor visitor) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("parts".equals(field) && value == JsonToken.START_ARRAY) {
+                return visitPartArray(parser, visitor);
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private boolean visitPartArray(JsonParser parser, PartVisitor visitor) throws IOException {
+        boolean found = false;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                    found = true;
+                    if (!visitor.visit(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+                        return true;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return found;
+    }
+
+    @FunctionalInterface
+    private interface PartVisitor {
+        /**
+         * @return false para dejar de recorrer
+         */
+        boolean visit(char[] chars, int offset, int length);
+    }
+}
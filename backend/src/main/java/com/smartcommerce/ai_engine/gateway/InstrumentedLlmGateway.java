@@ -0,0 +1,60 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Decorador que mide cada llamada al proveedor (fase {@code upstream} de
+ * {@link LlmTelemetry}): duración, tamaño del prompt y de la respuesta, y los
+ * tokens informados en {@code usageMetadata}. Va pegado al proveedor, por
+ * dentro de la resiliencia, así cada reintento cuenta como una llamada.
+ */
+public class InstrumentedLlmGateway implements LlmGateway {
+
+    private final LlmGateway delegate;
+    private final LlmTelemetry telemetry;
+    private final GeminiResponseDecoder decoder;
+
+    public InstrumentedLlmGateway(LlmGateway delegate, LlmTelemetry telemetry, GeminiResponseDecoder decoder) {
+        this.delegate = delegate;
+        this.telemetry = telemetry;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public String generate(LlmRequest request) {
+        telemetry.recordRequest(request);
+        String response = telemetry.time(request.operation(), LlmTelemetry.UPSTREAM,
+                () -> delegate.generate(request));
+        recordResponse(request.operation(), response.getBytes(StandardCharsets.UTF_8).length, response);
+        return response;
+    }
+
+    @Override
+    public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+        telemetry.recordRequest(request);
+        int[] bytes = new int[1];
+        String[] lastWithUsage = new String[1];
+        telemetry.time(request.operation(), LlmTelemetry.UPSTREAM, () -> delegate.stream(request, event -> {
+            bytes[0] += event.getBytes(StandardCharsets.UTF_8).length;
+            // usageMetadata llega completo en el último evento
+            if (event.contains("usageMetadata")) {
+                lastWithUsage[0] = event;
+            }
+            onEvent.accept(event);
+        }, cancelled));
+        recordResponse(request.operation(), bytes[0], lastWithUsage[0]);
+    }
+
+    private void recordResponse(LlmOperation operation, int bytes, String envelope) {
+        LlmResponseMetadata metadata;
+        try {
+            metadata = envelope != null ? decoder.metadata(envelope) : LlmResponseMetadata.EMPTY;
+        } catch (LlmResponseFormatException e) {
+            // La respuesta ilegible la reporta quien la decodifica
+            metadata = LlmResponseMetadata.EMPTY;
+        }
+        telemetry.recordResponse(operation, bytes, metadata);
+    }
+}
@@ -0,0 +1,36 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import java.util.function.Supplier;
+
+/**
+ * Prioridad explícita para las llamadas al LLM hechas desde el hilo actual.
+ * Los procesos en lote (análisis de cartera, pre-análisis nocturno) envuelven
+ * sus llamadas con {@link LlmPriority#BACKGROUND} para no competir con el uso
+ * interactivo; sin contexto se usa la prioridad de la operación.
+ */
+public final class LlmCallContext {
+
+    private static final ThreadLocal<LlmPriority> PRIORITY = new ThreadLocal<>();
+
+    private LlmCallContext() {
+    }
+
+    public static <T> T withPriority(LlmPriority priority, Supplier<T> call) {
+        LlmPriority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                PRIORITY.set(previous);
+            } else {
+                PRIORITY.remove();
+            }
+        }
+    }
+
+    static LlmPriority priorityFor(LlmOperation operation) {
+        LlmPriority priority = PRIORITY.get();
+        return priority != null ? priority : LlmPriority.forOperation(operation);
+    }
+}
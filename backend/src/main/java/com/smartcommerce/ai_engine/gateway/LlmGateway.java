@@ -0,0 +1,28 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Punto único de salida hacia el modelo de lenguaje. Las implementaciones
+ * devuelven el cuerpo crudo en formato generateContent; el parseo queda en
+ * manos del llamador.
+ */
+public interface LlmGateway {
+
+    /**
+     * Ejecuta una generación completa y devuelve el JSON de respuesta.
+     *
+     * @throws LlmUnavailableException si el proveedor no está disponible
+     *                                 (bulkhead lleno, circuito abierto o
+     *                                 reintentos agotados)
+     */
+    String generate(LlmRequest request);
+
+    /**
+     * Ejecuta una generación en streaming y entrega a {@code onEvent} el JSON de
+     * cada evento parcial. La lectura se corta en cuanto {@code cancelled}
+     * devuelve true.
+     */
+    void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled);
+}
@@ -0,0 +1,49 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LlmGatewayProperties.class)
+@Slf4j
+public class LlmGatewayConfig {
+
+    /**
+     * Gateway que usan todas las operaciones de IA: proveedor real (o stub)
+     * medido por llamada, envuelto en el decorador de resiliencia y, por
+     * fuera, en el limitador de cuota por usuario.
+     */
+    @Bean
+    public LlmGateway llmGateway(LlmGatewayProperties properties, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry, LlmTelemetry telemetry, GeminiResponseDecoder decoder,
+            @Value("${gemini.api.key:}") String apiKey) {
+        LlmGateway provider;
+        if ("stub".equalsIgnoreCase(properties.provider())) {
+            log.warn("Usando gateway LLM stub (sin red), latencia {}", properties.stub().latency());
+            provider = new StubLlmGateway(objectMapper, properties.stub().latency());
+        } else {
+            provider = new GeminiLlmGateway(properties.gemini(), apiKey);
+        }
+        LlmGateway instrumented = new InstrumentedLlmGateway(provider, telemetry, decoder);
+        LlmGateway resilient = new ResilientLlmGateway(instrumented, properties.resilience(), meterRegistry);
+        if (!properties.rateLimit().enabled()) {
+            return resilient;
+        }
+        return new RateLimitedLlmGateway(resilient, properties.rateLimit(), meterRegistry);
+    }
+
+    @Bean
+    public LlmTelemetry llmTelemetry(MeterRegistry meterRegistry) {
+        return new LlmTelemetry(meterRegistry);
+    }
+
+    @Bean
+    public GeminiResponseDecoder geminiResponseDecoder(ObjectMapper objectMapper) {
+        return new GeminiResponseDecoder(objectMapper);
+    }
+}
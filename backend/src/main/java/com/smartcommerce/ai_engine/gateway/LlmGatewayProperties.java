@@ -0,0 +1,72 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuración del gateway LLM ({@code app.ai.gateway.*}).
+ *
+ * @param provider {@code gemini} para el proveedor real o {@code stub} para
+ *                 pruebas de carga sin red
+ */
+@ConfigurationProperties(prefix = "app.ai.gateway")
+public record LlmGatewayProperties(
+        @DefaultValue("gemini") String provider,
+        @DefaultValue Gemini gemini,
+        @DefaultValue Resilience resilience,
+        @DefaultValue RateLimit rateLimit,
+        @DefaultValue Stub stub) {
+
+    public record Gemini(
+            @DefaultValue("https://generativelanguage.googleapis.com/v1beta") String baseUrl,
+            @DefaultValue("gemini-2.5-flash") String model,
+            @DefaultValue("5s") Duration connectTimeout,
+            @DefaultValue("60s") Duration defaultTimeout,
+            @DefaultValue Map<LlmOperation, Duration> timeouts) {
+
+        public Duration timeoutFor(LlmOperation operation) {
+            return timeouts.getOrDefault(operation, defaultTimeout);
+        }
+    }
+
+    public record Resilience(
+            @DefaultValue("8") int maxConcurrentCalls,
+            @DefaultValue("2s") Duration bulkheadMaxWait,
+            @DefaultValue("5") int failureThreshold,
+            @DefaultValue("30s") Duration openDuration,
+            @DefaultValue("3") int maxAttempts,
+            @DefaultValue("500ms") Duration initialBackoff,
+            @DefaultValue("8s") Duration maxBackoff) {
+    }
+
+    /**
+     * Cuota por usuario y global. {@code burst} es la capacidad del bucket:
+     * cuántas llamadas seguidas se permiten antes de pasar al ritmo sostenido.
+     *
+     * @param maxWait espera máxima en cola por prioridad; las que no figuran
+     *                usan {@code defaultMaxWait}
+     */
+    public record RateLimit(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("20") int requestsPerMinute,
+            @DefaultValue("5") int burst,
+            @DefaultValue("50") int maxQueuedPerTenant,
+            @DefaultValue("300") int globalRequestsPerMinute,
+            @DefaultValue("30") int globalBurst,
+            @DefaultValue("500") int maxQueuedGlobal,
+            @DefaultValue("30s") Duration defaultMaxWait,
+            @DefaultValue Map<LlmPriority, Duration> maxWait,
+            @DefaultValue("30m") Duration idleTenantExpiry) {
+
+        public Duration maxWaitFor(LlmPriority priority) {
+            return maxWait.getOrDefault(priority, defaultMaxWait);
+        }
+    }
+
+    public record Stub(
+            @DefaultValue("200ms") Duration latency) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartcommerce.ai_engine.gateway;
+
+/**
+ * Turno de conversación en formato generateContent ({@code user} o
+ * {@code model}).
+ */
+public record LlmMessage(String role, String text) {
+
+    public static LlmMessage user(String text) {
+        return new LlmMessage("user", text);
+    }
+
+    public static LlmMessage model(String text) {
+        return new LlmMessage("model", text);
+    }
+}
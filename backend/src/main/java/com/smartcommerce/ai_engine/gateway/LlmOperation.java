@@ -0,0 +1,13 @@
+package com.smartcommerce.ai_engine.gateway;
+
+/**
+ * Operaciones de negocio que invocan al LLM. Cada una tiene su propio timeout y
+ * se reporta por separado en métricas.
+ */
+public enum LlmOperation {
+    ANALYZE_SALES,
+    CHAT,
+    SIMULATE,
+    SIMULATE_SWEEP,
+    DRAFT_EMAIL
+}
@@ -0,0 +1,21 @@
+package com.smartcommerce.ai_engine.gateway;
+
+/**
+ * Prioridad de una llamada al LLM dentro del limitador de tasa. El orden de
+ * declaración es el orden de atención: ante la misma cuota, el chat
+ * interactivo sale antes que borradores y simulaciones, y estos antes que los
+ * procesos en segundo plano.
+ */
+public enum LlmPriority {
+    INTERACTIVE,
+    STANDARD,
+    BACKGROUND;
+
+    /**
+     * Prioridad por defecto de la operación cuando el llamador no fijó otra con
+     * {@link LlmCallContext}.
+     */
+    public static LlmPriority forOperation(LlmOperation operation) {
+        return operation == LlmOperation.CHAT ? INTERACTIVE : STANDARD;
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * La llamada superó la cuota de IA del usuario (o la global) y no obtuvo cupo
+ * dentro de la espera permitida para su prioridad.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LlmRateLimitedException extends LlmUnavailableException {
+    public LlmRateLimitedException(String message) {
+        super(message);
+    }
+}
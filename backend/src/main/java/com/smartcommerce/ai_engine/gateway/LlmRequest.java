@@ -0,0 +1,20 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import java.util.List;
+
+/**
+ * Petición neutral al proveedor. {@code jsonResponse} solicita
+ * {@code response_mime_type: application/json}.
+ */
+public record LlmRequest(
+        LlmOperation operation,
+        String systemInstruction,
+        List<LlmMessage> contents,
+        double temperature,
+        int maxOutputTokens,
+        boolean jsonResponse) {
+
+    public static LlmRequest prompt(LlmOperation operation, String prompt, int maxOutputTokens, boolean jsonResponse) {
+        return new LlmRequest(operation, null, List.of(LlmMessage.user(prompt)), 0.7, maxOutputTokens, jsonResponse);
+    }
+}
@@ -0,0 +1,20 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * La respuesta del modelo no tiene el formato esperado (sobre inválido, sin
+ * texto o sin JSON enlazable).
+ */
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class LlmResponseFormatException extends RuntimeException {
+
+    public LlmResponseFormatException(String message) {
+        super(message);
+    }
+
+    public LlmResponseFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
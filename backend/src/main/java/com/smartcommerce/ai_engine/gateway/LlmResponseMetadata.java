@@ -0,0 +1,19 @@
+package com.smartcommerce.ai_engine.gateway;
+
+/**
+ * Datos de uso de una respuesta generateContent: {@code usageMetadata} y el
+ * {@code finishReason} del primer candidato. Cualquiera puede ser null si el
+ * proveedor no lo informó (p.ej. en los eventos intermedios de un stream).
+ */
+public record LlmResponseMetadata(
+        Integer promptTokens,
+        Integer outputTokens,
+        Integer totalTokens,
+        String finishReason) {
+
+    static final LlmResponseMetadata EMPTY = new LlmResponseMetadata(null, null, null, null);
+
+    public boolean hasUsage() {
+        return promptTokens != null || outputTokens != null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas de las operaciones de IA, por operación y fase:
+ * <ul>
+ * <li>{@code ai.llm.phase}: histograma de duración de {@code context} (armado
+ * del contexto), {@code upstream} (cada llamada al proveedor) y
+ * {@code parse} (decodificación de la respuesta), con el resultado.</li>
+ * <li>{@code ai.llm.tokens}: contadores de tokens de prompt y salida según
+ * {@code usageMetadata}, y {@code ai.llm.call.tokens} con su distribución
+ * por llamada.</li>
+ * <li>{@code ai.llm.prompt.chars} y {@code ai.llm.response.bytes}: tamaño
+ * enviado y recibido.</li>
+ * <li>{@code ai.llm.finish}: motivo de corte; {@code MAX_TOKENS} indica que
+ * {@code maxOutputTokens} quedó corto.</li>
+ * </ul>
+ */
+public class LlmTelemetry {
+
+    public static final String CONTEXT = "context";
+    public static final String UPSTREAM = "upstream";
+    public static final String PARSE = "parse";
+
+    private final MeterRegistry meterRegistry;
+
+    public LlmTelemetry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ejecuta y mide una fase de la operación; las excepciones se registran con
+     * {@code outcome=error} y se propagan.
+     */
+    public <T> T time(LlmOperation operation, String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            phaseTimer(operation, phase, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Variante para fases sin resultado (p.ej. {@link LlmGateway#stream}).
+     */
+    public void time(LlmOperation operation, String phase, Runnable work) {
+        time(operation, phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    void recordRequest(LlmRequest request) {
+        int chars = request.systemInstruction() != null ? request.systemInstruction().length() : 0;
+        for (LlmMessage message : request.contents()) {
+            chars += message.text().length();
+        }
+        summary("ai.llm.prompt.chars", "Tamaño del prompt enviado en caracteres", request.operation().name())
+                .record(chars);
+    }
+
+    void recordResponse(LlmOperation operation, int bytes, LlmResponseMetadata metadata) {
+        summary("ai.llm.response.bytes", "Tamaño de la respuesta del proveedor", operation.name()).record(bytes);
+        if (metadata.promptTokens() != null) {
+            recordTokens(operation, "prompt", metadata.promptTokens());
+        }
+        if (metadata.outputTokens() != null) {
+            recordTokens(operation, "output", metadata.outputTokens());
+        }
+        if (metadata.finishReason() != null) {
+            meterRegistry.counter("ai.llm.finish", "operation", operation.name(), "reason", metadata.finishReason())
+                    .increment();
+        }
+    }
+
+    private void recordTokens(LlmOperation operation, String type, int tokens) {
+        meterRegistry.counter("ai.llm.tokens", "operation", operation.name(), "type", type).increment(tokens);
+        DistributionSummary.builder("ai.llm.call.tokens")
+                .description("Tokens por llamada según usageMetadata")
+                .tags("operation", operation.name(), "type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(tokens);
+    }
+
+    private Timer phaseTimer(LlmOperation operation, String phase, String outcome) {
+        return Timer.builder("ai.llm.phase")
+                .description("Duración de cada fase de una operación de IA")
+                .tags("operation", operation.name(), "phase", phase, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary summary(String name, String description, String operation) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,137 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket con cola de espera por prioridad. Se recarga de forma continua
+ * a {@code refillPerMinute} tokens por minuto hasta {@code capacity}; cuando no
+ * hay tokens los llamadores esperan en una cola ordenada por
+ * {@link LlmPriority} (y por llegada dentro de la misma prioridad) y solo la
+ * cabeza de la cola puede tomar el siguiente token.
+ *
+ * La espera usa un {@link ReentrantLock} con una condición por llamador, así
+ * los hilos virtuales bloqueados no fijan su hilo portador.
+ */
+class PriorityTokenBucket {
+
+    enum Outcome {
+        GRANTED,
+        QUEUE_FULL,
+        TIMED_OUT
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxQueued;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+
+    private double tokens;
+    private long refilledAt;
+    private long sequence;
+
+    PriorityTokenBucket(int refillPerMinute, int capacity, int maxQueued) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = Math.max(1, refillPerMinute) / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxQueued = maxQueued;
+        this.tokens = this.capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Toma un token, esperando como máximo {@code maxWait} detrás de los
+     * llamadores de igual o mayor prioridad.
+     */
+    Outcome acquire(LlmPriority priority, Duration maxWait) throws InterruptedException {
+        lock.lock();
+        try {
+            refill();
+            if (waiters.isEmpty() && tokens >= 1) {
+                tokens -= 1;
+                return Outcome.GRANTED;
+            }
+            if (waiters.size() >= maxQueued) {
+                return Outcome.QUEUE_FULL;
+            }
+
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            waiters.add(waiter);
+            long deadline = System.nanoTime() + maxWait.toNanos();
+            boolean granted = false;
+            try {
+                while (true) {
+                    refill();
+                    boolean head = waiters.peek() == waiter;
+                    if (head && tokens >= 1) {
+                        tokens -= 1;
+                        waiters.poll();
+                        granted = true;
+                        return Outcome.GRANTED;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return Outcome.TIMED_OUT;
+                    }
+                    // La cabeza duerme hasta el próximo token; el resto, hasta que lo despierten
+                    waiter.ready.awaitNanos(head ? Math.min(remaining, nanosUntilNextToken()) : remaining);
+                }
+            } finally {
+                if (!granted) {
+                    waiters.remove(waiter);
+                }
+                Waiter next = waiters.peek();
+                if (next != null) {
+                    next.ready.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve un token tomado con {@link #acquire} que no llegó a usarse
+     * (sin pasar de la capacidad) y despierta a la cabeza de la cola.
+     */
+    void release() {
+        lock.lock();
+        try {
+            refill();
+            tokens = Math.min(capacity, tokens + 1);
+            Waiter next = waiters.peek();
+            if (next != null) {
+                next.ready.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private long nanosUntilNextToken() {
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    private record Waiter(LlmPriority priority, long sequence, Condition ready) {
+    }
+}
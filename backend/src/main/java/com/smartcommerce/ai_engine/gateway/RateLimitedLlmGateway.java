@@ -0,0 +1,124 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Decorador que reparte la cuota del proveedor entre usuarios. Cada usuario
+ * autenticado tiene su propio token bucket (las llamadas sin usuario, como las
+ * tareas programadas, comparten el tenant {@code system}) y además todas pasan
+ * por un bucket global que acota el total enviado al proveedor.
+ *
+ * Sin tokens disponibles la llamada espera en cola según su
+ * {@link LlmPriority} hasta el máximo configurado para esa prioridad; recién
+ * entonces se rechaza con {@link LlmRateLimitedException}. Va por fuera del
+ * decorador de resiliencia para que la espera no ocupe cupos del bulkhead.
+ */
+@Slf4j
+public class RateLimitedLlmGateway implements LlmGateway {
+
+    static final String SYSTEM_TENANT = "system";
+
+    private final LlmGateway delegate;
+    private final LlmGatewayProperties.RateLimit properties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, PriorityTokenBucket> tenantBuckets;
+    private final PriorityTokenBucket globalBucket;
+
+    public RateLimitedLlmGateway(LlmGateway delegate, LlmGatewayProperties.RateLimit properties,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        // Un bucket inactivo está lleno: descartarlo equivale a conservarlo
+        this.tenantBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.idleTenantExpiry())
+                .build();
+        this.globalBucket = new PriorityTokenBucket(properties.globalRequestsPerMinute(), properties.globalBurst(),
+                properties.maxQueuedGlobal());
+
+        Gauge.builder("ai.llm.ratelimit.global.queued", globalBucket, PriorityTokenBucket::queued)
+                .description("Llamadas al LLM esperando cupo global")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generate(LlmRequest request) {
+        acquire(request.operation());
+        return delegate.generate(request);
+    }
+
+    @Override
+    public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+        acquire(request.operation());
+        delegate.stream(request, onEvent, cancelled);
+    }
+
+    private void acquire(LlmOperation operation) {
+        String tenant = currentTenant();
+        LlmPriority priority = LlmCallContext.priorityFor(operation);
+        PriorityTokenBucket tenantBucket = tenantBuckets.get(tenant, key -> new PriorityTokenBucket(
+                properties.requestsPerMinute(), properties.burst(), properties.maxQueuedPerTenant()));
+
+        long start = System.nanoTime();
+        checkOutcome(tenant, priority, "tenant", acquire(tenantBucket, priority));
+        // Si el bucket global no da cupo, la llamada no sale: el token del
+        // usuario se devuelve para que el rechazo global no consuma su cuota
+        PriorityTokenBucket.Outcome global;
+        try {
+            global = acquire(globalBucket, priority);
+        } catch (RuntimeException e) {
+            tenantBucket.release();
+            throw e;
+        }
+        if (global != PriorityTokenBucket.Outcome.GRANTED) {
+            tenantBucket.release();
+        }
+        checkOutcome(tenant, priority, "global", global);
+        Timer.builder("ai.llm.ratelimit.wait")
+                .description("Espera por cupo de IA antes de llamar al proveedor")
+                .tags("tenant", tenant, "priority", priority.name())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private PriorityTokenBucket.Outcome acquire(PriorityTokenBucket bucket, LlmPriority priority) {
+        try {
+            return bucket.acquire(priority, properties.maxWaitFor(priority));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrumpido esperando cuota de IA", e);
+        }
+    }
+
+    private void checkOutcome(String tenant, LlmPriority priority, String scope, PriorityTokenBucket.Outcome outcome) {
+        if (outcome == PriorityTokenBucket.Outcome.GRANTED) {
+            return;
+        }
+        String reason = outcome == PriorityTokenBucket.Outcome.QUEUE_FULL ? "queue_full" : "timeout";
+        log.warn("Cuota de IA agotada para {} ({}, {}): {}", tenant, priority, scope, reason);
+        meterRegistry.counter("ai.llm.ratelimit.rejected", "tenant", tenant, "priority", priority.name(),
+                "scope", scope, "reason", reason).increment();
+        throw new LlmRateLimitedException("Se alcanzó el límite de consultas de IA, reintente en unos segundos");
+    }
+
+    private static String currentTenant() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return SYSTEM_TENANT;
+        }
+        return authentication.getName();
+    }
+}
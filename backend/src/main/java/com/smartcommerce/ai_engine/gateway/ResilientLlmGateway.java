@@ -0,0 +1,190 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Clock;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Decorador que protege al resto de la aplicación de un proveedor lento o
+ * caído:
+ * <ul>
+ * <li>Bulkhead: semáforo que limita las llamadas simultáneas; si no hay cupo
+ * dentro de {@code bulkheadMaxWait} se rechaza en lugar de bloquear hilos.</li>
+ * <li>Circuit breaker: corta las llamadas tras fallos consecutivos y prueba con
+ * una sola llamada al pasar a semiabierto.</li>
+ * <li>Reintentos con backoff exponencial y jitter completo ante 429/503,
+ * respetando {@code Retry-After} cuando viene informado.</li>
+ * </ul>
+ */
+@Slf4j
+public class ResilientLlmGateway implements LlmGateway {
+
+    private final LlmGateway delegate;
+    private final LlmGatewayProperties.Resilience properties;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Sleeper sleeper;
+
+    public ResilientLlmGateway(LlmGateway delegate, LlmGatewayProperties.Resilience properties,
+            MeterRegistry meterRegistry) {
+        this(delegate, properties, meterRegistry, Clock.systemUTC(), Thread::sleep);
+    }
+
+    /**
+     * Con reloj (para el circuit breaker) y espera entre reintentos
+     * reemplazables, para las pruebas.
+     */
+    ResilientLlmGateway(LlmGateway delegate, LlmGatewayProperties.Resilience properties,
+            MeterRegistry meterRegistry, Clock clock, Sleeper sleeper) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.bulkhead = new Semaphore(properties.maxConcurrentCalls(), true);
+        this.circuitBreaker = new CircuitBreaker(properties.failureThreshold(), properties.openDuration(), clock);
+        this.meterRegistry = meterRegistry;
+        this.sleeper = sleeper;
+
+        Gauge.builder("ai.llm.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Cupos libres para llamadas al LLM")
+                .register(meterRegistry);
+        Gauge.builder("ai.llm.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("Estado del circuito: 0=cerrado, 1=abierto, 2=semiabierto")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generate(LlmRequest request) {
+        return withResilience(request.operation(), () -> delegate.generate(request), () -> false);
+    }
+
+    @Override
+    public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+        withResilience(request.operation(), () -> {
+            delegate.stream(request, onEvent, cancelled);
+            return null;
+        }, cancelled);
+    }
+
+    private <T> T withResilience(LlmOperation operation, Supplier<T> call, BooleanSupplier cancelled) {
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            if (!circuitBreaker.tryAcquirePermission()) {
+                reject(operation, "circuit_open");
+                throw new LlmUnavailableException("El servicio de IA no está disponible temporalmente (circuito abierto)");
+            }
+
+            RestClientResponseException retryable;
+            try {
+                T result = callInBulkhead(operation, call);
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (RestClientResponseException e) {
+                if (isRetryable(e)) {
+                    circuitBreaker.onFailure();
+                    retryable = e;
+                } else if (e.getStatusCode().is5xxServerError()) {
+                    circuitBreaker.onFailure();
+                    throw e;
+                } else {
+                    circuitBreaker.onIgnored();
+                    throw e;
+                }
+            } catch (LlmUnavailableException e) {
+                circuitBreaker.onIgnored();
+                throw e;
+            } catch (RuntimeException e) {
+                // Una desconexión del cliente no dice nada sobre la salud del proveedor
+                if (cancelled.getAsBoolean()) {
+                    circuitBreaker.onIgnored();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+                throw e;
+            }
+
+            if (attempt >= properties.maxAttempts()) {
+                throw new LlmUnavailableException("El servicio de IA respondió " + retryable.getStatusCode().value()
+                        + " tras " + attempt + " intentos", retryable);
+            }
+            meterRegistry.counter("ai.llm.retries", "operation", operation.name(),
+                    "status", String.valueOf(retryable.getStatusCode().value())).increment();
+            sleep(backoff(attempt, retryable));
+        }
+    }
+
+    private <T> T callInBulkhead(LlmOperation operation, Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(properties.bulkheadMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrumpido esperando cupo para el LLM", e);
+        }
+        if (!acquired) {
+            reject(operation, "bulkhead_full");
+            throw new LlmUnavailableException("Demasiadas consultas de IA en curso, reintente en unos segundos");
+        }
+        try {
+            return call.get();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private boolean isRetryable(RestClientResponseException e) {
+        int status = e.getStatusCode().value();
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Backoff exponencial con jitter completo: un valor aleatorio entre 0 y
+     * {@code min(maxBackoff, initialBackoff * 2^(attempt-1))}. Si el proveedor
+     * informa Retry-After se espera al menos ese tiempo (acotado a maxBackoff).
+     */
+    private long backoff(int attempt, RestClientResponseException e) {
+        long maxMillis = properties.maxBackoff().toMillis();
+        long ceiling = Math.min(maxMillis, properties.initialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+        HttpHeaders headers = e.getResponseHeaders();
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter != null) {
+            try {
+                delay = Math.max(delay, Math.min(maxMillis, Long.parseLong(retryAfter.trim()) * 1000));
+            } catch (NumberFormatException ignored) {
+                // Retry-After en formato fecha: nos quedamos con el backoff calculado
+            }
+        }
+        return delay;
+    }
+
+    private void sleep(long millis) {
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrumpido durante el backoff", e);
+        }
+    }
+
+    private void reject(LlmOperation operation, String reason) {
+        log.warn("Llamada a IA rechazada ({}): {}", operation, reason);
+        meterRegistry.counter("ai.llm.rejected", "operation", operation.name(), "reason", reason).increment();
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gateway local sin red para pruebas de carga: responde con un sobre
+ * generateContent válido y contenido fijo por operación tras una latencia
+ * configurable. Se activa con {@code app.ai.gateway.provider=stub}.
+ */
+public class StubLlmGateway implements LlmGateway {
+
+    private static final String ANALYSIS_JSON = """
+            {"resumen_ejecutivo": "Cliente estable con compras recurrentes (respuesta stub).",
+             "score_oportunidad": 7,
+             "alertas": ["Respuesta generada por el gateway stub"],
+             "accion_recomendada": "Proponer un contrato anual con descuento por volumen."}""";
+    private static final String SIMULATION_JSON = """
+            {"acceptanceProbability": 65, "financialImpact": "Rentable",
+             "explanation": "Respuesta stub: el descuento se compensa con el volumen comprometido."}""";
+    private static final String EMAIL_JSON = """
+            {"subject": "Propuesta comercial (stub)",
+             "body": "Estimado cliente, le acercamos una propuesta basada en su historial de compras."}""";
+    private static final String SWEEP_ITEM_JSON = "{\"discountPercentage\": %s, \"contractDurationMonths\": %s, "
+            + "\"acceptanceProbability\": 60, \"financialImpact\": \"Rentable\", "
+            + "\"explanation\": \"Respuesta stub para el escenario %d.\"}";
+    private static final Pattern SWEEP_SCENARIO = Pattern.compile("(\\d+)\\) Descuento (\\d+)%, Contrato (\\d+) meses");
+    private static final String CHAT_TEXT = "Respuesta stub: el cliente concentra sus compras en pocos productos.";
+
+    private final ObjectMapper objectMapper;
+    private final Duration latency;
+
+    public StubLlmGateway(ObjectMapper objectMapper, Duration latency) {
+        this.objectMapper = objectMapper;
+        this.latency = latency;
+    }
+
+    @Override
+    public String generate(LlmRequest request) {
+        pause(latency);
+        if (request.operation() == LlmOperation.SIMULATE_SWEEP) {
+            return envelope(sweepText(request));
+        }
+        return envelope(textFor(request.operation()));
+    }
+
+    @Override
+    public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+        String[] words = textFor(request.operation()).split(" ");
+        Duration perChunk = latency.dividedBy(Math.max(1, words.length));
+        for (int i = 0; i < words.length && !cancelled.getAsBoolean(); i++) {
+            pause(perChunk);
+            onEvent.accept(envelope(i == 0 ? words[i] : " " + words[i]));
+        }
+    }
+
+    private String textFor(LlmOperation operation) {
+        return switch (operation) {
+            case ANALYZE_SALES -> ANALYSIS_JSON;
+            case SIMULATE, SIMULATE_SWEEP -> SIMULATION_JSON;
+            case DRAFT_EMAIL -> EMAIL_JSON;
+            case CHAT -> CHAT_TEXT;
+        };
+    }
+
+    /**
+     * Un elemento por escenario listado en el prompt, en el mismo orden y
+     * repitiendo su descuento y plazo, como se le pide al modelo.
+     */
+    private String sweepText(LlmRequest request) {
+        String prompt = request.contents().get(request.contents().size() - 1).text();
+        Matcher matcher = SWEEP_SCENARIO.matcher(prompt);
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        while (matcher.find()) {
+            items.add(SWEEP_ITEM_JSON.formatted(matcher.group(2), matcher.group(3),
+                    Integer.parseInt(matcher.group(1))));
+        }
+        return items.toString();
+    }
+
+    private String envelope(String text) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "candidates", List.of(Map.of(
+                            "content", Map.of(
+                                    "role", "model",
+                                    "parts", List.of(Map.of("text", text))),
+                            "finishReason", "STOP"))));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void pause(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrumpido en el gateway stub", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.smartcommerce.ai_engine.gateway.stub;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Sorteo de latencias según {@link LlmStubProperties.Latency}. La log-normal
+ * se parametriza por mediana y p99: {@code mu = ln(mediana)} y
+ * {@code sigma = ln(p99 / mediana) / z(0.99)}.
+ */
+class LatencyModel {
+
+    private static final double Z_99 = 2.326;
+
+    private final LlmStubProperties.Latency properties;
+    private final double mu;
+    private final double sigma;
+
+    LatencyModel(LlmStubProperties.Latency properties) {
+        this.properties = properties;
+        double median = Math.max(1, properties.median().toMillis());
+        double p99 = Math.max(median, properties.p99().toMillis());
+        this.mu = Math.log(median);
+        this.sigma = Math.log(p99 / median) / Z_99;
+    }
+
+    Duration next(Random random) {
+        long min = properties.min().toMillis();
+        long max = Math.max(min, properties.max().toMillis());
+        return switch (properties.distribution()) {
+            case FIXED -> properties.median();
+            case UNIFORM -> Duration.ofMillis(min + (long) (random.nextDouble() * (max - min)));
+            case LOG_NORMAL -> Duration.ofMillis(
+                    Math.min(max, Math.max(min, Math.round(Math.exp(mu + sigma * random.nextGaussian())))));
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartcommerce.ai_engine.gateway.stub;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuración del servidor stub de Gemini ({@code app.ai.stub-server.*}).
+ *
+ * @param mode       {@code synthesize} genera respuestas, {@code replay} sirve
+ *                   las grabadas (y genera ante un faltante), {@code record}
+ *                   reenvía a {@code upstreamBaseUrl} y graba cada respuesta
+ * @param recordings directorio de grabaciones, un archivo por petición
+ * @param seed       semilla de la secuencia de latencias y errores
+ */
+@ConfigurationProperties(prefix = "app.ai.stub-server")
+public record LlmStubProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("127.0.0.1") String bindAddress,
+        @DefaultValue("8089") int port,
+        @DefaultValue("synthesize") Mode mode,
+        @DefaultValue("llm-recordings") Path recordings,
+        @DefaultValue("https://generativelanguage.googleapis.com/v1beta") String upstreamBaseUrl,
+        @DefaultValue("42") long seed,
+        @DefaultValue Latency latency,
+        @DefaultValue Errors errors) {
+
+    public enum Mode {
+        SYNTHESIZE,
+        REPLAY,
+        RECORD
+    }
+
+    public enum Distribution {
+        FIXED,
+        UNIFORM,
+        LOG_NORMAL
+    }
+
+    /**
+     * Latencia por respuesta. {@code fixed} usa {@code median};
+     * {@code uniform} sortea entre {@code min} y {@code max};
+     * {@code log-normal} se ajusta a {@code median} y {@code p99} y se acota a
+     * {@code [min, max]}.
+     */
+    public record Latency(
+            @DefaultValue("log-normal") Distribution distribution,
+            @DefaultValue("800ms") Duration median,
+            @DefaultValue("4s") Duration p99,
+            @DefaultValue("100ms") Duration min,
+            @DefaultValue("20s") Duration max) {
+    }
+
+    /**
+     * Probabilidad (0 a 1) de cada falla inyectada. {@code hang} demora la
+     * respuesta {@code hangDuration} para ejercitar los timeouts de lectura;
+     * {@code malformed} responde 200 con el JSON del texto truncado.
+     */
+    public record Errors(
+            @DefaultValue("0") double rateLimited,
+            @DefaultValue("0") double unavailable,
+            @DefaultValue("0") double serverError,
+            @DefaultValue("0") double malformed,
+            @DefaultValue("0") double hang,
+            @DefaultValue("90s") Duration hangDuration,
+            @DefaultValue("2") int retryAfterSeconds) {
+    }
+}
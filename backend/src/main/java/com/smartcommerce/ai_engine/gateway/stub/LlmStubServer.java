@@ -0,0 +1,318 @@
+package com.smartcommerce.ai_engine.gateway.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.kernel.digest.Sha256;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP local que habla el formato generateContent /
+ * streamGenerateContent de Gemini, para pruebas de carga de la IA sin red ni
+ * costo. A diferencia de {@code StubLlmGateway}, la aplicación usa el gateway
+ * real (cliente HTTP, timeouts, reintentos y decodificación) apuntando su
+ * {@code base-url} a este servidor.
+ *
+ * Según {@link LlmStubProperties.Mode} genera respuestas deterministas,
+ * reproduce grabaciones (una por petición, identificada por el hash del
+ * cuerpo) o reenvía al proveedor real y graba lo que responde. En los modos
+ * sin proveedor se aplica la latencia sorteada y la inyección de errores
+ * configuradas.
+ */
+@Slf4j
+public class LlmStubServer {
+
+    private static final String GENERATE = ":generateContent";
+    private static final String STREAM = ":streamGenerateContent";
+    private static final String API_KEY_HEADER = "x-goog-api-key";
+    private static final int STREAM_CHUNKS = 8;
+
+    private enum Fault {
+        NONE,
+        RATE_LIMITED,
+        UNAVAILABLE,
+        SERVER_ERROR,
+        MALFORMED,
+        HANG
+    }
+
+    private final LlmStubProperties properties;
+    private final ObjectMapper objectMapper;
+    private final StubResponseSynthesizer synthesizer;
+    private final LatencyModel latency;
+    private final Random random;
+    private final MeterRegistry meterRegistry;
+    private HttpClient upstream;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public LlmStubServer(LlmStubProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.synthesizer = new StubResponseSynthesizer(objectMapper);
+        this.latency = new LatencyModel(properties.latency());
+        this.random = new Random(properties.seed());
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void start() throws IOException {
+        if (properties.mode() != LlmStubProperties.Mode.SYNTHESIZE) {
+            Files.createDirectories(properties.recordings());
+        }
+        if (properties.mode() == LlmStubProperties.Mode.RECORD) {
+            upstream = HttpClient.newHttpClient();
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(properties.bindAddress(), properties.port()), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.warn("Servidor stub de Gemini escuchando en {}:{} (modo {})", properties.bindAddress(), port(),
+                properties.mode());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Puerto efectivo; útil cuando se configura 0 para tomar uno libre.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            boolean stream = path.endsWith(STREAM);
+            if (!"POST".equals(exchange.getRequestMethod()) || !(stream || path.endsWith(GENERATE))) {
+                sendError(exchange, 404, "NOT_FOUND", "Ruta no soportada por el stub: " + path);
+                return;
+            }
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String key = recordingKey(stream, body);
+
+            if (properties.mode() == LlmStubProperties.Mode.RECORD) {
+                record(exchange, body, stream, key);
+                return;
+            }
+
+            Fault fault = nextFault();
+            meterRegistry.counter("ai.llm.stub.faults", "fault", fault.name()).increment();
+            switch (fault) {
+                case RATE_LIMITED -> {
+                    exchange.getResponseHeaders().set("Retry-After",
+                            String.valueOf(properties.errors().retryAfterSeconds()));
+                    sendError(exchange, 429, "RESOURCE_EXHAUSTED", "Cuota agotada (inyectado por el stub)");
+                    return;
+                }
+                case UNAVAILABLE -> {
+                    sendError(exchange, 503, "UNAVAILABLE", "Modelo sobrecargado (inyectado por el stub)");
+                    return;
+                }
+                case SERVER_ERROR -> {
+                    sendError(exchange, 500, "INTERNAL", "Error interno (inyectado por el stub)");
+                    return;
+                }
+                case HANG -> sleep(properties.errors().hangDuration());
+                default -> {
+                }
+            }
+
+            Duration delay = latency.next(random);
+            List<String> events = fault != Fault.MALFORMED && properties.mode() == LlmStubProperties.Mode.REPLAY
+                    ? replay(key, stream)
+                    : null;
+            String source = events != null ? "replayed" : "synthesized";
+            if (events == null) {
+                events = synthesize(body, stream, fault == Fault.MALFORMED);
+            }
+            meterRegistry.counter("ai.llm.stub.requests", "source", source, "stream", String.valueOf(stream))
+                    .increment();
+
+            if (stream) {
+                sendStream(exchange, events, delay);
+            } else {
+                sleep(delay);
+                send(exchange, 200, "application/json", events.get(0));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Fault nextFault() {
+        LlmStubProperties.Errors errors = properties.errors();
+        double draw = random.nextDouble();
+        double[] thresholds = {errors.rateLimited(), errors.unavailable(), errors.serverError(), errors.malformed(),
+                errors.hang()};
+        Fault[] faults = {Fault.RATE_LIMITED, Fault.UNAVAILABLE, Fault.SERVER_ERROR, Fault.MALFORMED, Fault.HANG};
+        double cumulative = 0;
+        for (int i = 0; i < faults.length; i++) {
+            cumulative += thresholds[i];
+            if (draw < cumulative) {
+                return faults[i];
+            }
+        }
+        return Fault.NONE;
+    }
+
+    /**
+     * Respuesta generada: un sobre para generateContent o, en streaming, el
+     * texto repartido en varios eventos con usageMetadata en el último.
+     * {@code malformed} corta el texto a la mitad.
+     */
+    private List<String> synthesize(byte[] body, boolean stream, boolean malformed) throws IOException {
+        JsonNode request = objectMapper.readTree(body);
+        String prompt = StubResponseSynthesizer.promptText(request);
+        StubResponseSynthesizer.Kind kind = StubResponseSynthesizer.classify(request, prompt);
+        String text = synthesizer.text(kind, prompt, seedOf(body));
+        if (malformed) {
+            text = text.substring(0, text.length() / 2);
+        }
+        int promptTokens = StubResponseSynthesizer.estimateTokens(prompt);
+        int outputTokens = StubResponseSynthesizer.estimateTokens(text);
+        if (!stream) {
+            return List.of(synthesizer.envelope(text, promptTokens, outputTokens, true));
+        }
+
+        List<String> events = new ArrayList<>(STREAM_CHUNKS);
+        int chunk = Math.max(1, (text.length() + STREAM_CHUNKS - 1) / STREAM_CHUNKS);
+        for (int start = 0; start < text.length(); start += chunk) {
+            int end = Math.min(text.length(), start + chunk);
+            events.add(synthesizer.envelope(text.substring(start, end), promptTokens, outputTokens,
+                    end == text.length()));
+        }
+        return events;
+    }
+
+    /**
+     * Grabación de la petición, o null si no existe (se genera en su lugar).
+     */
+    private List<String> replay(String key, boolean stream) throws IOException {
+        Path file = properties.recordings().resolve(key);
+        if (!Files.exists(file)) {
+            log.debug("Sin grabación para {}, se genera la respuesta", key);
+            meterRegistry.counter("ai.llm.stub.replay.misses").increment();
+            return null;
+        }
+        String recorded = Files.readString(file);
+        if (!stream) {
+            return List.of(recorded);
+        }
+        List<String> events = new ArrayList<>();
+        for (String line : recorded.split("\n")) {
+            if (line.startsWith("data:")) {
+                events.add(line.substring(5).trim());
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Reenvía al proveedor real con la misma clave de API y graba la
+     * respuesta si fue exitosa.
+     */
+    private void record(HttpExchange exchange, byte[] body, boolean stream, String key) throws IOException {
+        URI uri = exchange.getRequestURI();
+        String target = properties.upstreamBaseUrl() + uri.getPath()
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(target))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        String apiKey = exchange.getRequestHeaders().getFirst(API_KEY_HEADER);
+        if (apiKey != null) {
+            request.header(API_KEY_HEADER, apiKey);
+        }
+
+        HttpResponse<String> response;
+        try {
+            response = upstream.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "UNAVAILABLE", "Interrumpido reenviando al proveedor");
+            return;
+        }
+        if (response.statusCode() == 200) {
+            Files.writeString(properties.recordings().resolve(key), response.body());
+            meterRegistry.counter("ai.llm.stub.requests", "source", "recorded", "stream", String.valueOf(stream))
+                    .increment();
+        } else {
+            log.warn("El proveedor respondió {} al grabar {}", response.statusCode(), key);
+        }
+        response.headers().firstValue("Retry-After")
+                .ifPresent(value -> exchange.getResponseHeaders().set("Retry-After", value));
+        send(exchange, response.statusCode(), stream ? "text/event-stream" : "application/json", response.body());
+    }
+
+    private void sendStream(HttpExchange exchange, List<String> events, Duration delay) throws IOException {
+        Duration perEvent = delay.dividedBy(Math.max(1, events.size()));
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (String event : events) {
+            sleep(perEvent);
+            out.write(("data: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        meterRegistry.counter("ai.llm.stub.errors", "status", String.valueOf(status)).increment();
+        send(exchange, status, "application/json", objectMapper.writeValueAsString(Map.of(
+                "error", Map.of("code", status, "message", message, "status", code))));
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String recordingKey(boolean stream, byte[] body) {
+        return HexFormat.of().formatHex(Sha256.digest(body)) + (stream ? ".sse" : ".json");
+    }
+
+    private static long seedOf(byte[] body) {
+        byte[] digest = Sha256.digest(body);
+        long seed = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            seed = (seed << 8) | (digest[i] & 0xff);
+        }
+        return seed;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
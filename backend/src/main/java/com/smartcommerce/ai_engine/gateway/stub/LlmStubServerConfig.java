@@ -0,0 +1,24 @@
+package com.smartcommerce.ai_engine.gateway.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Levanta {@link LlmStubServer} dentro de la aplicación cuando
+ * {@code app.ai.stub-server.enabled=true} (perfil {@code llm-stub}).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.ai.stub-server", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(LlmStubProperties.class)
+public class LlmStubServerConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LlmStubServer llmStubServer(LlmStubProperties properties, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        return new LlmStubServer(properties, objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,188 @@
+package com.smartcommerce.ai_engine.gateway.stub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Genera respuestas válidas para los esquemas que espera AiService
+ * (SalesAnalysisResponse, SimulationResponse, arreglo de simulaciones y
+ * EmailDraftResponse) o texto libre para el chat. La operación se deduce del
+ * prompt y el contenido se sortea con una semilla derivada de la petición, así
+ * la misma petición produce siempre la misma respuesta.
+ */
+class StubResponseSynthesizer {
+
+    enum Kind {
+        ANALYSIS,
+        SIMULATION,
+        SWEEP,
+        EMAIL,
+        CHAT
+    }
+
+    private static final Pattern SWEEP_SCENARIO = Pattern.compile("\\d+\\) Descuento (\\d+)%, Contrato (\\d+) meses");
+
+    private static final List<String> SUMMARIES = List.of(
+            "Cliente estable con compras recurrentes y ticket promedio en alza.",
+            "Compras concentradas en pocos productos, con caída de frecuencia en el último trimestre.",
+            "Cliente nuevo con volumen creciente; todavía no hay patrón estacional claro.",
+            "Alto gasto histórico pero sin órdenes recientes: riesgo de abandono.");
+    private static final List<String> ALERTS = List.of(
+            "Caída en la frecuencia de compra",
+            "Dependencia de un único producto",
+            "Ticket promedio por debajo del segmento",
+            "Más de 60 días sin órdenes",
+            "Crecimiento sostenido: revisar condiciones de crédito");
+    private static final List<String> ACTIONS = List.of(
+            "Proponer un contrato anual con descuento por volumen.",
+            "Ofrecer productos complementarios de la categoría principal.",
+            "Agendar una llamada de seguimiento con el responsable de compras.",
+            "Enviar una promoción de reactivación por tiempo limitado.");
+    private static final List<String> IMPACTS = List.of("Rentable", "Riesgoso", "Neutral");
+    private static final List<String> CHAT_ANSWERS = List.of(
+            "El cliente concentra sus compras en pocos productos y compra con regularidad mensual.",
+            "Las órdenes del período muestran un ticket promedio estable y sin alertas de stock.",
+            "Según los datos, el producto más comprado explica más de la mitad del gasto.");
+
+    private final ObjectMapper objectMapper;
+
+    StubResponseSynthesizer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Texto completo del prompt: systemInstruction más todos los contents.
+     */
+    static String promptText(JsonNode request) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : request.path("systemInstruction").path("parts")) {
+            text.append(part.path("text").asText()).append('\n');
+        }
+        for (JsonNode content : request.path("contents")) {
+            for (JsonNode part : content.path("parts")) {
+                text.append(part.path("text").asText()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    static Kind classify(JsonNode request, String prompt) {
+        boolean json = request.path("generationConfig").has("response_mime_type");
+        if (!json) {
+            return Kind.CHAT;
+        }
+        if (prompt.contains("resumen_ejecutivo")) {
+            return Kind.ANALYSIS;
+        }
+        if (SWEEP_SCENARIO.matcher(prompt).find()) {
+            return Kind.SWEEP;
+        }
+        if (prompt.contains("acceptanceProbability")) {
+            return Kind.SIMULATION;
+        }
+        return Kind.EMAIL;
+    }
+
+    String text(Kind kind, String prompt, long seed) {
+        Random random = new Random(seed);
+        return switch (kind) {
+            case ANALYSIS -> json(analysis(random));
+            case SIMULATION -> json(simulation(random, 1));
+            case SWEEP -> json(sweep(random, prompt));
+            case EMAIL -> json(Map.of(
+                    "subject", "Propuesta comercial para " + pick(random, List.of("el próximo trimestre",
+                            "su reposición mensual", "su cuenta")),
+                    "body", "Estimado cliente, a partir de su historial de compras le acercamos una propuesta: "
+                            + pick(random, ACTIONS)));
+            case CHAT -> pick(random, CHAT_ANSWERS);
+        };
+    }
+
+    /**
+     * Sobre generateContent con el texto dado. {@code finished} agrega
+     * finishReason y usageMetadata, como el último evento de un stream.
+     */
+    String envelope(String text, int promptTokens, int outputTokens, boolean finished) {
+        Map<String, Object> candidate = new LinkedHashMap<>();
+        candidate.put("content", Map.of("role", "model", "parts", List.of(Map.of("text", text))));
+        if (finished) {
+            candidate.put("finishReason", "STOP");
+        }
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("candidates", List.of(candidate));
+        if (finished) {
+            envelope.put("usageMetadata", Map.of(
+                    "promptTokenCount", promptTokens,
+                    "candidatesTokenCount", outputTokens,
+                    "totalTokenCount", promptTokens + outputTokens));
+        }
+        return json(envelope);
+    }
+
+    /**
+     * Estimación de tokens de Gemini: alrededor de cuatro caracteres por token.
+     */
+    static int estimateTokens(String text) {
+        return Math.max(1, text.length() / 4);
+    }
+
+    private Map<String, Object> analysis(Random random) {
+        List<String> alerts = new ArrayList<>();
+        int alertCount = random.nextInt(4);
+        for (int i = 0; i < alertCount; i++) {
+            alerts.add(ALERTS.get((i + random.nextInt(ALERTS.size())) % ALERTS.size()));
+        }
+        Map<String, Object> analysis = new LinkedHashMap<>();
+        analysis.put("resumen_ejecutivo", pick(random, SUMMARIES));
+        analysis.put("score_oportunidad", 1 + random.nextInt(10));
+        analysis.put("alertas", alerts);
+        analysis.put("accion_recomendada", pick(random, ACTIONS));
+        return analysis;
+    }
+
+    private Map<String, Object> simulation(Random random, int scenario) {
+        Map<String, Object> simulation = new LinkedHashMap<>();
+        simulation.put("acceptanceProbability", random.nextInt(101));
+        simulation.put("financialImpact", pick(random, IMPACTS));
+        simulation.put("explanation", "Escenario " + scenario + ": el descuento se compensa con el volumen comprometido.");
+        return simulation;
+    }
+
+    /**
+     * Un elemento por escenario listado en el prompt, en el mismo orden y
+     * repitiendo descuento y plazo, que es como AiService los empareja.
+     */
+    private List<Map<String, Object>> sweep(Random random, String prompt) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        Matcher matcher = SWEEP_SCENARIO.matcher(prompt);
+        while (matcher.find()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("discountPercentage", Integer.parseInt(matcher.group(1)));
+            item.put("contractDurationMonths", Integer.parseInt(matcher.group(2)));
+            item.putAll(simulation(random, items.size() + 1));
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static String pick(Random random, List<String> options) {
+        return options.get(random.nextInt(options.size()));
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.smartcommerce.ai_engine.semantic;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Índice HNSW (Hierarchical Navigable Small World) en memoria para búsqueda
+ * aproximada de vecinos por similitud coseno. Los vectores se normalizan al
+ * insertarlos, así la similitud es un producto punto.
+ *
+ * Las búsquedas comparten un read lock y las inserciones toman el write lock:
+ * el índice está pensado para muchas lecturas y altas esporádicas. Reinsertar
+ * un ID reemplaza su vector y rehace sus enlaces salientes hacia los vecinos
+ * del vector nuevo.
+ */
+public class HnswIndex {
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * @param m              enlaces por nodo en los niveles superiores (el
+     *                       nivel 0 admite el doble)
+     * @param efConstruction candidatos explorados al insertar
+     * @param efSearch       candidatos explorados al buscar (mínimo; se usa k
+     *                       si es mayor)
+     */
+    public HnswIndex(int dimensions, int m, int efConstruction, int efSearch) {
+        this.dimensions = dimensions;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(efConstruction, this.m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(this.m);
+    }
+
+    public record Match(long id, double similarity) {
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(long id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Se esperaban " + dimensions + " dimensiones, llegaron " + vector.length);
+        }
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = positions.get(id);
+            if (existing != null) {
+                Node node = nodes.get(existing);
+                node.vector = normalized;
+                // Con los enlaces del vector anterior el nodo no sería alcanzable
+                // desde su nuevo vecindario
+                link(existing, normalized, node.neighbors.length - 1);
+                return;
+            }
+
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            int index = nodes.size();
+            nodes.add(new Node(id, normalized, level, m, maxM0));
+            positions.put(id, index);
+
+            if (entryPoint < 0) {
+                entryPoint = index;
+                maxLevel = level;
+                return;
+            }
+
+            link(index, normalized, level);
+            if (level > maxLevel) {
+                entryPoint = index;
+                maxLevel = level;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Enlaza el nodo con los {@code m} más similares a {@code vector} en cada
+     * nivel hasta {@code level}. Si el nodo ya tenía enlaces (reinserción) se
+     * usan para buscar y recién después se reemplazan.
+     */
+    private void link(int index, float[] vector, int level) {
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        Node node = nodes.get(index);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l, null);
+            node.sizes[l] = 0;
+            int linked = 0;
+            for (int i = 0; i < candidates.size() && linked < m; i++) {
+                int neighbor = candidates.get(i).node;
+                if (neighbor == index) {
+                    continue;
+                }
+                connect(index, neighbor, l);
+                connect(neighbor, index, l);
+                linked++;
+            }
+            current = candidates.get(0).node;
+        }
+    }
+
+    /**
+     * Los {@code k} vectores más similares a {@code query} cuyo ID cumple
+     * {@code filter}, de mayor a menor similitud. El filtro se aplica durante
+     * el recorrido: los nodos descartados sirven de paso pero no ocupan lugar
+     * en el resultado.
+     */
+    public List<Match> search(float[] query, int k, LongPredicate filter) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+            List<Candidate> candidates = searchLayer(normalized, current, Math.max(efSearch, k), 0, filter);
+            List<Match> matches = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && matches.size() < k; i++) {
+                Candidate candidate = candidates.get(i);
+                matches.add(new Match(nodes.get(candidate.node).id, candidate.similarity));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vector almacenado para el ID, o null si no está en el índice.
+     */
+    public float[] vector(long id) {
+        lock.readLock().lock();
+        try {
+            Integer index = positions.get(id);
+            return index != null ? nodes.get(index).vector : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, nodes.get(current).vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            int[] neighbors = node.neighbors[level];
+            for (int i = 0; i < node.sizes[level]; i++) {
+                float candidate = similarity(query, nodes.get(neighbors[i]).vector);
+                if (candidate > best) {
+                    best = candidate;
+                    current = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Búsqueda por mejor primero en un nivel. Devuelve hasta {@code ef}
+     * candidatos que cumplen el filtro (todos si es null), ordenados de mayor a
+     * menor similitud.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level, LongPredicate filter) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(Candidate::negated));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity));
+
+        Candidate first = new Candidate(start, similarity(query, nodes.get(start).vector));
+        visited.set(start);
+        frontier.add(first);
+        if (accepts(filter, start)) {
+            results.add(first);
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.similarity < results.peek().similarity) {
+                break;
+            }
+            Node node = nodes.get(closest.node);
+            int[] neighbors = node.neighbors[level];
+            for (int i = 0; i < node.sizes[level]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                Candidate candidate = new Candidate(neighbor, similarity(query, nodes.get(neighbor).vector));
+                if (results.size() < ef || candidate.similarity > results.peek().similarity) {
+                    frontier.add(candidate);
+                    if (accepts(filter, neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingDouble(Candidate::negated));
+        return ordered;
+    }
+
+    private boolean accepts(LongPredicate filter, int node) {
+        return filter == null || filter.test(nodes.get(node).id);
+    }
+
+    /**
+     * Agrega el enlace {@code from -> to}. Si la lista está llena se conservan
+     * los vecinos más similares a {@code from}.
+     */
+    private void connect(int from, int to, int level) {
+        Node node = nodes.get(from);
+        int[] neighbors = node.neighbors[level];
+        int size = node.sizes[level];
+        for (int i = 0; i < size; i++) {
+            if (neighbors[i] == to) {
+                return;
+            }
+        }
+        if (size < neighbors.length) {
+            neighbors[size] = to;
+            node.sizes[level]++;
+            return;
+        }
+        int weakest = -1;
+        float weakestSimilarity = similarity(node.vector, nodes.get(to).vector);
+        for (int i = 0; i < size; i++) {
+            float current = similarity(node.vector, nodes.get(neighbors[i]).vector);
+            if (current < weakestSimilarity) {
+                weakestSimilarity = current;
+                weakest = i;
+            }
+        }
+        if (weakest >= 0) {
+            neighbors[weakest] = to;
+        }
+    }
+
+    private float similarity(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    private record Candidate(int node, float similarity) {
+        double negated() {
+            return -similarity;
+        }
+    }
+
+    private static final class Node {
+        final long id;
+        volatile float[] vector;
+        final int[][] neighbors;
+        final int[] sizes;
+
+        Node(long id, float[] vector, int level, int m, int maxM0) {
+            this.id = id;
+            this.vector = vector;
+            this.neighbors = new int[level + 1][];
+            this.sizes = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                neighbors[l] = new int[l == 0 ? maxM0 : m];
+            }
+        }
+    }
+}
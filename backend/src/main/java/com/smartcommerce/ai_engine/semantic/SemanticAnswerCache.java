@@ -0,0 +1,233 @@
+package com.smartcommerce.ai_engine.semantic;
+
+import com.pgvector.PGvector;
+import com.smartcommerce.ai_engine.embedding.TextEmbedder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché semántica de respuestas de chat en {@code ai_vectors.chat_answer_cache}.
+ * Cada pregunta se convierte en embedding y se busca la respuesta previa más
+ * cercana (distancia coseno de pgvector) dentro del mismo alcance: huella de
+ * órdenes + versión de datos. Si la similitud supera el umbral se devuelve esa
+ * respuesta sin llamar al modelo; una nueva orden cambia la versión y deja
+ * las respuestas anteriores fuera de alcance. Solo se comparan vectores del
+ * mismo modelo de embeddings ({@link TextEmbedder#model()}): las filas de
+ * otro proveedor quedan fuera de la búsqueda.
+ *
+ * La búsqueda es exacta dentro del alcance (sin índice aproximado): un
+ * alcance tiene pocas filas y un índice hnsw global filtraría por alcance
+ * después de elegir los vecinos, perdiendo aciertos. {@link #purge()} borra
+ * periódicamente las filas vencidas y las de versiones reemplazadas.
+ *
+ * Cualquier fallo (embedding o base) se registra y la consulta sigue sin
+ * caché: nunca bloquea el chat. Las operaciones corren fuera de la
+ * transacción del llamador para que un error de SQL no la deje abortada.
+ */
+@Component
+@Slf4j
+public class SemanticAnswerCache {
+
+    private static final String LOOKUP_SQL = """
+            SELECT answer, generation_ms, 1 - (embedding <=> ?) AS similarity
+            FROM ai_vectors.chat_answer_cache
+            WHERE scope_key = ? AND model = ? AND created_at > ?
+            ORDER BY embedding <=> ?
+            LIMIT 1
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ai_vectors.chat_answer_cache
+                (scope_key, model, client_id, question, answer, embedding, generation_ms)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Vencidas, o de una versión anterior de la misma huella: si ya hay filas
+     * más nuevas con otra versión, las órdenes cambiaron y la vieja no vuelve.
+     */
+    private static final String PURGE_SQL = """
+            DELETE FROM ai_vectors.chat_answer_cache c
+            WHERE c.created_at <= ?
+               OR EXISTS (SELECT 1 FROM ai_vectors.chat_answer_cache n
+                          WHERE split_part(n.scope_key, ':', 1) = split_part(c.scope_key, ':', 1)
+                            AND n.scope_key <> c.scope_key
+                            AND n.created_at > c.created_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TextEmbedder embedder;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final Duration ttl;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    private final DistributionSummary similarity;
+    private final Timer lookupTime;
+    private final Timer latencySaved;
+
+    public SemanticAnswerCache(JdbcTemplate jdbcTemplate, TextEmbedder embedder, MeterRegistry meterRegistry,
+            @Value("${app.ai.chat.semantic-cache.enabled:true}") boolean enabled,
+            @Value("${app.ai.chat.semantic-cache.similarity-threshold:0.92}") double similarityThreshold,
+            @Value("${app.ai.chat.semantic-cache.ttl:7d}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embedder = embedder;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.ttl = ttl;
+
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.errors = lookups(meterRegistry, "error");
+        this.similarity = DistributionSummary.builder("ai.chat.semantic_cache.similarity")
+                .description("Similitud coseno del vecino más cercano en cada búsqueda")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.lookupTime = Timer.builder("ai.chat.semantic_cache.lookup")
+                .description("Tiempo de embedding + búsqueda por similitud")
+                .register(meterRegistry);
+        this.latencySaved = Timer.builder("ai.chat.semantic_cache.latency.saved")
+                .description("Tiempo de generación original evitado en cada acierto, descontada la búsqueda")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ai.chat.semantic_cache.lookups")
+                .description("Búsquedas en la caché semántica de chat")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Busca una respuesta previa para la pregunta dentro del alcance. El
+     * resultado conserva el embedding para poder guardar la respuesta nueva
+     * sin volver a calcularlo.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Lookup lookup(String scopeKey, Long clientId, String question) {
+        if (!enabled || scopeKey == null || question == null || question.isBlank()) {
+            return Lookup.BYPASS;
+        }
+        long start = System.nanoTime();
+        try {
+            float[] embedding = embedder.embed(normalize(question));
+            PGvector vector = new PGvector(embedding);
+            List<Lookup> nearest = jdbcTemplate.query(LOOKUP_SQL,
+                    (rs, rowNum) -> new Lookup(scopeKey, clientId, question, embedding,
+                            rs.getString("answer"), rs.getLong("generation_ms"), rs.getDouble("similarity")),
+                    vector, scopeKey, embedder.model(), Timestamp.valueOf(LocalDateTime.now().minus(ttl)), vector);
+            long elapsed = System.nanoTime() - start;
+            lookupTime.record(elapsed, TimeUnit.NANOSECONDS);
+
+            if (!nearest.isEmpty()) {
+                Lookup candidate = nearest.get(0);
+                similarity.record(candidate.similarity);
+                if (candidate.similarity >= similarityThreshold) {
+                    hits.increment();
+                    Duration saved = Duration.ofMillis(candidate.generationMs).minusNanos(elapsed);
+                    latencySaved.record(saved.isNegative() ? Duration.ZERO : saved);
+                    return candidate;
+                }
+            }
+            misses.increment();
+            return new Lookup(scopeKey, clientId, question, embedding, null, 0, 0);
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("Caché semántica de chat no disponible: {}", e.getMessage());
+            return Lookup.BYPASS;
+        }
+    }
+
+    /**
+     * Guarda la respuesta generada tras un fallo de búsqueda.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void store(Lookup lookup, String answer, Duration generationTime) {
+        if (lookup.embedding == null || lookup.isHit() || answer == null || answer.isBlank()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, lookup.scopeKey, embedder.model(), lookup.clientId, lookup.question,
+                    answer, new PGvector(lookup.embedding), generationTime.toMillis());
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("No se pudo guardar la respuesta en la caché semántica: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las filas vencidas y las de versiones reemplazadas. Es idempotente:
+     * con varias instancias no hace falta coordinarlas.
+     */
+    @Scheduled(cron = "${app.ai.chat.semantic-cache.purge-cron:0 15 * * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(ttl)));
+            log.debug("Caché semántica de chat: {} respuestas vencidas o reemplazadas borradas", deleted);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo limpiar la caché semántica: {}", e.getMessage());
+        }
+    }
+
+    private static String normalize(String question) {
+        return question.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resultado de una búsqueda: acierto (con la respuesta previa) o fallo (con
+     * el embedding ya calculado para {@link #store}).
+     */
+    public static final class Lookup {
+
+        static final Lookup BYPASS = new Lookup(null, null, null, null, null, 0, 0);
+
+        private final String scopeKey;
+        private final Long clientId;
+        private final String question;
+        private final float[] embedding;
+        private final String answer;
+        private final long generationMs;
+        private final double similarity;
+
+        private Lookup(String scopeKey, Long clientId, String question, float[] embedding, String answer,
+                long generationMs, double similarity) {
+            this.scopeKey = scopeKey;
+            this.clientId = clientId;
+            this.question = question;
+            this.embedding = embedding;
+            this.answer = answer;
+            this.generationMs = generationMs;
+            this.similarity = similarity;
+        }
+
+        public boolean isHit() {
+            return answer != null;
+        }
+
+        public String answer() {
+            return answer;
+        }
+    }
+}
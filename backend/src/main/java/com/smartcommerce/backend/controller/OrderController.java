@@ -1,14 +1,18 @@
 package com.smartcommerce.backend.controller;
 
 import com.smartcommerce.backend.domain.dto.OrderRequest;
+import com.smartcommerce.backend.domain.dto.order.InsufficientStockResponse;
+import com.smartcommerce.backend.exception.InsufficientStockException;
 
 import com.smartcommerce.backend.service.OrderService;
 import com.smartcommerce.iam.domain.model.User;
 import com.smartcommerce.iam.domain.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -47,4 +51,18 @@ public class OrderController {
                         @org.springframework.web.bind.annotation.PathVariable Long clientId) {
                 return ResponseEntity.ok(orderRepository.findOrderIdsByClientId(clientId));
         }
+
+        /**
+         * Stock insuficiente: 409 con productos alternativos que cubren la
+         * cantidad pedida.
+         */
+        @ExceptionHandler(InsufficientStockException.class)
+        public ResponseEntity<InsufficientStockResponse> handleInsufficientStock(InsufficientStockException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(new InsufficientStockResponse(
+                                e.getMessage(),
+                                e.getProductId(),
+                                e.getRequested(),
+                                e.getAvailable(),
+                                e.getSubstitutes()));
+        }
 }
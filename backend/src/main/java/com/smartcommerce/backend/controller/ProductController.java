@@ -2,7 +2,9 @@ package com.smartcommerce.backend.controller;
 
 import com.smartcommerce.backend.domain.dto.ProductRequest;
 import com.smartcommerce.backend.domain.dto.ProductResponse;
+import com.smartcommerce.backend.domain.dto.ProductSubstitute;
 import com.smartcommerce.backend.service.ProductService;
+import com.smartcommerce.backend.service.ProductSubstitutionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -12,12 +14,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductSubstitutionService substitutionService;
 
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -32,4 +37,11 @@ public class ProductController {
         Page<ProductResponse> products = productService.findAll(pageable);
         return ResponseEntity.ok(products);
     }
+
+    @GetMapping("/{id}/substitutes")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<ProductSubstitute>> getSubstitutes(@PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(substitutionService.getSubstitutes(id, limit));
+    }
 }
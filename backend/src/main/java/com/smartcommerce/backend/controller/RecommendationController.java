@@ -0,0 +1,60 @@
+package com.smartcommerce.backend.controller;
+
+import com.smartcommerce.backend.domain.dto.ProductRecommendation;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.service.CoPurchaseEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Recomendaciones por co-compra calculadas localmente, sin llamar al modelo.
+ */
+@RestController
+@RequestMapping("/api/recommendations")
+@RequiredArgsConstructor
+public class RecommendationController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final CoPurchaseEngine coPurchaseEngine;
+    private final ClientRepository clientRepository;
+
+    /**
+     * "Quienes compraron este producto también compraron..."
+     */
+    @GetMapping("/products/{productId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<ProductRecommendation>> alsoBought(@PathVariable Long productId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(coPurchaseEngine.alsoBought(productId, clamp(limit)));
+    }
+
+    /**
+     * Próximos productos sugeridos para un cliente propio.
+     */
+    @GetMapping("/clients/{clientId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<ProductRecommendation>> forClient(@AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable Long clientId, @RequestParam(defaultValue = "10") int limit) {
+        if (!clientRepository.existsByIdAndUserEmail(clientId, userDetails.getUsername())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found with ID " + clientId);
+        }
+        return ResponseEntity.ok(coPurchaseEngine.recommendForClient(clientId, clamp(limit)));
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
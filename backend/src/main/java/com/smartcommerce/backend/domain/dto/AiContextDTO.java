@@ -9,5 +9,6 @@ public record AiContextDTO(
                 int totalOrders,
                 String topProduct,
                 List<String> topPurchasedProducts,
-                double purchaseFrequencyDays) {
+                double purchaseFrequencyDays,
+                List<String> suggestedProducts) {
 }
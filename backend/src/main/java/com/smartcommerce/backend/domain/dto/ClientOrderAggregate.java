@@ -0,0 +1,17 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totales de órdenes agrupados por cliente, para procesos que recorren toda la
+ * cartera de un usuario.
+ */
+public record ClientOrderAggregate(
+        Long clientId,
+        Long orderCount,
+        BigDecimal totalSpent,
+        LocalDateTime firstOrderAt,
+        LocalDateTime lastOrderAt,
+        Long maxOrderId) {
+}
@@ -0,0 +1,7 @@
+package com.smartcommerce.backend.domain.dto;
+
+/**
+ * Par cliente/orden, sin cargar la entidad Order.
+ */
+public record ClientOrderId(Long clientId, Long orderId) {
+}
@@ -0,0 +1,7 @@
+package com.smartcommerce.backend.domain.dto;
+
+/**
+ * Cantidad comprada de un producto por un cliente, agregada en SQL.
+ */
+public record ClientProductQuantity(Long clientId, String productName, Long quantity) {
+}
@@ -0,0 +1,22 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totales de un conjunto de órdenes calculados en SQL. {@code clientId} y
+ * {@code clientName} identifican al cliente de las órdenes (el menor si
+ * hubiera varios) o son null si ninguna tiene cliente.
+ */
+public record OrderAggregate(
+        Long orderCount,
+        BigDecimal totalSpent,
+        LocalDateTime firstOrderAt,
+        LocalDateTime lastOrderAt,
+        Long clientId,
+        String clientName) {
+
+    public boolean isEmpty() {
+        return orderCount == null || orderCount == 0;
+    }
+}
@@ -12,5 +12,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderRequest {
+    /**
+     * Cliente al que se asigna la orden (opcional).
+     */
+    private Long clientId;
+
     private List<OrderItemRequest> items;
 }
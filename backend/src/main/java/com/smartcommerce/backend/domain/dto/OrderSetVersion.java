@@ -0,0 +1,41 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Huella liviana de un conjunto de órdenes. Las órdenes no se editan después de
+ * creadas, por lo que cantidad, total, última fecha e ID máximo alcanzan para
+ * detectar altas y bajas dentro del conjunto.
+ *
+ * Los campos de cliente permiten saber si el conjunto pertenece a un único
+ * cliente; no forman parte de {@link #dataVersion()}.
+ */
+public record OrderSetVersion(
+        Long orderCount,
+        BigDecimal total,
+        LocalDateTime lastOrderAt,
+        Long maxOrderId,
+        Long clientId,
+        Long distinctClients,
+        Long ordersWithClient) {
+
+    public boolean isEmpty() {
+        return orderCount == null || orderCount == 0;
+    }
+
+    /**
+     * ID del cliente cuando todas las órdenes del conjunto son suyas; null si
+     * hay órdenes sin cliente o de varios clientes.
+     */
+    public Long singleClientId() {
+        boolean single = distinctClients != null && distinctClients == 1
+                && ordersWithClient != null && ordersWithClient.equals(orderCount);
+        return single ? clientId : null;
+    }
+
+    public String dataVersion() {
+        return orderCount + "-" + (total != null ? total.toPlainString() : "0") + "-"
+                + (lastOrderAt != null ? lastOrderAt : "none") + "-" + maxOrderId;
+    }
+}
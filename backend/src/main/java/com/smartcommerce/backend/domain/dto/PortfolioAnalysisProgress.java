@@ -0,0 +1,16 @@
+package com.smartcommerce.backend.domain.dto;
+
+import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+
+/**
+ * Evento de progreso del análisis de cartera, uno por cliente procesado.
+ */
+public record PortfolioAnalysisProgress(
+        Long clientId,
+        String clientName,
+        boolean success,
+        SalesAnalysisResponse analysis,
+        String error,
+        int completed,
+        int total) {
+}
@@ -0,0 +1,15 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección de un producto para cargar el índice de sustitutos.
+ */
+public record ProductCatalogRow(
+        Long id,
+        String sku,
+        String name,
+        String description,
+        BigDecimal price,
+        Integer stockQuantity) {
+}
@@ -0,0 +1,7 @@
+package com.smartcommerce.backend.domain.dto;
+
+/**
+ * Cantidad total comprada de un producto, agregada en SQL.
+ */
+public record ProductQuantity(String productName, Long quantity) {
+}
@@ -0,0 +1,17 @@
+package com.smartcommerce.backend.domain.dto;
+
+/**
+ * Producto recomendado por co-compra.
+ *
+ * @param score        confianza de co-compra: para un producto, fracción de
+ *                     sus órdenes que también incluyen este; para un
+ *                     cliente, suma de esas fracciones sobre lo que ya compró
+ * @param coPurchases  órdenes en las que aparece junto a los productos de
+ *                     referencia
+ */
+public record ProductRecommendation(
+        Long productId,
+        String productName,
+        double score,
+        int coPurchases) {
+}
@@ -0,0 +1,9 @@
+package com.smartcommerce.backend.domain.dto;
+
+/**
+ * Stock actual de un producto, leído de la base.
+ */
+public record ProductStock(
+        Long id,
+        Integer stockQuantity) {
+}
@@ -0,0 +1,16 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Producto alternativo con stock disponible, ordenado por similitud semántica
+ * con el producto pedido.
+ */
+public record ProductSubstitute(
+        Long productId,
+        String sku,
+        String name,
+        BigDecimal price,
+        int stockQuantity,
+        double similarity) {
+}
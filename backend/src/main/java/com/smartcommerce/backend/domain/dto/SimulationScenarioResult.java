@@ -0,0 +1,18 @@
+package com.smartcommerce.backend.domain.dto;
+
+/**
+ * Un elemento de la respuesta del modelo cuando se evalúan varios escenarios
+ * en la misma llamada: repite los parámetros para poder emparejarlo. Si el modelo los omite
+ * quedan en null y el elemento se descarta.
+ */
+public record SimulationScenarioResult(
+        Integer discountPercentage,
+        Integer contractDurationMonths,
+        int acceptanceProbability,
+        String financialImpact,
+        String explanation) {
+
+    public SimulationResponse toResponse() {
+        return new SimulationResponse(acceptanceProbability, financialImpact, explanation);
+    }
+}
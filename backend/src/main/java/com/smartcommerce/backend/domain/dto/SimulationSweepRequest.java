@@ -0,0 +1,34 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Barrido de escenarios: rangos inclusivos de descuento y plazo para un
+ * cliente ({@code userId} es el ID del cliente, igual que en
+ * {@link SimulationRequest}).
+ */
+public record SimulationSweepRequest(
+        Long userId,
+        Range discountPercentage,
+        Range contractDurationMonths) {
+
+    public record Range(int from, int to, int step) {
+
+        public long size() {
+            return to < from ? 0 : ((long) to - from) / increment() + 1;
+        }
+
+        public List<Integer> values() {
+            List<Integer> values = new ArrayList<>();
+            for (long value = from; value <= to; value += increment()) {
+                values.add((int) value);
+            }
+            return values;
+        }
+
+        private int increment() {
+            return step > 0 ? step : 1;
+        }
+    }
+}
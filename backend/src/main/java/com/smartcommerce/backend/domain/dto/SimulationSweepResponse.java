@@ -0,0 +1,18 @@
+package com.smartcommerce.backend.domain.dto;
+
+import java.util.List;
+
+/**
+ * Resultado del barrido: {@code results.get(i).get(j)} corresponde a
+ * {@code discountPercentages.get(i)} y {@code contractDurationMonths.get(j)}.
+ * Las celdas que no pudieron evaluarse quedan en null y su causa se informa en
+ * {@code errors}.
+ */
+public record SimulationSweepResponse(
+        Long clientId,
+        List<Integer> discountPercentages,
+        List<Integer> contractDurationMonths,
+        List<List<SimulationResponse>> results,
+        int modelCalls,
+        List<String> errors) {
+}
@@ -0,0 +1,17 @@
+package com.smartcommerce.backend.domain.dto.campaign;
+
+import com.smartcommerce.backend.domain.dto.EmailDraftResponse;
+
+/**
+ * Una línea del NDJSON de una campaña: el borrador de un cliente o el error
+ * que impidió generarlo.
+ */
+public record EmailCampaignDraft(
+        Long clientId,
+        String clientName,
+        boolean success,
+        EmailDraftResponse draft,
+        String error,
+        int completed,
+        int total) {
+}
@@ -0,0 +1,15 @@
+package com.smartcommerce.backend.domain.dto.campaign;
+
+import java.util.List;
+
+/**
+ * Campaña de correos sobre varios clientes de la cartera. Se eligen por ID o,
+ * si {@code clientIds} viene vacío, por {@code tier}. La recomendación admite
+ * los marcadores {@code {clientName}} y {@code {topProduct}}, que se
+ * reemplazan por cliente.
+ */
+public record EmailCampaignRequest(
+        String recommendation,
+        List<Long> clientIds,
+        String tier) {
+}
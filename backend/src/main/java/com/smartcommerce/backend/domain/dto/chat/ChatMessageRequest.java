@@ -0,0 +1,4 @@
+package com.smartcommerce.backend.domain.dto.chat;
+
+public record ChatMessageRequest(String message) {
+}
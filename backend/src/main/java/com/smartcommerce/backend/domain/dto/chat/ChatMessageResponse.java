@@ -0,0 +1,4 @@
+package com.smartcommerce.backend.domain.dto.chat;
+
+public record ChatMessageResponse(String sessionId, String reply, int turn) {
+}
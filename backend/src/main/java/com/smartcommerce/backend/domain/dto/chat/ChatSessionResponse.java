@@ -0,0 +1,10 @@
+package com.smartcommerce.backend.domain.dto.chat;
+
+import java.time.LocalDateTime;
+
+public record ChatSessionResponse(
+        String sessionId,
+        int turns,
+        LocalDateTime createdAt,
+        LocalDateTime lastActivityAt) {
+}
@@ -0,0 +1,16 @@
+package com.smartcommerce.backend.domain.dto.job;
+
+import com.smartcommerce.backend.domain.model.AiJobStatus;
+import com.smartcommerce.backend.domain.model.AiJobType;
+
+import java.time.LocalDateTime;
+
+public record AiJobResponse(
+        String jobId,
+        AiJobType type,
+        AiJobStatus status,
+        Object result,
+        String error,
+        LocalDateTime submittedAt,
+        LocalDateTime completedAt) {
+}
@@ -0,0 +1,17 @@
+package com.smartcommerce.backend.domain.dto.order;
+
+import com.smartcommerce.backend.domain.dto.ProductSubstitute;
+
+import java.util.List;
+
+/**
+ * Cuerpo del 409 cuando una orden pide más unidades de las disponibles, con
+ * productos alternativos que sí pueden cubrir la cantidad.
+ */
+public record InsufficientStockResponse(
+        String message,
+        Long productId,
+        int requested,
+        int available,
+        List<ProductSubstitute> substitutes) {
+}
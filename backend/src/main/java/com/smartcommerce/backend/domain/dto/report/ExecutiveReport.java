@@ -0,0 +1,24 @@
+package com.smartcommerce.backend.domain.dto.report;
+
+import java.util.List;
+
+/**
+ * Datos del informe ejecutivo, ya calculados y desacoplados de las entidades
+ * JPA. Los campos del análisis son null si el cliente no tiene ninguno.
+ */
+public record ExecutiveReport(
+        Long clientId,
+        String clientName,
+        String industry,
+        String contactEmail,
+        double totalSpent,
+        String mainCategory,
+        Integer analysisScore,
+        String executiveSummary,
+        String recommendation,
+        List<ProductStats> topProducts) {
+
+    public boolean hasAnalysis() {
+        return analysisScore != null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartcommerce.backend.domain.dto.report;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una exportación de informes de cartera en curso o reciente.
+ */
+public record PortfolioExportProgress(
+        String exportId,
+        PortfolioExportStatus status,
+        int total,
+        int completed,
+        int failed,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt) {
+}
@@ -0,0 +1,8 @@
+package com.smartcommerce.backend.domain.dto.report;
+
+public enum PortfolioExportStatus {
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
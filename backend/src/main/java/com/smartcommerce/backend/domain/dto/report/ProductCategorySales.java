@@ -0,0 +1,15 @@
+package com.smartcommerce.backend.domain.dto.report;
+
+import java.math.BigDecimal;
+
+/**
+ * Unidades e importe ({@code precio * cantidad}) de un producto comprado por
+ * un cliente, agregados en SQL. {@code categoryName} es null si el producto
+ * no tiene categoría.
+ */
+public record ProductCategorySales(
+        String productName,
+        String categoryName,
+        Long quantity,
+        BigDecimal total) {
+}
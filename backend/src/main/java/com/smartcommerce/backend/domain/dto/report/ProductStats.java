@@ -0,0 +1,7 @@
+package com.smartcommerce.backend.domain.dto.report;
+
+/**
+ * Fila de la tabla de productos del informe: unidades e importe facturado.
+ */
+public record ProductStats(String name, long quantity, double total) {
+}
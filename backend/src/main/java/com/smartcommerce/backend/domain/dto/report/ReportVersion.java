@@ -0,0 +1,44 @@
+package com.smartcommerce.backend.domain.dto.report;
+
+import com.smartcommerce.kernel.digest.Sha256;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Versión de los datos que alimentan el informe ejecutivo de un cliente. Se
+ * obtiene con una sola consulta sobre la fila del cliente; las órdenes y los
+ * análisis no se editan después de creados, así que cantidad, ID máximo y
+ * última fecha alcanzan para detectar cambios.
+ */
+public record ReportVersion(
+        Long clientId,
+        String clientName,
+        String industry,
+        String contactEmail,
+        Long orderCount,
+        Long maxOrderId,
+        LocalDateTime lastOrderAt,
+        Long maxAnalysisId,
+        LocalDateTime lastAnalysisAt) {
+
+    /**
+     * Revisión del layout del PDF; subirla invalida todo lo cacheado.
+     */
+    private static final String TEMPLATE_REVISION = "1";
+
+    /**
+     * ETag fuerte del PDF generado en {@code generatedOn}: el informe imprime
+     * la fecha de generación, así que forma parte de la versión.
+     */
+    public String etag(LocalDate generatedOn) {
+        String source = String.join("|", TEMPLATE_REVISION, String.valueOf(clientId), String.valueOf(clientName),
+                String.valueOf(industry), String.valueOf(contactEmail), String.valueOf(orderCount),
+                String.valueOf(maxOrderId), String.valueOf(lastOrderAt), String.valueOf(maxAnalysisId),
+                String.valueOf(lastAnalysisAt), generatedOn.toString());
+        byte[] digest = Sha256.digest(source.getBytes(StandardCharsets.UTF_8));
+        return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+}
@@ -0,0 +1,8 @@
+package com.smartcommerce.backend.domain.model;
+
+public enum AiJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,7 @@
+package com.smartcommerce.backend.domain.model;
+
+public enum AiJobType {
+    ANALYZE_ORDERS,
+    SIMULATE,
+    DRAFT_EMAIL
+}
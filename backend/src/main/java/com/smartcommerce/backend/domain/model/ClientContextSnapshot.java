@@ -0,0 +1,65 @@
+package com.smartcommerce.backend.domain.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resumen precalculado del historial de compras de un cliente. Se mantiene de
+ * forma incremental con cada orden nueva para que armar el contexto de IA sea
+ * la lectura de una sola fila.
+ */
+@Entity
+@Table(name = "client_context_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientContextSnapshot {
+
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @MapsId
+    @JoinColumn(name = "client_id")
+    @ToString.Exclude
+    private Client client;
+
+    @Builder.Default
+    @Column(name = "total_spent", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private int orderCount;
+
+    @Column(name = "first_order_at")
+    private LocalDateTime firstOrderAt;
+
+    @Column(name = "last_order_at")
+    private LocalDateTime lastOrderAt;
+
+    /**
+     * Unidades compradas por nombre de producto.
+     */
+    @Builder.Default
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "product_quantities", nullable = false)
+    private Map<String, Integer> productQuantities = new HashMap<>();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -40,6 +40,12 @@ public class SalesAnalysis {
     @Builder.Default
     private List<String> alerts = new ArrayList<>();
 
+    @Column(name = "order_fingerprint", length = 64)
+    private String orderFingerprint;
+
+    @Column(name = "data_version", length = 128)
+    private String dataVersion;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,21 @@
+package com.smartcommerce.backend.domain.repository;
+
+import com.smartcommerce.backend.domain.model.ClientContextSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ClientContextSnapshotRepository extends JpaRepository<ClientContextSnapshot, Long> {
+
+    @Query("SELECT s FROM ClientContextSnapshot s JOIN FETCH s.client WHERE s.clientId = :clientId")
+    Optional<ClientContextSnapshot> findWithClient(Long clientId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ClientContextSnapshot s WHERE s.clientId = :clientId")
+    Optional<ClientContextSnapshot> findForUpdate(Long clientId);
+}
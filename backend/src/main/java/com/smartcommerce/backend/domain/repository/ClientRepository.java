@@ -1,10 +1,16 @@
 package com.smartcommerce.backend.domain.repository;
 
+import com.smartcommerce.backend.domain.dto.report.ReportVersion;
 import com.smartcommerce.backend.domain.model.Client;
 import com.smartcommerce.iam.domain.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +19,41 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     List<Client> findByUser(User user);
 
     Optional<Client> findByNameAndUser(String name, User user);
+
+    boolean existsByIdAndUserEmail(Long id, String email);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Client c WHERE c.id = :id")
+    Optional<Client> findByIdForUpdate(Long id);
+
+    /**
+     * Clientes (con ID mayor a {@code afterId}) que tienen órdenes posteriores
+     * a su último análisis persistido; {@code never} se usa como fecha del
+     * análisis para los clientes que no tienen ninguno.
+     */
+    @Query("SELECT c.id FROM Order o JOIN o.client c WHERE c.id > :afterId GROUP BY c.id "
+            +
+            "HAVING MAX(o.createdAt) > COALESCE((SELECT MAX(a.createdAt) FROM SalesAnalysis a WHERE a.client.id = c.id), :never) "
+            +
+            "ORDER BY c.id")
+    List<Long> findIdsWithOrdersAfterLatestAnalysis(Long afterId, LocalDateTime never, Pageable pageable);
+
+    /**
+     * Versión de datos del informe ejecutivo, en una sola consulta y sin
+     * cargar órdenes ni análisis.
+     */
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.report.ReportVersion(c.id, c.name, c.industry, c.contactEmail, "
+            +
+            "(SELECT COUNT(o) FROM Order o WHERE o.client.id = c.id), "
+            +
+            "(SELECT MAX(o.id) FROM Order o WHERE o.client.id = c.id), "
+            +
+            "(SELECT MAX(o.createdAt) FROM Order o WHERE o.client.id = c.id), "
+            +
+            "(SELECT MAX(a.id) FROM SalesAnalysis a WHERE a.client.id = c.id), "
+            +
+            "(SELECT MAX(a.createdAt) FROM SalesAnalysis a WHERE a.client.id = c.id)) "
+            +
+            "FROM Client c WHERE c.id = :clientId")
+    Optional<ReportVersion> findReportVersion(Long clientId);
 }
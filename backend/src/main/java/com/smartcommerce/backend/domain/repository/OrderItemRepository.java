@@ -1,9 +1,50 @@
 package com.smartcommerce.backend.domain.repository;
 
+import com.smartcommerce.backend.domain.dto.ClientProductQuantity;
+import com.smartcommerce.backend.domain.dto.ProductQuantity;
+import com.smartcommerce.backend.domain.dto.report.ProductCategorySales;
 import com.smartcommerce.backend.domain.model.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ProductQuantity(p.name, SUM(i.quantity)) "
+            +
+            "FROM OrderItem i JOIN i.product p WHERE i.order.client.id = :clientId GROUP BY p.name")
+    List<ProductQuantity> sumQuantitiesByClientId(Long clientId);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ProductQuantity(p.name, SUM(i.quantity)) "
+            +
+            "FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds "
+            +
+            "GROUP BY p.name ORDER BY SUM(i.quantity) DESC, p.name")
+    List<ProductQuantity> findTopProductsByOrderIds(Collection<Long> orderIds, Pageable pageable);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ProductQuantity(p.name, SUM(i.quantity)) "
+            +
+            "FROM OrderItem i JOIN i.product p WHERE i.order.client.id = :clientId "
+            +
+            "GROUP BY p.name ORDER BY SUM(i.quantity) DESC, p.name")
+    List<ProductQuantity> findTopProductsByClientId(Long clientId, Pageable pageable);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ClientProductQuantity(c.id, p.name, SUM(i.quantity)) "
+            +
+            "FROM OrderItem i JOIN i.product p JOIN i.order o JOIN o.client c WHERE c.user.id = :userId "
+            +
+            "GROUP BY c.id, p.name")
+    List<ClientProductQuantity> sumQuantitiesByClientForUser(Long userId);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.report.ProductCategorySales(p.name, cat.name, SUM(i.quantity), SUM(i.price * i.quantity)) "
+            +
+            "FROM OrderItem i JOIN i.product p LEFT JOIN p.category cat WHERE i.order.client.id = :clientId "
+            +
+            "GROUP BY p.id, p.name, cat.name")
+    List<ProductCategorySales> sumSalesByProductForClient(Long clientId);
 }
@@ -1,11 +1,16 @@
 package com.smartcommerce.backend.domain.repository;
 
 import com.smartcommerce.backend.domain.model.Order;
+import com.smartcommerce.backend.domain.dto.ClientOrderAggregate;
+import com.smartcommerce.backend.domain.dto.ClientOrderId;
+import com.smartcommerce.backend.domain.dto.OrderAggregate;
+import com.smartcommerce.backend.domain.dto.OrderSetVersion;
 import com.smartcommerce.backend.domain.dto.UserSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -25,4 +30,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("SELECT o.id FROM Order o WHERE o.client.id = :clientId")
     List<Long> findOrderIdsByClientId(Long clientId);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.OrderSetVersion(COUNT(o), SUM(o.total), MAX(o.createdAt), MAX(o.id), "
+            +
+            "MIN(o.client.id), COUNT(DISTINCT o.client.id), COUNT(o.client.id)) "
+            +
+            "FROM Order o WHERE o.id IN :orderIds")
+    OrderSetVersion findVersionByIds(Collection<Long> orderIds);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.OrderAggregate(COUNT(o), SUM(o.total), MIN(o.createdAt), MAX(o.createdAt), MIN(c.id), MIN(c.name)) "
+            +
+            "FROM Order o LEFT JOIN o.client c WHERE o.id IN :orderIds")
+    OrderAggregate aggregateByIds(Collection<Long> orderIds);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.OrderAggregate(COUNT(o), SUM(o.total), MIN(o.createdAt), MAX(o.createdAt), MIN(c.id), MIN(c.name)) "
+            +
+            "FROM Order o JOIN o.client c WHERE c.id = :clientId")
+    OrderAggregate aggregateByClientId(Long clientId);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ClientOrderAggregate(c.id, COUNT(o), SUM(o.total), MIN(o.createdAt), MAX(o.createdAt), MAX(o.id)) "
+            +
+            "FROM Order o JOIN o.client c WHERE c.user.id = :userId GROUP BY c.id")
+    List<ClientOrderAggregate> aggregateByClientUserId(Long userId);
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ClientOrderId(c.id, o.id) "
+            +
+            "FROM Order o JOIN o.client c WHERE c.user.id = :userId")
+    List<ClientOrderId> findClientOrderIdsByUserId(Long userId);
 }
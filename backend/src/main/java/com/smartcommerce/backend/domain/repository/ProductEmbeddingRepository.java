@@ -0,0 +1,46 @@
+package com.smartcommerce.backend.domain.repository;
+
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Embeddings de productos en {@code ai_vectors.product_embeddings}. Vive fuera
+ * del modelo JPA porque el tipo {@code vector} no tiene mapeo en Hibernate.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductEmbeddingRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO ai_vectors.product_embeddings (product_id, model, content_hash, embedding, updated_at)
+            VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT (product_id) DO UPDATE
+            SET model = EXCLUDED.model, content_hash = EXCLUDED.content_hash,
+                embedding = EXCLUDED.embedding, updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record StoredEmbedding(long productId, String model, String contentHash, float[] vector) {
+    }
+
+    public List<StoredEmbedding> findAll() {
+        return jdbcTemplate.query(
+                "SELECT product_id, model, content_hash, embedding::text AS embedding FROM ai_vectors.product_embeddings",
+                (rs, rowNum) -> new StoredEmbedding(rs.getLong("product_id"), rs.getString("model"),
+                        rs.getString("content_hash"), new PGvector(rs.getString("embedding")).toArray()));
+    }
+
+    public void saveAll(List<StoredEmbedding> embeddings) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, embeddings, embeddings.size(), (ps, embedding) -> {
+            ps.setLong(1, embedding.productId());
+            ps.setString(2, embedding.model());
+            ps.setString(3, embedding.contentHash());
+            ps.setObject(4, new PGvector(embedding.vector()));
+        });
+    }
+}
@@ -1,9 +1,14 @@
 package com.smartcommerce.backend.domain.repository;
 
+import com.smartcommerce.backend.domain.dto.ProductCatalogRow;
+import com.smartcommerce.backend.domain.dto.ProductStock;
 import com.smartcommerce.backend.domain.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findByName(String name);
 
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ProductCatalogRow("
+            + "p.id, p.sku, p.name, p.description, p.price, p.stockQuantity) FROM Product p")
+    List<ProductCatalogRow> findCatalogRows();
+
+    @Query("SELECT new com.smartcommerce.backend.domain.dto.ProductStock(p.id, p.stockQuantity) "
+            + "FROM Product p WHERE p.id IN :ids")
+    List<ProductStock> findStockByIds(Collection<Long> ids);
+
 }
@@ -6,10 +6,16 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SalesAnalysisRepository extends JpaRepository<SalesAnalysis, Long> {
     List<SalesAnalysis> findByClientOrderByCreatedAtDesc(Client client);
 
     List<SalesAnalysis> findByClientIdOrderByCreatedAtDesc(Long clientId);
+
+    Optional<SalesAnalysis> findFirstByClientIdOrderByCreatedAtDesc(Long clientId);
+
+    Optional<SalesAnalysis> findFirstByOrderFingerprintAndDataVersionOrderByCreatedAtDesc(String orderFingerprint,
+            String dataVersion);
 }
@@ -0,0 +1,112 @@
+package com.smartcommerce.backend.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Estado persistente de los trabajos programados ({@code scheduled_job_state}):
+ * un lease para que una sola instancia ejecute cada trabajo y un cursor para
+ * retomar una corrida interrumpida. Los vencimientos se calculan con el reloj
+ * de la base, común a todas las instancias.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduledJobStateRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record JobState(
+            long cursorId,
+            LocalDateTime runStartedAt,
+            LocalDateTime lastCompletedAt,
+            int processedInRun,
+            int failedInRun) {
+    }
+
+    /**
+     * Toma el lease si está libre, vencido o ya es de {@code owner}.
+     */
+    public boolean tryAcquire(String jobName, String owner, Duration lease) {
+        return jdbcTemplate.update("""
+                UPDATE scheduled_job_state
+                SET lease_owner = ?, lease_until = CURRENT_TIMESTAMP + CAST(? AS INTEGER) * INTERVAL '1' SECOND, updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = ? AND (lease_until IS NULL OR lease_until < CURRENT_TIMESTAMP OR lease_owner = ?)
+                """, owner, lease.toSeconds(), jobName, owner) == 1;
+    }
+
+    /**
+     * Extiende el lease; false si otra instancia lo tomó entretanto.
+     */
+    public boolean renew(String jobName, String owner, Duration lease) {
+        return jdbcTemplate.update("""
+                UPDATE scheduled_job_state
+                SET lease_until = CURRENT_TIMESTAMP + CAST(? AS INTEGER) * INTERVAL '1' SECOND, updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = ? AND lease_owner = ?
+                """, lease.toSeconds(), jobName, owner) == 1;
+    }
+
+    public void release(String jobName, String owner) {
+        jdbcTemplate.update("""
+                UPDATE scheduled_job_state SET lease_owner = NULL, lease_until = NULL, updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = ? AND lease_owner = ?
+                """, jobName, owner);
+    }
+
+    public Optional<JobState> find(String jobName) {
+        return jdbcTemplate.query("""
+                SELECT cursor_id, run_started_at, last_completed_at, processed_in_run, failed_in_run
+                FROM scheduled_job_state WHERE job_name = ?
+                """, (rs, rowNum) -> new JobState(
+                        rs.getLong("cursor_id"),
+                        toLocalDateTime(rs.getTimestamp("run_started_at")),
+                        toLocalDateTime(rs.getTimestamp("last_completed_at")),
+                        rs.getInt("processed_in_run"),
+                        rs.getInt("failed_in_run")),
+                jobName).stream().findFirst();
+    }
+
+    /**
+     * Inicia una corrida nueva: cursor y contadores en cero.
+     */
+    public void startRun(String jobName, String owner) {
+        jdbcTemplate.update("""
+                UPDATE scheduled_job_state
+                SET cursor_id = 0, run_started_at = CURRENT_TIMESTAMP, processed_in_run = 0, failed_in_run = 0,
+                    updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = ? AND lease_owner = ?
+                """, jobName, owner);
+    }
+
+    /**
+     * Registra un elemento procesado y mueve el cursor detrás de él.
+     */
+    public void advance(String jobName, String owner, long cursorId, boolean failed) {
+        jdbcTemplate.update("""
+                UPDATE scheduled_job_state
+                SET cursor_id = ?, processed_in_run = processed_in_run + 1,
+                    failed_in_run = failed_in_run + ?, updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = ? AND lease_owner = ?
+                """, cursorId, failed ? 1 : 0, jobName, owner);
+    }
+
+    /**
+     * Cierra la corrida: la siguiente empieza desde el principio.
+     */
+    public void complete(String jobName, String owner) {
+        jdbcTemplate.update("""
+                UPDATE scheduled_job_state
+                SET cursor_id = 0, last_completed_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+                WHERE job_name = ? AND lease_owner = ?
+                """, jobName, owner);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.smartcommerce.backend.domain.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relaya el chat en streaming como Server-Sent Events. Emite eventos
+ * {@code chunk} con el texto parcial, {@code done} al terminar y {@code error}
+ * si falla la generación. Si el cliente se desconecta se cancela la lectura del
+ * modelo.
+ *
+ * Cada stream corre en su propio hilo virtual, con un cupo propio
+ * ({@code app.ai.chat.max-concurrent-streams}) separado del de los trabajos
+ * de IA: un stream ocupa su lugar mientras dura la respuesta, y compartir el
+ * executor de trabajos dejaba los análisis encolados detrás de los chats. Sin
+ * cupo libre se responde 503.
+ */
+@Service
+@Slf4j
+public class AiChatStreamService {
+
+    private final AiService aiService;
+    private final Semaphore streams;
+    private final int maxConcurrentStreams;
+    private final long emitterTimeoutMs;
+
+    public AiChatStreamService(AiService aiService, MeterRegistry meterRegistry,
+            @Value("${app.ai.chat.max-concurrent-streams:64}") int maxConcurrentStreams,
+            @Value("${app.ai.chat.stream-timeout:2m}") Duration streamTimeout) {
+        this.aiService = aiService;
+        this.maxConcurrentStreams = Math.max(1, maxConcurrentStreams);
+        this.streams = new Semaphore(this.maxConcurrentStreams);
+        this.emitterTimeoutMs = streamTimeout.toMillis();
+
+        Gauge.builder("ai.chat.streams.active", this, AiChatStreamService::activeStreams)
+                .description("Chats en streaming en curso")
+                .register(meterRegistry);
+    }
+
+    private int activeStreams() {
+        return maxConcurrentStreams - streams.availablePermits();
+    }
+
+    public SseEmitter streamChat(List<Long> orderIds, String message) {
+        if (!streams.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "El asistente está saturado, reintente en unos segundos");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        Runnable task = new DelegatingSecurityContextRunnable(() -> {
+            try {
+                aiService.streamChatWithData(orderIds, message,
+                        chunk -> send(emitter, cancelled, "chunk", Map.of("text", chunk)),
+                        cancelled::get);
+                if (!cancelled.get()) {
+                    send(emitter, cancelled, "done", Map.of());
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                if (cancelled.get()) {
+                    log.debug("Chat en streaming cancelado por el cliente");
+                    return;
+                }
+                log.error("Error en chat en streaming", e);
+                try {
+                    send(emitter, cancelled, "error",
+                            Map.of("message", "Hubo un error al procesar tu consulta: " + e.getMessage()));
+                    emitter.complete();
+                } catch (RuntimeException ignored) {
+                    // El cliente ya no está escuchando
+                }
+            } finally {
+                streams.release();
+            }
+        });
+
+        try {
+            Thread.ofVirtual().name("ai-chat-stream").start(task);
+        } catch (RuntimeException | Error e) {
+            streams.release();
+            throw e;
+        }
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, AtomicBoolean cancelled, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Desconexión del cliente: cortar el stream hacia el modelo
+            cancelled.set(true);
+            throw new UncheckedIOException(new IOException("Cliente desconectado", e));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.AiContextDTO;
+import com.smartcommerce.backend.domain.dto.OrderAggregate;
+import com.smartcommerce.backend.domain.dto.ProductQuantity;
+import com.smartcommerce.backend.domain.repository.OrderItemRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Arma el {@link AiContextDTO} con dos consultas de agregación (totales y top
+ * de productos) en lugar de cargar órdenes, ítems y productos como entidades.
+ * La cantidad de sentencias no depende de cuántas órdenes tenga el conjunto.
+ *
+ * Los productos sugeridos salen de la matriz de co-compra en memoria
+ * ({@link CoPurchaseEngine}), sin consultas adicionales.
+ */
+@Component
+@RequiredArgsConstructor
+public class AiContextAssembler {
+
+    static final int TOP_PRODUCTS = 10;
+    static final int SUGGESTED_PRODUCTS = 3;
+    private static final Pageable TOP_PRODUCTS_PAGE = PageRequest.of(0, TOP_PRODUCTS);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final CoPurchaseEngine coPurchaseEngine;
+
+    /**
+     * Contexto de un conjunto de órdenes; vacío si ninguno de los IDs existe.
+     */
+    @Transactional(readOnly = true)
+    public Optional<AiContextDTO> forOrderIds(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Optional.empty();
+        }
+        OrderAggregate totals = orderRepository.aggregateByIds(orderIds);
+        if (totals == null || totals.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(assemble(totals.clientId(), totals.clientName(), totals.totalSpent(),
+                totals.orderCount(), totals.firstOrderAt(), totals.lastOrderAt(),
+                orderItemRepository.findTopProductsByOrderIds(orderIds, TOP_PRODUCTS_PAGE)));
+    }
+
+    /**
+     * Contexto de todas las órdenes de un cliente; vacío si no tiene órdenes.
+     */
+    @Transactional(readOnly = true)
+    public Optional<AiContextDTO> forClient(Long clientId) {
+        OrderAggregate totals = orderRepository.aggregateByClientId(clientId);
+        if (totals == null || totals.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(assemble(clientId, totals.clientName(), totals.totalSpent(),
+                totals.orderCount(), totals.firstOrderAt(), totals.lastOrderAt(),
+                orderItemRepository.findTopProductsByClientId(clientId, TOP_PRODUCTS_PAGE)));
+    }
+
+    /**
+     * Contexto a partir de totales ya calculados. {@code products} debe venir
+     * ordenado por cantidad descendente; se toman los primeros diez.
+     * {@code clientId} puede ser null (órdenes sin cliente): no hay sugerencias.
+     */
+    public AiContextDTO assemble(Long clientId, String clientName, BigDecimal totalSpent, long orderCount,
+            LocalDateTime firstOrderAt, LocalDateTime lastOrderAt, List<ProductQuantity> products) {
+        List<ProductQuantity> top = products.stream().limit(TOP_PRODUCTS).toList();
+
+        String topProduct = top.isEmpty() ? "N/A" : top.get(0).productName();
+        List<String> topPurchasedProducts = top.stream()
+                .map(product -> product.quantity() + "x " + product.productName())
+                .toList();
+
+        double frequency = 0.0;
+        if (orderCount > 1 && firstOrderAt != null && lastOrderAt != null) {
+            long daysDiff = ChronoUnit.DAYS.between(firstOrderAt, lastOrderAt);
+            if (daysDiff > 0) {
+                frequency = (double) daysDiff / (orderCount - 1);
+            }
+        }
+
+        return new AiContextDTO(
+                clientName != null ? clientName : "Cliente",
+                totalSpent != null ? totalSpent : BigDecimal.ZERO,
+                (int) orderCount,
+                topProduct,
+                topPurchasedProducts,
+                frequency,
+                coPurchaseEngine.suggestedProductNames(clientId, SUGGESTED_PRODUCTS));
+    }
+
+    /**
+     * Contexto para un cliente sin historial.
+     */
+    public AiContextDTO empty() {
+        return new AiContextDTO("Unknown", BigDecimal.ZERO, 0, "N/A", List.of(), 0.0, List.of());
+    }
+}
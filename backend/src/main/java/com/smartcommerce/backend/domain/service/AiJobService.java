@@ -0,0 +1,171 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartcommerce.backend.domain.dto.job.AiJobResponse;
+import com.smartcommerce.backend.domain.model.AiJobStatus;
+import com.smartcommerce.backend.domain.model.AiJobType;
+import com.smartcommerce.kernel.concurrent.BoundedVirtualThreadExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta operaciones de IA fuera del hilo de Tomcat. El cliente recibe un ID de
+ * trabajo inmediatamente y puede consultar el estado o suscribirse por SSE al
+ * resultado.
+ */
+@Service
+@Slf4j
+public class AiJobService {
+
+    private final BoundedVirtualThreadExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, AiJob> jobs;
+    private final long emitterTimeoutMs;
+
+    public AiJobService(BoundedVirtualThreadExecutor aiJobExecutor, MeterRegistry meterRegistry,
+            @Value("${app.ai.jobs.retention:1h}") Duration retention,
+            @Value("${app.ai.jobs.max-retained:10000}") long maxRetained,
+            @Value("${app.ai.jobs.sse-timeout:5m}") Duration sseTimeout) {
+        this.executor = aiJobExecutor;
+        this.meterRegistry = meterRegistry;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .maximumSize(maxRetained)
+                .build();
+        this.emitterTimeoutMs = sseTimeout.toMillis();
+    }
+
+    public AiJobResponse submit(AiJobType type, Supplier<?> work) {
+        AiJob job = new AiJob(UUID.randomUUID().toString(), type, currentOwner());
+        jobs.put(job.id, job);
+
+        Runnable task = new DelegatingSecurityContextRunnable(() -> run(job, work));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            meterRegistry.counter("ai.jobs.rejected", "type", type.name()).increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "La cola de trabajos de IA está llena, reintente en unos segundos");
+        }
+        return job.toResponse();
+    }
+
+    public AiJobResponse getJob(String jobId) {
+        return findOwnedJob(jobId).toResponse();
+    }
+
+    /**
+     * Devuelve un emisor SSE que publica el estado actual y, al terminar, un evento
+     * {@code completed} con el resultado o {@code failed} con el error.
+     */
+    public SseEmitter subscribe(String jobId) {
+        AiJob job = findOwnedJob(jobId);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(job.toResponse(), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        job.future.whenComplete((result, error) -> {
+            try {
+                String eventName = error == null ? "completed" : "failed";
+                emitter.send(SseEmitter.event().name(eventName).data(job.toResponse(), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // El cliente cerró la conexión antes del resultado
+                log.debug("No se pudo notificar el trabajo {}: {}", job.id, e.getMessage());
+            }
+        });
+        return emitter;
+    }
+
+    private void run(AiJob job, Supplier<?> work) {
+        job.status = AiJobStatus.RUNNING;
+        long queuedNanos = System.nanoTime() - job.submittedNanos;
+        Timer.builder("ai.jobs.queue.wait")
+                .tag("type", job.type.name())
+                .register(meterRegistry)
+                .record(Duration.ofNanos(queuedNanos));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Object result = work.get();
+            job.result = result;
+            job.status = AiJobStatus.COMPLETED;
+            job.completedAt = LocalDateTime.now();
+            job.future.complete(result);
+        } catch (Exception e) {
+            outcome = "error";
+            log.error("Falló el trabajo de IA {} ({})", job.id, job.type, e);
+            job.error = e.getMessage();
+            job.status = AiJobStatus.FAILED;
+            job.completedAt = LocalDateTime.now();
+            job.future.completeExceptionally(e);
+        } finally {
+            sample.stop(Timer.builder("ai.jobs.latency")
+                    .tag("type", job.type.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private AiJob findOwnedJob(String jobId) {
+        AiJob job = jobs.getIfPresent(jobId);
+        if (job == null || !Objects.equals(job.owner, currentOwner())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Trabajo no encontrado: " + jobId);
+        }
+        return job;
+    }
+
+    private String currentOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private static class AiJob {
+        final String id;
+        final AiJobType type;
+        final String owner;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final long submittedNanos = System.nanoTime();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        volatile AiJobStatus status = AiJobStatus.QUEUED;
+        volatile Object result;
+        volatile String error;
+        volatile LocalDateTime completedAt;
+
+        AiJob(String id, AiJobType type, String owner) {
+            this.id = id;
+            this.type = type;
+            this.owner = owner;
+        }
+
+        AiJobResponse toResponse() {
+            return new AiJobResponse(id, type, status, result, error, submittedAt, completedAt);
+        }
+    }
+}
@@ -1,29 +1,39 @@
 package com.smartcommerce.backend.domain.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.ai_engine.gateway.GeminiResponseDecoder;
+import com.smartcommerce.ai_engine.gateway.LlmGateway;
+import com.smartcommerce.ai_engine.gateway.LlmMessage;
+import com.smartcommerce.ai_engine.gateway.LlmOperation;
+import com.smartcommerce.ai_engine.gateway.LlmRequest;
+import com.smartcommerce.ai_engine.gateway.LlmResponseFormatException;
+import com.smartcommerce.ai_engine.gateway.LlmTelemetry;
+import com.smartcommerce.ai_engine.gateway.LlmUnavailableException;
+import com.smartcommerce.ai_engine.semantic.SemanticAnswerCache;
 import com.smartcommerce.backend.domain.dto.AiContextDTO;
-import com.smartcommerce.backend.domain.model.Order;
-import com.smartcommerce.backend.domain.model.OrderItem;
+import com.smartcommerce.backend.domain.dto.OrderSetVersion;
+import com.smartcommerce.backend.domain.model.ClientContextSnapshot;
 import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
 import com.smartcommerce.backend.domain.dto.EmailDraftRequest;
 import com.smartcommerce.backend.domain.dto.EmailDraftResponse;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
 import com.smartcommerce.backend.domain.repository.OrderRepository;
-import org.springframework.beans.factory.annotation.Value;
+import com.smartcommerce.backend.domain.dto.SimulationRequest;
+import com.smartcommerce.backend.domain.dto.SimulationResponse;
+import com.smartcommerce.backend.domain.dto.SimulationScenarioResult;
+import com.smartcommerce.kernel.concurrent.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClient;
-import org.springframework.http.MediaType;
-
-import java.math.BigDecimal;
-import java.net.URI;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,20 +41,44 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AiService {
 
-  private final RestClient restClient;
-  private final String apiKey;
+  private final LlmGateway llmGateway;
   private final OrderRepository orderRepository;
-  private final ObjectMapper objectMapper;
+  private final ClientRepository clientRepository;
+  private final GeminiResponseDecoder responseDecoder;
   private final com.smartcommerce.backend.domain.repository.SalesAnalysisRepository salesAnalysisRepository;
-
-  public AiService(@Value("${gemini.api.key}") String apiKey, OrderRepository orderRepository,
-      ObjectMapper objectMapper,
-      com.smartcommerce.backend.domain.repository.SalesAnalysisRepository salesAnalysisRepository) {
-    this.restClient = RestClient.builder().build();
-    this.apiKey = apiKey;
+  private final SalesAnalysisCache analysisCache;
+  private final ClientContextSnapshotService contextSnapshots;
+  private final AiContextAssembler contextAssembler;
+  private final SemanticAnswerCache semanticCache;
+  private final LlmTelemetry telemetry;
+  private final TransactionTemplate readOnlyTransaction;
+  private final TransactionTemplate writeTransaction;
+  private final SingleFlight<String, SalesAnalysisResponse> analysisFlights;
+  private final SingleFlight<SimulationRequest, SimulationResponse> simulationFlights;
+
+  public AiService(LlmGateway llmGateway, OrderRepository orderRepository,
+      ClientRepository clientRepository, GeminiResponseDecoder responseDecoder,
+      com.smartcommerce.backend.domain.repository.SalesAnalysisRepository salesAnalysisRepository,
+      SalesAnalysisCache analysisCache, ClientContextSnapshotService contextSnapshots,
+      AiContextAssembler contextAssembler, SemanticAnswerCache semanticCache, LlmTelemetry telemetry,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+    this.llmGateway = llmGateway;
     this.orderRepository = orderRepository;
-    this.objectMapper = objectMapper;
+    this.clientRepository = clientRepository;
+    this.responseDecoder = responseDecoder;
     this.salesAnalysisRepository = salesAnalysisRepository;
+    this.analysisCache = analysisCache;
+    this.contextSnapshots = contextSnapshots;
+    this.contextAssembler = contextAssembler;
+    this.semanticCache = semanticCache;
+    this.telemetry = telemetry;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.writeTransaction = new TransactionTemplate(transactionManager);
+    this.analysisFlights = new SingleFlight<>(
+        meterRegistry.counter("ai.singleflight.coalesced", "operation", "analyze_sales")::increment);
+    this.simulationFlights = new SingleFlight<>(
+        meterRegistry.counter("ai.singleflight.coalesced", "operation", "simulate")::increment);
   }
 
   /**
@@ -53,22 +87,108 @@ public class AiService {
    * para optimizar la ventana de contexto (Context Window) enviada a Gemini,
    * balanceando costos y precisión.
    *
+   * Antes de llamar al modelo se consulta la caché por huella + versión de datos
+   * y, opcionalmente, el último análisis persistido con la misma huella. Si los
+   * IDs cubren el historial completo de un cliente, el contexto sale de su
+   * snapshot precalculado en lugar de recorrer órdenes e ítems.
+   *
+   * Las llamadas concurrentes con la misma huella y versión comparten una sola
+   * consulta al modelo.
+   *
+   * El método no es transaccional: las lecturas van en transacciones cortas de
+   * solo lectura, la llamada al modelo no retiene conexión JDBC y el análisis
+   * se persiste en una transacción de escritura propia.
+   *
    * @param orderIds Lista de IDs de órdenes para analizar
    * @return Respuesta estructurada del análisis de ventas
    */
-  @Transactional
   public SalesAnalysisResponse analyzeSales(List<Long> orderIds) {
-    List<Order> orders = orderRepository.findAllById(orderIds);
-
-    if (orders.isEmpty()) {
-      return new SalesAnalysisResponse(
-          "No se encontraron órdenes con los IDs proporcionados.",
-          0,
-          List.of(),
-          "Verifique los IDs enviados.");
+    if (orderIds == null || orderIds.isEmpty()) {
+      return emptyAnalysisResponse();
+    }
+
+    String fingerprint = SalesAnalysisCache.fingerprint(orderIds);
+    OrderSetVersion version = orderRepository.findVersionByIds(orderIds);
+    if (version == null || version.isEmpty()) {
+      return emptyAnalysisResponse();
+    }
+
+    String cacheKey = analysisCache.key(fingerprint, version);
+    Optional<SalesAnalysisResponse> cached = analysisCache.get(cacheKey);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    if (analysisCache.isServePersisted()) {
+      Optional<SalesAnalysisResponse> persisted = readOnlyTransaction.execute(status -> salesAnalysisRepository
+          .findFirstByOrderFingerprintAndDataVersionOrderByCreatedAtDesc(fingerprint, version.dataVersion())
+          .map(this::toResponse));
+      if (persisted.isPresent()) {
+        analysisCache.recordPersistedHit();
+        analysisCache.put(cacheKey, persisted.get());
+        return persisted.get();
+      }
+    }
+
+    return analysisFlights.execute(cacheKey, () -> computeAnalysis(orderIds, fingerprint, version, cacheKey));
+  }
+
+  private SalesAnalysisResponse computeAnalysis(List<Long> orderIds, String fingerprint, OrderSetVersion version,
+      String cacheKey) {
+    Optional<AnalysisInput> input = telemetry.time(LlmOperation.ANALYZE_SALES, LlmTelemetry.CONTEXT,
+        () -> analysisInput(orderIds, version));
+    if (input.isEmpty()) {
+      return emptyAnalysisResponse();
+    }
+    Long clientId = input.get().clientId();
+
+    SalesAnalysisResponse analysisResponse = requestAnalysis(input.get().context());
+
+    // Persist analysis
+    if (analysisResponse != null && clientId != null) {
+      writeTransaction.executeWithoutResult(status -> salesAnalysisRepository.save(
+          com.smartcommerce.backend.domain.model.SalesAnalysis.builder()
+              .client(clientRepository.getReferenceById(clientId))
+              .score(analysisResponse.scoreOportunidad())
+              .executiveSummary(analysisResponse.resumenEjecutivo())
+              .recommendation(analysisResponse.accionRecomendada())
+              .alerts(analysisResponse.alertas())
+              .orderFingerprint(fingerprint)
+              .dataVersion(version.dataVersion())
+              .build()));
     }
 
-    AiContextDTO context = prepareContext(orders);
+    analysisCache.put(cacheKey, analysisResponse);
+    return analysisResponse;
+  }
+
+  /**
+   * Contexto del análisis y cliente al que se asocia: desde el snapshot si
+   * los IDs cubren el historial completo, o agregando las órdenes. Se llama
+   * fuera de transacción: el snapshot y el ensamblador abren las suyas.
+   */
+  private Optional<AnalysisInput> analysisInput(List<Long> orderIds, OrderSetVersion version) {
+    Optional<ClientContextSnapshot> snapshot = contextSnapshots.snapshotCovering(version);
+    if (snapshot.isPresent()) {
+      return Optional.of(new AnalysisInput(contextSnapshots.toContext(snapshot.get()), snapshot.get().getClientId()));
+    }
+    return contextAssembler.forOrderIds(orderIds)
+        .map(context -> new AnalysisInput(context, version.clientId()));
+  }
+
+  private record AnalysisInput(AiContextDTO context, Long clientId) {
+  }
+
+  /**
+   * Llama al modelo con un contexto ya construido, sin caché ni persistencia.
+   * Lo usan los procesos por lote, que gestionan ambas cosas por su cuenta.
+   */
+  public SalesAnalysisResponse requestAnalysis(AiContextDTO context) {
+    String response = llmGateway.generate(analysisRequest(context));
+    return telemetry.time(LlmOperation.ANALYZE_SALES, LlmTelemetry.PARSE, () -> parseGeminiResponse(response));
+  }
+
+  private LlmRequest analysisRequest(AiContextDTO context) {
     String promptData = String.format(
         "Cliente: %s. Gasto Total: %.2f. Órdenes: %d. Frecuencia de Compra: %.1f días. Producto Estrella: %s. Productos Recientes: %s.",
         context.clientName(),
@@ -76,46 +196,28 @@ public class AiService {
         context.totalOrders(),
         context.purchaseFrequencyDays(),
         context.topProduct(),
-        String.join(", ", context.topPurchasedProducts()));
-
-    String urlString = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key="
-        + apiKey;
-    URI uri = URI.create(urlString);
-
-    var requestBody = Map.of(
-        "contents", List.of(
-            Map.of("parts", List.of(
-                Map.of("text",
-                    "Actúa como experto B2B. Analiza este cliente: " + promptData
-                        + " Responde ÚNICAMENTE con un objeto JSON válido siguiendo este esquema: { resumen_ejecutivo: string, score_oportunidad: number (1-10), alertas: string[], accion_recomendada: string }.")))),
-        "generationConfig", Map.of(
-            "temperature", 0.7,
-            "maxOutputTokens", 5000,
-            "response_mime_type", "application/json"));
-
-    String response = restClient.post()
-        .uri(uri)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(requestBody)
-        .retrieve()
-        .body(String.class);
-
-    SalesAnalysisResponse analysisResponse = parseGeminiResponse(response);
+        String.join(", ", context.topPurchasedProducts())) + describeSuggestions(context);
 
-    // Persist analysis
-    if (analysisResponse != null && !orders.isEmpty() && orders.get(0).getClient() != null) {
-      com.smartcommerce.backend.domain.model.SalesAnalysis analysis = com.smartcommerce.backend.domain.model.SalesAnalysis
-          .builder()
-          .client(orders.get(0).getClient())
-          .score(analysisResponse.scoreOportunidad())
-          .executiveSummary(analysisResponse.resumenEjecutivo())
-          .recommendation(analysisResponse.accionRecomendada())
-          .alerts(analysisResponse.alertas())
-          .build();
-      salesAnalysisRepository.save(analysis);
-    }
+    return LlmRequest.prompt(LlmOperation.ANALYZE_SALES,
+        "Actúa como experto B2B. Analiza este cliente: " + promptData
+            + " Responde ÚNICAMENTE con un objeto JSON válido siguiendo este esquema: { resumen_ejecutivo: string, score_oportunidad: number (1-10), alertas: string[], accion_recomendada: string }.",
+        5000, true);
+  }
 
-    return analysisResponse;
+  private SalesAnalysisResponse emptyAnalysisResponse() {
+    return new SalesAnalysisResponse(
+        "No se encontraron órdenes con los IDs proporcionados.",
+        0,
+        List.of(),
+        "Verifique los IDs enviados.");
+  }
+
+  private SalesAnalysisResponse toResponse(com.smartcommerce.backend.domain.model.SalesAnalysis analysis) {
+    return new SalesAnalysisResponse(
+        analysis.getExecutiveSummary(),
+        analysis.getScore(),
+        new java.util.ArrayList<>(analysis.getAlerts()),
+        analysis.getRecommendation());
   }
 
   @Transactional(readOnly = true)
@@ -133,89 +235,109 @@ public class AiService {
     return salesAnalysisRepository.findByClientIdOrderByCreatedAtDesc(clientId);
   }
 
-  private AiContextDTO prepareContext(List<Order> orders) {
-    if (orders == null || orders.isEmpty()) {
-      return new AiContextDTO("Unknown", BigDecimal.ZERO, 0, "N/A", List.of(), 0.0);
-    }
-
-    String clientName = orders.get(0).getClient() != null
-        ? orders.get(0).getClient().getName()
-        : "Cliente";
-
-    BigDecimal totalSpent = orders.stream()
-        .map(Order::getTotal)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+  private SalesAnalysisResponse parseGeminiResponse(String rawResponse) {
+    return responseDecoder.decode(rawResponse, SalesAnalysisResponse.class);
+  }
 
-    int totalOrders = orders.size();
+  /**
+   * Responde una pregunta sobre las órdenes. Antes de llamar al modelo busca en
+   * la caché semántica una respuesta a una pregunta equivalente sobre el mismo
+   * conjunto de órdenes y versión de datos; si no la hay, guarda la nueva. El
+   * contexto se arma en transacciones cortas de solo lectura y la conexión
+   * JDBC no queda tomada mientras responde el modelo.
+   */
+  public String chatWithData(List<Long> orderIds, String userMessage) {
+    OrderSetVersion version = orderIds == null || orderIds.isEmpty() ? null
+        : orderRepository.findVersionByIds(orderIds);
+
+    SemanticAnswerCache.Lookup lookup = version == null || version.isEmpty()
+        ? semanticCache.lookup(null, null, userMessage)
+        : semanticCache.lookup(analysisCache.key(SalesAnalysisCache.fingerprint(orderIds), version),
+            version.singleClientId(), userMessage);
+    if (lookup.isHit()) {
+      return lookup.answer();
+    }
 
-    Map<String, Integer> productCount = new HashMap<>();
+    String systemInstruction = telemetry.time(LlmOperation.CHAT, LlmTelemetry.CONTEXT,
+        () -> buildChatPrompt(describeChatContext(chatContext(orderIds, version)), userMessage));
 
-    for (Order order : orders) {
-      if (order.getItems() != null) {
-        for (OrderItem item : order.getItems()) {
-          String pName = item.getProduct().getName();
-          productCount.put(pName, productCount.getOrDefault(pName, 0) + item.getQuantity());
-        }
-      }
+    String answer;
+    long start = System.nanoTime();
+    try {
+      String response = llmGateway.generate(chatRequest(systemInstruction));
+      answer = telemetry.time(LlmOperation.CHAT, LlmTelemetry.PARSE, () -> responseDecoder.text(response));
+    } catch (LlmResponseFormatException e) {
+      return "Error parseando respuesta de IA.";
+    } catch (Exception e) {
+      return "Hubo un error al procesar tu consulta: " + e.getMessage();
     }
+    semanticCache.store(lookup, answer, Duration.ofNanos(System.nanoTime() - start));
+    return answer;
+  }
 
-    String topProduct = productCount.entrySet().stream()
-        .max(Map.Entry.comparingByValue())
-        .map(Map.Entry::getKey)
-        .orElse("N/A");
-
-    List<String> topPurchasedProducts = productCount.entrySet().stream()
-        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-        .limit(10)
-        .map(entry -> entry.getValue() + "x " + entry.getKey())
-        .collect(Collectors.toList());
-
-    double frequency = 0.0;
-    if (orders.size() > 1) {
-      List<LocalDateTime> dates = orders.stream()
-          .map(Order::getCreatedAt)
-          .sorted()
-          .collect(Collectors.toList());
-
-      LocalDateTime first = dates.get(0);
-      LocalDateTime last = dates.get(dates.size() - 1);
-
-      long daysDiff = ChronoUnit.DAYS.between(first, last);
-      if (daysDiff > 0) {
-        frequency = (double) daysDiff / (orders.size() - 1);
+  /**
+   * Variante en streaming de {@link #chatWithData(List, String)}: usa
+   * streamGenerateContent (SSE) y entrega cada fragmento de texto a
+   * {@code onChunk} a medida que llega, sin acumular el cuerpo completo.
+   * Si {@code cancelled} pasa a true se cierra la conexión con el modelo para
+   * dejar de consumir tokens.
+   *
+   * El contexto se arma en transacciones cortas de solo lectura; la conexión
+   * JDBC no queda tomada mientras dura la generación.
+   */
+  public void streamChatWithData(List<Long> orderIds, String userMessage, Consumer<String> onChunk,
+      BooleanSupplier cancelled) {
+    String systemInstruction = telemetry.time(LlmOperation.CHAT, LlmTelemetry.CONTEXT,
+        () -> buildChatPrompt(describeChatContext(orderIds), userMessage));
+
+    llmGateway.stream(chatRequest(systemInstruction), event -> {
+      String chunk = extractStreamChunkText(event);
+      if (!chunk.isEmpty()) {
+        onChunk.accept(chunk);
       }
-    }
+    }, cancelled);
+  }
 
-    return new AiContextDTO(clientName, totalSpent, totalOrders, topProduct, topPurchasedProducts, frequency);
+  private String buildChatPrompt(String contextData, String userMessage) {
+    return "Contexto: " + contextData +
+        "\\n\\nEl usuario pregunta: " + userMessage +
+        "\\n\\nInstrucción: Responde breve y estratégico como experto B2B.";
   }
 
-  private SalesAnalysisResponse parseGeminiResponse(String rawResponse) {
-    try {
-      JsonNode rootNode = objectMapper.readTree(rawResponse);
-      String innerJson = rootNode.path("candidates")
-          .get(0)
-          .path("content")
-          .path("parts")
-          .get(0)
-          .path("text")
-          .asText();
-
-      String cleanJson = innerJson.replaceAll("```json", "").replaceAll("```", "").trim();
-      return objectMapper.readValue(cleanJson, SalesAnalysisResponse.class);
-    } catch (Exception e) {
-      throw new RuntimeException("Error al procesar la respuesta de IA", e);
-    }
+  /**
+   * Instrucción de sistema para una sesión de chat: el contexto de las órdenes
+   * se calcula una sola vez, en transacciones cortas de solo lectura, y la
+   * sesión la reutiliza en cada turno.
+   */
+  public String chatSessionInstruction(List<Long> orderIds) {
+    String contextData = telemetry.time(LlmOperation.CHAT, LlmTelemetry.CONTEXT,
+        () -> describeChatContext(orderIds));
+    return "Contexto: " + contextData
+        + "\n\nInstrucción: Responde breve y estratégico como experto B2B. "
+        + "Usa el historial de la conversación para interpretar preguntas de seguimiento.";
   }
 
-  @Transactional
-  public String chatWithData(List<Long> orderIds, String userMessage) {
-    List<Order> orders = orderRepository.findAllById(orderIds);
+  /**
+   * Turno de una sesión de chat: envía la instrucción de sistema y el historial
+   * acotado como contenido multi-turno. Los errores del modelo se propagan.
+   */
+  public String chatTurn(String systemInstruction, List<LlmMessage> contents) {
+    String response = llmGateway.generate(
+        new LlmRequest(LlmOperation.CHAT, systemInstruction, contents, 0.7, 2000, false));
+    return telemetry.time(LlmOperation.CHAT, LlmTelemetry.PARSE, () -> responseDecoder.text(response));
+  }
+
+  private String describeChatContext(List<Long> orderIds) {
+    return describeChatContext(chatContext(orderIds));
+  }
+
+  private String describeChatContext(Optional<AiContextDTO> chatContext) {
 
     String contextData;
-    if (orders.isEmpty()) {
+    if (chatContext.isEmpty()) {
       contextData = "No hay datos de órdenes específicas.";
     } else {
-      AiContextDTO context = prepareContext(orders);
+      AiContextDTO context = chatContext.get();
       contextData = String.format(
           "Cliente: %s. Gasto Total: %.2f. Órdenes: %d. Frecuencia: %.1f días. Top Producto: %s. P. Recientes: %s.",
           context.clientName(),
@@ -223,101 +345,156 @@ public class AiService {
           context.totalOrders(),
           context.purchaseFrequencyDays(),
           context.topProduct(),
-          String.join(", ", context.topPurchasedProducts()));
+          String.join(", ", context.topPurchasedProducts())) + describeSuggestions(context);
     }
+    return contextData;
+  }
 
-    String systemInstruction = "Contexto: " + contextData +
-        "\\n\\nEl usuario pregunta: " + userMessage +
-        "\\n\\nInstrucción: Responde breve y estratégico como experto B2B.";
-
-    String urlString = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key="
-        + apiKey;
-    URI uri = URI.create(urlString);
-
-    var requestBody = Map.of(
-        "contents", List.of(
-            Map.of("parts", List.of(
-                Map.of("text", systemInstruction)))),
-        "generationConfig", Map.of(
-            "temperature", 0.7,
-            "maxOutputTokens", 2000));
+  /**
+   * Productos que clientes con compras similares suelen agregar, calculados
+   * localmente por {@link CoPurchaseEngine}; cadena vacía si no hay.
+   */
+  private String describeSuggestions(AiContextDTO context) {
+    if (context.suggestedProducts().isEmpty()) {
+      return "";
+    }
+    return " Sugeridos por co-compra: " + String.join(", ", context.suggestedProducts()) + ".";
+  }
 
-    try {
-      String response = restClient.post()
-          .uri(uri)
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(requestBody)
-          .retrieve()
-          .body(String.class);
-
-      return extractTextFromGeminiResponse(response);
-    } catch (Exception e) {
-      return "Hubo un error al procesar tu consulta: " + e.getMessage();
+  private Optional<AiContextDTO> chatContext(List<Long> orderIds) {
+    if (orderIds == null || orderIds.isEmpty()) {
+      return Optional.empty();
     }
+    return chatContext(orderIds, orderRepository.findVersionByIds(orderIds));
   }
 
-  private String extractTextFromGeminiResponse(String rawResponse) {
-    try {
-      JsonNode rootNode = objectMapper.readTree(rawResponse);
-      return rootNode.path("candidates")
-          .get(0)
-          .path("content")
-          .path("parts")
-          .get(0)
-          .path("text")
-          .asText();
-    } catch (Exception e) {
-      return "Error parseando respuesta de IA.";
+  private Optional<AiContextDTO> chatContext(List<Long> orderIds, OrderSetVersion version) {
+    if (version == null || version.isEmpty()) {
+      return Optional.empty();
+    }
+    Optional<ClientContextSnapshot> snapshot = contextSnapshots.snapshotCovering(version);
+    if (snapshot.isPresent()) {
+      return snapshot.map(contextSnapshots::toContext);
     }
+    return contextAssembler.forOrderIds(orderIds);
   }
 
-  @Transactional
-  public com.smartcommerce.backend.domain.dto.SimulationResponse simulateScenario(
-      com.smartcommerce.backend.domain.dto.SimulationRequest request) {
-    // Fetch client context
-    List<Order> orders = orderRepository.findByClientId(request.userId()); // Request.userId is actually clientId now
+  /**
+   * Contexto de un cliente desde su snapshot; vacío si no tiene órdenes.
+   */
+  private Optional<AiContextDTO> clientContext(Long clientId) {
+    return contextSnapshots.getSnapshot(clientId)
+        .filter(snapshot -> snapshot.getOrderCount() > 0)
+        .map(contextSnapshots::toContext);
+  }
 
-    String clientContext = "Cliente Nuevo (Sin histórico)";
-    if (!orders.isEmpty()) {
-      AiContextDTO context = prepareContext(orders);
-      clientContext = String.format(
-          "Cliente: %s. Gasto Total: %.2f. Freq: %.1f días. Top: %s.",
-          context.clientName(), context.totalSpent(), context.purchaseFrequencyDays(), context.topProduct());
-    }
+  /**
+   * Cada evento del stream es un GenerateContentResponse parcial; algunos (p.ej.
+   * el último, con usageMetadata) no traen texto y devuelven cadena vacía.
+   */
+  private String extractStreamChunkText(String json) {
+    return responseDecoder.text(json);
+  }
+
+  private LlmRequest chatRequest(String systemInstruction) {
+    return LlmRequest.prompt(LlmOperation.CHAT, systemInstruction, 2000, false);
+  }
+
+  /**
+   * Simula un escenario comercial. Las simulaciones idénticas en curso (mismo
+   * cliente, descuento y plazo) comparten una sola consulta al modelo.
+   */
+  public SimulationResponse simulateScenario(SimulationRequest request) {
+    return simulationFlights.execute(request, () -> runSimulation(request));
+  }
+
+  private SimulationResponse runSimulation(SimulationRequest request) {
+    // Fetch client context (request.userId is actually clientId now)
+    String clientContext = telemetry.time(LlmOperation.SIMULATE, LlmTelemetry.CONTEXT,
+        () -> simulationContext(request.userId()));
 
     String prompt = String.format(
         "Actúa como estratega B2B. Contexto Cliente: [%s]. Escenario: Descuento %d%%, Contrato %d meses. " +
             "Responde ÚNICAMENTE en JSON con este formato: { \"acceptanceProbability\": 0-100, \"financialImpact\": \"Rentable/Riesgoso/etc\", \"explanation\": \"breve justificación\" }. IMPORTANT: Return ONLY the raw JSON string. Do not use Markdown formatting or code blocks. IMPORTANT: Keep the explanation concise to ensure valid JSON output.",
         clientContext, request.discountPercentage(), request.contractDurationMonths());
 
-    String urlString = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key="
-        + apiKey;
-    URI uri = URI.create(urlString);
-
-    var requestBody = Map.of(
-        "contents", List.of(Map.of("parts", List.of(Map.of("text", prompt)))),
-        "generationConfig",
-        Map.of("temperature", 0.7, "maxOutputTokens", 2000, "response_mime_type", "application/json"));
-
     try {
-      String response = restClient.post()
-          .uri(uri)
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(requestBody)
-          .retrieve()
-          .body(String.class);
-
-      return parseSimulationResponse(response);
+      String response = llmGateway.generate(LlmRequest.prompt(LlmOperation.SIMULATE, prompt, 2000, true));
+
+      return telemetry.time(LlmOperation.SIMULATE, LlmTelemetry.PARSE, () -> parseSimulationResponse(response));
+    } catch (LlmUnavailableException | LlmResponseFormatException e) {
+      throw e;
     } catch (Exception e) {
       throw new RuntimeException("Error en simulación: " + e.getMessage());
     }
   }
 
-  @Transactional
+  /**
+   * Resumen del cliente que se incluye en los prompts de simulación. No es
+   * transaccional: el snapshot se lee (y reconstruye) en transacciones propias.
+   */
+  public String simulationContext(Long clientId) {
+    return clientContext(clientId)
+        .map(context -> String.format(
+            "Cliente: %s. Gasto Total: %.2f. Freq: %.1f días. Top: %s.",
+            context.clientName(), context.totalSpent(), context.purchaseFrequencyDays(), context.topProduct()))
+        .orElse("Cliente Nuevo (Sin histórico)");
+  }
+
+  /**
+   * Evalúa varios escenarios en una sola llamada al modelo, que responde con un
+   * arreglo JSON. Cada elemento se empareja con su escenario por descuento y
+   * plazo, nunca por posición: los escenarios que el modelo omita o cuyos
+   * parámetros no repita no aparecen en el resultado.
+   */
+  public Map<SimulationRequest, SimulationResponse> simulateBatch(String clientContext, List<SimulationRequest> scenarios) {
+    StringBuilder grid = new StringBuilder();
+    for (int i = 0; i < scenarios.size(); i++) {
+      SimulationRequest scenario = scenarios.get(i);
+      grid.append(String.format("%d) Descuento %d%%, Contrato %d meses. ", i + 1,
+          scenario.discountPercentage(), scenario.contractDurationMonths()));
+    }
+
+    String prompt = String.format(
+        "Actúa como estratega B2B. Contexto Cliente: [%s]. Evalúa cada uno de estos escenarios de forma independiente: %s"
+            + "Responde ÚNICAMENTE con un arreglo JSON con un objeto por escenario, en el mismo orden, con este formato: "
+            + "[{ \"discountPercentage\": número, \"contractDurationMonths\": número, \"acceptanceProbability\": 0-100, "
+            + "\"financialImpact\": \"Rentable/Riesgoso/etc\", \"explanation\": \"breve justificación\" }]. "
+            + "IMPORTANT: Return ONLY the raw JSON array. Keep each explanation concise to ensure valid JSON output.",
+        clientContext, grid);
+
+    String response = llmGateway.generate(LlmRequest.prompt(LlmOperation.SIMULATE_SWEEP, prompt,
+        Math.min(8192, 400 * scenarios.size() + 200), true));
+    SimulationScenarioResult[] results = telemetry.time(LlmOperation.SIMULATE_SWEEP, LlmTelemetry.PARSE,
+        () -> responseDecoder.decode(response, SimulationScenarioResult[].class));
+
+    Map<SimulationRequest, SimulationResponse> matched = new HashMap<>();
+    for (SimulationScenarioResult result : results) {
+      if (result == null || result.discountPercentage() == null || result.contractDurationMonths() == null) {
+        continue;
+      }
+      for (SimulationRequest scenario : scenarios) {
+        if (result.discountPercentage() == scenario.discountPercentage()
+            && result.contractDurationMonths() == scenario.contractDurationMonths()) {
+          matched.putIfAbsent(scenario, result.toResponse());
+        }
+      }
+    }
+    return matched;
+  }
+
   public EmailDraftResponse draftEmail(EmailDraftRequest request) {
-    List<Order> orders = orderRepository.findByClientId(request.userId()); // Request.userId treated as clientId
-    AiContextDTO context = prepareContext(orders);
+    // Request.userId treated as clientId
+    AiContextDTO context = telemetry.time(LlmOperation.DRAFT_EMAIL, LlmTelemetry.CONTEXT,
+        () -> clientContext(request.userId()).orElseGet(contextAssembler::empty));
+    return draftEmail(context, request.recommendation());
+  }
 
+  /**
+   * Redacta un correo con un contexto ya construido. Lo usan las campañas, que
+   * arman los contextos de todos los clientes por su cuenta.
+   */
+  public EmailDraftResponse draftEmail(AiContextDTO context, String recommendation) {
     String productList = String.join(", ", context.topPurchasedProducts());
     if (productList.isEmpty()) {
       productList = "nuestros productos";
@@ -329,63 +506,29 @@ public class AiService {
             "Context: They recently bought %s. " +
             "Tone: Professional, concise, and persuasive. " +
             "Output Format: JSON with 'subject' and 'body' fields ONLY. Do NOT use Markdown blocks.",
-        context.clientName(), request.recommendation(), productList);
-
-    String urlString = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key="
-        + apiKey;
-    URI uri = URI.create(urlString);
-
-    var requestBody = Map.of(
-        "contents", List.of(Map.of("parts", List.of(Map.of("text", prompt)))),
-        "generationConfig",
-        Map.of("temperature", 0.7, "maxOutputTokens", 2000, "response_mime_type", "application/json"));
+        context.clientName(), recommendation, productList);
 
     try {
-      String response = restClient.post()
-          .uri(uri)
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(requestBody)
-          .retrieve()
-          .body(String.class);
-
-      return parseEmailResponse(response);
+      String response = llmGateway.generate(LlmRequest.prompt(LlmOperation.DRAFT_EMAIL, prompt, 2000, true));
+
+      return telemetry.time(LlmOperation.DRAFT_EMAIL, LlmTelemetry.PARSE, () -> parseEmailResponse(response));
+    } catch (LlmUnavailableException | LlmResponseFormatException e) {
+      throw e;
     } catch (Exception e) {
       throw new RuntimeException("Error drafting email: " + e.getMessage());
     }
   }
 
   private EmailDraftResponse parseEmailResponse(String rawResponse) {
-    try {
-      JsonNode rootNode = objectMapper.readTree(rawResponse);
-      String innerJson = rootNode.path("candidates").get(0).path("content").path("parts").get(0).path("text").asText();
-      String cleanJson = innerJson.replaceAll("```json", "").replaceAll("```", "").trim();
-      return objectMapper.readValue(cleanJson, EmailDraftResponse.class);
-    } catch (Exception e) {
-      throw new RuntimeException("Error parsing email draft response", e);
-    }
+    return responseDecoder.decode(rawResponse, EmailDraftResponse.class);
   }
 
-  private com.smartcommerce.backend.domain.dto.SimulationResponse parseSimulationResponse(String rawResponse) {
-    String responseText = "Not extracted yet";
+  private SimulationResponse parseSimulationResponse(String rawResponse) {
     try {
-      JsonNode rootNode = objectMapper.readTree(rawResponse);
-      responseText = rootNode.path("candidates").get(0).path("content").path("parts").get(0).path("text").asText();
-
-      int firstBracket = responseText.indexOf("{");
-      int lastBracket = responseText.lastIndexOf("}");
-      if (firstBracket != -1 && lastBracket != -1) {
-        // Extraer SOLO lo que está entre las llaves
-        String jsonOnly = responseText.substring(firstBracket, lastBracket + 1);
-        // Ahora parsear jsonOnly
-        com.smartcommerce.backend.domain.dto.SimulationResponse response = objectMapper.readValue(jsonOnly,
-            com.smartcommerce.backend.domain.dto.SimulationResponse.class);
-        return response;
-      } else {
-        throw new RuntimeException("No se encontró JSON válido en la respuesta de la IA");
-      }
-    } catch (Exception e) {
-      log.error("Respuesta fallida: {}", responseText, e);
-      throw new RuntimeException("Error parseando simulación", e);
+      return responseDecoder.decode(rawResponse, SimulationResponse.class);
+    } catch (LlmResponseFormatException e) {
+      log.error("Respuesta fallida: {}", rawResponse, e);
+      throw e;
     }
   }
 }
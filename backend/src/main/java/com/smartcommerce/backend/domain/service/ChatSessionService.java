@@ -0,0 +1,144 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartcommerce.ai_engine.gateway.LlmMessage;
+import com.smartcommerce.backend.domain.dto.chat.ChatMessageResponse;
+import com.smartcommerce.backend.domain.dto.chat.ChatSessionResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sesiones de chat con estado en el servidor. El contexto de las órdenes se
+ * calcula una vez al crear la sesión y queda como instrucción de sistema; cada
+ * mensaje envía solo el historial reciente (acotado a {@code maxHistoryTurns}
+ * pares pregunta/respuesta) como contenido multi-turno, sin volver a la base.
+ *
+ * Las sesiones viven en memoria y expiran tras {@code idleTimeout} sin uso.
+ */
+@Service
+@Slf4j
+public class ChatSessionService {
+
+    private final AiService aiService;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, ChatSession> sessions;
+    private final int maxHistoryTurns;
+
+    public ChatSessionService(AiService aiService, MeterRegistry meterRegistry,
+            @Value("${app.ai.chat.session-idle-timeout:30m}") Duration idleTimeout,
+            @Value("${app.ai.chat.max-sessions:10000}") long maxSessions,
+            @Value("${app.ai.chat.max-history-turns:10}") int maxHistoryTurns) {
+        this.aiService = aiService;
+        this.meterRegistry = meterRegistry;
+        this.sessions = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxSessions)
+                .build();
+        this.maxHistoryTurns = maxHistoryTurns;
+
+        Gauge.builder("ai.chat.sessions.active", sessions, Cache::estimatedSize)
+                .description("Sesiones de chat en memoria")
+                .register(meterRegistry);
+    }
+
+    public ChatSessionResponse create(List<Long> orderIds) {
+        List<Long> ids = orderIds != null ? orderIds : List.of();
+        ChatSession session = new ChatSession(UUID.randomUUID().toString(), currentOwner(),
+                aiService.chatSessionInstruction(ids));
+        sessions.put(session.id, session);
+        return session.toResponse();
+    }
+
+    public ChatSessionResponse get(String sessionId) {
+        return findOwnedSession(sessionId).toResponse();
+    }
+
+    public void close(String sessionId) {
+        findOwnedSession(sessionId);
+        sessions.invalidate(sessionId);
+    }
+
+    /**
+     * Envía un mensaje dentro de la sesión. Los mensajes de una misma sesión se
+     * procesan de a uno para que el historial quede en orden.
+     */
+    public ChatMessageResponse sendMessage(String sessionId, String message) {
+        if (message == null || message.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El mensaje no puede estar vacío");
+        }
+        ChatSession session = findOwnedSession(sessionId);
+        // ReentrantLock y no synchronized: el turno bloquea durante la llamada al
+        // modelo y synchronized fijaría el hilo virtual a su portador
+        session.lock.lock();
+        try {
+            List<LlmMessage> contents = new ArrayList<>(session.history);
+            contents.add(LlmMessage.user(message));
+
+            String reply = aiService.chatTurn(session.systemInstruction, contents);
+
+            session.history.addLast(LlmMessage.user(message));
+            session.history.addLast(LlmMessage.model(reply));
+            while (session.history.size() > maxHistoryTurns * 2) {
+                session.history.removeFirst();
+            }
+            session.turns++;
+            session.lastActivityAt = LocalDateTime.now();
+            meterRegistry.counter("ai.chat.session.messages").increment();
+            return new ChatMessageResponse(session.id, reply, session.turns);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private ChatSession findOwnedSession(String sessionId) {
+        ChatSession session = sessions.getIfPresent(sessionId);
+        if (session == null || !Objects.equals(session.owner, currentOwner())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sesión de chat no encontrada: " + sessionId);
+        }
+        return session;
+    }
+
+    private String currentOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private static class ChatSession {
+        final String id;
+        final String owner;
+        final String systemInstruction;
+        final Deque<LlmMessage> history = new ArrayDeque<>();
+        final ReentrantLock lock = new ReentrantLock();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile LocalDateTime lastActivityAt = createdAt;
+        volatile int turns;
+
+        ChatSession(String id, String owner, String systemInstruction) {
+            this.id = id;
+            this.owner = owner;
+            this.systemInstruction = systemInstruction;
+        }
+
+        ChatSessionResponse toResponse() {
+            return new ChatSessionResponse(id, turns, createdAt, lastActivityAt);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.AiContextDTO;
+import com.smartcommerce.backend.domain.dto.OrderAggregate;
+import com.smartcommerce.backend.domain.dto.OrderSetVersion;
+import com.smartcommerce.backend.domain.dto.ProductQuantity;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.ClientContextSnapshot;
+import com.smartcommerce.backend.domain.repository.ClientContextSnapshotRepository;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderItemRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.sales.api.OrderPlacedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Mantiene el {@link ClientContextSnapshot} de cada cliente a partir de los
+ * eventos {@link OrderPlacedEvent}, de modo que el contexto que se envía al LLM
+ * sea la lectura de una fila en lugar de recorrer órdenes, ítems y productos.
+ *
+ * El listener es síncrono y corre dentro de la transacción que crea la orden:
+ * si la orden se revierte, el snapshot también. Si un cliente todavía no tiene
+ * snapshot (datos previos a esta tabla) se reconstruye con consultas de
+ * agregación y a partir de ahí se actualiza de forma incremental.
+ *
+ * Las lecturas ({@link #getSnapshot(Long)}, {@link #snapshotCovering}) abren
+ * sus propias transacciones cortas y deben llamarse fuera de cualquier otra:
+ * así la reconstrucción perezosa nunca retiene una segunda conexión mientras
+ * el llamador conserva la suya.
+ */
+@Service
+@Slf4j
+public class ClientContextSnapshotService {
+
+    private final ClientContextSnapshotRepository snapshotRepository;
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final AiContextAssembler contextAssembler;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate rebuildTransaction;
+    private final MeterRegistry meterRegistry;
+
+    public ClientContextSnapshotService(ClientContextSnapshotRepository snapshotRepository,
+            ClientRepository clientRepository, OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository, AiContextAssembler contextAssembler,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.snapshotRepository = snapshotRepository;
+        this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.contextAssembler = contextAssembler;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener
+    @Transactional
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        if (event.clientId() == null) {
+            return;
+        }
+        Optional<ClientContextSnapshot> locked = snapshotRepository.findForUpdate(event.clientId());
+        if (locked.isEmpty()) {
+            // La reconstrucción lee la base dentro de esta transacción, así que ya
+            // incluye la orden del evento
+            rebuild(event.clientId());
+            return;
+        }
+        apply(locked.get(), event);
+    }
+
+    /**
+     * Snapshot del cliente, reconstruyéndolo si todavía no existe. Vacío si el
+     * cliente no existe. Lee, reconstruye y vuelve a leer en transacciones
+     * separadas; no debe llamarse dentro de una transacción.
+     */
+    public Optional<ClientContextSnapshot> getSnapshot(Long clientId) {
+        Optional<ClientContextSnapshot> snapshot = readTransaction.execute(
+                status -> snapshotRepository.findWithClient(clientId));
+        if (snapshot.isPresent() || !clientRepository.existsById(clientId)) {
+            return snapshot;
+        }
+        // Reconstruir dentro de la transacción de un llamador escribiría en una
+        // transacción de solo lectura o tomaría una segunda conexión del pool
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("La reconstrucción del snapshot no puede correr dentro de una transacción");
+        }
+        rebuildTransaction.executeWithoutResult(status -> rebuild(clientId));
+        return readTransaction.execute(status -> snapshotRepository.findWithClient(clientId));
+    }
+
+    /**
+     * Snapshot utilizable para un conjunto de órdenes: solo cuando el conjunto
+     * es exactamente el historial completo de un cliente.
+     */
+    public Optional<ClientContextSnapshot> snapshotCovering(OrderSetVersion version) {
+        Long clientId = version.singleClientId();
+        if (clientId == null) {
+            return Optional.empty();
+        }
+        return getSnapshot(clientId)
+                .filter(snapshot -> snapshot.getOrderCount() == version.orderCount());
+    }
+
+    public AiContextDTO toContext(ClientContextSnapshot snapshot) {
+        List<ProductQuantity> products = snapshot.getProductQuantities().entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> new ProductQuantity(entry.getKey(), entry.getValue().longValue()))
+                .toList();
+        return contextAssembler.assemble(snapshot.getClientId(), snapshot.getClient().getName(),
+                snapshot.getTotalSpent(), snapshot.getOrderCount(), snapshot.getFirstOrderAt(),
+                snapshot.getLastOrderAt(), products);
+    }
+
+    private void apply(ClientContextSnapshot snapshot, OrderPlacedEvent event) {
+        snapshot.setTotalSpent(snapshot.getTotalSpent().add(event.total()));
+        snapshot.setOrderCount(snapshot.getOrderCount() + 1);
+        snapshot.setFirstOrderAt(min(snapshot.getFirstOrderAt(), event.createdAt()));
+        snapshot.setLastOrderAt(max(snapshot.getLastOrderAt(), event.createdAt()));
+
+        // Se reemplaza el mapa para que Hibernate detecte el cambio en la columna JSON
+        Map<String, Integer> quantities = new HashMap<>(snapshot.getProductQuantities());
+        for (OrderPlacedEvent.Line line : event.lines()) {
+            quantities.merge(line.productName(), line.quantity(), Integer::sum);
+        }
+        snapshot.setProductQuantities(quantities);
+        meterRegistry.counter("ai.context.snapshot.updates", "mode", "incremental").increment();
+    }
+
+    /**
+     * Recalcula el snapshot desde cero con dos consultas agregadas. El bloqueo
+     * sobre la fila del cliente serializa las reconstrucciones concurrentes de
+     * un mismo cliente.
+     */
+    private ClientContextSnapshot rebuild(Long clientId) {
+        Client client = clientRepository.findByIdForUpdate(clientId)
+                .orElseThrow(() -> new EntityNotFoundException("Client not found"));
+        ClientContextSnapshot snapshot = snapshotRepository.findById(clientId)
+                .orElseGet(() -> ClientContextSnapshot.builder().client(client).build());
+
+        OrderAggregate totals = orderRepository.aggregateByClientId(clientId);
+        Map<String, Integer> quantities = new HashMap<>();
+        for (ProductQuantity product : orderItemRepository.sumQuantitiesByClientId(clientId)) {
+            quantities.put(product.productName(), product.quantity().intValue());
+        }
+
+        snapshot.setTotalSpent(totals.totalSpent() != null ? totals.totalSpent() : BigDecimal.ZERO);
+        snapshot.setOrderCount(totals.orderCount().intValue());
+        snapshot.setFirstOrderAt(totals.firstOrderAt());
+        snapshot.setLastOrderAt(totals.lastOrderAt());
+        snapshot.setProductQuantities(quantities);
+
+        meterRegistry.counter("ai.context.snapshot.updates", "mode", "rebuild").increment();
+        log.debug("Snapshot de contexto reconstruido para el cliente {} ({} órdenes)", clientId,
+                snapshot.getOrderCount());
+        return snapshotRepository.save(snapshot);
+    }
+
+    private static LocalDateTime min(LocalDateTime current, LocalDateTime candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        return candidate != null && candidate.isBefore(current) ? candidate : current;
+    }
+
+    private static LocalDateTime max(LocalDateTime current, LocalDateTime candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        return candidate != null && candidate.isAfter(current) ? candidate : current;
+    }
+}
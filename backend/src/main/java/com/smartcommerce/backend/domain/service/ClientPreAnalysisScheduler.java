@@ -0,0 +1,241 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.ai_engine.gateway.LlmCallContext;
+import com.smartcommerce.ai_engine.gateway.LlmPriority;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.ScheduledJobStateRepository;
+import com.smartcommerce.backend.domain.repository.ScheduledJobStateRepository.JobState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Pre-análisis fuera de horario pico: dentro de la ventana configurada busca
+ * clientes con órdenes posteriores a su último SalesAnalysis y ejecuta
+ * {@link AiService#analyzeSales(List)} para cada uno, de a uno y con una
+ * pausa entre llamadas. El análisis queda persistido y la lectura de la
+ * mañana se sirve desde la base.
+ *
+ * La corrida recorre los clientes por ID y guarda el cursor tras cada uno en
+ * {@code scheduled_job_state}: si se cierra la ventana o la instancia cae, la
+ * siguiente corrida continúa desde ahí. Un lease en la misma tabla garantiza
+ * que, con varias instancias, solo una procesa a la vez.
+ *
+ * La corrida puede durar horas, así que el disparo programado solo la lanza
+ * en un hilo virtual propio y retorna: el hilo del scheduler de Spring, que
+ * es uno solo, queda libre para los demás trabajos {@code @Scheduled}.
+ */
+@Service
+@Slf4j
+public class ClientPreAnalysisScheduler {
+
+    static final String JOB_NAME = "client-pre-analysis";
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AiService aiService;
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final ScheduledJobStateRepository jobState;
+    private final MeterRegistry meterRegistry;
+    private final Timer clientTime;
+    private final Clock clock;
+    private final String instanceId;
+
+    private final boolean enabled;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final Duration throttle;
+    private final Duration lease;
+    private final int pageSize;
+    private final int maxClientsPerRun;
+
+    private Thread worker;
+
+    @Autowired
+    public ClientPreAnalysisScheduler(AiService aiService, ClientRepository clientRepository,
+            OrderRepository orderRepository, ScheduledJobStateRepository jobState, MeterRegistry meterRegistry,
+            @Value("${app.ai.pre-analysis.enabled:false}") boolean enabled,
+            @Value("${app.ai.pre-analysis.window-start:02:00}") String windowStart,
+            @Value("${app.ai.pre-analysis.window-end:06:00}") String windowEnd,
+            @Value("${app.ai.pre-analysis.zone:UTC}") String zone,
+            @Value("${app.ai.pre-analysis.throttle:3s}") Duration throttle,
+            @Value("${app.ai.pre-analysis.lease:5m}") Duration lease,
+            @Value("${app.ai.pre-analysis.page-size:100}") int pageSize,
+            @Value("${app.ai.pre-analysis.max-clients-per-run:1000}") int maxClientsPerRun) {
+        this(aiService, clientRepository, orderRepository, jobState, meterRegistry, Clock.system(ZoneId.of(zone)),
+                enabled, windowStart, windowEnd, throttle, lease, pageSize, maxClientsPerRun);
+    }
+
+    /**
+     * Visible para las pruebas: el reloj define la hora local de la ventana.
+     */
+    ClientPreAnalysisScheduler(AiService aiService, ClientRepository clientRepository,
+            OrderRepository orderRepository, ScheduledJobStateRepository jobState, MeterRegistry meterRegistry,
+            Clock clock, boolean enabled, String windowStart, String windowEnd, Duration throttle, Duration lease,
+            int pageSize, int maxClientsPerRun) {
+        this.aiService = aiService;
+        this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+        this.jobState = jobState;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID();
+        this.enabled = enabled;
+        this.windowStart = LocalTime.parse(windowStart);
+        this.windowEnd = LocalTime.parse(windowEnd);
+        this.throttle = throttle;
+        this.lease = lease;
+        this.pageSize = pageSize;
+        this.maxClientsPerRun = maxClientsPerRun;
+
+        this.clientTime = Timer.builder("ai.pre_analysis.client.duration")
+                .description("Duración del pre-análisis de un cliente")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.ai.pre-analysis.cron:0 */10 * * * *}", zone = "${app.ai.pre-analysis.zone:UTC}")
+    public synchronized void runScheduled() {
+        if (!enabled || !inWindow()) {
+            return;
+        }
+        if (worker != null && worker.isAlive()) {
+            log.debug("Pre-análisis: la corrida anterior sigue en curso");
+            runOutcome("running");
+            return;
+        }
+        worker = Thread.ofVirtual().name("client-pre-analysis").start(this::run);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Una corrida completa en el hilo actual. Visible para las pruebas.
+     */
+    void run() {
+        if (!jobState.tryAcquire(JOB_NAME, instanceId, lease)) {
+            log.debug("Pre-análisis en curso en otra instancia");
+            runOutcome("lease_held");
+            return;
+        }
+        try {
+            runOutcome(process());
+        } catch (RuntimeException e) {
+            log.error("Falló la corrida de pre-análisis", e);
+            runOutcome("error");
+        } finally {
+            jobState.release(JOB_NAME, instanceId);
+        }
+    }
+
+    /**
+     * @return resultado de la corrida para la métrica ({@code completed},
+     *         {@code paused} o {@code lease_lost})
+     */
+    private String process() {
+        JobState state = jobState.find(JOB_NAME)
+                .orElseThrow(() -> new IllegalStateException("Falta la fila " + JOB_NAME + " en scheduled_job_state"));
+        long cursor = state.cursorId();
+        if (cursor == 0) {
+            jobState.startRun(JOB_NAME, instanceId);
+            log.info("Pre-análisis: inicia corrida");
+        } else {
+            log.info("Pre-análisis: retoma corrida desde el cliente {} ({} procesados, {} fallidos)", cursor,
+                    state.processedInRun(), state.failedInRun());
+        }
+
+        int processed = 0;
+        while (true) {
+            List<Long> clientIds = clientRepository.findIdsWithOrdersAfterLatestAnalysis(cursor, NEVER,
+                    PageRequest.of(0, pageSize));
+            if (clientIds.isEmpty()) {
+                jobState.complete(JOB_NAME, instanceId);
+                log.info("Pre-análisis: corrida completa");
+                return "completed";
+            }
+            for (Long clientId : clientIds) {
+                if (processed >= maxClientsPerRun || !inWindow()) {
+                    log.info("Pre-análisis: pausa en el cliente {} tras {} clientes", cursor, processed);
+                    return "paused";
+                }
+                if (!jobState.renew(JOB_NAME, instanceId, lease)) {
+                    log.warn("Pre-análisis: se perdió el lease, otra instancia continúa");
+                    return "lease_lost";
+                }
+                boolean failed = !analyze(clientId);
+                jobState.advance(JOB_NAME, instanceId, clientId, failed);
+                cursor = clientId;
+                processed++;
+
+                if (!pause()) {
+                    return "paused";
+                }
+            }
+        }
+    }
+
+    private boolean analyze(Long clientId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            LlmCallContext.withPriority(LlmPriority.BACKGROUND,
+                    () -> aiService.analyzeSales(orderRepository.findOrderIdsByClientId(clientId)));
+            meterRegistry.counter("ai.pre_analysis.clients", "outcome", "success").increment();
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Pre-análisis del cliente {} falló: {}", clientId, e.getMessage());
+            meterRegistry.counter("ai.pre_analysis.clients", "outcome", "failure").increment();
+            return false;
+        } finally {
+            sample.stop(clientTime);
+        }
+    }
+
+    /**
+     * @return false si el hilo fue interrumpido (apagado de la aplicación)
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(throttle);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Ventana {@code [windowStart, windowEnd)}; si start > end cruza la
+     * medianoche (p.ej. 22:00 a 05:00).
+     */
+    boolean inWindow() {
+        LocalTime now = LocalTime.now(clock);
+        if (windowStart.isBefore(windowEnd)) {
+            return !now.isBefore(windowStart) && now.isBefore(windowEnd);
+        }
+        return !now.isBefore(windowStart) || now.isBefore(windowEnd);
+    }
+
+    private void runOutcome(String outcome) {
+        meterRegistry.counter("ai.pre_analysis.runs", "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,450 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.ProductRecommendation;
+import com.smartcommerce.kernel.collection.LongIntHashMap;
+import com.smartcommerce.kernel.collection.LongObjectHashMap;
+import com.smartcommerce.sales.api.OrderPlacedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * Recomendaciones por co-compra calculadas en memoria ("quienes compraron X
+ * también compraron Y" y "próximo producto para este cliente"), sin llamar al
+ * modelo.
+ *
+ * Al iniciar recorre order_items una sola vez (en streaming) y arma una
+ * matriz dispersa de co-ocurrencias producto x producto más las cantidades
+ * compradas por cliente, todo sobre mapas de claves {@code long} primitivas.
+ * Después se actualiza con cada {@link OrderPlacedEvent} confirmado. Las
+ * consultas recorren una fila de la matriz, por lo que responden en
+ * microsegundos.
+ *
+ * Mientras dura la carga los eventos se guardan (hasta
+ * {@code max-buffered-events}) y al terminar se aplican los de las órdenes que
+ * el recorrido no leyó. Si la carga falla se descartan y se reintenta con
+ * backoff exponencial: el nuevo recorrido ya incluye esas órdenes.
+ */
+@Component
+@Slf4j
+public class CoPurchaseEngine {
+
+    private static final String ITEMS_SQL = """
+            SELECT oi.order_id, o.client_id, oi.product_id, oi.quantity
+            FROM order_items oi JOIN orders o ON o.id = oi.order_id
+            ORDER BY oi.order_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int maxItemsPerOrder;
+    private final int maxBufferedEvents;
+    private final Duration initialRetryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Timer queryTime;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Matrix matrix = new Matrix();
+    private boolean ready;
+    private boolean buffering = true;
+    private boolean overflowed;
+    private final List<OrderPlacedEvent> buffered = new ArrayList<>();
+    private volatile Thread loader;
+
+    public CoPurchaseEngine(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.recommendations.enabled:true}") boolean enabled,
+            @Value("${app.recommendations.max-items-per-order:50}") int maxItemsPerOrder,
+            @Value("${app.recommendations.max-buffered-events:100000}") int maxBufferedEvents,
+            @Value("${app.recommendations.load-retry.initial-backoff:5s}") Duration initialRetryBackoff,
+            @Value("${app.recommendations.load-retry.max-backoff:5m}") Duration maxRetryBackoff) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxItemsPerOrder = maxItemsPerOrder;
+        this.maxBufferedEvents = Math.max(1, maxBufferedEvents);
+        this.initialRetryBackoff = initialRetryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff.compareTo(initialRetryBackoff) < 0 ? initialRetryBackoff : maxRetryBackoff;
+
+        this.queryTime = Timer.builder("recommendations.query")
+                .description("Consultas de recomendaciones por co-compra")
+                .register(meterRegistry);
+        Gauge.builder("recommendations.matrix.products", this, engine -> engine.read(m -> m.cooccurrence.size()))
+                .description("Productos con fila en la matriz de co-compra")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            loader = Thread.ofVirtual().name("co-purchase-loader").start(this::loadWithRetry);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = loader;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Productos que más se compran junto con {@code productId}.
+     */
+    public List<ProductRecommendation> alsoBought(long productId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return read(m -> {
+                LongIntHashMap row = m.cooccurrence.get(productId);
+                int orders = m.ordersWithProduct.get(productId);
+                if (row == null || orders == 0) {
+                    return List.<ProductRecommendation>of();
+                }
+                long[] top = topN(row, limit, id -> false);
+                List<ProductRecommendation> result = new ArrayList<>(top.length);
+                for (long id : top) {
+                    int together = row.get(id);
+                    result.add(new ProductRecommendation(id, m.name(id), (double) together / orders, together));
+                }
+                return result;
+            });
+        } finally {
+            queryTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Productos que el cliente todavía no compró, puntuados por la confianza de
+     * co-compra acumulada sobre todo lo que sí compró.
+     */
+    public List<ProductRecommendation> recommendForClient(long clientId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return read(m -> {
+                LongIntHashMap purchased = m.clientQuantities.get(clientId);
+                if (purchased == null) {
+                    return List.<ProductRecommendation>of();
+                }
+                // Confianza en milésimas para acumular en un mapa de enteros
+                LongIntHashMap scores = new LongIntHashMap(64);
+                LongIntHashMap together = new LongIntHashMap(64);
+                purchased.forEach((productId, quantity) -> {
+                    LongIntHashMap row = m.cooccurrence.get(productId);
+                    int orders = m.ordersWithProduct.get(productId);
+                    if (row == null || orders == 0) {
+                        return;
+                    }
+                    row.forEach((otherId, count) -> {
+                        scores.addTo(otherId, (int) (count * 1000L / orders));
+                        together.addTo(otherId, count);
+                    });
+                });
+                long[] top = topN(scores, limit, purchased::containsKey);
+                List<ProductRecommendation> result = new ArrayList<>(top.length);
+                for (long id : top) {
+                    result.add(new ProductRecommendation(id, m.name(id), scores.get(id) / 1000.0, together.get(id)));
+                }
+                return result;
+            });
+        } finally {
+            queryTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Nombres de los próximos productos sugeridos para el cliente; vacío si el
+     * cliente no tiene compras o la matriz todavía se está cargando.
+     */
+    public List<String> suggestedProductNames(Long clientId, int limit) {
+        if (clientId == null) {
+            return List.of();
+        }
+        return recommendForClient(clientId, limit).stream()
+                .map(ProductRecommendation::productName)
+                .toList();
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                buffer(event);
+                return;
+            }
+            apply(matrix, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda un evento llegado antes de que la matriz esté lista. Si se supera
+     * el máximo, la carga en curso se descarta al terminar y se repite; hasta
+     * que empiece el nuevo recorrido los eventos no se guardan, porque ese
+     * recorrido ya verá sus órdenes confirmadas.
+     */
+    private void buffer(OrderPlacedEvent event) {
+        if (!buffering) {
+            return;
+        }
+        if (buffered.size() < maxBufferedEvents) {
+            buffered.add(event);
+            return;
+        }
+        buffered.clear();
+        buffering = false;
+        overflowed = true;
+    }
+
+    private void loadWithRetry() {
+        Duration backoff = initialRetryBackoff;
+        while (!Thread.currentThread().isInterrupted()) {
+            boolean loaded;
+            try {
+                loaded = load();
+            } catch (RuntimeException e) {
+                discardBuffered();
+                log.error("No se pudo cargar la matriz de co-compra; se reintenta en {}", backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(maxRetryBackoff) > 0
+                        ? maxRetryBackoff : backoff.multipliedBy(2);
+                continue;
+            }
+            if (loaded) {
+                return;
+            }
+            log.warn("Más de {} órdenes confirmadas durante la carga de la matriz de co-compra; se vuelve a cargar",
+                    maxBufferedEvents);
+        }
+    }
+
+    /**
+     * Recorre las órdenes y, si no se desbordó el buffer, publica la matriz
+     * nueva; devuelve false si hay que repetir la carga.
+     */
+    private boolean load() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            buffering = true;
+            overflowed = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Matrix fresh = new Matrix();
+        LongIntHashMap scannedOrders = new LongIntHashMap(1024);
+        jdbcTemplate.query("SELECT id, name FROM products", rs -> {
+            fresh.names.put(rs.getLong(1), rs.getString(2));
+        });
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            OrderBasket basket = new OrderBasket();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(ITEMS_SQL);
+                // Con autocommit desactivado el driver trae filas de a bloques
+                statement.setFetchSize(5000);
+                return statement;
+            }, rs -> {
+                long orderId = rs.getLong(1);
+                if (orderId != basket.orderId && basket.orderId != 0) {
+                    fresh.add(basket.clientId, basket.quantities, maxItemsPerOrder);
+                    basket.reset();
+                }
+                basket.orderId = orderId;
+                long clientId = rs.getLong(2);
+                basket.clientId = rs.wasNull() ? 0 : clientId;
+                basket.quantities.addTo(rs.getLong(3), rs.getInt(4));
+                scannedOrders.put(orderId, 1);
+            });
+            if (basket.orderId != 0) {
+                fresh.add(basket.clientId, basket.quantities, maxItemsPerOrder);
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            if (overflowed) {
+                return false;
+            }
+            // Se aplican solo los eventos de órdenes que el recorrido no leyó. No
+            // alcanza con comparar contra el mayor ID leído: los IDs se asignan
+            // antes del commit, y una orden con ID menor puede confirmarse
+            // después de que el recorrido pasó por su posición.
+            for (OrderPlacedEvent event : buffered) {
+                if (!scannedOrders.containsKey(event.orderId())) {
+                    apply(fresh, event);
+                }
+            }
+            buffered.clear();
+            buffering = false;
+            matrix = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Matriz de co-compra lista: {} productos, {} clientes en {} ms", fresh.cooccurrence.size(),
+                fresh.clientQuantities.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
+    }
+
+    /**
+     * Tras una carga fallida los eventos guardados no sirven: el próximo
+     * recorrido empieza después y ya ve esas órdenes.
+     */
+    private void discardBuffered() {
+        lock.writeLock().lock();
+        try {
+            buffered.clear();
+            buffering = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Matrix target, OrderPlacedEvent event) {
+        LongIntHashMap quantities = new LongIntHashMap(event.lines().size());
+        for (OrderPlacedEvent.Line line : event.lines()) {
+            if (line.productId() == null) {
+                continue;
+            }
+            quantities.addTo(line.productId(), line.quantity());
+            if (line.productName() != null) {
+                target.names.put(line.productId(), line.productName());
+            }
+        }
+        target.add(event.clientId() != null ? event.clientId() : 0, quantities, maxItemsPerOrder);
+    }
+
+    private <T> T read(Function<Matrix, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(matrix);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los {@code limit} IDs de mayor puntaje (empates por ID ascendente),
+     * salteando los excluidos. Selección parcial sobre arreglos de tamaño
+     * {@code limit}, sin ordenar toda la fila.
+     */
+    static long[] topN(LongIntHashMap scores, int limit, LongPredicate excluded) {
+        int capacity = Math.max(0, limit);
+        long[] ids = new long[capacity];
+        int[] values = new int[capacity];
+        int[] count = {0};
+        scores.forEach((id, score) -> {
+            if (capacity == 0 || excluded.test(id)) {
+                return;
+            }
+            int n = count[0];
+            if (n == capacity && !ranksBefore(score, id, values[n - 1], ids[n - 1])) {
+                return;
+            }
+            int position = n == capacity ? n - 1 : n;
+            while (position > 0 && ranksBefore(score, id, values[position - 1], ids[position - 1])) {
+                ids[position] = ids[position - 1];
+                values[position] = values[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            values[position] = score;
+            if (n < capacity) {
+                count[0]++;
+            }
+        });
+        return Arrays.copyOf(ids, count[0]);
+    }
+
+    private static boolean ranksBefore(int score, long id, int otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    /**
+     * Estado de la matriz. Se accede siempre bajo el lock del motor.
+     */
+    private static final class Matrix {
+        final LongObjectHashMap<LongIntHashMap> cooccurrence = new LongObjectHashMap<>(1024);
+        final LongIntHashMap ordersWithProduct = new LongIntHashMap(1024);
+        final LongObjectHashMap<LongIntHashMap> clientQuantities = new LongObjectHashMap<>(256);
+        final LongObjectHashMap<String> names = new LongObjectHashMap<>(1024);
+
+        String name(long productId) {
+            String name = names.get(productId);
+            return name != null ? name : "Producto " + productId;
+        }
+
+        /**
+         * Suma una orden: cada par de productos distintos cuenta una
+         * co-ocurrencia. Órdenes con más de {@code maxItems} productos se
+         * recortan para acotar el costo cuadrático: quedan los de mayor
+         * cantidad (empates por ID), así la carga inicial y los eventos
+         * recortan igual sin importar el orden de las líneas.
+         */
+        void add(long clientId, LongIntHashMap quantities, int maxItems) {
+            long[] products = quantities.size() > maxItems
+                    ? topN(quantities, maxItems, id -> false)
+                    : quantities.keys();
+            int n = products.length;
+            for (int i = 0; i < n; i++) {
+                ordersWithProduct.addTo(products[i], 1);
+                LongIntHashMap row = cooccurrence.computeIfAbsent(products[i], id -> new LongIntHashMap());
+                for (int j = 0; j < n; j++) {
+                    if (i != j) {
+                        row.addTo(products[j], 1);
+                    }
+                }
+            }
+            if (clientId != 0) {
+                LongIntHashMap purchased = clientQuantities.computeIfAbsent(clientId, id -> new LongIntHashMap());
+                quantities.forEach(purchased::addTo);
+            }
+        }
+    }
+
+    private static final class OrderBasket {
+        long orderId;
+        long clientId;
+        final LongIntHashMap quantities = new LongIntHashMap(16);
+
+        void reset() {
+            orderId = 0;
+            clientId = 0;
+            quantities.clear();
+        }
+    }
+}
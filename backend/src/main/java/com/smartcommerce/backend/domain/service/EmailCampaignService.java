@@ -0,0 +1,216 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.backend.domain.dto.AiContextDTO;
+import com.smartcommerce.backend.domain.dto.ClientOrderAggregate;
+import com.smartcommerce.backend.domain.dto.ClientProductQuantity;
+import com.smartcommerce.backend.domain.dto.EmailDraftResponse;
+import com.smartcommerce.backend.domain.dto.ProductQuantity;
+import com.smartcommerce.backend.domain.dto.campaign.EmailCampaignDraft;
+import com.smartcommerce.backend.domain.dto.campaign.EmailCampaignRequest;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderItemRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.kernel.concurrent.BoundedFanOut;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Campañas de correo sobre varios clientes de la cartera.
+ *
+ * Los contextos de todos los clientes se arman antes de responder con las
+ * mismas consultas agregadas que el análisis de cartera (totales y cantidades
+ * por producto para todos los clientes del usuario), así una campaña inválida
+ * se rechaza con 4xx. Después los borradores se generan con paralelismo
+ * acotado y cada uno se escribe como una línea NDJSON apenas termina. Un
+ * cliente que falla produce una línea con {@code success=false} y la campaña
+ * continúa; si el cliente HTTP se desconecta se cancelan las llamadas
+ * pendientes.
+ */
+@Service
+@Slf4j
+public class EmailCampaignService {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final AiService aiService;
+    private final AiContextAssembler contextAssembler;
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final int maxClients;
+
+    public EmailCampaignService(AiService aiService, AiContextAssembler contextAssembler,
+            ClientRepository clientRepository, OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.ai.campaign.parallelism:4}") int parallelism,
+            @Value("${app.ai.campaign.max-clients:500}") int maxClients) {
+        this.aiService = aiService;
+        this.contextAssembler = contextAssembler;
+        this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = Math.max(1, parallelism);
+        this.maxClients = maxClients;
+    }
+
+    public StreamingResponseBody draftCampaign(User user, EmailCampaignRequest request) {
+        if (request.recommendation() == null || request.recommendation().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La campaña necesita una recomendación");
+        }
+        boolean byIds = request.clientIds() != null && !request.clientIds().isEmpty();
+        if (!byIds && (request.tier() == null || request.tier().isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indique clientIds o tier");
+        }
+
+        List<CampaignTarget> targets = readOnlyTransaction.execute(status -> loadTargets(user, request, byIds));
+        log.info("Campaña de correos del usuario {}: {} clientes", user.getEmail(), targets.size());
+        return out -> stream(targets, request.recommendation(), out);
+    }
+
+    private List<CampaignTarget> loadTargets(User user, EmailCampaignRequest request, boolean byIds) {
+        List<Client> portfolio = clientRepository.findByUser(user);
+        List<Client> selected = new ArrayList<>();
+        if (byIds) {
+            Set<Long> requested = new LinkedHashSet<>(request.clientIds());
+            Set<Long> found = new HashSet<>();
+            for (Client client : portfolio) {
+                if (requested.contains(client.getId())) {
+                    selected.add(client);
+                    found.add(client.getId());
+                }
+            }
+            requested.removeAll(found);
+            if (!requested.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Clientes no encontrados en su cartera: " + requested);
+            }
+        } else {
+            for (Client client : portfolio) {
+                if (request.tier().equalsIgnoreCase(client.getTier())) {
+                    selected.add(client);
+                }
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ningún cliente coincide con la campaña");
+        }
+        if (selected.size() > maxClients) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La campaña supera el máximo de " + maxClients + " clientes");
+        }
+
+        Map<Long, ClientOrderAggregate> totals = new HashMap<>();
+        for (ClientOrderAggregate row : orderRepository.aggregateByClientUserId(user.getId())) {
+            totals.put(row.clientId(), row);
+        }
+        Map<Long, List<ProductQuantity>> products = new HashMap<>();
+        for (ClientProductQuantity row : orderItemRepository.sumQuantitiesByClientForUser(user.getId())) {
+            products.computeIfAbsent(row.clientId(), id -> new ArrayList<>())
+                    .add(new ProductQuantity(row.productName(), row.quantity()));
+        }
+
+        List<CampaignTarget> targets = new ArrayList<>(selected.size());
+        for (Client client : selected) {
+            List<ProductQuantity> bought = products.getOrDefault(client.getId(), new ArrayList<>());
+            bought.sort(Comparator.comparing(ProductQuantity::quantity).reversed()
+                    .thenComparing(ProductQuantity::productName));
+            ClientOrderAggregate clientTotals = totals.get(client.getId());
+            AiContextDTO context = clientTotals != null
+                    ? contextAssembler.assemble(client.getId(), client.getName(), clientTotals.totalSpent(),
+                            clientTotals.orderCount(), clientTotals.firstOrderAt(), clientTotals.lastOrderAt(), bought)
+                    : contextAssembler.assemble(client.getId(), client.getName(), BigDecimal.ZERO, 0, null, null,
+                            List.of());
+            targets.add(new CampaignTarget(client.getId(), client.getName(), context));
+        }
+        return targets;
+    }
+
+    private void stream(List<CampaignTarget> targets, String template, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        int total = targets.size();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        try {
+            BoundedFanOut.run(targets, parallelism, target -> draft(target, template),
+                    DelegatingSecurityContextCallable::new, outcome -> {
+                        if (outcome.draft() == null) {
+                            failed.incrementAndGet();
+                        }
+                        out.write(objectMapper.writeValueAsBytes(new EmailCampaignDraft(
+                                outcome.target().clientId(), outcome.target().clientName(), outcome.draft() != null,
+                                outcome.draft(), outcome.error(), completed.incrementAndGet(), total)));
+                        out.write(NEWLINE);
+                        out.flush();
+                    });
+        } catch (IOException e) {
+            log.info("El cliente abandonó la campaña; se cancelan los borradores pendientes");
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        meterRegistry.timer("ai.campaign.duration").record(Duration.ofNanos(System.nanoTime() - start));
+        log.info("Campaña de correos terminada: {} clientes, {} fallidos", total, failed.get());
+    }
+
+    /**
+     * Genera el borrador de un cliente; nunca lanza, el error viaja en el
+     * resultado.
+     */
+    private DraftOutcome draft(CampaignTarget target, String template) {
+        try {
+            String recommendation = template
+                    .replace("{clientName}", target.context().clientName())
+                    .replace("{topProduct}", target.context().topProduct());
+            EmailDraftResponse draft = aiService.draftEmail(target.context(), recommendation);
+            meterRegistry.counter("ai.campaign.drafts", "outcome", "success").increment();
+            return new DraftOutcome(target, draft, null);
+        } catch (RuntimeException e) {
+            log.warn("Falló el borrador del cliente {}: {}", target.clientId(), e.getMessage());
+            meterRegistry.counter("ai.campaign.drafts", "outcome", "failure").increment();
+            return new DraftOutcome(target, null, e.getMessage());
+        }
+    }
+
+    private record CampaignTarget(Long clientId, String clientName, AiContextDTO context) {
+    }
+
+    private record DraftOutcome(CampaignTarget target, EmailDraftResponse draft, String error) {
+    }
+}
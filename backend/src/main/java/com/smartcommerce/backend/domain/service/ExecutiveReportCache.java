@@ -0,0 +1,241 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Caché de PDFs ejecutivos ya renderizados, por cliente. Cada entrada guarda
+ * el ETag con el que se generó: si la versión de datos cambió, la entrada
+ * no sirve y se reemplaza en el próximo render.
+ *
+ * Los informes chicos quedan en memoria (acotada por bytes); los que superan
+ * {@code disk-threshold} se guardan en {@code disk-dir}, también acotado por
+ * bytes, y el archivo se borra al desalojar la entrada. El índice vive solo
+ * en memoria: al arrancar se limpia el directorio.
+ */
+@Component
+@Slf4j
+public class ExecutiveReportCache {
+
+    private static final String FILE_SUFFIX = ".pdf";
+
+    private final boolean enabled;
+    private final long diskThreshold;
+    private final Path diskDir;
+    private final Cache<Long, CachedReport> memory;
+    private final Cache<Long, CachedReport> disk;
+
+    public ExecutiveReportCache(MeterRegistry meterRegistry,
+            @Value("${app.reports.cache.enabled:true}") boolean enabled,
+            @Value("${app.reports.cache.memory-max-size:64MB}") DataSize memoryMaxSize,
+            @Value("${app.reports.cache.disk-threshold:512KB}") DataSize diskThreshold,
+            @Value("${app.reports.cache.disk-max-size:1GB}") DataSize diskMaxSize,
+            @Value("${app.reports.cache.disk-dir:${java.io.tmpdir}/smartcommerce-reports}") String diskDir) {
+        this.enabled = enabled;
+        this.diskThreshold = diskThreshold.toBytes();
+        this.diskDir = Path.of(diskDir);
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxSize.toBytes())
+                .weigher((Long clientId, CachedReport report) -> weight(report))
+                .recordStats()
+                .build();
+        this.disk = Caffeine.newBuilder()
+                .maximumWeight(diskMaxSize.toBytes())
+                .weigher((Long clientId, CachedReport report) -> weight(report))
+                .removalListener((Long clientId, CachedReport report, RemovalCause cause) -> {
+                    if (report != null) {
+                        deleteQuietly(report.file());
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "executiveReports.memory");
+        CaffeineCacheMetrics.monitor(meterRegistry, disk, "executiveReports.disk");
+        if (enabled) {
+            prepareDiskDir();
+        }
+    }
+
+    /**
+     * PDF del cliente si fue generado con este mismo ETag.
+     */
+    public Optional<CachedReport> get(Long clientId, String etag) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedReport cached = memory.getIfPresent(clientId);
+        if (cached == null) {
+            cached = disk.getIfPresent(clientId);
+        }
+        if (cached == null || !cached.etag().equals(etag)) {
+            return Optional.empty();
+        }
+        if (cached.file() != null && !Files.exists(cached.file())) {
+            disk.invalidate(clientId);
+            return Optional.empty();
+        }
+        return Optional.of(cached);
+    }
+
+    /**
+     * Envuelve el stream de la respuesta: lo que se escribe pasa de largo y
+     * además se copia para la caché. Hay que cerrar la captura con
+     * {@link Capture#commit()} si el render terminó bien o
+     * {@link Capture#discard()} si falló.
+     */
+    public Capture capture(Long clientId, String etag, OutputStream out) {
+        return new Capture(clientId, etag, out);
+    }
+
+    private void store(Long clientId, CachedReport report) {
+        if (report.file() == null) {
+            memory.put(clientId, report);
+            disk.invalidate(clientId);
+        } else {
+            disk.put(clientId, report);
+            memory.invalidate(clientId);
+        }
+    }
+
+    private static int weight(CachedReport report) {
+        return (int) Math.min(Integer.MAX_VALUE, report.size());
+    }
+
+    private void prepareDiskDir() {
+        try {
+            Files.createDirectories(diskDir);
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(diskDir, "*" + FILE_SUFFIX)) {
+                stale.forEach(ExecutiveReportCache::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar " + diskDir, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el informe cacheado {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Informe cacheado: en memoria ({@code content}) o en disco ({@code file}).
+     */
+    public record CachedReport(String etag, long size, byte[] content, Path file) {
+
+        public void writeTo(OutputStream out) throws IOException {
+            if (content != null) {
+                out.write(content);
+            } else {
+                try {
+                    Files.copy(file, out);
+                } catch (NoSuchFileException e) {
+                    // Desalojado entre el get y la lectura; todavía no se escribió nada
+                    throw new IOException("Informe cacheado desalojado: " + file, e);
+                }
+            }
+        }
+    }
+
+    public final class Capture extends OutputStream {
+
+        private final Long clientId;
+        private final String etag;
+        private final OutputStream out;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Path file;
+        private OutputStream fileOut;
+        private long size;
+
+        private Capture(Long clientId, String etag, OutputStream out) {
+            this.clientId = clientId;
+            this.etag = etag;
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (!enabled) {
+                return;
+            }
+            size += len;
+            if (fileOut == null && size > diskThreshold) {
+                spillToDisk();
+            }
+            if (fileOut != null) {
+                fileOut.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private void spillToDisk() throws IOException {
+            file = Files.createTempFile(diskDir, "report-" + clientId + "-", FILE_SUFFIX);
+            fileOut = Files.newOutputStream(file);
+            buffer.writeTo(fileOut);
+            buffer = null;
+        }
+
+        public void commit() {
+            if (!enabled) {
+                return;
+            }
+            try {
+                if (fileOut != null) {
+                    fileOut.close();
+                    store(clientId, new CachedReport(etag, size, null, file));
+                } else {
+                    store(clientId, new CachedReport(etag, size, buffer.toByteArray(), null));
+                }
+            } catch (IOException e) {
+                log.warn("No se pudo cachear el informe del cliente {}: {}", clientId, e.getMessage());
+                discard();
+            }
+        }
+
+        public void discard() {
+            if (fileOut != null) {
+                try {
+                    fileOut.close();
+                } catch (IOException e) {
+                    // se borra igual
+                }
+                deleteQuietly(file);
+            }
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Layout del informe ejecutivo, armado una sola vez: fuentes, anchos de
+ * columnas, celdas de encabezado y pie de página se resuelven al crear el
+ * bean y se comparten entre hilos. Por cada informe solo se crean los
+ * elementos con datos del cliente.
+ *
+ * OpenPDF modifica tablas, celdas y párrafos durante el layout, así que lo
+ * compartido es de solo lectura: las fuentes, el {@link Phrase} del pie (que
+ * {@link ColumnText} solo lee) y celdas prototipo, sin contenido, cuyo estilo
+ * se copia en cada render.
+ */
+@Component
+public class ExecutiveReportTemplate {
+
+    private static final String TITLE = "SmartCommerce B2B - Informe Estratégico de Inteligencia";
+    private static final String FOOTER = "Generado automáticamente por SmartCommerce AI Engine";
+    private static final String NO_DATA = "N/A";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final float[] PROFILE_WIDTHS = { 3f, 7f };
+    private static final float[] PRODUCT_WIDTHS = { 6f, 2f, 2f };
+    private static final String[] PRODUCT_HEADERS = { "Producto", "Cantidad", "Total" };
+
+    private final Font titleFont;
+    private final Font sectionFont;
+    private final Font textFont;
+    private final Font boldFont;
+
+    private final PdfPCell productHeaderCell;
+    private final PdfPCell profileLabelCell;
+    private final PdfPCell profileValueCell;
+    private final FooterEvent footerEvent;
+
+    public ExecutiveReportTemplate() {
+        this.titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.DARK_GRAY);
+        this.sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, new Color(50, 50, 150));
+        this.textFont = FontFactory.getFont(FontFactory.HELVETICA, 11, Color.BLACK);
+        this.boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, Color.BLACK);
+
+        this.productHeaderCell = new PdfPCell();
+        this.productHeaderCell.setBackgroundColor(Color.LIGHT_GRAY);
+        this.productHeaderCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        this.productHeaderCell.setPadding(5);
+        this.profileLabelCell = new PdfPCell();
+        this.profileLabelCell.setBorder(Rectangle.NO_BORDER);
+        this.profileValueCell = new PdfPCell();
+        this.profileValueCell.setBorder(Rectangle.NO_BORDER);
+
+        Font footerFont = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 9, Color.GRAY);
+        this.footerEvent = new FooterEvent(new Phrase(FOOTER, footerFont));
+    }
+
+    /**
+     * Escribe el PDF en {@code out} sin cerrarlo.
+     */
+    public void render(ExecutiveReport report, LocalDate generatedOn, OutputStream out) throws DocumentException {
+        Document document = new Document(PageSize.A4);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        // El stream es del llamador (respuesta HTTP o entrada de un ZIP)
+        writer.setCloseStream(false);
+        writer.setPageEvent(footerEvent);
+
+        document.open();
+
+        // HEADER
+        Paragraph header = new Paragraph(TITLE, titleFont);
+        header.setAlignment(Element.ALIGN_CENTER);
+        header.setSpacingAfter(10);
+        document.add(header);
+
+        Paragraph date = new Paragraph("Generado el: " + generatedOn.format(DATE_FORMAT), textFont);
+        date.setAlignment(Element.ALIGN_CENTER);
+        date.setSpacingAfter(20);
+        document.add(date);
+
+        document.add(spacer());
+
+        // SECTION 1: CUSTOMER PROFILE
+        document.add(new Paragraph("1. Perfil del Cliente", sectionFont));
+        document.add(spacer());
+
+        PdfPTable profileTable = new PdfPTable(PROFILE_WIDTHS);
+        profileTable.setWidthPercentage(100);
+
+        addProfileRow(profileTable, "Cliente:", report.clientName());
+        addProfileRow(profileTable, "Industria:", report.industry() != null ? report.industry() : NO_DATA);
+        addProfileRow(profileTable, "Email Contacto:", report.contactEmail() != null ? report.contactEmail() : NO_DATA);
+        addProfileRow(profileTable, "Gasto Total Histórico:", String.format("$%,.2f", report.totalSpent()));
+        addProfileRow(profileTable, "Categoría Principal:", report.mainCategory());
+
+        document.add(profileTable);
+        document.add(spacer());
+
+        // SECTION 2: AI ANALYSIS
+        if (report.hasAnalysis()) {
+            document.add(new Paragraph("2. Análisis de Inteligencia Artificial", sectionFont));
+            document.add(spacer());
+
+            Paragraph score = new Paragraph("Oportunidad de Negocio: " + report.analysisScore() + "/10", boldFont);
+            score.setSpacingAfter(5);
+            document.add(score);
+
+            document.add(new Paragraph("Resumen Ejecutivo:", boldFont));
+            document.add(new Paragraph(report.executiveSummary(), textFont));
+            document.add(spacer());
+
+            document.add(new Paragraph("Recomendación Estratégica:", boldFont));
+            document.add(new Paragraph(report.recommendation(), textFont));
+        } else {
+            document.add(new Paragraph(
+                    "2. Análisis de IA: No hay análisis previo disponible. Ejecute un análisis en el Dashboard.",
+                    textFont));
+        }
+        document.add(spacer());
+
+        // SECTION 3: SALES BREAKDOWN
+        document.add(new Paragraph("3. Desglose de Ventas (Top 5 Productos)", sectionFont));
+        document.add(spacer());
+
+        PdfPTable table = new PdfPTable(PRODUCT_WIDTHS);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+
+        for (String column : PRODUCT_HEADERS) {
+            table.addCell(cell(productHeaderCell, column, boldFont));
+        }
+
+        for (ProductStats p : report.topProducts()) {
+            table.addCell(new PdfPCell(new Phrase(p.name(), textFont)));
+            table.addCell(new PdfPCell(new Phrase(String.valueOf(p.quantity()), textFont)));
+            table.addCell(new PdfPCell(new Phrase(String.format("$%,.2f", p.total()), textFont)));
+        }
+
+        document.add(table);
+
+        document.close();
+    }
+
+    private Paragraph spacer() {
+        return new Paragraph(" ");
+    }
+
+    private void addProfileRow(PdfPTable table, String label, String value) {
+        table.addCell(cell(profileLabelCell, label, boldFont));
+        table.addCell(cell(profileValueCell, value, textFont));
+    }
+
+    /**
+     * Copia del prototipo con el texto de este informe; el prototipo no se toca.
+     */
+    private static PdfPCell cell(PdfPCell prototype, String text, Font font) {
+        PdfPCell cell = new PdfPCell(prototype);
+        cell.setPhrase(new Phrase(text, font));
+        return cell;
+    }
+
+    /**
+     * Sin estado propio: una sola instancia sirve para todos los documentos.
+     */
+    private static final class FooterEvent extends PdfPageEventHelper {
+
+        private final Phrase footer;
+
+        private FooterEvent(Phrase footer) {
+            this.footer = footer;
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_CENTER, footer,
+                    (document.right() - document.left()) / 2 + document.leftMargin(),
+                    document.bottom() - 10, 0);
+        }
+    }
+}
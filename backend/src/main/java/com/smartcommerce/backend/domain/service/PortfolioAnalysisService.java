@@ -0,0 +1,352 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.ai_engine.gateway.LlmCallContext;
+import com.smartcommerce.ai_engine.gateway.LlmPriority;
+import com.smartcommerce.backend.domain.dto.AiContextDTO;
+import com.smartcommerce.backend.domain.dto.ClientOrderAggregate;
+import com.smartcommerce.backend.domain.dto.ClientOrderId;
+import com.smartcommerce.backend.domain.dto.ClientProductQuantity;
+import com.smartcommerce.backend.domain.dto.OrderSetVersion;
+import com.smartcommerce.backend.domain.dto.PortfolioAnalysisProgress;
+import com.smartcommerce.backend.domain.dto.ProductQuantity;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.SalesAnalysis;
+import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderItemRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.SalesAnalysisRepository;
+import com.smartcommerce.iam.domain.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Análisis de toda la cartera de un usuario en una sola operación.
+ *
+ * Los contextos de todos los clientes se calculan con consultas agregadas sobre
+ * la cartera completa, las llamadas al LLM se reparten con paralelismo acotado
+ * y los SalesAnalysis se guardan por lotes. El progreso se emite por SSE con un
+ * evento {@code client} por cliente y un evento final {@code completed}. El
+ * evento de un cliente analizado se envía recién cuando su lote se confirmó:
+ * si el lote falla se reintenta fila por fila y los clientes que no se pudieron
+ * guardar se informan como fallidos.
+ */
+@Service
+@Slf4j
+public class PortfolioAnalysisService {
+
+    private final AiService aiService;
+    private final AiContextAssembler contextAssembler;
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final SalesAnalysisRepository salesAnalysisRepository;
+    private final SalesAnalysisCache analysisCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final int parallelism;
+    private final int persistBatchSize;
+    private final long emitterTimeoutMs;
+
+    public PortfolioAnalysisService(AiService aiService, AiContextAssembler contextAssembler,
+            ClientRepository clientRepository, OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            SalesAnalysisRepository salesAnalysisRepository, SalesAnalysisCache analysisCache,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${app.ai.portfolio.parallelism:4}") int parallelism,
+            @Value("${app.ai.portfolio.persist-batch-size:25}") int persistBatchSize,
+            @Value("${app.ai.portfolio.sse-timeout:30m}") Duration sseTimeout) {
+        this.aiService = aiService;
+        this.contextAssembler = contextAssembler;
+        this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.salesAnalysisRepository = salesAnalysisRepository;
+        this.analysisCache = analysisCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.parallelism = parallelism;
+        this.persistBatchSize = persistBatchSize;
+        this.emitterTimeoutMs = sseTimeout.toMillis();
+    }
+
+    public SseEmitter analyzePortfolio(User user) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Thread.ofVirtual()
+                .name("portfolio-analysis-" + user.getId())
+                .start(new DelegatingSecurityContextRunnable(() -> run(user, emitter)));
+        return emitter;
+    }
+
+    /**
+     * Visible para las pruebas, que pasan su propio emisor.
+     */
+    void run(User user, SseEmitter sseEmitter) {
+        long start = System.nanoTime();
+        ProgressEmitter emitter = new ProgressEmitter(sseEmitter);
+        try {
+            List<Client> portfolio = clientRepository.findByUser(user);
+            List<ClientWork> work = readOnlyTransaction.execute(status -> loadPortfolio(user.getId(), portfolio));
+            emitter.send("started", Map.of(
+                    "total", work.size(),
+                    "skippedWithoutOrders", portfolio.size() - work.size()));
+
+            AtomicInteger completed = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            PersistBuffer buffer = new PersistBuffer(emitter, work.size(), completed, failed);
+            Semaphore permits = new Semaphore(parallelism);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (ClientWork item : work) {
+                    permits.acquireUninterruptibly();
+                    executor.execute(new DelegatingSecurityContextRunnable(() -> {
+                        try {
+                            analyzeClient(item, work.size(), completed, failed, buffer, emitter);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+            }
+            buffer.flush();
+
+            long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            meterRegistry.timer("ai.portfolio.analysis.duration").record(Duration.ofMillis(elapsedMs));
+            log.info("Análisis de cartera del usuario {}: {} clientes, {} fallidos, {} ms",
+                    user.getEmail(), work.size(), failed.get(), elapsedMs);
+            emitter.send("completed", Map.of(
+                    "total", work.size(),
+                    "succeeded", completed.get() - failed.get(),
+                    "failed", failed.get(),
+                    "durationMs", elapsedMs));
+            sseEmitter.complete();
+        } catch (Exception e) {
+            log.error("Falló el análisis de cartera del usuario {}", user.getEmail(), e);
+            sseEmitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Arma el contexto de cada cliente con tres consultas agregadas para toda la
+     * cartera (totales por cliente, IDs de órdenes y cantidades por producto), sin
+     * materializar órdenes ni ítems.
+     */
+    private List<ClientWork> loadPortfolio(Long userId, List<Client> portfolio) {
+        Map<Long, Client> clients = new LinkedHashMap<>();
+        portfolio.forEach(client -> clients.put(client.getId(), client));
+
+        Map<Long, List<Long>> orderIdsByClient = new HashMap<>();
+        for (ClientOrderId row : orderRepository.findClientOrderIdsByUserId(userId)) {
+            orderIdsByClient.computeIfAbsent(row.clientId(), id -> new ArrayList<>()).add(row.orderId());
+        }
+
+        Map<Long, List<ProductQuantity>> productsByClient = new HashMap<>();
+        for (ClientProductQuantity row : orderItemRepository.sumQuantitiesByClientForUser(userId)) {
+            productsByClient.computeIfAbsent(row.clientId(), id -> new ArrayList<>())
+                    .add(new ProductQuantity(row.productName(), row.quantity()));
+        }
+
+        List<ClientWork> work = new ArrayList<>();
+        for (ClientOrderAggregate totals : orderRepository.aggregateByClientUserId(userId)) {
+            Client client = clients.get(totals.clientId());
+            if (client == null) {
+                continue;
+            }
+            List<ProductQuantity> products = productsByClient.getOrDefault(totals.clientId(), new ArrayList<>());
+            products.sort(Comparator.comparing(ProductQuantity::quantity).reversed()
+                    .thenComparing(ProductQuantity::productName));
+
+            AiContextDTO context = contextAssembler.assemble(client.getId(), client.getName(), totals.totalSpent(),
+                    totals.orderCount(), totals.firstOrderAt(), totals.lastOrderAt(), products);
+            OrderSetVersion version = new OrderSetVersion(totals.orderCount(), totals.totalSpent(),
+                    totals.lastOrderAt(), totals.maxOrderId(), client.getId(), 1L, totals.orderCount());
+            work.add(new ClientWork(client, context,
+                    SalesAnalysisCache.fingerprint(orderIdsByClient.getOrDefault(totals.clientId(), List.of())),
+                    version));
+        }
+        return work;
+    }
+
+    private void analyzeClient(ClientWork item, int total, AtomicInteger completed, AtomicInteger failed,
+            PersistBuffer buffer, ProgressEmitter emitter) {
+        SalesAnalysisResponse response;
+        try {
+            response = LlmCallContext.withPriority(LlmPriority.BACKGROUND,
+                    () -> aiService.requestAnalysis(item.context()));
+        } catch (Exception e) {
+            reportFailure(item.client(), e, total, completed, failed, emitter);
+            return;
+        }
+        buffer.add(new AnalyzedClient(item, response));
+    }
+
+    private void reportFailure(Client client, Exception e, int total, AtomicInteger completed,
+            AtomicInteger failed, ProgressEmitter emitter) {
+        failed.incrementAndGet();
+        meterRegistry.counter("ai.portfolio.analysis.failures").increment();
+        log.warn("Falló el análisis del cliente {}: {}", client.getId(), e.getMessage());
+        emitter.send("client", new PortfolioAnalysisProgress(client.getId(), client.getName(), false, null,
+                e.getMessage(), completed.incrementAndGet(), total));
+    }
+
+    private record ClientWork(Client client, AiContextDTO context, String fingerprint, OrderSetVersion version) {
+    }
+
+    private record AnalyzedClient(ClientWork work, SalesAnalysisResponse response) {
+
+        /**
+         * Entidad nueva en cada intento: tras un saveAll revertido las
+         * anteriores conservan el ID asignado por la base.
+         */
+        SalesAnalysis toEntity() {
+            return SalesAnalysis.builder()
+                    .client(work.client())
+                    .score(response.scoreOportunidad())
+                    .executiveSummary(response.resumenEjecutivo())
+                    .recommendation(response.accionRecomendada())
+                    .alerts(response.alertas())
+                    .orderFingerprint(work.fingerprint())
+                    .dataVersion(work.version().dataVersion())
+                    .build();
+        }
+    }
+
+    /**
+     * Serializa los envíos de los hilos virtuales sobre el mismo SseEmitter.
+     * Usa un ReentrantLock y no synchronized: la escritura en el socket bajo un
+     * monitor fijaría el hilo virtual a su carrier mientras dura.
+     */
+    private static final class ProgressEmitter {
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private ProgressEmitter(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void send(String event, Object data) {
+            lock.lock();
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // El cliente dejó de escuchar: el lote sigue y los resultados quedan persistidos
+                log.debug("No se pudo enviar el evento {}: {}", event, e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Acumula análisis y los guarda con saveAll en una transacción por lote en
+     * lugar de una transacción por cliente. El lock solo protege la lista: el
+     * lote lleno se separa bajo el lock y se guarda fuera de él, así ningún hilo
+     * espera (ni queda fijado a su carrier) mientras otro hace JDBC.
+     *
+     * El progreso de cada cliente se informa después de guardar su lote; si el
+     * saveAll falla se reintenta cada fila por separado, para no perder las
+     * que sí se pueden guardar ni informarlas como exitosas sin estarlo.
+     */
+    private class PersistBuffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ProgressEmitter emitter;
+        private final int total;
+        private final AtomicInteger completed;
+        private final AtomicInteger failed;
+        private List<AnalyzedClient> pending = new ArrayList<>();
+
+        PersistBuffer(ProgressEmitter emitter, int total, AtomicInteger completed, AtomicInteger failed) {
+            this.emitter = emitter;
+            this.total = total;
+            this.completed = completed;
+            this.failed = failed;
+        }
+
+        void add(AnalyzedClient analyzed) {
+            List<AnalyzedClient> full = null;
+            lock.lock();
+            try {
+                pending.add(analyzed);
+                if (pending.size() >= persistBatchSize) {
+                    full = drain();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (full != null) {
+                persist(full);
+            }
+        }
+
+        void flush() {
+            List<AnalyzedClient> rest;
+            lock.lock();
+            try {
+                rest = drain();
+            } finally {
+                lock.unlock();
+            }
+            if (!rest.isEmpty()) {
+                persist(rest);
+            }
+        }
+
+        private void persist(List<AnalyzedClient> batch) {
+            try {
+                salesAnalysisRepository.saveAll(batch.stream().map(AnalyzedClient::toEntity).toList());
+            } catch (RuntimeException e) {
+                meterRegistry.counter("ai.portfolio.analysis.persist.batch.failures").increment();
+                log.warn("Falló el guardado de un lote de {} análisis, se reintenta uno por uno: {}", batch.size(),
+                        e.getMessage());
+                batch.forEach(this::persistOne);
+                return;
+            }
+            batch.forEach(this::reportSuccess);
+        }
+
+        private void persistOne(AnalyzedClient analyzed) {
+            try {
+                salesAnalysisRepository.save(analyzed.toEntity());
+            } catch (RuntimeException e) {
+                reportFailure(analyzed.work().client(), e, total, completed, failed, emitter);
+                return;
+            }
+            reportSuccess(analyzed);
+        }
+
+        private void reportSuccess(AnalyzedClient analyzed) {
+            ClientWork item = analyzed.work();
+            analysisCache.put(analysisCache.key(item.fingerprint(), item.version()), analyzed.response());
+            emitter.send("client", new PortfolioAnalysisProgress(item.client().getId(), item.client().getName(),
+                    true, analyzed.response(), null, completed.incrementAndGet(), total));
+        }
+
+        private List<AnalyzedClient> drain() {
+            List<AnalyzedClient> drained = pending;
+            pending = new ArrayList<>();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartcommerce.backend.domain.dto.report.PortfolioExportProgress;
+import com.smartcommerce.backend.domain.dto.report.PortfolioExportStatus;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.kernel.concurrent.BoundedFanOut;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporta en un ZIP el informe ejecutivo de todos los clientes de un usuario.
+ *
+ * Los PDFs se generan en paralelo (pasando por {@link ReportService}, así que
+ * aprovechan y alimentan la caché de informes) y cada uno se agrega al ZIP
+ * apenas termina. Un render toma un cupo que se libera recién cuando su
+ * entrada se escribió: en memoria nunca hay más de {@code parallelism} PDFs,
+ * sea cual sea el tamaño de la cartera.
+ *
+ * Las exportaciones no usan el cupo de renders interactivos de
+ * {@link ReportService}: comparten un presupuesto propio
+ * ({@code max-concurrent-renders}) en el que esperan sin límite de tiempo, así
+ * una exportación no deja a las descargas individuales respondiendo 503 ni
+ * llena el ZIP de errores por falta de cupo.
+ *
+ * Un cliente que falla deja una entrada {@code .txt} con el error y la
+ * exportación continúa; al final se agrega {@code indice.csv} con el
+ * resultado de cada cliente. El progreso se consulta con el ID que viaja en
+ * la cabecera {@code X-Export-Id}.
+ */
+@Service
+@Slf4j
+public class PortfolioReportExportService {
+
+    private static final String INDEX_ENTRY = "indice.csv";
+
+    private final ReportService reportService;
+    private final ClientRepository clientRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, ExportState> exports;
+    private final Semaphore renderBudget;
+    private final int parallelism;
+    private final int maxClients;
+
+    public PortfolioReportExportService(ReportService reportService, ClientRepository clientRepository,
+            MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+            @Value("${app.reports.portfolio.parallelism:4}") int parallelism,
+            @Value("${app.reports.portfolio.max-concurrent-renders:2}") int maxConcurrentRenders,
+            @Value("${app.reports.portfolio.max-clients:2000}") int maxClients,
+            @Value("${app.reports.portfolio.progress-retention:1h}") Duration progressRetention) {
+        this.reportService = reportService;
+        this.clientRepository = clientRepository;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.exports = Caffeine.newBuilder()
+                .expireAfterWrite(progressRetention)
+                .maximumSize(10_000)
+                .build();
+        this.renderBudget = new Semaphore(Math.max(1, maxConcurrentRenders), true);
+        this.parallelism = Math.max(1, parallelism);
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Valida la cartera antes de responder (vacía o demasiado grande da 400)
+     * y devuelve el ID de la exportación junto con el cuerpo que escribe el
+     * ZIP.
+     */
+    public PortfolioExport startExport(User user) {
+        List<ExportTarget> targets = readOnlyTransaction.execute(status -> clientRepository.findByUser(user).stream()
+                .map(client -> new ExportTarget(client.getId(), client.getName()))
+                .toList());
+        if (targets.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cartera no tiene clientes");
+        }
+        if (targets.size() > maxClients) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La cartera supera el máximo de " + maxClients + " clientes por exportación");
+        }
+
+        ExportState state = new ExportState(UUID.randomUUID().toString(), user.getId(), targets.size());
+        exports.put(state.exportId, state);
+        log.info("Exportación {} de informes de {}: {} clientes", state.exportId, user.getEmail(), targets.size());
+        return new PortfolioExport(state.exportId, out -> stream(targets, state, out));
+    }
+
+    public PortfolioExportProgress getProgress(User user, String exportId) {
+        ExportState state = exports.getIfPresent(exportId);
+        if (state == null || !Objects.equals(state.ownerId, user.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Exportación no encontrada: " + exportId);
+        }
+        return state.toProgress();
+    }
+
+    private void stream(List<ExportTarget> targets, ExportState state, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        int total = targets.size();
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        List<String> index = new ArrayList<>(total + 1);
+        index.add("cliente_id,cliente,estado,detalle");
+
+        try {
+            // El cupo de cada cliente se libera recién al escribir su entrada:
+            // a lo sumo `parallelism` PDFs en memoria
+            BoundedFanOut.run(targets, parallelism, this::render, outcome -> {
+                index.add(writeEntry(zip, outcome));
+                state.recordClient(outcome.pdf() != null);
+            });
+            writeIndex(zip, index);
+            zip.finish();
+            zip.flush();
+            state.finish(PortfolioExportStatus.COMPLETED);
+        } catch (IOException e) {
+            log.info("El cliente abandonó la exportación {}; se cancelan los renders pendientes", state.exportId);
+            state.finish(PortfolioExportStatus.CANCELLED);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.finish(PortfolioExportStatus.CANCELLED);
+            return;
+        } catch (RuntimeException e) {
+            state.finish(PortfolioExportStatus.FAILED);
+            throw e;
+        }
+
+        meterRegistry.timer("reports.portfolio.duration").record(Duration.ofNanos(System.nanoTime() - start));
+        log.info("Exportación {} terminada: {} clientes, {} fallidos", state.exportId, total, state.failed);
+    }
+
+    /**
+     * Genera el PDF de un cliente; nunca lanza, el error viaja en el
+     * resultado.
+     */
+    private RenderOutcome render(ExportTarget target) {
+        try {
+            String etag = reportService.etag(reportService.currentVersion(target.clientId()));
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            renderBudget.acquire();
+            try {
+                reportService.writeBatchReport(target.clientId(), etag, pdf);
+            } finally {
+                renderBudget.release();
+            }
+            meterRegistry.counter("reports.portfolio.entries", "outcome", "success").increment();
+            return new RenderOutcome(target, pdf.toByteArray(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RenderOutcome(target, null, "Exportación cancelada");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falló el informe del cliente {}: {}", target.clientId(), e.getMessage());
+            meterRegistry.counter("reports.portfolio.entries", "outcome", "failure").increment();
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new RenderOutcome(target, null, error);
+        }
+    }
+
+    /**
+     * @return línea del índice para el cliente
+     */
+    private String writeEntry(ZipOutputStream zip, RenderOutcome outcome) throws IOException {
+        ExportTarget target = outcome.target();
+        String baseName = target.clientId() + "-" + slug(target.clientName());
+        if (outcome.pdf() != null) {
+            String name = baseName + ".pdf";
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(outcome.pdf());
+            zip.closeEntry();
+            zip.flush();
+            return csv(target, "OK", name);
+        }
+        zip.putNextEntry(new ZipEntry(baseName + "-ERROR.txt"));
+        zip.write(("No se pudo generar el informe de " + target.clientName() + " (cliente " + target.clientId()
+                + "): " + outcome.error() + "\n").getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.flush();
+        return csv(target, "ERROR", outcome.error());
+    }
+
+    private void writeIndex(ZipOutputStream zip, List<String> index) throws IOException {
+        zip.putNextEntry(new ZipEntry(INDEX_ENTRY));
+        zip.write((String.join("\n", index) + "\n").getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String csv(ExportTarget target, String status, String detail) {
+        return target.clientId() + "," + quote(target.clientName()) + "," + status + "," + quote(detail);
+    }
+
+    private static String quote(String value) {
+        return "\"" + String.valueOf(value).replace("\"", "\"\"").replace('\n', ' ') + "\"";
+    }
+
+    /**
+     * Nombre de cliente apto para nombre de archivo (ASCII, sin separadores).
+     */
+    static String slug(String name) {
+        String ascii = Normalizer.normalize(name == null ? "" : name, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        String slug = ascii.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_+|_+$", "");
+        if (slug.length() > 60) {
+            slug = slug.substring(0, 60);
+        }
+        return slug.isEmpty() ? "cliente" : slug;
+    }
+
+    public record PortfolioExport(String exportId, StreamingResponseBody body) {
+    }
+
+    private record ExportTarget(Long clientId, String clientName) {
+    }
+
+    private record RenderOutcome(ExportTarget target, byte[] pdf, String error) {
+    }
+
+    private static final class ExportState {
+        private final String exportId;
+        private final Long ownerId;
+        private final int total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile PortfolioExportStatus status = PortfolioExportStatus.RUNNING;
+        private volatile int completed;
+        private volatile int failed;
+        private volatile LocalDateTime finishedAt;
+
+        private ExportState(String exportId, Long ownerId, int total) {
+            this.exportId = exportId;
+            this.ownerId = ownerId;
+            this.total = total;
+        }
+
+        // Solo lo llama el hilo que escribe el ZIP
+        private void recordClient(boolean success) {
+            if (!success) {
+                failed++;
+            }
+            completed++;
+        }
+
+        private void finish(PortfolioExportStatus finalStatus) {
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        private PortfolioExportProgress toProgress() {
+            return new PortfolioExportProgress(exportId, status, total, completed, failed, startedAt, finishedAt);
+        }
+    }
+}
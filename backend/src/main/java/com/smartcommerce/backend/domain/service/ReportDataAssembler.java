@@ -0,0 +1,105 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.OrderAggregate;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ProductCategorySales;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.SalesAnalysis;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderItemRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.SalesAnalysisRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Arma el {@link ExecutiveReport} de un cliente con consultas de agregación:
+ * el cliente, los totales de órdenes, el último análisis y una única suma por
+ * producto (con su categoría) de la que salen tanto el reparto por categoría
+ * como el top de productos. No se cargan órdenes ni ítems como entidades, así
+ * que la cantidad de sentencias no depende de cuántas órdenes tenga.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportDataAssembler {
+
+    static final int TOP_PRODUCTS = 5;
+    private static final String NO_DATA = "N/A";
+
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final SalesAnalysisRepository salesAnalysisRepository;
+
+    /**
+     * Datos del informe; vacío si el cliente no existe.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ExecutiveReport> forClient(Long clientId) {
+        Optional<Client> client = clientRepository.findById(clientId);
+        if (client.isEmpty()) {
+            return Optional.empty();
+        }
+        OrderAggregate totals = orderRepository.aggregateByClientId(clientId);
+        List<ProductCategorySales> sales = orderItemRepository.sumSalesByProductForClient(clientId);
+        SalesAnalysis latestAnalysis = salesAnalysisRepository.findFirstByClientIdOrderByCreatedAtDesc(clientId)
+                .orElse(null);
+
+        double totalSpent = totals != null && totals.totalSpent() != null ? totals.totalSpent().doubleValue() : 0.0;
+        return Optional.of(new ExecutiveReport(clientId, client.get().getName(), client.get().getIndustry(),
+                client.get().getContactEmail(), totalSpent, mainCategory(sales),
+                latestAnalysis != null ? latestAnalysis.getScore() : null,
+                latestAnalysis != null ? latestAnalysis.getExecutiveSummary() : null,
+                latestAnalysis != null ? latestAnalysis.getRecommendation() : null,
+                topProducts(sales)));
+    }
+
+    /**
+     * Categoría con mayor importe; los productos sin categoría cuentan con su
+     * propio nombre, igual que en {@link AnalyticsService#getAnalytics(Long)}.
+     */
+    static String mainCategory(List<ProductCategorySales> sales) {
+        Map<String, BigDecimal> byCategory = new HashMap<>();
+        for (ProductCategorySales row : sales) {
+            String category = row.categoryName() != null ? row.categoryName() : row.productName();
+            byCategory.merge(category, total(row), BigDecimal::add);
+        }
+        return byCategory.entrySet().stream()
+                .max(Map.Entry.<String, BigDecimal>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse(NO_DATA);
+    }
+
+    /**
+     * Los cinco productos con mayor importe. Se agrupa por nombre, como hacía
+     * el informe al recorrer los ítems.
+     */
+    static List<ProductStats> topProducts(List<ProductCategorySales> sales) {
+        Map<String, ProductStats> byName = new HashMap<>();
+        for (ProductCategorySales row : sales) {
+            long quantity = row.quantity() != null ? row.quantity() : 0;
+            ProductStats stats = new ProductStats(row.productName(), quantity, total(row).doubleValue());
+            byName.merge(row.productName(), stats, (current, added) -> new ProductStats(current.name(),
+                    current.quantity() + added.quantity(), current.total() + added.total()));
+        }
+        return byName.values().stream()
+                .sorted(Comparator.comparingDouble(ProductStats::total).reversed()
+                        .thenComparing(ProductStats::name))
+                .limit(TOP_PRODUCTS)
+                .toList();
+    }
+
+    private static BigDecimal total(ProductCategorySales row) {
+        return row.total() != null ? row.total() : BigDecimal.ZERO;
+    }
+}
@@ -1,230 +1,254 @@
 package com.smartcommerce.backend.domain.service;
 
-import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
-import com.lowagie.text.Element;
-import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
-import com.lowagie.text.PageSize;
-import com.lowagie.text.Paragraph;
-import com.lowagie.text.Phrase;
-import com.lowagie.text.Rectangle;
-import com.lowagie.text.pdf.ColumnText;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
-import com.smartcommerce.backend.domain.dto.AnalyticsDTO;
-import com.smartcommerce.backend.domain.model.Order;
-import com.smartcommerce.backend.domain.model.OrderItem;
-import com.smartcommerce.backend.domain.model.SalesAnalysis;
-import com.smartcommerce.backend.domain.repository.OrderRepository;
-import com.smartcommerce.backend.domain.repository.SalesAnalysisRepository;
-
-import lombok.RequiredArgsConstructor;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ReportVersion;
+import com.smartcommerce.backend.domain.service.ExecutiveReportCache.CachedReport;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.awt.Color;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Informe ejecutivo en PDF de un cliente, en dos pasos: {@link #loadExecutiveReport}
+ * lee todo lo necesario con {@link ReportDataAssembler} y
+ * {@link #writeExecutiveReport} renderiza con {@link ExecutiveReportTemplate}
+ * directo sobre el stream de salida, sin armar el documento completo en
+ * memoria.
+ *
+ * La cantidad de renders interactivos simultáneos está acotada por un
+ * semáforo; las exportaciones por lote usan {@link #writeBatchReport} y su
+ * propio presupuesto, para no dejar sin cupo a las descargas individuales.
+ * Se miden los bytes generados y la memoria asignada por cada render.
+ *
+ * Las descargas pasan por {@link #currentVersion}, una consulta liviana que
+ * da el ETag del informe: si el cliente ya lo tiene responde 304, y si está
+ * en {@link ExecutiveReportCache} se sirve sin volver a leer ni renderizar.
+ */
 @Service
-@RequiredArgsConstructor
 public class ReportService {
 
+    /**
+     * Buffer entre PdfWriter y el stream de salida: mientras no se llena no se
+     * envía nada, así un error temprano todavía puede responder con un código
+     * de error.
+     */
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
     private final com.smartcommerce.backend.domain.repository.ClientRepository clientRepository;
-    private final SalesAnalysisRepository salesAnalysisRepository;
-    private final OrderRepository orderRepository;
-    private final AnalyticsService analyticsService;
+    private final ReportDataAssembler reportDataAssembler;
+    private final ExecutiveReportTemplate template;
+    private final ExecutiveReportCache reportCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore renderPermits;
+    private final Duration renderMaxWait;
+    private final Timer renderTime;
+    private final DistributionSummary reportBytes;
+    private final DistributionSummary renderAllocation;
+
+    public ReportService(com.smartcommerce.backend.domain.repository.ClientRepository clientRepository,
+            ReportDataAssembler reportDataAssembler, ExecutiveReportTemplate template, ExecutiveReportCache reportCache,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${app.reports.max-concurrent-renders:4}") int maxConcurrentRenders,
+            @Value("${app.reports.render-max-wait:10s}") Duration renderMaxWait) {
+        this.clientRepository = clientRepository;
+        this.reportDataAssembler = reportDataAssembler;
+        this.template = template;
+        this.reportCache = reportCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.renderPermits = new Semaphore(maxConcurrentRenders, true);
+        this.renderMaxWait = renderMaxWait;
+        this.renderTime = Timer.builder("reports.render.duration")
+                .description("Render del informe ejecutivo en PDF")
+                .register(meterRegistry);
+        this.reportBytes = DistributionSummary.builder("reports.pdf.bytes")
+                .description("Tamaño de los PDF generados")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.renderAllocation = DistributionSummary.builder("reports.render.allocated.bytes")
+                .description("Memoria asignada por el hilo durante un render")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
 
     @Transactional(readOnly = true)
-    public byte[] generateExecutiveReport(Long clientId) throws DocumentException, IOException {
-        com.smartcommerce.backend.domain.model.Client client = clientRepository.findById(clientId)
-                .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
-
-        List<SalesAnalysis> analysisHistory = salesAnalysisRepository.findByClientIdOrderByCreatedAtDesc(clientId);
-        SalesAnalysis latestAnalysis = analysisHistory.isEmpty() ? null : analysisHistory.get(0);
-
-        AnalyticsDTO analytics = analyticsService.getAnalytics(clientId);
-        List<Order> orders = orderRepository.findByClientId(clientId);
-
-        // 1. Calculate Data
-        double totalSpent = orders.stream()
-                .map(Order::getTotal)
-                .mapToDouble(BigDecimal::doubleValue)
-                .sum();
-
-        String mainCategory = "N/A";
-        if (analytics.getSalesByCategory() != null && !analytics.getSalesByCategory().isEmpty()) {
-            mainCategory = analytics.getSalesByCategory().entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse("N/A");
-        }
+    public ReportVersion currentVersion(Long clientId) {
+        return clientRepository.findReportVersion(clientId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cliente no encontrado"));
+    }
 
-        List<ProductStats> topProducts = calculateTopProducts(orders);
-
-        // 2. Build PDF
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4);
-        PdfWriter writer = PdfWriter.getInstance(document, out);
-
-        // Footer event
-        writer.setPageEvent(new FooterEvent());
-
-        document.open();
-
-        // Styles
-        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.DARK_GRAY);
-        Font sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, new Color(50, 50, 150));
-        Font textFont = FontFactory.getFont(FontFactory.HELVETICA, 11, Color.BLACK);
-        Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, Color.BLACK);
-
-        // HEADER
-        Paragraph header = new Paragraph("SmartCommerce B2B - Informe Estratégico de Inteligencia", titleFont);
-        header.setAlignment(Element.ALIGN_CENTER);
-        header.setSpacingAfter(10);
-        document.add(header);
-
-        Paragraph date = new Paragraph(
-                "Generado el: " + LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), textFont);
-        date.setAlignment(Element.ALIGN_CENTER);
-        date.setSpacingAfter(20);
-        document.add(date);
-
-        document.add(new Paragraph(" ")); // Spacer
-
-        // SECTION 1: CUSTOMER PROFILE
-        document.add(new Paragraph("1. Perfil del Cliente", sectionFont));
-        document.add(new Paragraph(" "));
-
-        PdfPTable profileTable = new PdfPTable(2);
-        profileTable.setWidthPercentage(100);
-        profileTable.setWidths(new float[] { 3f, 7f });
-
-        addProfileRow(profileTable, "Cliente:", client.getName(), boldFont, textFont);
-        addProfileRow(profileTable, "Industria:", client.getIndustry() != null ? client.getIndustry() : "N/A", boldFont,
-                textFont);
-        addProfileRow(profileTable, "Email Contacto:",
-                client.getContactEmail() != null ? client.getContactEmail() : "N/A", boldFont, textFont);
-        addProfileRow(profileTable, "Gasto Total Histórico:", String.format("$%,.2f", totalSpent), boldFont, textFont);
-        addProfileRow(profileTable, "Categoría Principal:", mainCategory, boldFont, textFont);
-
-        document.add(profileTable);
-        document.add(new Paragraph(" "));
-
-        // SECTION 2: AI ANALYSIS
-        if (latestAnalysis != null) {
-            document.add(new Paragraph("2. Análisis de Inteligencia Artificial", sectionFont));
-            document.add(new Paragraph(" "));
-
-            Paragraph score = new Paragraph("Oportunidad de Negocio: " + latestAnalysis.getScore() + "/10", boldFont);
-            score.setSpacingAfter(5);
-            document.add(score);
-
-            document.add(new Paragraph("Resumen Ejecutivo:", boldFont));
-            document.add(new Paragraph(latestAnalysis.getExecutiveSummary(), textFont));
-            document.add(new Paragraph(" "));
-
-            document.add(new Paragraph("Recomendación Estratégica:", boldFont));
-            document.add(new Paragraph(latestAnalysis.getRecommendation(), textFont));
-        } else {
-            document.add(new Paragraph(
-                    "2. Análisis de IA: No hay análisis previo disponible. Ejecute un análisis en el Dashboard.",
-                    textFont));
-        }
-        document.add(new Paragraph(" "));
+    public String etag(ReportVersion version) {
+        return version.etag(LocalDate.now());
+    }
 
-        // SECTION 3: SALES BREAKDOWN
-        document.add(new Paragraph("3. Desglose de Ventas (Top 5 Productos)", sectionFont));
-        document.add(new Paragraph(" "));
+    /**
+     * True si alguno de los ETags de {@code If-None-Match} coincide con el
+     * actual (o es {@code *}); el cliente puede reusar su copia.
+     */
+    public boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match usa comparación débil
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                cacheResult("not_modified");
+                return true;
+            }
+        }
+        return false;
+    }
 
-        PdfPTable table = new PdfPTable(3);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[] { 6f, 2f, 2f });
-        table.setHeaderRows(1);
+    /**
+     * Escribe el informe del cliente en la versión {@code etag}: desde la
+     * caché si está, o leyendo y renderizando, y en ese caso queda cacheado.
+     */
+    public void writeExecutiveReport(Long clientId, String etag, OutputStream out) throws IOException {
+        write(clientId, etag, out, this::writeExecutiveReport);
+    }
 
-        addTableHeader(table, "Producto", boldFont);
-        addTableHeader(table, "Cantidad", boldFont);
-        addTableHeader(table, "Total", boldFont);
+    /**
+     * Igual que {@link #writeExecutiveReport(Long, String, OutputStream)} pero
+     * sin tomar cupo de render interactivo ni responder 503: el llamador acota
+     * por su cuenta cuántos renders por lote corren a la vez.
+     */
+    public void writeBatchReport(Long clientId, String etag, OutputStream out) throws IOException {
+        write(clientId, etag, out, this::render);
+    }
 
-        for (ProductStats p : topProducts) {
-            table.addCell(new PdfPCell(new Phrase(p.name, textFont)));
-            table.addCell(new PdfPCell(new Phrase(String.valueOf(p.quantity), textFont)));
-            table.addCell(new PdfPCell(new Phrase(String.format("$%,.2f", p.total), textFont)));
+    private void write(Long clientId, String etag, OutputStream out, ReportWriter writer) throws IOException {
+        Optional<CachedReport> cached = reportCache.get(clientId, etag);
+        if (cached.isPresent()) {
+            cacheResult(cached.get().file() == null ? "memory" : "disk");
+            cached.get().writeTo(out);
+            return;
+        }
+        cacheResult("rendered");
+        ExecutiveReport report = readOnlyTransaction.execute(status -> loadExecutiveReport(clientId));
+        ExecutiveReportCache.Capture capture = reportCache.capture(clientId, etag, out);
+        try {
+            writer.write(report, capture);
+            capture.commit();
+        } catch (IOException | RuntimeException e) {
+            capture.discard();
+            throw e;
         }
-
-        document.add(table);
-
-        document.close();
-        return out.toByteArray();
     }
 
-    private void addProfileRow(PdfPTable table, String label, String value, Font bold, Font normal) {
-        PdfPCell labelCell = new PdfPCell(new Phrase(label, bold));
-        labelCell.setBorder(Rectangle.NO_BORDER);
-        table.addCell(labelCell);
+    @Transactional(readOnly = true)
+    public ExecutiveReport loadExecutiveReport(Long clientId) {
+        return reportDataAssembler.forClient(clientId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Cliente no encontrado"));
+    }
 
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, normal));
-        valueCell.setBorder(Rectangle.NO_BORDER);
-        table.addCell(valueCell);
+    /**
+     * Renderiza el informe sobre {@code out} sin cerrarlo. Espera como máximo
+     * {@code render-max-wait} por un cupo de render; si no lo consigue
+     * responde 503 antes de escribir nada.
+     */
+    public void writeExecutiveReport(ExecutiveReport report, OutputStream out) throws IOException {
+        acquireRenderPermit();
+        try {
+            render(report, out);
+        } finally {
+            renderPermits.release();
+        }
     }
 
-    private void addTableHeader(PdfPTable table, String header, Font font) {
-        PdfPCell cell = new PdfPCell(new Phrase(header, font));
-        cell.setBackgroundColor(Color.LIGHT_GRAY);
-        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        cell.setPadding(5);
-        table.addCell(cell);
+    private void render(ExecutiveReport report, OutputStream out) throws IOException {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            CountingOutputStream counter = new CountingOutputStream(out);
+            BufferedOutputStream buffered = new BufferedOutputStream(counter, OUTPUT_BUFFER_BYTES);
+            template.render(report, LocalDate.now(), buffered);
+            buffered.flush();
+            reportBytes.record(counter.count);
+        } catch (DocumentException e) {
+            throw new IllegalStateException("No se pudo generar el informe del cliente " + report.clientId(), e);
+        } finally {
+            renderTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            long allocatedAfter = allocatedBytes();
+            if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                renderAllocation.record(allocatedAfter - allocatedBefore);
+            }
+        }
     }
 
-    private List<ProductStats> calculateTopProducts(List<Order> orders) {
-        Map<String, ProductStats> stats = new HashMap<>();
+    private void acquireRenderPermit() {
+        try {
+            if (!renderPermits.tryAcquire(renderMaxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Demasiados informes en generación, reintente en unos segundos");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrumpido esperando cupo de render");
+        }
+    }
 
-        for (Order order : orders) {
-            for (OrderItem item : order.getItems()) {
-                String name = item.getProduct().getName();
-                double total = item.getPrice().doubleValue() * item.getQuantity();
+    private void cacheResult(String result) {
+        meterRegistry.counter("reports.cache.requests", "result", result).increment();
+    }
 
-                stats.computeIfAbsent(name, k -> new ProductStats(k, 0, 0.0));
-                ProductStats current = stats.get(name);
-                current.quantity += item.getQuantity();
-                current.total += total;
-            }
+    /**
+     * Bytes asignados por el hilo actual, o -1 si la JVM no lo informa.
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
         }
+        return -1;
+    }
 
-        return stats.values().stream()
-                .sorted((a, b) -> Double.compare(b.total, a.total))
-                .limit(5)
-                .collect(Collectors.toList());
+    @FunctionalInterface
+    private interface ReportWriter {
+        void write(ExecutiveReport report, OutputStream out) throws IOException;
     }
 
-    private static class ProductStats {
-        String name;
-        int quantity;
-        double total;
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
 
-        ProductStats(String name, int quantity, double total) {
-            this.name = name;
-            this.quantity = quantity;
-            this.total = total;
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
         }
-    }
 
-    class FooterEvent extends com.lowagie.text.pdf.PdfPageEventHelper {
-        public void onEndPage(PdfWriter writer, Document document) {
-            Font font = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 9, Color.GRAY);
-            ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_CENTER,
-                    new Phrase("Generado automáticamente por SmartCommerce AI Engine", font),
-                    (document.right() - document.left()) / 2 + document.leftMargin(),
-                    document.bottom() - 10, 0);
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
         }
     }
 }
@@ -0,0 +1,84 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartcommerce.backend.domain.dto.OrderSetVersion;
+import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+import com.smartcommerce.kernel.digest.Sha256;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Caché acotada de resultados de {@link AiService#analyzeSales(java.util.List)}.
+ * La clave combina la huella del conjunto de órdenes (IDs ordenados) con su
+ * versión de datos, de modo que cualquier alta o baja de órdenes invalida la
+ * entrada sin necesidad de eventos explícitos.
+ */
+@Component
+public class SalesAnalysisCache {
+
+    private final Cache<String, SalesAnalysisResponse> cache;
+    private final boolean servePersisted;
+    private final Counter persistedHits;
+
+    public SalesAnalysisCache(@Value("${app.ai.analysis-cache.ttl:30m}") Duration ttl,
+            @Value("${app.ai.analysis-cache.max-size:1000}") long maxSize,
+            @Value("${app.ai.analysis-cache.serve-persisted:true}") boolean servePersisted,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.servePersisted = servePersisted;
+        this.persistedHits = Counter.builder("ai.analysis.cache.persisted.hits")
+                .description("Análisis servidos desde el último SalesAnalysis persistido")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "aiSalesAnalysis");
+    }
+
+    /**
+     * Huella SHA-256 de los IDs de órdenes, independiente del orden y de
+     * duplicados en la petición.
+     */
+    public static String fingerprint(Collection<Long> orderIds) {
+        MessageDigest digest = Sha256.newDigest();
+        orderIds.stream()
+                .distinct()
+                .sorted()
+                .forEach(id -> digest.update((id + ",").getBytes(StandardCharsets.US_ASCII)));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public String key(String fingerprint, OrderSetVersion version) {
+        return fingerprint + ":" + version.dataVersion();
+    }
+
+    public Optional<SalesAnalysisResponse> get(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(String key, SalesAnalysisResponse response) {
+        if (response != null) {
+            cache.put(key, response);
+        }
+    }
+
+    public boolean isServePersisted() {
+        return servePersisted;
+    }
+
+    public void recordPersistedHit() {
+        persistedHits.increment();
+    }
+}
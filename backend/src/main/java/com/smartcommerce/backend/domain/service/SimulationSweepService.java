@@ -0,0 +1,143 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.SimulationRequest;
+import com.smartcommerce.backend.domain.dto.SimulationResponse;
+import com.smartcommerce.backend.domain.dto.SimulationSweepRequest;
+import com.smartcommerce.backend.domain.dto.SimulationSweepResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Evalúa una grilla de descuentos y plazos para un cliente. El contexto del
+ * cliente se arma una sola vez, los escenarios se agrupan de a
+ * {@code scenariosPerCall} por llamada al modelo y los grupos se envían en
+ * paralelo: una tabla de 5x4 cuesta una ronda de latencia en lugar de veinte.
+ */
+@Service
+@Slf4j
+public class SimulationSweepService {
+
+    private final AiService aiService;
+    private final MeterRegistry meterRegistry;
+    private final int scenariosPerCall;
+    private final int maxScenarios;
+
+    public SimulationSweepService(AiService aiService, MeterRegistry meterRegistry,
+            @Value("${app.ai.simulation-sweep.scenarios-per-call:5}") int scenariosPerCall,
+            @Value("${app.ai.simulation-sweep.max-scenarios:60}") int maxScenarios) {
+        this.aiService = aiService;
+        this.meterRegistry = meterRegistry;
+        this.scenariosPerCall = Math.max(1, scenariosPerCall);
+        this.maxScenarios = maxScenarios;
+    }
+
+    public SimulationSweepResponse sweep(SimulationSweepRequest request) {
+        if (request.discountPercentage() == null || request.contractDurationMonths() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe indicar ambos rangos");
+        }
+        long requested = request.discountPercentage().size() * request.contractDurationMonths().size();
+        if (requested == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Los rangos no generan escenarios");
+        }
+        if (requested > maxScenarios) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El barrido genera " + requested + " escenarios; el máximo es " + maxScenarios);
+        }
+        List<Integer> discounts = request.discountPercentage().values();
+        List<Integer> months = request.contractDurationMonths().values();
+        int cells = (int) requested;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String clientContext = aiService.simulationContext(request.userId());
+
+        List<SimulationRequest> scenarios = new ArrayList<>(cells);
+        for (Integer discount : discounts) {
+            for (Integer month : months) {
+                scenarios.add(new SimulationRequest(request.userId(), discount, month));
+            }
+        }
+        List<List<SimulationRequest>> chunks = new ArrayList<>();
+        for (int i = 0; i < scenarios.size(); i += scenariosPerCall) {
+            chunks.add(scenarios.subList(i, Math.min(i + scenariosPerCall, scenarios.size())));
+        }
+
+        Map<SimulationRequest, SimulationResponse> evaluated = new HashMap<>();
+        Set<SimulationRequest> failed = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        RuntimeException lastFailure = null;
+        try (ExecutorService executor = new DelegatingSecurityContextExecutorService(
+                Executors.newVirtualThreadPerTaskExecutor())) {
+            List<CompletableFuture<Map<SimulationRequest, SimulationResponse>>> futures = chunks.stream()
+                    .map(chunk -> CompletableFuture.supplyAsync(
+                            () -> aiService.simulateBatch(clientContext, chunk), executor))
+                    .toList();
+
+            for (int c = 0; c < chunks.size(); c++) {
+                List<SimulationRequest> chunk = chunks.get(c);
+                try {
+                    evaluated.putAll(futures.get(c).join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.warn("Falló un grupo del barrido de simulación ({} escenarios): {}", chunk.size(),
+                            cause.getMessage());
+                    errors.add(describe(chunk) + ": " + cause.getMessage());
+                    failed.addAll(chunk);
+                    lastFailure = cause instanceof RuntimeException runtime ? runtime : e;
+                }
+            }
+        }
+
+        if (errors.size() == chunks.size()) {
+            // Ningún grupo pudo evaluarse (p.ej. circuito abierto): se propaga el error
+            meterRegistry.counter("ai.simulation.sweep.failures").increment();
+            throw lastFailure;
+        }
+
+        // Las celdas se llenan por descuento y plazo; las que el modelo omitió
+        // dentro de un grupo que sí respondió también se informan
+        List<List<SimulationResponse>> matrix = new ArrayList<>(discounts.size());
+        for (Integer discount : discounts) {
+            List<SimulationResponse> row = new ArrayList<>(months.size());
+            for (Integer month : months) {
+                SimulationRequest scenario = new SimulationRequest(request.userId(), discount, month);
+                SimulationResponse result = evaluated.get(scenario);
+                if (result == null && !failed.contains(scenario)) {
+                    errors.add(String.format("escenario %d%%/%dm: el modelo no lo evaluó", discount, month));
+                }
+                row.add(result);
+            }
+            matrix.add(row);
+        }
+
+        sample.stop(Timer.builder("ai.simulation.sweep.duration")
+                .tag("outcome", errors.isEmpty() ? "success" : "partial")
+                .register(meterRegistry));
+        meterRegistry.counter("ai.simulation.sweep.scenarios").increment(cells);
+        return new SimulationSweepResponse(request.userId(), discounts, months, matrix, chunks.size(),
+                List.copyOf(errors));
+    }
+
+    private String describe(List<SimulationRequest> chunk) {
+        SimulationRequest first = chunk.get(0);
+        SimulationRequest last = chunk.get(chunk.size() - 1);
+        return String.format("escenarios %d%%/%dm a %d%%/%dm", first.discountPercentage(),
+                first.contractDurationMonths(), last.discountPercentage(), last.contractDurationMonths());
+    }
+}
@@ -1,7 +1,46 @@
 package com.smartcommerce.backend.exception;
 
+import com.smartcommerce.backend.domain.dto.ProductSubstitute;
+
+import java.util.List;
+
 public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+    private final int requested;
+    private final int available;
+    private final List<ProductSubstitute> substitutes;
+
     public InsufficientStockException(String message) {
+        this(message, null, 0, 0, List.of());
+    }
+
+    /**
+     * @param substitutes productos similares con stock suficiente para la
+     *                    cantidad pedida
+     */
+    public InsufficientStockException(String message, Long productId, int requested, int available,
+            List<ProductSubstitute> substitutes) {
         super(message);
+        this.productId = productId;
+        this.requested = requested;
+        this.available = available;
+        this.substitutes = List.copyOf(substitutes);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public List<ProductSubstitute> getSubstitutes() {
+        return substitutes;
     }
 }
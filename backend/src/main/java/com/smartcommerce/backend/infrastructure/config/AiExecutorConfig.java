@@ -0,0 +1,35 @@
+package com.smartcommerce.backend.infrastructure.config;
+
+import com.smartcommerce.kernel.concurrent.BoundedVirtualThreadExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AiExecutorConfig {
+
+    /**
+     * Executor acotado para trabajos de IA asíncronos. Cada trabajo corre en un
+     * hilo virtual propio (las llamadas al LLM son I/O puro) y un semáforo limita
+     * la concurrencia y la cola para que un pico de trabajos no se traduzca en
+     * miles de llamadas simultáneas a Gemini. Los hilos virtuales no se reutilizan
+     * en un pool.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedVirtualThreadExecutor aiJobExecutor(@Value("${app.ai.jobs.concurrency:16}") int concurrency,
+            @Value("${app.ai.jobs.queue-capacity:500}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("ai-job-", concurrency,
+                queueCapacity);
+
+        Gauge.builder("ai.jobs.queue.depth", executor, BoundedVirtualThreadExecutor::queuedCount)
+                .description("Trabajos de IA esperando un hilo libre")
+                .register(meterRegistry);
+        Gauge.builder("ai.jobs.active", executor, BoundedVirtualThreadExecutor::activeCount)
+                .description("Trabajos de IA en ejecución")
+                .register(meterRegistry);
+        return executor;
+    }
+}
@@ -1,8 +1,12 @@
 package com.smartcommerce.backend.infrastructure.rest;
 
 import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+import com.smartcommerce.backend.domain.service.AiChatStreamService;
 import com.smartcommerce.backend.domain.service.AiService;
+import com.smartcommerce.backend.domain.service.SimulationSweepService;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -11,9 +15,14 @@ import java.util.List;
 public class AiController {
 
     private final AiService aiService;
+    private final AiChatStreamService aiChatStreamService;
+    private final SimulationSweepService simulationSweepService;
 
-    public AiController(AiService aiService) {
+    public AiController(AiService aiService, AiChatStreamService aiChatStreamService,
+            SimulationSweepService simulationSweepService) {
         this.aiService = aiService;
+        this.aiChatStreamService = aiChatStreamService;
+        this.simulationSweepService = simulationSweepService;
     }
 
     @PostMapping("/analyze-orders")
@@ -28,12 +37,24 @@ public class AiController {
         return java.util.Map.of("reply", reply);
     }
 
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatWithAiStream(
+            @RequestBody com.smartcommerce.backend.domain.dto.ChatRequest request) {
+        return aiChatStreamService.streamChat(request.getOrderIds(), request.getMessage());
+    }
+
     @PostMapping("/simulate")
     public com.smartcommerce.backend.domain.dto.SimulationResponse simulate(
             @RequestBody com.smartcommerce.backend.domain.dto.SimulationRequest request) {
         return aiService.simulateScenario(request);
     }
 
+    @PostMapping("/simulate/sweep")
+    public com.smartcommerce.backend.domain.dto.SimulationSweepResponse simulateSweep(
+            @RequestBody com.smartcommerce.backend.domain.dto.SimulationSweepRequest request) {
+        return simulationSweepService.sweep(request);
+    }
+
     @PostMapping("/draft-email")
     public com.smartcommerce.backend.domain.dto.EmailDraftResponse draftEmail(
             @RequestBody com.smartcommerce.backend.domain.dto.EmailDraftRequest request) {
@@ -0,0 +1,62 @@
+package com.smartcommerce.backend.infrastructure.rest;
+
+import com.smartcommerce.backend.domain.dto.EmailDraftRequest;
+import com.smartcommerce.backend.domain.dto.SimulationRequest;
+import com.smartcommerce.backend.domain.dto.job.AiJobResponse;
+import com.smartcommerce.backend.domain.model.AiJobType;
+import com.smartcommerce.backend.domain.service.AiJobService;
+import com.smartcommerce.backend.domain.service.AiService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Variante asíncrona de {@link AiController}: cada operación devuelve un ID de
+ * trabajo (202 Accepted) y la llamada al LLM se ejecuta en el executor de IA.
+ */
+@RestController
+@RequestMapping("/api/ai/jobs")
+@RequiredArgsConstructor
+public class AiJobController {
+
+    private final AiJobService aiJobService;
+    private final AiService aiService;
+
+    @Operation(summary = "Encolar análisis de órdenes")
+    @PostMapping("/analyze-orders")
+    public ResponseEntity<AiJobResponse> analyzeOrders(@RequestBody List<Long> orderIds) {
+        return ResponseEntity.accepted()
+                .body(aiJobService.submit(AiJobType.ANALYZE_ORDERS, () -> aiService.analyzeSales(orderIds)));
+    }
+
+    @Operation(summary = "Encolar simulación de escenario")
+    @PostMapping("/simulate")
+    public ResponseEntity<AiJobResponse> simulate(@RequestBody SimulationRequest request) {
+        return ResponseEntity.accepted()
+                .body(aiJobService.submit(AiJobType.SIMULATE, () -> aiService.simulateScenario(request)));
+    }
+
+    @Operation(summary = "Encolar redacción de correo")
+    @PostMapping("/draft-email")
+    public ResponseEntity<AiJobResponse> draftEmail(@RequestBody EmailDraftRequest request) {
+        return ResponseEntity.accepted()
+                .body(aiJobService.submit(AiJobType.DRAFT_EMAIL, () -> aiService.draftEmail(request)));
+    }
+
+    @Operation(summary = "Consultar estado de un trabajo")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AiJobResponse> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(aiJobService.getJob(jobId));
+    }
+
+    @Operation(summary = "Suscribirse al resultado de un trabajo (SSE)")
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable String jobId) {
+        return aiJobService.subscribe(jobId);
+    }
+}
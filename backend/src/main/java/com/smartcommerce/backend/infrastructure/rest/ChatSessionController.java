@@ -0,0 +1,46 @@
+package com.smartcommerce.backend.infrastructure.rest;
+
+import com.smartcommerce.backend.domain.dto.ChatRequest;
+import com.smartcommerce.backend.domain.dto.chat.ChatMessageRequest;
+import com.smartcommerce.backend.domain.dto.chat.ChatMessageResponse;
+import com.smartcommerce.backend.domain.dto.chat.ChatSessionResponse;
+import com.smartcommerce.backend.domain.service.ChatSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Chat con sesión: el contexto de las órdenes se envía una sola vez al crear la
+ * sesión y los mensajes siguientes solo llevan el texto de la pregunta.
+ */
+@RestController
+@RequestMapping("/api/ai/chat/sessions")
+public class ChatSessionController {
+
+    private final ChatSessionService chatSessionService;
+
+    public ChatSessionController(ChatSessionService chatSessionService) {
+        this.chatSessionService = chatSessionService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ChatSessionResponse> createSession(@RequestBody ChatRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(chatSessionService.create(request.getOrderIds()));
+    }
+
+    @GetMapping("/{sessionId}")
+    public ChatSessionResponse getSession(@PathVariable String sessionId) {
+        return chatSessionService.get(sessionId);
+    }
+
+    @PostMapping("/{sessionId}/messages")
+    public ChatMessageResponse sendMessage(@PathVariable String sessionId, @RequestBody ChatMessageRequest request) {
+        return chatSessionService.sendMessage(sessionId, request.message());
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> closeSession(@PathVariable String sessionId) {
+        chatSessionService.close(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
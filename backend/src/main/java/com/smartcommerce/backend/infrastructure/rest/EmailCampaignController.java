@@ -0,0 +1,34 @@
+package com.smartcommerce.backend.infrastructure.rest;
+
+import com.smartcommerce.backend.domain.dto.campaign.EmailCampaignRequest;
+import com.smartcommerce.backend.domain.service.EmailCampaignService;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.iam.domain.repository.UserRepository;
+import com.smartcommerce.iam.infrastructure.security.UserDetailsImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/ai/campaigns")
+@RequiredArgsConstructor
+public class EmailCampaignController {
+
+    private final EmailCampaignService emailCampaignService;
+    private final UserRepository userRepository;
+
+    @Operation(summary = "Redactar una campaña de correos", description = "Genera un borrador por cliente (por IDs o por tier) y emite cada uno como una línea NDJSON a medida que termina")
+    @PostMapping(value = "/email-drafts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> draftCampaign(@AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestBody EmailCampaignRequest request) {
+        User user = userRepository.findById(userDetails.getId())
+                .orElseThrow(() -> new RuntimeException("Usuario autenticado no encontrado"));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emailCampaignService.draftCampaign(user, request));
+    }
+}
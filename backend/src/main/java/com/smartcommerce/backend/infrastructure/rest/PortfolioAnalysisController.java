@@ -0,0 +1,29 @@
+package com.smartcommerce.backend.infrastructure.rest;
+
+import com.smartcommerce.backend.domain.service.PortfolioAnalysisService;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.iam.domain.repository.UserRepository;
+import com.smartcommerce.iam.infrastructure.security.UserDetailsImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/ai/portfolio")
+@RequiredArgsConstructor
+public class PortfolioAnalysisController {
+
+    private final PortfolioAnalysisService portfolioAnalysisService;
+    private final UserRepository userRepository;
+
+    @Operation(summary = "Analizar toda mi cartera", description = "Analiza en paralelo todos los clientes del usuario autenticado y emite el progreso por SSE")
+    @PostMapping(value = "/analyze", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyzePortfolio(@AuthenticationPrincipal UserDetailsImpl userDetails) {
+        User user = userRepository.findById(userDetails.getId())
+                .orElseThrow(() -> new RuntimeException("Usuario autenticado no encontrado"));
+        return portfolioAnalysisService.analyzePortfolio(user);
+    }
+}
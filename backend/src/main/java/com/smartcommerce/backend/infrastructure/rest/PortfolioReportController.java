@@ -0,0 +1,51 @@
+package com.smartcommerce.backend.infrastructure.rest;
+
+import com.smartcommerce.backend.domain.dto.report.PortfolioExportProgress;
+import com.smartcommerce.backend.domain.service.PortfolioReportExportService;
+import com.smartcommerce.backend.domain.service.PortfolioReportExportService.PortfolioExport;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.iam.domain.repository.UserRepository;
+import com.smartcommerce.iam.infrastructure.security.UserDetailsImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/reports/portfolio")
+@RequiredArgsConstructor
+public class PortfolioReportController {
+
+    private static final String EXPORT_ID_HEADER = "X-Export-Id";
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private final PortfolioReportExportService exportService;
+    private final UserRepository userRepository;
+
+    @Operation(summary = "Exportar los informes de mi cartera", description = "Genera en paralelo el informe ejecutivo de cada cliente y los emite en un ZIP a medida que terminan; el ID para consultar el progreso viaja en la cabecera X-Export-Id")
+    @GetMapping(value = "/export", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportPortfolio(@AuthenticationPrincipal UserDetailsImpl userDetails) {
+        PortfolioExport export = exportService.startExport(currentUser(userDetails));
+        return ResponseEntity.ok()
+                .header(EXPORT_ID_HEADER, export.exportId())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=informes_cartera.zip")
+                .contentType(APPLICATION_ZIP)
+                .body(export.body());
+    }
+
+    @Operation(summary = "Progreso de una exportación de cartera")
+    @GetMapping("/exports/{exportId}")
+    public PortfolioExportProgress getProgress(@AuthenticationPrincipal UserDetailsImpl userDetails,
+            @PathVariable String exportId) {
+        return exportService.getProgress(currentUser(userDetails), exportId);
+    }
+
+    private User currentUser(UserDetailsImpl userDetails) {
+        return userRepository.findById(userDetails.getId())
+                .orElseThrow(() -> new RuntimeException("Usuario autenticado no encontrado"));
+    }
+}
@@ -1,12 +1,15 @@
 package com.smartcommerce.backend.infrastructure.rest;
 
+import com.smartcommerce.backend.domain.dto.report.ReportVersion;
 import com.smartcommerce.backend.domain.service.ReportService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -15,20 +18,32 @@ public class ReportController {
 
     private final ReportService reportService;
 
+    /**
+     * Antes de responder solo se consulta la versión de los datos (un cliente
+     * inexistente da 404). Con un If-None-Match vigente responde 304; si no,
+     * el PDF se escribe directo en la respuesta, sin Content-Length.
+     */
     @GetMapping("/export/{clientId}")
-    public ResponseEntity<ByteArrayResource> exportReport(@PathVariable Long clientId) {
-        try {
-            byte[] data = reportService.generateExecutiveReport(clientId);
-            ByteArrayResource resource = new ByteArrayResource(data);
+    public ResponseEntity<StreamingResponseBody> exportReport(@PathVariable Long clientId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ReportVersion version = reportService.currentVersion(clientId);
+        String etag = reportService.etag(version);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reporte_ejecutivo.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(data.length)
-                    .body(resource);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+        if (reportService.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
         }
+
+        StreamingResponseBody body = out -> reportService.writeExecutiveReport(clientId, etag, out);
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reporte_ejecutivo.pdf")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
     }
 }
@@ -6,6 +6,7 @@ import com.smartcommerce.iam.domain.model.User;
 import com.smartcommerce.iam.domain.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -28,6 +29,7 @@ public class CsvImportService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ClientRepository clientRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Ejecuta una lógica de 'Upsert' (Actualizar o Insertar).
@@ -107,6 +109,7 @@ public class CsvImportService {
                     order.getItems().add(item);
 
                     orderRepository.save(order);
+                    eventPublisher.publishEvent(OrderService.toOrderPlacedEvent(order));
                     importedOrdersCount++;
 
                 } catch (Exception e) {
@@ -124,12 +127,14 @@ public class CsvImportService {
 
     private Product createGenericProduct(String name, BigDecimal price) {
         // Create a generic product if it doesn't exist
-        return productRepository.save(Product.builder()
+        Product product = productRepository.save(Product.builder()
                 .name(name)
                 .sku("SKU-" + name.toUpperCase().replaceAll("\\s+", "-") + "-" + System.currentTimeMillis())
                 .description("Imported Product")
                 .price(price)
                 .stockQuantity(1000) // Default high stock
                 .build());
+        eventPublisher.publishEvent(ProductService.toProductCreatedEvent(product));
+        return product;
     }
 }
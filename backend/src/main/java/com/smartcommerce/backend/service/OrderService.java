@@ -3,13 +3,18 @@ package com.smartcommerce.backend.service;
 import com.smartcommerce.backend.domain.dto.OrderItemRequest;
 import com.smartcommerce.backend.domain.dto.OrderRequest;
 import com.smartcommerce.backend.domain.model.*;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
 import com.smartcommerce.backend.domain.repository.OrderRepository;
 import com.smartcommerce.backend.domain.repository.ProductRepository;
 import com.smartcommerce.backend.exception.InsufficientStockException;
+import com.smartcommerce.catalog.api.ProductStockChangedEvent;
 import com.smartcommerce.iam.domain.model.User;
 import com.smartcommerce.iam.domain.repository.UserRepository;
+import com.smartcommerce.sales.api.OrderPlacedEvent;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +29,9 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ClientRepository clientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSubstitutionService substitutionService;
 
     @Transactional
     public com.smartcommerce.backend.domain.dto.order.OrderResponse createOrder(Long userId, OrderRequest request) {
@@ -37,6 +45,15 @@ public class OrderService {
                 .items(new ArrayList<>())
                 .build();
 
+        if (request.getClientId() != null) {
+            Client client = clientRepository.findById(request.getClientId())
+                    .orElseThrow(() -> new EntityNotFoundException("Client not found"));
+            if (!client.getUser().getId().equals(user.getId())) {
+                throw new AccessDeniedException("Access denied: You do not own this client");
+            }
+            order.setClient(client);
+        }
+
         BigDecimal total = BigDecimal.ZERO;
 
         for (OrderItemRequest itemRequest : request.getItems()) {
@@ -44,12 +61,15 @@ public class OrderService {
                     .orElseThrow(() -> new EntityNotFoundException("Product not found"));
 
             if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getName(),
+                        product.getId(), itemRequest.getQuantity(), product.getStockQuantity(),
+                        substitutionService.findSubstitutes(product.getId(), itemRequest.getQuantity()));
             }
 
             // Deduct stock
             product.setStockQuantity(product.getStockQuantity() - itemRequest.getQuantity());
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(product.getId(), product.getStockQuantity()));
 
             // Calculate price
             BigDecimal itemTotal = product.getPrice().multiply(new BigDecimal(itemRequest.getQuantity()));
@@ -67,9 +87,26 @@ public class OrderService {
 
         order.setTotal(total);
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(toOrderPlacedEvent(savedOrder));
         return mapToOrderResponse(savedOrder);
     }
 
+    static OrderPlacedEvent toOrderPlacedEvent(Order order) {
+        List<OrderPlacedEvent.Line> lines = order.getItems().stream()
+                .map(item -> new OrderPlacedEvent.Line(
+                        item.getProduct().getId(),
+                        item.getProduct().getName(),
+                        item.getQuantity(),
+                        item.getPrice()))
+                .toList();
+        return new OrderPlacedEvent(
+                order.getId(),
+                order.getClient() != null ? order.getClient().getId() : null,
+                order.getTotal(),
+                order.getCreatedAt(),
+                lines);
+    }
+
     private com.smartcommerce.backend.domain.dto.order.OrderResponse mapToOrderResponse(Order order) {
         List<com.smartcommerce.backend.domain.dto.order.OrderItemResponse> itemResponses = order.getItems().stream()
                 .map(item -> com.smartcommerce.backend.domain.dto.order.OrderItemResponse.builder()
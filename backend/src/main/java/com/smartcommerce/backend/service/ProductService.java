@@ -6,7 +6,9 @@ import com.smartcommerce.backend.domain.model.Category;
 import com.smartcommerce.backend.domain.model.Product;
 import com.smartcommerce.backend.domain.repository.CategoryRepository;
 import com.smartcommerce.backend.domain.repository.ProductRepository;
+import com.smartcommerce.catalog.api.ProductCreatedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -20,6 +22,7 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ProductResponse createProduct(ProductRequest request) {
@@ -42,9 +45,20 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(toProductCreatedEvent(savedProduct));
         return mapToResponse(savedProduct);
     }
 
+    static ProductCreatedEvent toProductCreatedEvent(Product product) {
+        return new ProductCreatedEvent(
+                product.getId(),
+                product.getSku(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStockQuantity());
+    }
+
     @Transactional(readOnly = true)
     public Page<ProductResponse> findAll(Pageable pageable) {
         return productRepository.findAll(pageable)
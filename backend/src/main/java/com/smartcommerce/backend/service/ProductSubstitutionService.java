@@ -0,0 +1,316 @@
+package com.smartcommerce.backend.service;
+
+import com.smartcommerce.ai_engine.embedding.TextEmbedder;
+import com.smartcommerce.ai_engine.semantic.HnswIndex;
+import com.smartcommerce.backend.domain.dto.ProductCatalogRow;
+import com.smartcommerce.backend.domain.dto.ProductStock;
+import com.smartcommerce.backend.domain.dto.ProductSubstitute;
+import com.smartcommerce.backend.domain.repository.ProductEmbeddingRepository;
+import com.smartcommerce.backend.domain.repository.ProductEmbeddingRepository.StoredEmbedding;
+import com.smartcommerce.backend.domain.repository.ProductRepository;
+import com.smartcommerce.catalog.api.ProductCreatedEvent;
+import com.smartcommerce.catalog.api.ProductStockChangedEvent;
+import com.smartcommerce.kernel.digest.Sha256;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sustitución inteligente de productos sin stock. Al iniciar se cargan los
+ * embeddings de {@code ai_vectors.product_embeddings}, se calculan por lotes
+ * los que faltan o quedaron desactualizados (cambió el texto o el modelo) y se
+ * arma un índice HNSW en memoria. Las altas posteriores se encolan y se
+ * embeben por lotes en un hilo virtual.
+ *
+ * El stock de cada producto se mantiene en memoria a partir de los eventos del
+ * catálogo y se usa como filtro durante el recorrido del índice. Solo lo
+ * actualizan los eventos de esta instancia (los cambios de otras instancias o
+ * hechos directamente en la base no llegan), así que antes de devolver los
+ * candidatos se vuelve a leer su stock con una consulta por IDs.
+ */
+@Service
+@Slf4j
+public class ProductSubstitutionService {
+
+    private static final int MAX_LIMIT = 50;
+    /**
+     * Candidatos extra que se piden al índice por si la relectura del stock
+     * descarta algunos.
+     */
+    private static final int STOCK_RECHECK_MARGIN = 2;
+
+    private final ProductRepository productRepository;
+    private final ProductEmbeddingRepository embeddingRepository;
+    private final TextEmbedder embedder;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int defaultLimit;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+
+    private final Map<Long, CatalogEntry> catalog = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingProduct> pending = new LinkedBlockingQueue<>();
+    private final Timer searchTime;
+    private volatile HnswIndex index;
+    private volatile Thread worker;
+
+    public ProductSubstitutionService(ProductRepository productRepository,
+            ProductEmbeddingRepository embeddingRepository, TextEmbedder embedder, MeterRegistry meterRegistry,
+            @Value("${app.catalog.substitutes.enabled:true}") boolean enabled,
+            @Value("${app.catalog.substitutes.batch-size:64}") int batchSize,
+            @Value("${app.catalog.substitutes.default-limit:5}") int defaultLimit,
+            @Value("${app.catalog.substitutes.hnsw.m:16}") int m,
+            @Value("${app.catalog.substitutes.hnsw.ef-construction:100}") int efConstruction,
+            @Value("${app.catalog.substitutes.hnsw.ef-search:64}") int efSearch) {
+        this.productRepository = productRepository;
+        this.embeddingRepository = embeddingRepository;
+        this.embedder = embedder;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.defaultLimit = defaultLimit;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+
+        this.searchTime = Timer.builder("catalog.substitutes.search")
+                .description("Búsqueda de sustitutos en el índice HNSW")
+                .register(meterRegistry);
+        Gauge.builder("catalog.substitutes.index.size", this, service -> {
+            HnswIndex current = service.index;
+            return current != null ? current.size() : 0;
+        }).description("Productos en el índice de sustitutos").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            worker = Thread.ofVirtual().name("product-embeddings").start(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Sustitutos de un producto con stock de al menos {@code minStock}
+     * unidades, del más al menos similar. El stock de los candidatos se
+     * confirma en la base y se refresca en memoria. Vacío mientras el índice
+     * se carga.
+     */
+    public List<ProductSubstitute> findSubstitutes(Long productId, int minStock, int limit) {
+        HnswIndex current = index;
+        if (current == null || productId == null) {
+            return List.of();
+        }
+        float[] vector = current.vector(productId);
+        if (vector == null) {
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        int wanted = Math.min(limit, MAX_LIMIT);
+        List<HnswIndex.Match> matches = current.search(vector, wanted * STOCK_RECHECK_MARGIN, id -> {
+            if (id == productId) {
+                return false;
+            }
+            CatalogEntry entry = catalog.get(id);
+            return entry != null && entry.stockQuantity >= minStock;
+        });
+        searchTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> stock = new HashMap<>();
+        List<Long> candidateIds = matches.stream().map(HnswIndex.Match::id).toList();
+        for (ProductStock row : productRepository.findStockByIds(candidateIds)) {
+            stock.put(row.id(), row.stockQuantity() != null ? row.stockQuantity() : 0);
+        }
+        List<ProductSubstitute> substitutes = new ArrayList<>(wanted);
+        for (HnswIndex.Match match : matches) {
+            CatalogEntry entry = catalog.get(match.id());
+            Integer available = stock.get(match.id());
+            if (entry == null) {
+                continue;
+            }
+            if (available == null) {
+                // Borrado en la base: no vuelve a ofrecerse
+                catalog.remove(match.id());
+                continue;
+            }
+            entry.stockQuantity = available;
+            if (available >= minStock && substitutes.size() < wanted) {
+                substitutes.add(new ProductSubstitute(match.id(), entry.sku, entry.name, entry.price,
+                        available, match.similarity()));
+            }
+        }
+        return substitutes;
+    }
+
+    public List<ProductSubstitute> findSubstitutes(Long productId, int minStock) {
+        return findSubstitutes(productId, minStock, defaultLimit);
+    }
+
+    /**
+     * Sustitutos con stock para el endpoint de catálogo.
+     */
+    public List<ProductSubstitute> getSubstitutes(Long productId, Integer limit) {
+        if (!catalog.containsKey(productId) && !productRepository.existsById(productId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with ID " + productId);
+        }
+        return findSubstitutes(productId, 1, limit != null && limit > 0 ? limit : defaultLimit);
+    }
+
+    @TransactionalEventListener
+    public void onProductCreated(ProductCreatedEvent event) {
+        catalog.put(event.productId(), new CatalogEntry(event.sku(), event.name(), event.price(),
+                event.stockQuantity()));
+        if (enabled) {
+            pending.add(new PendingProduct(event.productId(), embeddingText(event.name(), event.description())));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        CatalogEntry entry = catalog.get(event.productId());
+        if (entry != null) {
+            entry.stockQuantity = event.stockQuantity();
+        }
+    }
+
+    private void run() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el índice de sustitutos; la sustitución queda deshabilitada", e);
+            return;
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PendingProduct> batch = new ArrayList<>(batchSize);
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending.drainTo(batch, batchSize - 1);
+            embedAndStore(batch, index);
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        List<ProductCatalogRow> rows = productRepository.findCatalogRows();
+        for (ProductCatalogRow row : rows) {
+            // putIfAbsent: un evento recibido durante la carga es más reciente que la fila
+            catalog.putIfAbsent(row.id(), new CatalogEntry(row.sku(), row.name(), row.price(),
+                    row.stockQuantity() != null ? row.stockQuantity() : 0));
+        }
+
+        Map<Long, StoredEmbedding> stored = embeddingRepository.findAll().stream()
+                .collect(Collectors.toMap(StoredEmbedding::productId, Function.identity()));
+        HnswIndex fresh = new HnswIndex(embedder.dimensions(), m, efConstruction, efSearch);
+        List<PendingProduct> missing = new ArrayList<>();
+        for (ProductCatalogRow row : rows) {
+            String text = embeddingText(row.name(), row.description());
+            StoredEmbedding embedding = stored.get(row.id());
+            if (embedding != null && embedding.model().equals(embedder.model())
+                    && embedding.contentHash().equals(Sha256.hex(text))) {
+                fresh.add(row.id(), embedding.vector());
+            } else {
+                missing.add(new PendingProduct(row.id(), text));
+            }
+        }
+        int embedded = embedAndStore(missing, fresh);
+
+        index = fresh;
+        log.info("Índice de sustitutos listo: {} productos ({} embebidos ahora, {} pendientes) en {} ms",
+                fresh.size(), embedded, missing.size() - embedded,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Embebe y guarda por lotes. Un lote fallido se registra y se saltea: esos
+     * productos quedan fuera del índice hasta el próximo arranque.
+     *
+     * @return cantidad de productos agregados al índice
+     */
+    private int embedAndStore(List<PendingProduct> products, HnswIndex target) {
+        int embedded = 0;
+        for (int i = 0; i < products.size(); i += batchSize) {
+            List<PendingProduct> batch = products.subList(i, Math.min(i + batchSize, products.size()));
+            List<float[]> vectors;
+            try {
+                vectors = embedder.embedAll(batch.stream().map(PendingProduct::text).toList());
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron embeber {} productos: {}", batch.size(), e.getMessage());
+                meterRegistry.counter("catalog.product.embeddings.failures").increment(batch.size());
+                continue;
+            }
+
+            List<StoredEmbedding> embeddings = new ArrayList<>(batch.size());
+            for (int j = 0; j < batch.size(); j++) {
+                PendingProduct product = batch.get(j);
+                embeddings.add(new StoredEmbedding(product.productId(), embedder.model(),
+                        Sha256.hex(product.text()), vectors.get(j)));
+            }
+            embeddingRepository.saveAll(embeddings);
+            for (StoredEmbedding embedding : embeddings) {
+                target.add(embedding.productId(), embedding.vector());
+            }
+            meterRegistry.counter("catalog.product.embeddings").increment(batch.size());
+            embedded += batch.size();
+        }
+        return embedded;
+    }
+
+    private static String embeddingText(String name, String description) {
+        return description == null || description.isBlank() ? name : name + ". " + description;
+    }
+
+    private record PendingProduct(long productId, String text) {
+    }
+
+    private static final class CatalogEntry {
+        final String sku;
+        final String name;
+        final BigDecimal price;
+        volatile int stockQuantity;
+
+        CatalogEntry(String sku, String name, BigDecimal price, int stockQuantity) {
+            this.sku = sku;
+            this.name = name;
+            this.price = price;
+            this.stockQuantity = stockQuantity;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartcommerce.catalog.api;
+
+import java.math.BigDecimal;
+
+/**
+ * Evento publicado al dar de alta un producto (alta manual o importación CSV),
+ * dentro de la transacción que lo persiste.
+ */
+public record ProductCreatedEvent(
+        Long productId,
+        String sku,
+        String name,
+        String description,
+        BigDecimal price,
+        int stockQuantity) {
+}
@@ -0,0 +1,9 @@
+package com.smartcommerce.catalog.api;
+
+/**
+ * Evento publicado cuando cambia el stock de un producto. Lleva el valor
+ * absoluto resultante, no la diferencia, para que los consumidores no
+ * acumulen desvíos.
+ */
+public record ProductStockChangedEvent(Long productId, int stockQuantity) {
+}
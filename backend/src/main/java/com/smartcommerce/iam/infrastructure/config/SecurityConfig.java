@@ -75,6 +75,7 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/swagger-ui.html")
                         .permitAll()
+                        .requestMatchers("/api/reports/portfolio/**").authenticated() // Exportación de la cartera propia
                         .requestMatchers("/api/reports/**").permitAll() // Reportes públicos
                         .requestMatchers("/error").permitAll() // Permitir errores de Spring
                         .anyRequest().authenticated() // El resto cerrado
@@ -92,6 +93,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(List.of("http://localhost:5173", "http://localhost:5174"));
         configuration.setAllowedMethods(List.of("*"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("X-Export-Id", "ETag", "Content-Disposition"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,38 @@
+package com.smartcommerce.kernel.collection;
+
+/**
+ * Utilidades compartidas por los mapas primitivos del paquete.
+ */
+final class HashSupport {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private HashSupport() {
+    }
+
+    /**
+     * Mezcla los bits de la clave (finalizador de MurmurHash3) para que IDs
+     * consecutivos no caigan en celdas contiguas de la tabla.
+     */
+    static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Potencia de dos que admite {@code expectedSize} entradas sin superar el
+     * factor de carga.
+     */
+    static int tableSize(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / loadFactor) + 1;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Tamaño esperado demasiado grande: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
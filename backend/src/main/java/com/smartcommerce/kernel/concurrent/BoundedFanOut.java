@@ -0,0 +1,76 @@
+package com.smartcommerce.kernel.concurrent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reparte una tarea por elemento en hilos virtuales y entrega los resultados
+ * en orden de finalización al hilo que llama, con a lo sumo
+ * {@code parallelism} elementos entre ejecutándose y esperando a ser
+ * entregados: el cupo de un elemento se libera recién cuando el consumidor
+ * terminó con su resultado, así que un consumidor lento frena a las tareas.
+ *
+ * La tarea no debe lanzar: un cliente fallido viaja como error dentro de su
+ * resultado. Si aun así lanza, se cancela el resto y se propaga como
+ * {@link IllegalStateException}. Si el consumidor lanza o el hilo que llama se
+ * interrumpe, también se cancelan las tareas pendientes.
+ */
+public final class BoundedFanOut {
+
+    private BoundedFanOut() {
+    }
+
+    @FunctionalInterface
+    public interface ResultConsumer<R> {
+        void accept(R result) throws IOException;
+    }
+
+    public static <T, R> void run(List<T> items, int parallelism, Function<T, R> task, ResultConsumer<R> consumer)
+            throws IOException, InterruptedException {
+        run(items, parallelism, task, UnaryOperator.identity(), consumer);
+    }
+
+    /**
+     * @param decorator envuelve cada tarea antes de enviarla, p.ej. para
+     *                  propagar el contexto de seguridad al hilo virtual
+     */
+    public static <T, R> void run(List<T> items, int parallelism, Function<T, R> task,
+            UnaryOperator<Callable<R>> decorator, ResultConsumer<R> consumer)
+            throws IOException, InterruptedException {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<R> completion = new ExecutorCompletionService<>(executor);
+            for (T item : items) {
+                completion.submit(decorator.apply(() -> {
+                    permits.acquire();
+                    return task.apply(item);
+                }));
+            }
+            try {
+                for (int i = 0; i < items.size(); i++) {
+                    R result = completion.take().get();
+                    try {
+                        consumer.accept(result);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                throw new IllegalStateException("Una tarea lanzó en lugar de devolver su error", e.getCause());
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.smartcommerce.kernel.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Un hilo virtual nuevo por tarea, con a lo sumo {@code concurrency} tareas
+ * ejecutándose y {@code queueCapacity} esperando su turno (en orden de
+ * llegada). Pasado ese total {@link #execute} lanza
+ * {@link RejectedExecutionException}, igual que un ThreadPoolExecutor con
+ * AbortPolicy, pero sin reutilizar hilos virtuales: la espera es un hilo
+ * bloqueado en un semáforo, que no ocupa un hilo de plataforma.
+ */
+public final class BoundedVirtualThreadExecutor implements Executor {
+
+    private final int concurrency;
+    private final int capacity;
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final ThreadFactory threadFactory;
+    private volatile boolean shutdown;
+
+    /**
+     * @param namePrefix prefijo del nombre de los hilos, seguido de un contador
+     */
+    public BoundedVirtualThreadExecutor(String namePrefix, int concurrency, int queueCapacity) {
+        this.concurrency = Math.max(1, concurrency);
+        this.capacity = this.concurrency + Math.max(0, queueCapacity);
+        this.running = new Semaphore(this.concurrency, true);
+        this.admitted = new Semaphore(capacity);
+        this.threadFactory = Thread.ofVirtual().name(namePrefix, 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor detenido");
+        }
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Cola llena: " + capacity + " tareas en curso o en espera");
+        }
+        try {
+            threadFactory.newThread(() -> run(task)).start();
+        } catch (RuntimeException | Error e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Tareas ejecutándose.
+     */
+    public int activeCount() {
+        return concurrency - running.availablePermits();
+    }
+
+    /**
+     * Tareas aceptadas que esperan su turno.
+     */
+    public int queuedCount() {
+        return Math.max(0, capacity - admitted.availablePermits() - activeCount());
+    }
+
+    /**
+     * Deja de aceptar tareas; las aceptadas terminan normalmente.
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    private void run(Runnable task) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            admitted.release();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            running.release();
+            admitted.release();
+        }
+    }
+}
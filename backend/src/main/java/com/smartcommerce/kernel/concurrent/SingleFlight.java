@@ -0,0 +1,73 @@
+package com.smartcommerce.kernel.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicación de llamadas en curso: mientras una llamada con cierta clave se
+ * está ejecutando, las llamadas concurrentes con la misma clave esperan su
+ * resultado en lugar de repetir el trabajo. Una vez terminada la clave se libera,
+ * así que no es una caché: la siguiente llamada vuelve a ejecutar.
+ *
+ * Si la llamada original falla, todas las que esperaban reciben la misma
+ * excepción.
+ *
+ * @param <K> clave normalizada de la entrada (debe implementar equals/hashCode)
+ * @param <V> tipo del resultado compartido
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Runnable onCoalesced;
+
+    /**
+     * @param onCoalesced se invoca cada vez que una llamada se une a otra en curso
+     */
+    public SingleFlight(Runnable onCoalesced) {
+        this.onCoalesced = onCoalesced;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            onCoalesced.run();
+            return await(existing);
+        }
+
+        try {
+            V result = call.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Cantidad de claves con una llamada en curso.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
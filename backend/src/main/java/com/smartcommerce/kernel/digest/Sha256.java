@@ -0,0 +1,39 @@
+package com.smartcommerce.kernel.digest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 sin la excepción verificada de {@link MessageDigest#getInstance}:
+ * todo JDK debe incluir el algoritmo, así que su ausencia es un error de
+ * entorno.
+ */
+public final class Sha256 {
+
+    private Sha256() {
+    }
+
+    /**
+     * Digest nuevo para alimentarlo por partes; no es seguro entre hilos.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public static byte[] digest(byte[] data) {
+        return newDigest().digest(data);
+    }
+
+    /**
+     * Hash en hexadecimal del texto codificado en UTF-8.
+     */
+    public static String hex(String text) {
+        return HexFormat.of().formatHex(digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
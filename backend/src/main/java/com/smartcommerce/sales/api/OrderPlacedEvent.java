@@ -0,0 +1,22 @@
+package com.smartcommerce.sales.api;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evento de dominio publicado cada vez que se persiste una orden (alta manual o
+ * importación CSV). Se publica dentro de la transacción que escribe la orden:
+ * los listeners síncronos comparten esa transacción y los
+ * {@code @TransactionalEventListener} reciben el evento tras el commit.
+ */
+public record OrderPlacedEvent(
+        Long orderId,
+        Long clientId,
+        BigDecimal total,
+        LocalDateTime createdAt,
+        List<Line> lines) {
+
+    public record Line(Long productId, String productName, int quantity, BigDecimal price) {
+    }
+}
@@ -0,0 +1,10 @@
+CREATE TABLE client_context_snapshots (
+    client_id BIGINT PRIMARY KEY,
+    total_spent DECIMAL(19,2) NOT NULL DEFAULT 0,
+    order_count INTEGER NOT NULL DEFAULT 0,
+    first_order_at TIMESTAMP,
+    last_order_at TIMESTAMP,
+    product_quantities JSONB NOT NULL DEFAULT '{}'::jsonb,
+    updated_at TIMESTAMP,
+    CONSTRAINT fk_context_snapshots_client FOREIGN KEY (client_id) REFERENCES clients(id) ON DELETE CASCADE
+);
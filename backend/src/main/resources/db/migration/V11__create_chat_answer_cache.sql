@@ -0,0 +1,16 @@
+CREATE SCHEMA IF NOT EXISTS ai_vectors;
+
+CREATE TABLE ai_vectors.chat_answer_cache (
+    id BIGSERIAL PRIMARY KEY,
+    scope_key VARCHAR(255) NOT NULL,
+    client_id BIGINT,
+    question TEXT NOT NULL,
+    answer TEXT NOT NULL,
+    embedding vector(768) NOT NULL,
+    generation_ms BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_chat_answer_cache_scope ON ai_vectors.chat_answer_cache (scope_key, created_at);
+CREATE INDEX idx_chat_answer_cache_embedding ON ai_vectors.chat_answer_cache
+    USING hnsw (embedding vector_cosine_ops);
@@ -0,0 +1,10 @@
+CREATE SCHEMA IF NOT EXISTS ai_vectors;
+
+CREATE TABLE ai_vectors.product_embeddings (
+    product_id BIGINT PRIMARY KEY,
+    model VARCHAR(100) NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    embedding vector(768) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_product_embeddings_product FOREIGN KEY (product_id) REFERENCES public.products(id) ON DELETE CASCADE
+);
@@ -0,0 +1,13 @@
+CREATE TABLE scheduled_job_state (
+    job_name VARCHAR(100) PRIMARY KEY,
+    lease_owner VARCHAR(200),
+    lease_until TIMESTAMP,
+    cursor_id BIGINT NOT NULL DEFAULT 0,
+    run_started_at TIMESTAMP,
+    last_completed_at TIMESTAMP,
+    processed_in_run INTEGER NOT NULL DEFAULT 0,
+    failed_in_run INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP
+);
+
+INSERT INTO scheduled_job_state (job_name) VALUES ('client-pre-analysis');
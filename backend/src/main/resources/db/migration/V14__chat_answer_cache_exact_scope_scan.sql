@@ -0,0 +1,12 @@
+-- La búsqueda filtra por scope_key y ordena por distancia. Con el índice hnsw
+-- global, pgvector toma los ef_search vecinos más cercanos de toda la tabla y
+-- recién después filtra por alcance, así que con muchas filas casi nunca
+-- devuelve la del alcance pedido. Cada alcance tiene pocas filas: se leen por
+-- idx_chat_answer_cache_scope y la distancia se calcula de forma exacta.
+DROP INDEX IF EXISTS ai_vectors.idx_chat_answer_cache_embedding;
+
+-- Limpieza periódica (SemanticAnswerCache#purge): filas vencidas y versiones
+-- reemplazadas de la misma huella de órdenes (scope_key = huella:versión)
+CREATE INDEX idx_chat_answer_cache_created_at ON ai_vectors.chat_answer_cache (created_at);
+CREATE INDEX idx_chat_answer_cache_fingerprint ON ai_vectors.chat_answer_cache
+    (split_part(scope_key, ':', 1), created_at);
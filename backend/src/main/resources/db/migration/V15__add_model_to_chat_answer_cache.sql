@@ -0,0 +1,11 @@
+-- Vectores de modelos distintos no son comparables: con el perfil llm-stub
+-- (HashingTextEmbedder) y con Gemini las preguntas de un mismo alcance se
+-- comparaban entre sí. Cada fila guarda el modelo que generó su embedding y
+-- la búsqueda solo considera las del modelo actual. Las filas existentes no
+-- saben de qué modelo vienen: es una caché, se descartan.
+DELETE FROM ai_vectors.chat_answer_cache;
+
+ALTER TABLE ai_vectors.chat_answer_cache ADD COLUMN model VARCHAR(100) NOT NULL;
+
+DROP INDEX IF EXISTS ai_vectors.idx_chat_answer_cache_scope;
+CREATE INDEX idx_chat_answer_cache_scope ON ai_vectors.chat_answer_cache (scope_key, model, created_at);
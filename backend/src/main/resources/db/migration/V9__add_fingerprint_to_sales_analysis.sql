@@ -0,0 +1,4 @@
+ALTER TABLE sales_analysis ADD COLUMN order_fingerprint VARCHAR(64);
+ALTER TABLE sales_analysis ADD COLUMN data_version VARCHAR(128);
+
+CREATE INDEX idx_sales_analysis_fingerprint ON sales_analysis(order_fingerprint, data_version);
@@ -0,0 +1,70 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cada operación usa su propio timeout de lectura: contra un servidor que
+ * tarda en responder, la simulación (timeout corto) se corta y el chat
+ * (timeout por defecto) recibe la respuesta.
+ */
+class GeminiLlmGatewayTest {
+
+    private static final Duration RESPONSE_DELAY = Duration.ofMillis(600);
+    private static final String BODY = "{\"candidates\": []}";
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(RESPONSE_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException e) {
+                // El cliente ya cortó por timeout
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void readTimeoutDependsOnTheOperation() {
+        LlmGatewayProperties.Gemini properties = new LlmGatewayProperties.Gemini(
+                "http://127.0.0.1:" + server.getAddress().getPort(), "gemini-test", Duration.ofSeconds(2),
+                Duration.ofSeconds(10), Map.of(LlmOperation.SIMULATE, Duration.ofMillis(150)));
+        GeminiLlmGateway gateway = new GeminiLlmGateway(properties, "test-key");
+
+        assertThatThrownBy(() -> gateway.generate(LlmRequest.prompt(LlmOperation.SIMULATE, "Evaluar", 100, true)))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(gateway.generate(LlmRequest.prompt(LlmOperation.CHAT, "Hola", 100, false))).isEqualTo(BODY);
+    }
+}
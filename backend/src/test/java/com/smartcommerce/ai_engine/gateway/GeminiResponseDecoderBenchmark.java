@@ -0,0 +1,118 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.backend.domain.dto.SimulationResponse;
+import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el parseo anterior de AiService (readTree del sobre, dos replaceAll
+ * y un segundo parseo) con {@link GeminiResponseDecoder}.
+ *
+ * Ejecutar con {@code mvn test-compile} y luego la clase main desde el IDE, o
+ * con {@code -prof gc} para ver la asignación por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeminiResponseDecoderBenchmark {
+
+    /**
+     * Cantidad de alertas en la respuesta: 200 se acerca a maxOutputTokens=5000.
+     */
+    @Param({"5", "200"})
+    public int alerts;
+
+    private ObjectMapper objectMapper;
+    private GeminiResponseDecoder decoder;
+    private String analysisEnvelope;
+    private String simulationEnvelope;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        decoder = new GeminiResponseDecoder(objectMapper);
+
+        List<String> alertList = new ArrayList<>();
+        for (int i = 0; i < alerts; i++) {
+            alertList.add("Alerta " + i + ": caída sostenida en la frecuencia de compra del producto estrella");
+        }
+        String analysisJson = objectMapper.writeValueAsString(Map.of(
+                "resumen_ejecutivo", "Cliente con compras recurrentes y ticket promedio en alza. ".repeat(alerts),
+                "score_oportunidad", 8,
+                "alertas", alertList,
+                "accion_recomendada", "Ofrecer un contrato anual con descuento escalonado."));
+        analysisEnvelope = envelope("```json\n" + analysisJson + "\n```");
+        simulationEnvelope = envelope("Aquí está el resultado:\n"
+                + "{\"acceptanceProbability\": 72, \"financialImpact\": \"Rentable\", "
+                + "\"explanation\": \"El volumen comprometido compensa el descuento.\"}");
+    }
+
+    @Benchmark
+    public SalesAnalysisResponse legacyAnalysis() throws Exception {
+        JsonNode rootNode = objectMapper.readTree(analysisEnvelope);
+        String innerJson = rootNode.path("candidates").get(0).path("content").path("parts").get(0)
+                .path("text").asText();
+        String cleanJson = innerJson.replaceAll("```json", "").replaceAll("```", "").trim();
+        return objectMapper.readValue(cleanJson, SalesAnalysisResponse.class);
+    }
+
+    @Benchmark
+    public SalesAnalysisResponse decoderAnalysis() {
+        return decoder.decode(analysisEnvelope, SalesAnalysisResponse.class);
+    }
+
+    @Benchmark
+    public SimulationResponse legacySimulation() throws Exception {
+        JsonNode rootNode = objectMapper.readTree(simulationEnvelope);
+        String responseText = rootNode.path("candidates").get(0).path("content").path("parts").get(0)
+                .path("text").asText();
+        String jsonOnly = responseText.substring(responseText.indexOf("{"), responseText.lastIndexOf("}") + 1);
+        return objectMapper.readValue(jsonOnly, SimulationResponse.class);
+    }
+
+    @Benchmark
+    public SimulationResponse decoderSimulation() {
+        return decoder.decode(simulationEnvelope, SimulationResponse.class);
+    }
+
+    private String envelope(String text) throws Exception {
+        return objectMapper.writeValueAsString(Map.of(
+                "candidates", List.of(Map.of(
+                        "content", Map.of("role", "model", "parts", List.of(Map.of("text", text))),
+                        "finishReason", "STOP",
+                        "safetyRatings", List.of(
+                                Map.of("category", "HARM_CATEGORY_HARASSMENT", "probability", "NEGLIGIBLE"),
+                                Map.of("category", "HARM_CATEGORY_HATE_SPEECH", "probability", "NEGLIGIBLE")))),
+                "usageMetadata", Map.of("promptTokenCount", 180, "candidatesTokenCount", 4200,
+                        "totalTokenCount", 4380)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeminiResponseDecoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.backend.domain.dto.EmailDraftResponse;
+import com.smartcommerce.backend.domain.dto.SimulationResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Formas de respuesta generateContent que {@link GeminiResponseDecoder} tiene
+ * que aceptar (JSON dentro de un bloque de código, varios parts, campos extra
+ * del sobre) y las que tiene que rechazar con
+ * {@link LlmResponseFormatException}, que llega al cliente como 502.
+ */
+class GeminiResponseDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeminiResponseDecoder decoder = new GeminiResponseDecoder(objectMapper);
+
+    @Test
+    void decodesJsonInsideAFencedCodeBlock() throws Exception {
+        String text = """
+                Aquí está el resultado:
+                ```json
+                {"acceptanceProbability": 72, "financialImpact": "Rentable", "explanation": "Compra {recurrente}"}
+                ```
+                """;
+
+        SimulationResponse response = decoder.decode(envelope(text), SimulationResponse.class);
+
+        assertThat(response).isEqualTo(new SimulationResponse(72, "Rentable", "Compra {recurrente}"));
+    }
+
+    @Test
+    void skipsEnvelopeFieldsAroundTheText() throws Exception {
+        String envelope = objectMapper.writeValueAsString(Map.of(
+                "candidates", List.of(Map.of(
+                        "safetyRatings", List.of(Map.of("category", "HARM_CATEGORY_HARASSMENT")),
+                        "content", Map.of("role", "model",
+                                "parts", List.of(Map.of("text", "{\"subject\": \"Hola\", \"body\": \"Cuerpo\"}"))),
+                        "finishReason", "STOP")),
+                "usageMetadata", Map.of("promptTokenCount", 120, "candidatesTokenCount", 30,
+                        "totalTokenCount", 150)));
+
+        assertThat(decoder.decode(envelope, EmailDraftResponse.class))
+                .isEqualTo(new EmailDraftResponse("Hola", "Cuerpo"));
+        assertThat(decoder.metadata(envelope)).isEqualTo(new LlmResponseMetadata(120, 30, 150, "STOP"));
+    }
+
+    @Test
+    void textConcatenatesEveryPartOfTheFirstCandidate() throws Exception {
+        String envelope = objectMapper.writeValueAsString(Map.of("candidates", List.of(
+                Map.of("content", Map.of("parts", List.of(
+                        Map.of("text", "El cliente "),
+                        Map.of("inlineData", Map.of("mimeType", "image/png", "data", "AAAA")),
+                        Map.of("text", "compra más tornillos.")))),
+                Map.of("content", Map.of("parts", List.of(Map.of("text", "Otro candidato")))))));
+
+        assertThat(decoder.text(envelope)).isEqualTo("El cliente compra más tornillos.");
+    }
+
+    @Test
+    void decodeBindsTheFirstTextPart() throws Exception {
+        String envelope = objectMapper.writeValueAsString(Map.of("candidates", List.of(
+                Map.of("content", Map.of("parts", List.of(
+                        Map.of("text", "{\"subject\": \"Primero\", \"body\": \"A\"}"),
+                        Map.of("text", "{\"subject\": \"Segundo\", \"body\": \"B\"}")))))));
+
+        assertThat(decoder.decode(envelope, EmailDraftResponse.class).subject()).isEqualTo("Primero");
+    }
+
+    @Test
+    void missingCandidatesHasNoText() {
+        String blocked = "{\"promptFeedback\": {\"blockReason\": \"SAFETY\"}}";
+
+        assertThat(decoder.text(blocked)).isEmpty();
+        assertThat(decoder.metadata(blocked)).isEqualTo(LlmResponseMetadata.EMPTY);
+        assertThatThrownBy(() -> decoder.decode(blocked, SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class)
+                .hasMessageContaining("no contiene texto");
+    }
+
+    @Test
+    void emptyCandidateListHasNoText() {
+        assertThat(decoder.text("{\"candidates\": []}")).isEmpty();
+        assertThatThrownBy(() -> decoder.decode("{\"candidates\": [{\"content\": {\"parts\": []}}]}",
+                SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class);
+    }
+
+    @Test
+    void truncatedEnvelopeIsRejected() throws Exception {
+        String complete = envelope("{\"acceptanceProbability\": 60}");
+        String truncated = complete.substring(0, complete.length() / 2);
+
+        assertThatThrownBy(() -> decoder.decode(truncated, SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class);
+        assertThatThrownBy(() -> decoder.text(truncated))
+                .isInstanceOf(LlmResponseFormatException.class);
+    }
+
+    @Test
+    void jsonCutByTheTokenLimitIsRejected() throws Exception {
+        // finishReason MAX_TOKENS: el texto termina en medio de la explicación
+        String withoutClosingBrace = envelope("{\"acceptanceProbability\": 60, \"explanation\": \"El cliente");
+        String innerBraceOnly = envelope("{\"acceptanceProbability\": 60, \"detalle\": {\"riesgo\": 1}, \"expl");
+
+        assertThatThrownBy(() -> decoder.decode(withoutClosingBrace, SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class)
+                .hasMessageContaining("No se encontró JSON");
+        assertThatThrownBy(() -> decoder.decode(innerBraceOnly, SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class)
+                .hasMessageContaining("JSON inválido");
+    }
+
+    @Test
+    void nonObjectEnvelopeIsRejected() {
+        assertThatThrownBy(() -> decoder.decode("[]", SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class);
+        assertThatThrownBy(() -> decoder.text("Service Unavailable"))
+                .isInstanceOf(LlmResponseFormatException.class);
+    }
+
+    private String envelope(String text) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("candidates", List.of(Map.of(
+                "content", Map.of("parts", List.of(Map.of("text", text)))))));
+    }
+}
@@ -0,0 +1,120 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orden de atención, espera acotada y rechazo de {@link PriorityTokenBucket}.
+ * Los buckets se recargan a un token por minuto, así que durante la prueba
+ * solo hay los tokens que devuelve {@link PriorityTokenBucket#release()}.
+ */
+class PriorityTokenBucketTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(30);
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        threads.forEach(Thread::interrupt);
+    }
+
+    @Test
+    void waitersAreServedByPriorityThenArrival() throws InterruptedException {
+        PriorityTokenBucket bucket = new PriorityTokenBucket(1, 1, 10);
+        assertThat(bucket.acquire(LlmPriority.STANDARD, Duration.ZERO)).isEqualTo(PriorityTokenBucket.Outcome.GRANTED);
+
+        List<String> granted = Collections.synchronizedList(new ArrayList<>());
+        enqueue(bucket, LlmPriority.BACKGROUND, "background", granted);
+        enqueue(bucket, LlmPriority.STANDARD, "standard-1", granted);
+        enqueue(bucket, LlmPriority.INTERACTIVE, "interactive", granted);
+        enqueue(bucket, LlmPriority.STANDARD, "standard-2", granted);
+
+        for (int i = 1; i <= 4; i++) {
+            bucket.release();
+            int expected = i;
+            await(() -> granted.size() == expected);
+        }
+        assertThat(granted).containsExactly("interactive", "standard-1", "standard-2", "background");
+        assertThat(bucket.queued()).isZero();
+    }
+
+    @Test
+    void waitEndsAtMaxWaitAndLeavesTheQueue() throws InterruptedException {
+        PriorityTokenBucket bucket = new PriorityTokenBucket(1, 1, 10);
+        bucket.acquire(LlmPriority.STANDARD, Duration.ZERO);
+
+        long start = System.nanoTime();
+        PriorityTokenBucket.Outcome outcome = bucket.acquire(LlmPriority.STANDARD, Duration.ofMillis(100));
+
+        assertThat(outcome).isEqualTo(PriorityTokenBucket.Outcome.TIMED_OUT);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(bucket.queued()).isZero();
+    }
+
+    @Test
+    void fullQueueIsRejectedWithoutWaiting() throws InterruptedException {
+        PriorityTokenBucket bucket = new PriorityTokenBucket(1, 1, 1);
+        bucket.acquire(LlmPriority.STANDARD, Duration.ZERO);
+        List<String> granted = Collections.synchronizedList(new ArrayList<>());
+        enqueue(bucket, LlmPriority.BACKGROUND, "queued", granted);
+
+        long start = System.nanoTime();
+        PriorityTokenBucket.Outcome outcome = bucket.acquire(LlmPriority.INTERACTIVE, LONG_WAIT);
+
+        assertThat(outcome).isEqualTo(PriorityTokenBucket.Outcome.QUEUE_FULL);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+        bucket.release();
+        await(() -> granted.contains("queued"));
+    }
+
+    @Test
+    void releaseNeverExceedsCapacity() throws InterruptedException {
+        PriorityTokenBucket bucket = new PriorityTokenBucket(1, 2, 10);
+        bucket.release();
+        bucket.release();
+
+        assertThat(bucket.acquire(LlmPriority.STANDARD, Duration.ZERO)).isEqualTo(PriorityTokenBucket.Outcome.GRANTED);
+        assertThat(bucket.acquire(LlmPriority.STANDARD, Duration.ZERO)).isEqualTo(PriorityTokenBucket.Outcome.GRANTED);
+        assertThat(bucket.acquire(LlmPriority.STANDARD, Duration.ZERO))
+                .isEqualTo(PriorityTokenBucket.Outcome.TIMED_OUT);
+    }
+
+    /**
+     * Encola un llamador y espera a que esté en la cola, así el orden de
+     * llegada es el de las llamadas.
+     */
+    private void enqueue(PriorityTokenBucket bucket, LlmPriority priority, String name, List<String> granted)
+            throws InterruptedException {
+        int queued = bucket.queued();
+        threads.add(Thread.ofVirtual().start(() -> {
+            try {
+                if (bucket.acquire(priority, LONG_WAIT) == PriorityTokenBucket.Outcome.GRANTED) {
+                    granted.add(name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        await(() -> bucket.queued() == queued + 1);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("La condición no se cumplió a tiempo");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Cuota por usuario y global de {@link RateLimitedLlmGateway}: cada usuario
+ * tiene su propio bucket, y un rechazo del bucket global no consume el token
+ * que el usuario ya había tomado.
+ */
+class RateLimitedLlmGatewayTest {
+
+    private static final LlmRequest REQUEST = LlmRequest.prompt(LlmOperation.SIMULATE, "Evaluar", 100, true);
+
+    private final LlmGateway delegate = mock(LlmGateway.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tenantQuotaIsPerUser() {
+        // Un token por usuario cada minuto; el global no limita
+        RateLimitedLlmGateway gateway = gateway(1, 1000, 100);
+
+        as("ana");
+        gateway.generate(REQUEST);
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(LlmRateLimitedException.class);
+
+        as("beto");
+        gateway.generate(REQUEST);
+
+        verify(delegate, times(2)).generate(any());
+        assertThat(meterRegistry.get("ai.llm.ratelimit.rejected").tag("tenant", "ana").tag("scope", "tenant")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void globalRejectionGivesBackTheTenantToken() throws InterruptedException {
+        // Un token por usuario cada minuto; el global recupera uno por segundo y no encola
+        RateLimitedLlmGateway gateway = gateway(1, 60, 0);
+
+        as("ana");
+        gateway.generate(REQUEST);
+
+        as("beto");
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(LlmRateLimitedException.class);
+        assertThat(meterRegistry.get("ai.llm.ratelimit.rejected").tag("tenant", "beto").tag("scope", "global")
+                .counter().count()).isEqualTo(1);
+
+        // Con el global recargado, beto todavía tiene su token
+        Thread.sleep(1100);
+        gateway.generate(REQUEST);
+
+        verify(delegate, times(2)).generate(any());
+    }
+
+    private RateLimitedLlmGateway gateway(int requestsPerMinute, int globalRequestsPerMinute, int maxQueuedGlobal) {
+        LlmGatewayProperties.RateLimit properties = new LlmGatewayProperties.RateLimit(true, requestsPerMinute, 1,
+                10, globalRequestsPerMinute, 1, maxQueuedGlobal, Duration.ofMillis(50), Map.of(),
+                Duration.ofMinutes(30));
+        return new RateLimitedLlmGateway(delegate, properties, meterRegistry);
+    }
+
+    private static void as(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, "secret", List.of()));
+    }
+}
@@ -0,0 +1,255 @@
+package com.smartcommerce.ai_engine.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Reintentos, circuit breaker y bulkhead de {@link ResilientLlmGateway} sobre
+ * un gateway con respuestas guionadas. Las esperas entre reintentos se
+ * registran en lugar de dormir y el circuito usa un reloj manual.
+ */
+class ResilientLlmGatewayTest {
+
+    private static final LlmRequest REQUEST = LlmRequest.prompt(LlmOperation.SIMULATE, "Evaluar", 100, true);
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(100);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final ScriptedLlmGateway provider = new ScriptedLlmGateway();
+    private final List<Long> sleeps = Collections.synchronizedList(new ArrayList<>());
+    private final CircuitBreakerTest.ManualClock clock = new CircuitBreakerTest.ManualClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void retriesOn429And503WithJitteredExponentialBackoff() {
+        ResilientLlmGateway gateway = gateway(8, 3, 5);
+        provider.fail(503).fail(429).respond("ok");
+
+        assertThat(gateway.generate(REQUEST)).isEqualTo("ok");
+
+        assertThat(provider.calls.get()).isEqualTo(3);
+        assertThat(sleeps).hasSize(2);
+        // Jitter completo: entre 0 y initialBackoff * 2^(intento-1)
+        assertThat(sleeps.get(0)).isBetween(0L, 100L);
+        assertThat(sleeps.get(1)).isBetween(0L, 200L);
+        assertThat(meterRegistry.get("ai.llm.retries").tag("status", "503").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.llm.retries").tag("status", "429").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void backoffIsRandomisedAcrossCalls() {
+        ResilientLlmGateway gateway = gateway(8, 2, 1000);
+        for (int i = 0; i < 40; i++) {
+            provider.fail(503).respond("ok");
+            gateway.generate(REQUEST);
+        }
+
+        assertThat(sleeps).hasSize(40).allSatisfy(sleep -> assertThat(sleep).isBetween(0L, 100L));
+        assertThat(sleeps.stream().distinct().count()).isGreaterThan(1);
+    }
+
+    @Test
+    void retryAfterIsHonouredUpToMaxBackoff() {
+        ResilientLlmGateway gateway = gateway(8, 3, 5);
+        provider.fail(429, "2").fail(503, "120").respond("ok");
+
+        gateway.generate(REQUEST);
+
+        assertThat(sleeps).containsExactly(2000L, MAX_BACKOFF.toMillis());
+    }
+
+    @Test
+    void exhaustedRetriesBecomeUnavailable() {
+        ResilientLlmGateway gateway = gateway(8, 3, 5);
+        provider.fail(503).fail(503).fail(503);
+
+        assertThatThrownBy(() -> gateway.generate(REQUEST))
+                .isInstanceOf(LlmUnavailableException.class)
+                .hasMessageContaining("503 tras 3 intentos");
+        assertThat(provider.calls.get()).isEqualTo(3);
+        assertThat(sleeps).hasSize(2);
+    }
+
+    @Test
+    void clientErrorsAreNotRetriedNorCountedAgainstTheCircuit() {
+        ResilientLlmGateway gateway = gateway(8, 3, 1);
+        provider.fail(400);
+
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(RestClientResponseException.class);
+
+        assertThat(provider.calls.get()).isEqualTo(1);
+        assertThat(sleeps).isEmpty();
+        assertThat(circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void openCircuitRejectsAndHalfOpenAllowsOneProbe() throws Exception {
+        ResilientLlmGateway gateway = gateway(8, 1, 2);
+        provider.fail(500).fail(500);
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(RestClientResponseException.class);
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(RestClientResponseException.class);
+        assertThat(circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> gateway.generate(REQUEST))
+                .isInstanceOf(LlmUnavailableException.class)
+                .hasMessageContaining("circuito abierto");
+        assertThat(provider.calls.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("ai.llm.rejected").tag("reason", "circuit_open").counter().count())
+                .isEqualTo(1);
+
+        // Vencido el plazo, la primera llamada es la prueba; mientras está en
+        // curso las demás se rechazan
+        clock.advance(OPEN_DURATION);
+        CountDownLatch probeStarted = new CountDownLatch(1);
+        CountDownLatch releaseProbe = new CountDownLatch(1);
+        provider.then(() -> {
+            probeStarted.countDown();
+            await(releaseProbe);
+            return "probe";
+        });
+        List<String> probeResult = Collections.synchronizedList(new ArrayList<>());
+        Thread probe = Thread.ofVirtual().start(() -> probeResult.add(gateway.generate(REQUEST)));
+        assertThat(probeStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(circuitState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(LlmUnavailableException.class);
+
+        releaseProbe.countDown();
+        probe.join(TimeUnit.SECONDS.toMillis(10));
+        assertThat(probeResult).containsExactly("probe");
+        assertThat(circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        provider.respond("ok");
+        assertThat(gateway.generate(REQUEST)).isEqualTo("ok");
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() {
+        ResilientLlmGateway gateway = gateway(8, 1, 1);
+        provider.fail(500);
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(RestClientResponseException.class);
+        clock.advance(OPEN_DURATION);
+
+        provider.fail(503);
+        assertThatThrownBy(() -> gateway.generate(REQUEST)).isInstanceOf(LlmUnavailableException.class);
+
+        assertThat(circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(provider.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutCallingTheProvider() throws Exception {
+        ResilientLlmGateway gateway = gateway(1, 1, 5);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        provider.then(() -> {
+            started.countDown();
+            await(release);
+            return "lenta";
+        });
+        Thread slow = Thread.ofVirtual().start(() -> gateway.generate(REQUEST));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> gateway.generate(REQUEST))
+                .isInstanceOf(LlmUnavailableException.class)
+                .hasMessageContaining("Demasiadas consultas");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(provider.calls.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.llm.rejected").tag("reason", "bulkhead_full").counter().count())
+                .isEqualTo(1);
+
+        release.countDown();
+        slow.join(TimeUnit.SECONDS.toMillis(10));
+        assertThat(circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        provider.respond("ok");
+        assertThat(gateway.generate(REQUEST)).isEqualTo("ok");
+    }
+
+    private ResilientLlmGateway gateway(int maxConcurrentCalls, int maxAttempts, int failureThreshold) {
+        LlmGatewayProperties.Resilience properties = new LlmGatewayProperties.Resilience(maxConcurrentCalls,
+                Duration.ofMillis(50), failureThreshold, OPEN_DURATION, maxAttempts, INITIAL_BACKOFF, MAX_BACKOFF);
+        return new ResilientLlmGateway(provider, properties, meterRegistry, clock, sleeps::add);
+    }
+
+    private CircuitBreaker.State circuitState() {
+        double ordinal = meterRegistry.get("ai.llm.circuit.state").gauge().value();
+        return CircuitBreaker.State.values()[(int) ordinal];
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Proveedor que responde, en orden, lo que la prueba le guionó.
+     */
+    static final class ScriptedLlmGateway implements LlmGateway {
+        private final Deque<Supplier<String>> script = new ArrayDeque<>();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedLlmGateway respond(String body) {
+            return then(() -> body);
+        }
+
+        ScriptedLlmGateway fail(int status) {
+            return fail(status, null);
+        }
+
+        ScriptedLlmGateway fail(int status, String retryAfter) {
+            HttpHeaders headers = new HttpHeaders();
+            if (retryAfter != null) {
+                headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+            }
+            return then(() -> {
+                throw new RestClientResponseException("Proveedor respondió " + status, HttpStatusCode.valueOf(status),
+                        "Error", headers, null, null);
+            });
+        }
+
+        synchronized ScriptedLlmGateway then(Supplier<String> step) {
+            script.add(step);
+            return this;
+        }
+
+        @Override
+        public String generate(LlmRequest request) {
+            calls.incrementAndGet();
+            Supplier<String> step;
+            synchronized (this) {
+                step = script.poll();
+            }
+            if (step == null) {
+                throw new AssertionError("Llamada no guionada");
+            }
+            return step.get();
+        }
+
+        @Override
+        public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+            onEvent.accept(generate(request));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.smartcommerce.ai_engine.gateway.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.ai_engine.gateway.GeminiLlmGateway;
+import com.smartcommerce.ai_engine.gateway.GeminiResponseDecoder;
+import com.smartcommerce.ai_engine.gateway.LlmGatewayProperties;
+import com.smartcommerce.ai_engine.gateway.LlmOperation;
+import com.smartcommerce.ai_engine.gateway.LlmRequest;
+import com.smartcommerce.ai_engine.gateway.LlmResponseFormatException;
+import com.smartcommerce.backend.domain.dto.EmailDraftResponse;
+import com.smartcommerce.backend.domain.dto.SimulationResponse;
+import com.smartcommerce.backend.domain.dto.SimulationScenarioResult;
+import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+import com.smartcommerce.kernel.digest.Sha256;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ida y vuelta contra {@link LlmStubServer} con el gateway real: lo que
+ * sintetiza el stub para cada prompt de AiService se decodifica con
+ * {@link GeminiResponseDecoder} en el tipo que espera el servicio, el modo
+ * replay sirve las grabaciones (y sintetiza ante un faltante) y los errores y
+ * la latencia inyectados se comportan según la configuración.
+ */
+class LlmStubServerTest {
+
+    private static final String ANALYSIS_PROMPT = "Analiza las órdenes. Responde ÚNICAMENTE con un objeto JSON "
+            + "válido siguiendo este esquema: { resumen_ejecutivo: string, score_oportunidad: number (1-10), "
+            + "alertas: string[], accion_recomendada: string }.";
+    private static final String SIMULATION_PROMPT = "Escenario: Descuento 10%, Contrato 12 meses. Responde "
+            + "ÚNICAMENTE en JSON con este formato: { \"acceptanceProbability\": 0-100, \"financialImpact\": "
+            + "\"Rentable/Riesgoso/etc\", \"explanation\": \"breve justificación\" }.";
+    private static final String SWEEP_PROMPT = "Evalúa cada uno de estos escenarios de forma independiente: "
+            + "1) Descuento 5%, Contrato 6 meses. 2) Descuento 10%, Contrato 12 meses. 3) Descuento 15%, "
+            + "Contrato 24 meses. Responde ÚNICAMENTE con un arreglo JSON: [{ \"discountPercentage\": número, "
+            + "\"contractDurationMonths\": número, \"acceptanceProbability\": 0-100 }].";
+    private static final String EMAIL_PROMPT = "Write a sales email for ACME. Output Format: JSON with 'subject' "
+            + "and 'body' fields ONLY.";
+    private static final String RAW_BODY = "{\"contents\":[{\"role\":\"user\",\"parts\":[{\"text\":\"Hola\"}]}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeminiResponseDecoder decoder = new GeminiResponseDecoder(objectMapper);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<LlmStubServer> servers = new ArrayList<>();
+
+    @TempDir
+    Path recordings;
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(LlmStubServer::stop);
+    }
+
+    @Test
+    void synthesizedResponsesDecodeIntoTheServiceTypes() {
+        GeminiLlmGateway gateway = gateway(start(LlmStubProperties.Mode.SYNTHESIZE, noErrors(), noLatency()));
+
+        SalesAnalysisResponse analysis = decoder.decode(
+                gateway.generate(LlmRequest.prompt(LlmOperation.ANALYZE_SALES, ANALYSIS_PROMPT, 2000, true)),
+                SalesAnalysisResponse.class);
+        assertThat(analysis.resumenEjecutivo()).isNotBlank();
+        assertThat(analysis.scoreOportunidad()).isBetween(1, 10);
+        assertThat(analysis.alertas()).isNotNull();
+        assertThat(analysis.accionRecomendada()).isNotBlank();
+
+        SimulationResponse simulation = decoder.decode(
+                gateway.generate(LlmRequest.prompt(LlmOperation.SIMULATE, SIMULATION_PROMPT, 2000, true)),
+                SimulationResponse.class);
+        assertThat(simulation.acceptanceProbability()).isBetween(0, 100);
+        assertThat(simulation.financialImpact()).isIn("Rentable", "Riesgoso", "Neutral");
+        assertThat(simulation.explanation()).isNotBlank();
+
+        SimulationScenarioResult[] sweep = decoder.decode(
+                gateway.generate(LlmRequest.prompt(LlmOperation.SIMULATE_SWEEP, SWEEP_PROMPT, 2000, true)),
+                SimulationScenarioResult[].class);
+        assertThat(sweep).extracting(SimulationScenarioResult::discountPercentage).containsExactly(5, 10, 15);
+        assertThat(sweep).extracting(SimulationScenarioResult::contractDurationMonths).containsExactly(6, 12, 24);
+
+        EmailDraftResponse email = decoder.decode(
+                gateway.generate(LlmRequest.prompt(LlmOperation.DRAFT_EMAIL, EMAIL_PROMPT, 2000, true)),
+                EmailDraftResponse.class);
+        assertThat(email.subject()).isNotBlank();
+        assertThat(email.body()).isNotBlank();
+    }
+
+    @Test
+    void streamCarriesTheSameTextAsGenerateAndEndsWithUsage() {
+        GeminiLlmGateway gateway = gateway(start(LlmStubProperties.Mode.SYNTHESIZE, noErrors(), noLatency()));
+        LlmRequest chat = LlmRequest.prompt(LlmOperation.CHAT, "¿Qué compra el cliente?", 2000, false);
+
+        String answer = decoder.text(gateway.generate(chat));
+        List<String> events = new ArrayList<>();
+        gateway.stream(chat, events::add, () -> false);
+
+        assertThat(answer).isNotBlank();
+        assertThat(events).hasSizeGreaterThan(1);
+        assertThat(String.join("", events.stream().map(decoder::text).toList())).isEqualTo(answer);
+        assertThat(decoder.metadata(events.get(events.size() - 1)).totalTokens()).isPositive();
+        // La misma petición produce siempre la misma respuesta
+        assertThat(decoder.text(gateway.generate(chat))).isEqualTo(answer);
+    }
+
+    @Test
+    void replayServesRecordingsAndSynthesizesOnMiss() throws Exception {
+        LlmStubServer server = start(LlmStubProperties.Mode.REPLAY, noErrors(), noLatency());
+        String recorded = envelope("respuesta grabada");
+        Files.writeString(recordings.resolve(key(RAW_BODY) + ".json"), recorded);
+        Files.writeString(recordings.resolve(key(RAW_BODY) + ".sse"),
+                "data: " + envelope("grabada ") + "\n\ndata: " + envelope("en partes") + "\n\n");
+
+        assertThat(post(server, ":generateContent", RAW_BODY).body()).isEqualTo(recorded);
+        assertThat(post(server, ":streamGenerateContent?alt=sse", RAW_BODY).body().lines()
+                .filter(line -> line.startsWith("data:"))
+                .map(line -> decoder.text(line.substring(5).trim()))
+                .toList()).containsExactly("grabada ", "en partes");
+
+        String other = RAW_BODY.replace("Hola", "Chau");
+        assertThat(decoder.text(post(server, ":generateContent", other).body())).isNotBlank();
+        assertThat(meterRegistry.get("ai.llm.stub.replay.misses").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.llm.stub.requests").tag("source", "replayed").tag("stream", "false")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ai.llm.stub.requests").tag("source", "synthesized").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void injectedErrorsReachTheGatewayAsProviderErrors() {
+        LlmRequest request = LlmRequest.prompt(LlmOperation.SIMULATE, SIMULATION_PROMPT, 2000, true);
+
+        GeminiLlmGateway rateLimited = gateway(start(LlmStubProperties.Mode.SYNTHESIZE,
+                errors(1, 0, 0, 0, 0), noLatency()));
+        assertThatThrownBy(() -> rateLimited.generate(request))
+                .isInstanceOfSatisfying(RestClientResponseException.class, e -> {
+                    assertThat(e.getStatusCode().value()).isEqualTo(429);
+                    assertThat(e.getResponseHeaders().getFirst("Retry-After")).isEqualTo("3");
+                });
+
+        GeminiLlmGateway unavailable = gateway(start(LlmStubProperties.Mode.SYNTHESIZE,
+                errors(0, 1, 0, 0, 0), noLatency()));
+        assertThatThrownBy(() -> unavailable.generate(request))
+                .isInstanceOfSatisfying(RestClientResponseException.class,
+                        e -> assertThat(e.getStatusCode().value()).isEqualTo(503));
+
+        GeminiLlmGateway serverError = gateway(start(LlmStubProperties.Mode.SYNTHESIZE,
+                errors(0, 0, 1, 0, 0), noLatency()));
+        assertThatThrownBy(() -> serverError.generate(request))
+                .isInstanceOfSatisfying(RestClientResponseException.class,
+                        e -> assertThat(e.getStatusCode().value()).isEqualTo(500));
+
+        // Malformado: 200 con el JSON cortado, que el decoder rechaza
+        GeminiLlmGateway malformed = gateway(start(LlmStubProperties.Mode.SYNTHESIZE,
+                errors(0, 0, 0, 1, 0), noLatency()));
+        String truncated = malformed.generate(request);
+        assertThatThrownBy(() -> decoder.decode(truncated, SimulationResponse.class))
+                .isInstanceOf(LlmResponseFormatException.class);
+    }
+
+    @Test
+    void hangOutlastsTheReadTimeout() {
+        GeminiLlmGateway gateway = gateway(start(LlmStubProperties.Mode.SYNTHESIZE, errors(0, 0, 0, 0, 1),
+                noLatency()));
+
+        assertThatThrownBy(() -> gateway.generate(LlmRequest.prompt(LlmOperation.SIMULATE, SIMULATION_PROMPT,
+                2000, true))).isInstanceOf(ResourceAccessException.class);
+    }
+
+    @Test
+    void faultRatesFollowTheConfiguredProbabilities() throws Exception {
+        LlmStubServer server = start(LlmStubProperties.Mode.SYNTHESIZE, errors(0.2, 0.3, 0, 0, 0), noLatency());
+
+        int requests = 400;
+        int rateLimited = 0;
+        int unavailable = 0;
+        for (int i = 0; i < requests; i++) {
+            int status = post(server, ":generateContent", RAW_BODY).statusCode();
+            rateLimited += status == 429 ? 1 : 0;
+            unavailable += status == 503 ? 1 : 0;
+        }
+
+        assertThat(rateLimited).isBetween(50, 110);
+        assertThat(unavailable).isBetween(85, 155);
+        assertThat(meterRegistry.get("ai.llm.stub.faults").tag("fault", "NONE").counter().count())
+                .isEqualTo(requests - rateLimited - unavailable);
+    }
+
+    @Test
+    void fixedLatencyDelaysEveryResponse() {
+        LlmStubProperties.Latency fixed = new LlmStubProperties.Latency(LlmStubProperties.Distribution.FIXED,
+                Duration.ofMillis(300), Duration.ofMillis(300), Duration.ZERO, Duration.ZERO);
+        GeminiLlmGateway gateway = gateway(start(LlmStubProperties.Mode.SYNTHESIZE, noErrors(), fixed));
+
+        long start = System.nanoTime();
+        gateway.generate(LlmRequest.prompt(LlmOperation.CHAT, "Hola", 100, false));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+    }
+
+    private LlmStubServer start(LlmStubProperties.Mode mode, LlmStubProperties.Errors errors,
+            LlmStubProperties.Latency latency) {
+        LlmStubServer server = new LlmStubServer(new LlmStubProperties(true, "127.0.0.1", 0, mode, recordings,
+                "http://127.0.0.1:1", 42, latency, errors), objectMapper, meterRegistry);
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        servers.add(server);
+        return server;
+    }
+
+    /**
+     * Gateway real apuntado al stub; la simulación corta a los 300 ms para
+     * ejercitar la demora inyectada.
+     */
+    private static GeminiLlmGateway gateway(LlmStubServer server) {
+        return new GeminiLlmGateway(new LlmGatewayProperties.Gemini("http://127.0.0.1:" + server.port(),
+                "gemini-test", Duration.ofSeconds(2), Duration.ofSeconds(10),
+                Map.of(LlmOperation.SIMULATE, Duration.ofMillis(300))), "test-key");
+    }
+
+    private static LlmStubProperties.Latency noLatency() {
+        return new LlmStubProperties.Latency(LlmStubProperties.Distribution.FIXED, Duration.ZERO, Duration.ZERO,
+                Duration.ZERO, Duration.ZERO);
+    }
+
+    private static LlmStubProperties.Errors noErrors() {
+        return errors(0, 0, 0, 0, 0);
+    }
+
+    private static LlmStubProperties.Errors errors(double rateLimited, double unavailable, double serverError,
+            double malformed, double hang) {
+        return new LlmStubProperties.Errors(rateLimited, unavailable, serverError, malformed, hang,
+                Duration.ofSeconds(3), 3);
+    }
+
+    private String envelope(String text) {
+        return new StubResponseSynthesizer(objectMapper).envelope(text, 10, 5, true);
+    }
+
+    private static String key(String body) {
+        return HexFormat.of().formatHex(Sha256.digest(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static HttpResponse<String> post(LlmStubServer server, String action, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + server.port() + "/models/gemini-test" + action))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
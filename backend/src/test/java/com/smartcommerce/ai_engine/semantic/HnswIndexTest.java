@@ -0,0 +1,156 @@
+package com.smartcommerce.ai_engine.semantic;
+
+import com.smartcommerce.ai_engine.embedding.HashingTextEmbedder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Recall de {@link HnswIndex} contra búsqueda exhaustiva sobre un catálogo
+ * sintético embebido con {@link HashingTextEmbedder}, con y sin filtro, y
+ * reemplazo de vectores al reinsertar.
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 256;
+    private static final int PRODUCTS = 2_000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+    private static final double MIN_RECALL = 0.9;
+
+    private static final String[] KINDS = { "Tornillo", "Tuerca", "Arandela", "Taladro", "Guante", "Cinta",
+            "Pintura", "Lija", "Cable", "Caño", "Llave", "Martillo", "Detergente", "Escoba", "Balde" };
+    private static final String[] TRAITS = { "galvanizado", "inoxidable", "zincado", "de nitrilo", "aislante",
+            "látex", "esmalte", "al agua", "reforzado", "industrial", "doméstico", "profesional" };
+    private static final String[] SIZES = { "8x1", "10x2", "talle M", "talle L", "1/2 pulgada", "3/4 pulgada",
+            "4 litros", "20 litros", "2,5 mm", "4 mm", "grano 120", "grano 220" };
+
+    private HashingTextEmbedder embedder;
+    private List<float[]> vectors;
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        embedder = new HashingTextEmbedder(DIMENSIONS);
+        SplittableRandom random = new SplittableRandom(7);
+        vectors = new ArrayList<>(PRODUCTS);
+        index = new HnswIndex(DIMENSIONS, 16, 100, 64);
+        for (int id = 0; id < PRODUCTS; id++) {
+            String name = KINDS[random.nextInt(KINDS.length)] + " " + TRAITS[random.nextInt(TRAITS.length)] + " "
+                    + SIZES[random.nextInt(SIZES.length)] + " modelo " + random.nextInt(500);
+            float[] vector = embedder.embed(name);
+            vectors.add(vector);
+            index.add(id, vector);
+        }
+    }
+
+    @Test
+    void recallAgainstBruteForce() {
+        assertThat(index.size()).isEqualTo(PRODUCTS);
+        assertThat(recall(null)).isGreaterThanOrEqualTo(MIN_RECALL);
+    }
+
+    @Test
+    void filteredSearchOnlyReturnsAcceptedIdsWithoutLosingRecall() {
+        LongPredicate evenIds = id -> id % 2 == 0;
+
+        for (int q = 0; q < 20; q++) {
+            List<HnswIndex.Match> matches = index.search(vectors.get(q * 37), K, evenIds);
+            assertThat(matches).hasSize(K);
+            assertThat(matches).allMatch(match -> match.id() % 2 == 0);
+        }
+        assertThat(recall(evenIds)).isGreaterThanOrEqualTo(MIN_RECALL);
+    }
+
+    @Test
+    void resultsAreSortedBySimilarity() {
+        List<HnswIndex.Match> matches = index.search(embedder.embed("tornillo galvanizado 8x1"), K, null);
+
+        assertThat(matches).hasSize(K);
+        assertThat(matches).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Match::similarity).reversed());
+    }
+
+    @Test
+    void reinsertReplacesTheVectorWithoutAddingANode() {
+        float[] replacement = embedder.embed("Desengrasante concentrado cítrico 5 litros");
+
+        index.add(3, replacement);
+
+        assertThat(index.size()).isEqualTo(PRODUCTS);
+        float[] stored = index.vector(3);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            assertThat(stored[i]).isCloseTo(replacement[i], within(1e-6f));
+        }
+        List<HnswIndex.Match> matches = index.search(replacement, 1, null);
+        assertThat(matches).extracting(HnswIndex.Match::id).containsExactly(3L);
+        assertThat(matches.get(0).similarity()).isCloseTo(1.0, within(1e-5));
+    }
+
+    @Test
+    void rejectsVectorsWithTheWrongDimensions() {
+        assertThatThrownBy(() -> index.add(PRODUCTS, new float[DIMENSIONS + 1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        HnswIndex empty = new HnswIndex(DIMENSIONS, 16, 100, 64);
+
+        assertThat(empty.search(embedder.embed("tornillo"), K, null)).isEmpty();
+        assertThat(empty.vector(1)).isNull();
+    }
+
+    /**
+     * Fracción de los K vecinos exactos que devuelve el índice, promediada
+     * sobre consultas que no están en el índice.
+     */
+    private double recall(LongPredicate filter) {
+        SplittableRandom random = new SplittableRandom(11);
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = embedder.embed(KINDS[random.nextInt(KINDS.length)] + " "
+                    + TRAITS[random.nextInt(TRAITS.length)] + " " + SIZES[random.nextInt(SIZES.length)]);
+            Set<Long> expected = bruteForce(query, filter);
+            for (HnswIndex.Match match : index.search(query, K, filter)) {
+                if (expected.contains(match.id())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (QUERIES * K);
+    }
+
+    private Set<Long> bruteForce(float[] query, LongPredicate filter) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 0; id < PRODUCTS; id++) {
+            if (filter == null || filter.test(id)) {
+                ids.add(id);
+            }
+        }
+        ids.sort(Comparator.comparingDouble((Long id) -> dot(query, vectors.get(id.intValue()))).reversed());
+        return new HashSet<>(ids.subList(0, K));
+    }
+
+    /**
+     * Los vectores de HashingTextEmbedder ya tienen norma 1: el producto punto
+     * es la similitud coseno.
+     */
+    private static double dot(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
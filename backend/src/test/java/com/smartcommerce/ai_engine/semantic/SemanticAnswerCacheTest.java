@@ -0,0 +1,72 @@
+package com.smartcommerce.ai_engine.semantic;
+
+import com.smartcommerce.ai_engine.embedding.HashingTextEmbedder;
+import com.smartcommerce.ai_engine.embedding.TextEmbedder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SemanticAnswerCache} busca y guarda cada respuesta junto con el
+ * modelo de embeddings que generó el vector: con el mismo alcance, un
+ * embedder de otro modelo no ve las filas del primero.
+ */
+class SemanticAnswerCacheTest {
+
+    private static final String SCOPE = "huella:1";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void lookupAndStoreAreScopedToTheEmbeddingModel() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of());
+        SemanticAnswerCache hashing = cache(new HashingTextEmbedder(8));
+        SemanticAnswerCache gemini = cache(new FixedModelEmbedder("text-embedding-004"));
+
+        SemanticAnswerCache.Lookup miss = hashing.lookup(SCOPE, 7L, "¿Cuánto vendimos?");
+        hashing.store(miss, "Vendieron 10 unidades", Duration.ofMillis(900));
+        gemini.lookup(SCOPE, 7L, "¿Cuánto vendimos?");
+
+        verify(jdbcTemplate).query(contains("model = ?"), any(RowMapper.class), any(), eq(SCOPE),
+                eq("hashing-8"), any(), any());
+        verify(jdbcTemplate).query(contains("model = ?"), any(RowMapper.class), any(), eq(SCOPE),
+                eq("text-embedding-004"), any(), any());
+        verify(jdbcTemplate).update(contains("INSERT"), eq(SCOPE), eq("hashing-8"), eq(7L),
+                eq("¿Cuánto vendimos?"), eq("Vendieron 10 unidades"), any(), eq(900L));
+        assertThat(miss.isHit()).isFalse();
+    }
+
+    private SemanticAnswerCache cache(TextEmbedder embedder) {
+        return new SemanticAnswerCache(jdbcTemplate, embedder, new SimpleMeterRegistry(), true, 0.92,
+                Duration.ofDays(7));
+    }
+
+    /**
+     * Otro proveedor con la misma dimensión: solo cambia el modelo.
+     */
+    private record FixedModelEmbedder(String model) implements TextEmbedder {
+
+        @Override
+        public float[] embed(String text) {
+            return new HashingTextEmbedder(8).embed(text);
+        }
+
+        @Override
+        public int dimensions() {
+            return 8;
+        }
+    }
+}
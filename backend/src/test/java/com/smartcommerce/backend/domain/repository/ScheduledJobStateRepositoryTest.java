@@ -0,0 +1,124 @@
+package com.smartcommerce.backend.domain.repository;
+
+import com.smartcommerce.backend.domain.repository.ScheduledJobStateRepository.JobState;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL del lease y del cursor de {@link ScheduledJobStateRepository} sobre la
+ * tabla que crea la migración: una sola instancia toma el lease hasta que lo
+ * libera o vence, solo el dueño lo renueva o mueve el cursor, y el cursor
+ * sobrevive entre corridas hasta que la corrida se completa.
+ */
+class ScheduledJobStateRepositoryTest {
+
+    private static final String JOB = "client-pre-analysis";
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final JdbcTemplate jdbcTemplate = database();
+    private final ScheduledJobStateRepository repository = new ScheduledJobStateRepository(jdbcTemplate);
+
+    @Test
+    void leaseIsExclusiveUntilReleased() {
+        assertThat(repository.tryAcquire(JOB, "a", LEASE)).isTrue();
+        assertThat(repository.tryAcquire(JOB, "b", LEASE)).isFalse();
+        // El dueño puede volver a tomarlo
+        assertThat(repository.tryAcquire(JOB, "a", LEASE)).isTrue();
+
+        repository.release(JOB, "b");
+        assertThat(repository.tryAcquire(JOB, "b", LEASE)).isFalse();
+
+        repository.release(JOB, "a");
+        assertThat(repository.tryAcquire(JOB, "b", LEASE)).isTrue();
+    }
+
+    @Test
+    void expiredLeaseCanBeTakenAndTheFormerOwnerCannotRenew() {
+        assertThat(repository.tryAcquire(JOB, "a", LEASE)).isTrue();
+        assertThat(repository.renew(JOB, "a", LEASE)).isTrue();
+
+        expireLease();
+        assertThat(repository.tryAcquire(JOB, "b", LEASE)).isTrue();
+
+        assertThat(repository.renew(JOB, "a", LEASE)).isFalse();
+        assertThat(repository.renew(JOB, "b", LEASE)).isTrue();
+    }
+
+    @Test
+    void leaseRunsFromTheDatabaseClock() {
+        repository.tryAcquire(JOB, "a", LEASE);
+
+        Long seconds = jdbcTemplate.queryForObject(
+                "SELECT DATEDIFF('SECOND', CURRENT_TIMESTAMP, lease_until) FROM scheduled_job_state WHERE job_name = ?",
+                Long.class, JOB);
+        assertThat(seconds).isBetween(LEASE.toSeconds() - 5, LEASE.toSeconds());
+    }
+
+    @Test
+    void cursorSurvivesAcrossRunsUntilCompleted() {
+        repository.tryAcquire(JOB, "a", LEASE);
+        repository.startRun(JOB, "a");
+        repository.advance(JOB, "a", 10, false);
+        repository.advance(JOB, "a", 20, true);
+        repository.release(JOB, "a");
+
+        JobState paused = repository.find(JOB).orElseThrow();
+        assertThat(paused.cursorId()).isEqualTo(20);
+        assertThat(paused.processedInRun()).isEqualTo(2);
+        assertThat(paused.failedInRun()).isEqualTo(1);
+        assertThat(paused.runStartedAt()).isNotNull();
+        assertThat(paused.lastCompletedAt()).isNull();
+
+        // Otra instancia retoma desde el cursor
+        repository.tryAcquire(JOB, "b", LEASE);
+        repository.advance(JOB, "b", 30, false);
+        repository.complete(JOB, "b");
+
+        JobState completed = repository.find(JOB).orElseThrow();
+        assertThat(completed.cursorId()).isZero();
+        assertThat(completed.processedInRun()).isEqualTo(3);
+        assertThat(completed.failedInRun()).isEqualTo(1);
+        assertThat(completed.lastCompletedAt()).isNotNull();
+    }
+
+    @Test
+    void onlyTheLeaseOwnerMovesTheCursor() {
+        repository.tryAcquire(JOB, "a", LEASE);
+        repository.advance(JOB, "a", 10, false);
+
+        repository.advance(JOB, "b", 99, true);
+        repository.startRun(JOB, "b");
+        repository.complete(JOB, "b");
+
+        JobState state = repository.find(JOB).orElseThrow();
+        assertThat(state.cursorId()).isEqualTo(10);
+        assertThat(state.processedInRun()).isEqualTo(1);
+        assertThat(state.failedInRun()).isZero();
+        assertThat(state.lastCompletedAt()).isNull();
+        assertThat(repository.find("otro-trabajo")).isEmpty();
+    }
+
+    private void expireLease() {
+        jdbcTemplate.update("UPDATE scheduled_job_state SET lease_until = CURRENT_TIMESTAMP - INTERVAL '1' SECOND "
+                + "WHERE job_name = ?", JOB);
+    }
+
+    /**
+     * Base nueva con la tabla y la fila que crea la migración.
+     */
+    static JdbcTemplate database() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:job-state-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V13__create_scheduled_job_state.sql"))
+                .execute(dataSource);
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,57 @@
+package com.smartcommerce.backend.domain.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Los chats en streaming tienen su propio cupo: con el cupo tomado el
+ * siguiente recibe 503, y el lugar se libera cuando termina un stream.
+ */
+class AiChatStreamServiceTest {
+
+    @Test
+    void streamsBeyondTheirOwnCapacityAreRejectedUntilOneFinishes() throws Exception {
+        AiService aiService = mock(AiService.class);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(aiService).streamChatWithData(anyList(), anyString(), any(), any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiChatStreamService service = new AiChatStreamService(aiService, meterRegistry, 2, Duration.ofMinutes(1));
+
+        service.streamChat(List.of(1L), "¿Qué compra más?");
+        service.streamChat(List.of(2L), "¿Qué compra más?");
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        ResponseStatusException rejected = catchThrowableOfType(
+                () -> service.streamChat(List.of(3L), "¿Qué compra más?"), ResponseStatusException.class);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("ai.chat.streams.active").gauge().value()).isEqualTo(2);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("ai.chat.streams.active").gauge().value() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("ai.chat.streams.active").gauge().value()).isZero();
+        service.streamChat(List.of(3L), "¿Qué compra más?");
+    }
+}
@@ -0,0 +1,147 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.AiContextDTO;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.Order;
+import com.smartcommerce.backend.domain.model.OrderItem;
+import com.smartcommerce.backend.domain.model.OrderStatus;
+import com.smartcommerce.backend.domain.model.Product;
+import com.smartcommerce.iam.domain.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(AiContextAssembler.class)
+class AiContextAssemblerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AiContextAssembler assembler;
+
+    @MockBean
+    private CoPurchaseEngine coPurchaseEngine;
+
+    private Statistics statistics;
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = entityManager.persist(User.builder()
+                .email("seller@example.com")
+                .password("secret")
+                .firstName("Ana")
+                .lastName("Pérez")
+                .build());
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            products.add(entityManager.persist(Product.builder()
+                    .sku("SKU-" + i)
+                    .name("Producto " + i)
+                    .price(BigDecimal.TEN)
+                    .stockQuantity(1000)
+                    .build()));
+        }
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithOrderCount() {
+        List<Long> fewOrders = createOrders("Cliente A", 5);
+        List<Long> manyOrders = createOrders("Cliente B", 200);
+
+        long fewStatements = statementsFor(fewOrders);
+        long manyStatements = statementsFor(manyOrders);
+
+        assertThat(fewStatements).isLessThanOrEqualTo(2);
+        assertThat(manyStatements).isEqualTo(fewStatements);
+    }
+
+    @Test
+    void aggregatesTotalsTopProductsAndFrequency() {
+        List<Long> orderIds = createOrders("Cliente A", 4);
+
+        AiContextDTO context = assembler.forOrderIds(orderIds).orElseThrow();
+
+        assertThat(context.clientName()).isEqualTo("Cliente A");
+        assertThat(context.totalOrders()).isEqualTo(4);
+        // Cada orden tiene 3 ítems de cantidad 2 a precio 10
+        assertThat(context.totalSpent()).isEqualByComparingTo("240");
+        assertThat(context.topPurchasedProducts()).hasSizeLessThanOrEqualTo(10);
+        assertThat(context.topProduct()).isNotEqualTo("N/A");
+        // Órdenes separadas por 3 días
+        assertThat(context.purchaseFrequencyDays()).isEqualTo(3.0);
+    }
+
+    @Test
+    void unknownOrderIdsProduceNoContext() {
+        assertThat(assembler.forOrderIds(List.of(-1L, -2L))).isEmpty();
+    }
+
+    private long statementsFor(List<Long> orderIds) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        assembler.forOrderIds(orderIds).orElseThrow();
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Long> createOrders(String clientName, int count) {
+        Client client = entityManager.persist(Client.builder()
+                .name(clientName)
+                .tier("Bronze")
+                .user(user)
+                .build());
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = Order.builder()
+                    .user(user)
+                    .client(client)
+                    .status(OrderStatus.COMPLETED)
+                    .total(BigDecimal.valueOf(60))
+                    .createdAt(start.plusDays(3L * i))
+                    .build();
+            for (int j = 0; j < 3; j++) {
+                order.getItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(products.get((i + j) % products.size()))
+                        .quantity(2)
+                        .price(BigDecimal.TEN)
+                        .build());
+            }
+            orderIds.add(entityManager.persist(order).getId());
+        }
+        return orderIds;
+    }
+}
@@ -0,0 +1,64 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.job.AiJobResponse;
+import com.smartcommerce.backend.domain.model.AiJobStatus;
+import com.smartcommerce.backend.domain.model.AiJobType;
+import com.smartcommerce.kernel.concurrent.BoundedVirtualThreadExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * Con la concurrencia y la cola del executor de trabajos ocupadas, un trabajo
+ * nuevo se rechaza con 503 y no queda registrado.
+ */
+class AiJobServiceTest {
+
+    @Test
+    void fullQueueRejectsWithServiceUnavailable() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiJobService jobService = new AiJobService(new BoundedVirtualThreadExecutor("ai-job-", 1, 1),
+                meterRegistry, Duration.ofHours(1), 100, Duration.ofMinutes(1));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        AiJobResponse running = jobService.submit(AiJobType.ANALYZE_ORDERS, () -> {
+            started.countDown();
+            return await(release);
+        });
+        AiJobResponse queued = jobService.submit(AiJobType.ANALYZE_ORDERS, () -> await(release));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(jobService.getJob(queued.jobId()).status()).isEqualTo(AiJobStatus.QUEUED);
+
+        ResponseStatusException rejected = catchThrowableOfType(
+                () -> jobService.submit(AiJobType.ANALYZE_ORDERS, () -> "nunca"), ResponseStatusException.class);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.counter("ai.jobs.rejected", "type", AiJobType.ANALYZE_ORDERS.name()).count())
+                .isEqualTo(1);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jobService.getJob(queued.jobId()).status() != AiJobStatus.COMPLETED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(jobService.getJob(running.jobId()).status()).isEqualTo(AiJobStatus.COMPLETED);
+        assertThat(jobService.getJob(queued.jobId()).status()).isEqualTo(AiJobStatus.COMPLETED);
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+}
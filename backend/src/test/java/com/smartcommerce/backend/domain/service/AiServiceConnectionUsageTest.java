@@ -0,0 +1,252 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.ai_engine.gateway.LlmGateway;
+import com.smartcommerce.ai_engine.gateway.LlmRequest;
+import com.smartcommerce.ai_engine.gateway.StubLlmGateway;
+import com.smartcommerce.backend.domain.dto.EmailDraftRequest;
+import com.smartcommerce.backend.domain.dto.SimulationRequest;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.Order;
+import com.smartcommerce.backend.domain.model.OrderItem;
+import com.smartcommerce.backend.domain.model.OrderStatus;
+import com.smartcommerce.backend.domain.model.Product;
+import com.smartcommerce.backend.domain.repository.ClientContextSnapshotRepository;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.ProductRepository;
+import com.smartcommerce.backend.domain.repository.SalesAnalysisRepository;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.iam.domain.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Con más operaciones de IA en curso que conexiones en el pool, el catálogo
+ * tiene que seguir respondiendo: AiService no debe retener conexiones JDBC
+ * mientras espera al modelo. El gateway de la prueba retiene todas las
+ * llamadas en un latch, así que el estado del pool se observa con todas las
+ * operaciones esperando al modelo, sin depender de tiempos.
+ *
+ * Las órdenes se guardan sin pasar por OrderService, de modo que ningún
+ * cliente tiene snapshot y cada operación recorre la reconstrucción perezosa
+ * de {@link ClientContextSnapshotService}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ai-connection-usage;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=" + AiServiceConnectionUsageTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.flyway.enabled=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.jwt.secret=test-secret-test-secret-test-secret-test-secret-test-secret-1234",
+        "app.jwt.expiration-ms=3600000",
+        "app.ai.gateway.provider=stub",
+        "app.ai.gateway.rate-limit.enabled=false",
+        "app.ai.chat.semantic-cache.enabled=false",
+        "app.catalog.substitutes.enabled=false",
+        "app.recommendations.enabled=false"
+})
+@AutoConfigureMockMvc
+class AiServiceConnectionUsageTest {
+
+    /**
+     * Una sola conexión: una operación que tome dos a la vez (p.ej. una
+     * transacción anidada dentro de otra) agota el connection-timeout y falla.
+     */
+    static final int POOL_SIZE = 1;
+    private static final int CALLS_PER_OPERATION = 3;
+    private static final int OPERATIONS = 4;
+    private static final int CONCURRENT_CALLS = OPERATIONS * CALLS_PER_OPERATION;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AiService aiService;
+
+    @Autowired
+    private LatchedLlmGateway gateway;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SalesAnalysisRepository salesAnalysisRepository;
+
+    @Autowired
+    private ClientContextSnapshotRepository snapshotRepository;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void noConnectionIsHeldWhileEveryOperationWaitsOnTheModel() throws Exception {
+        List<Client> clients = createClientsWithOneOrder(CONCURRENT_CALLS);
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLS_PER_OPERATION; i++) {
+            Long analysisOrder = orderIdOf(clients.get(i));
+            Long chatOrder = orderIdOf(clients.get(CALLS_PER_OPERATION + i));
+            Long simulationClient = clients.get(2 * CALLS_PER_OPERATION + i).getId();
+            Long emailClient = clients.get(3 * CALLS_PER_OPERATION + i).getId();
+            calls.add(() -> aiService.analyzeSales(List.of(analysisOrder)).scoreOportunidad());
+            calls.add(() -> aiService.chatWithData(List.of(chatOrder), "¿Qué compra más?"));
+            calls.add(() -> aiService.simulateScenario(new SimulationRequest(simulationClient, 10, 12))
+                    .acceptanceProbability());
+            calls.add(() -> aiService.draftEmail(new EmailDraftRequest(emailClient, "Contrato anual")).subject());
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> results = new ArrayList<>();
+            for (Callable<Object> call : calls) {
+                results.add(executor.submit(call));
+            }
+
+            // Todas las operaciones armaron su contexto y esperan al modelo
+            assertThat(gateway.arrived.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(pool.getActiveConnections()).isZero();
+            assertThat(pool.getThreadsAwaitingConnection()).isZero();
+
+            mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+
+            gateway.release.countDown();
+            for (Future<Object> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isNotNull();
+            }
+        }
+
+        // Cada cliente pasó por la reconstrucción perezosa del snapshot
+        assertThat(snapshotRepository.count()).isEqualTo(CONCURRENT_CALLS);
+        // Cada análisis se persistió en su propia transacción de escritura
+        assertThat(salesAnalysisRepository.count()).isEqualTo(CALLS_PER_OPERATION);
+    }
+
+    private Long orderIdOf(Client client) {
+        return orderRepository.findByClientId(client.getId()).get(0).getId();
+    }
+
+    private List<Client> createClientsWithOneOrder(int count) {
+        User user = userRepository.save(User.builder()
+                .email("load@example.com")
+                .password("secret")
+                .firstName("Carga")
+                .lastName("IA")
+                .build());
+        Product product = productRepository.save(Product.builder()
+                .sku("SKU-LOAD")
+                .name("Producto de carga")
+                .price(BigDecimal.TEN)
+                .stockQuantity(1000)
+                .build());
+
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Client client = clientRepository.save(Client.builder()
+                    .name("Cliente " + i)
+                    .tier("Bronze")
+                    .user(user)
+                    .build());
+            Order order = Order.builder()
+                    .user(user)
+                    .client(client)
+                    .status(OrderStatus.COMPLETED)
+                    .total(BigDecimal.valueOf(20))
+                    .createdAt(LocalDateTime.of(2024, 1, 1, 10, 0))
+                    .build();
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(2)
+                    .price(BigDecimal.TEN)
+                    .build());
+            orderRepository.save(order);
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    @TestConfiguration
+    static class LatchedGatewayConfig {
+
+        @Bean
+        @Primary
+        LatchedLlmGateway latchedLlmGateway(ObjectMapper objectMapper) {
+            return new LatchedLlmGateway(new StubLlmGateway(objectMapper, Duration.ZERO), CONCURRENT_CALLS);
+        }
+    }
+
+    /**
+     * Retiene cada llamada hasta que la prueba abre {@link #release}; cuenta en
+     * {@link #arrived} las que llegaron al modelo.
+     */
+    static final class LatchedLlmGateway implements LlmGateway {
+
+        final CountDownLatch arrived;
+        final CountDownLatch release = new CountDownLatch(1);
+        private final LlmGateway delegate;
+
+        LatchedLlmGateway(LlmGateway delegate, int expectedCalls) {
+            this.delegate = delegate;
+            this.arrived = new CountDownLatch(expectedCalls);
+        }
+
+        @Override
+        public String generate(LlmRequest request) {
+            arrived.countDown();
+            try {
+                if (!release.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("La prueba no liberó el gateway");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return delegate.generate(request);
+        }
+
+        @Override
+        public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+            delegate.stream(request, onEvent, cancelled);
+        }
+    }
+}
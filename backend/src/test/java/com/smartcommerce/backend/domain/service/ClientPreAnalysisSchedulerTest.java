@@ -0,0 +1,200 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.ScheduledJobStateRepository;
+import com.smartcommerce.backend.domain.repository.ScheduledJobStateRepository.JobState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ventana horaria, cursor y disparo de {@link ClientPreAnalysisScheduler}
+ * contra el estado real en {@code scheduled_job_state}: una ventana que cruza
+ * la medianoche incluye ambos lados, una corrida pausada se retoma desde el
+ * último cliente procesado y el disparo programado no bloquea el hilo del
+ * scheduler mientras la corrida avanza.
+ */
+class ClientPreAnalysisSchedulerTest {
+
+    private static final Clock NIGHT = at("2024-03-01T23:30:00Z");
+    private static final List<Long> CLIENTS = List.of(10L, 20L, 30L, 40L, 50L);
+
+    private final AiService aiService = mock(AiService.class);
+    private final ClientRepository clientRepository = mock(ClientRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScheduledJobStateRepository jobState = new ScheduledJobStateRepository(database());
+    private final List<Long> analyzed = Collections.synchronizedList(new ArrayList<>());
+    private final List<ClientPreAnalysisScheduler> schedulers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Clientes pendientes después del cursor, de a una página
+        when(clientRepository.findIdsWithOrdersAfterLatestAnalysis(anyLong(), any(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(2);
+            return CLIENTS.stream().filter(id -> id > afterId).limit(page.getPageSize()).toList();
+        });
+        when(orderRepository.findOrderIdsByClientId(anyLong()))
+                .thenAnswer(invocation -> List.of(invocation.<Long>getArgument(0)));
+        when(aiService.analyzeSales(any())).thenAnswer(invocation -> {
+            analyzed.add(invocation.<List<Long>>getArgument(0).get(0));
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulers.forEach(ClientPreAnalysisScheduler::stop);
+    }
+
+    @Test
+    void windowAcrossMidnightIncludesBothSides() {
+        assertThat(scheduler(at("2024-03-01T22:00:00Z"), "22:00", "05:00", 100).inWindow()).isTrue();
+        assertThat(scheduler(at("2024-03-01T23:59:59Z"), "22:00", "05:00", 100).inWindow()).isTrue();
+        assertThat(scheduler(at("2024-03-02T00:00:00Z"), "22:00", "05:00", 100).inWindow()).isTrue();
+        assertThat(scheduler(at("2024-03-02T04:59:59Z"), "22:00", "05:00", 100).inWindow()).isTrue();
+        assertThat(scheduler(at("2024-03-02T05:00:00Z"), "22:00", "05:00", 100).inWindow()).isFalse();
+        assertThat(scheduler(at("2024-03-02T12:00:00Z"), "22:00", "05:00", 100).inWindow()).isFalse();
+        assertThat(scheduler(at("2024-03-02T21:59:59Z"), "22:00", "05:00", 100).inWindow()).isFalse();
+    }
+
+    @Test
+    void windowWithinTheDay() {
+        assertThat(scheduler(at("2024-03-02T01:59:59Z"), "02:00", "06:00", 100).inWindow()).isFalse();
+        assertThat(scheduler(at("2024-03-02T02:00:00Z"), "02:00", "06:00", 100).inWindow()).isTrue();
+        assertThat(scheduler(at("2024-03-02T05:59:59Z"), "02:00", "06:00", 100).inWindow()).isTrue();
+        assertThat(scheduler(at("2024-03-02T06:00:00Z"), "02:00", "06:00", 100).inWindow()).isFalse();
+        assertThat(scheduler(at("2024-03-02T23:30:00Z"), "02:00", "06:00", 100).inWindow()).isFalse();
+    }
+
+    @Test
+    void pausedRunResumesFromTheCursor() {
+        doThrow(new IllegalStateException("LLM caído")).when(aiService).analyzeSales(List.of(20L));
+
+        scheduler(NIGHT, "22:00", "05:00", 2).run();
+
+        JobState paused = jobState.find(ClientPreAnalysisScheduler.JOB_NAME).orElseThrow();
+        assertThat(paused.cursorId()).isEqualTo(20);
+        assertThat(paused.processedInRun()).isEqualTo(2);
+        assertThat(paused.failedInRun()).isEqualTo(1);
+        assertThat(runs("paused")).isEqualTo(1);
+
+        // Otra instancia (otro dueño del lease) continúa donde quedó
+        scheduler(NIGHT, "22:00", "05:00", 2).run();
+        scheduler(NIGHT, "22:00", "05:00", 2).run();
+
+        assertThat(analyzed).containsExactly(10L, 30L, 40L, 50L);
+        JobState completed = jobState.find(ClientPreAnalysisScheduler.JOB_NAME).orElseThrow();
+        assertThat(completed.cursorId()).isZero();
+        assertThat(completed.processedInRun()).isEqualTo(5);
+        assertThat(completed.failedInRun()).isEqualTo(1);
+        assertThat(completed.lastCompletedAt()).isNotNull();
+        assertThat(runs("completed")).isEqualTo(1);
+    }
+
+    @Test
+    void leaseHeldByAnotherInstanceSkipsTheRun() {
+        jobState.tryAcquire(ClientPreAnalysisScheduler.JOB_NAME, "otra-instancia", Duration.ofMinutes(5));
+
+        scheduler(NIGHT, "22:00", "05:00", 100).run();
+
+        assertThat(analyzed).isEmpty();
+        assertThat(runs("lease_held")).isEqualTo(1);
+    }
+
+    @Test
+    void scheduledTriggerDoesNotBlockAndSkipsWhileRunning() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            analyzed.add(10L);
+            return null;
+        }).when(aiService).analyzeSales(List.of(10L));
+        ClientPreAnalysisScheduler scheduler = scheduler(NIGHT, "22:00", "05:00", 100);
+
+        scheduler.runScheduled();
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        // La corrida sigue en su hilo; el disparo siguiente la encuentra en curso
+        scheduler.runScheduled();
+        assertThat(runs("running")).isEqualTo(1);
+
+        release.countDown();
+        await(() -> runs("completed") == 1);
+        assertThat(analyzed).containsExactlyElementsOf(CLIENTS);
+    }
+
+    @Test
+    void outsideTheWindowTheTriggerDoesNothing() {
+        scheduler(at("2024-03-02T12:00:00Z"), "22:00", "05:00", 100).runScheduled();
+
+        assertThat(analyzed).isEmpty();
+        assertThat(jobState.find(ClientPreAnalysisScheduler.JOB_NAME).orElseThrow().runStartedAt()).isNull();
+    }
+
+    private ClientPreAnalysisScheduler scheduler(Clock clock, String windowStart, String windowEnd,
+            int maxClientsPerRun) {
+        ClientPreAnalysisScheduler scheduler = new ClientPreAnalysisScheduler(aiService, clientRepository,
+                orderRepository, jobState, meterRegistry, clock, true, windowStart, windowEnd, Duration.ZERO,
+                Duration.ofMinutes(5), 2, maxClientsPerRun);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private double runs(String outcome) {
+        Counter counter = meterRegistry.find("ai.pre_analysis.runs").tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static Clock at(String instant) {
+        return Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+    }
+
+    private static JdbcTemplate database() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:pre-analysis-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V13__create_scheduled_job_state.sql"))
+                .execute(dataSource);
+        return new JdbcTemplate(dataSource);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("La condición no se cumplió a tiempo");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
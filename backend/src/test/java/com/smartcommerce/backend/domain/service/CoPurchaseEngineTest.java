@@ -0,0 +1,225 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.ProductRecommendation;
+import com.smartcommerce.kernel.collection.LongIntHashMap;
+import com.smartcommerce.sales.api.OrderPlacedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La matriz que arma {@link CoPurchaseEngine} recorriendo order_items tiene
+ * que ser la misma que la que resulta de aplicar los {@link OrderPlacedEvent}
+ * de esas órdenes, incluido el recorte de órdenes grandes, que no puede
+ * depender del orden de las líneas. Los eventos recibidos durante la carga
+ * que el recorrido ya incluyó no se cuentan dos veces, y los de órdenes que no
+ * leyó se aplican aunque tengan un ID menor que la última leída. Si la carga
+ * falla se reintenta.
+ */
+class CoPurchaseEngineTest {
+
+    private static final int MAX_ITEMS_PER_ORDER = 3;
+    private static final int PRODUCTS = 8;
+    private static final long CLIENT_A = 100;
+    private static final long CLIENT_B = 200;
+
+    /**
+     * Órdenes como (orden, cliente, [producto, cantidad]...). La 4 supera el
+     * máximo de productos: quedan los de mayor cantidad (4, 5 y 6).
+     */
+    private static final long[][] ORDERS = {
+            { 1, CLIENT_A, 1, 2, 2, 1 },
+            { 2, CLIENT_A, 1, 1, 3, 4 },
+            { 3, CLIENT_B, 2, 1, 3, 1, 4, 1 },
+            { 4, CLIENT_B, 4, 9, 5, 8, 6, 7, 7, 2, 8, 1 },
+            { 5, CLIENT_A, 2, 3, 5, 1 },
+            { 6, CLIENT_B, 1, 1, 6, 2 },
+    };
+    private static final int LOADED_ORDERS = 4;
+
+    private final List<CoPurchaseEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        engines.forEach(CoPurchaseEngine::stop);
+    }
+
+    @Test
+    void loadingFromTheDatabaseMatchesReplayingEvents() throws InterruptedException {
+        // Las órdenes 1 a 4 están en la base; durante la carga llegan los
+        // eventos de la 3 a la 6, y la 3 y la 4 ya están incluidas
+        CoPurchaseEngine loaded = engine(database(Arrays.copyOf(ORDERS, LOADED_ORDERS)));
+        for (int i = 2; i < ORDERS.length; i++) {
+            loaded.onOrderPlaced(event(ORDERS[i]));
+        }
+        loaded.start();
+
+        awaitOrder(loaded, ORDERS[ORDERS.length - 1]);
+        assertMatchesReplay(loaded);
+
+        // La orden 3 se contó una sola vez: 2 y 4 solo coinciden en ella
+        assertThat(loaded.alsoBought(2, PRODUCTS))
+                .filteredOn(recommendation -> recommendation.productId() == 4)
+                .extracting(ProductRecommendation::coPurchases)
+                .containsExactly(1);
+        // Los productos de menor cantidad de la orden 4 quedaron fuera
+        assertThat(loaded.alsoBought(7, PRODUCTS)).isEmpty();
+        assertThat(loaded.alsoBought(8, PRODUCTS)).isEmpty();
+        assertThat(loaded.alsoBought(4, PRODUCTS)).extracting(ProductRecommendation::productId)
+                .contains(5L, 6L)
+                .doesNotContain(7L, 8L);
+    }
+
+    @Test
+    void orderCommittedBehindTheScanIsAppliedFromItsEvent() throws InterruptedException {
+        // La orden 3 se confirma cuando el recorrido ya pasó por su posición:
+        // no está en la base que lee la carga, pero la 4 sí
+        CoPurchaseEngine loaded = engine(database(ORDERS[0], ORDERS[1], ORDERS[3]));
+        for (int i = 2; i < ORDERS.length; i++) {
+            loaded.onOrderPlaced(event(ORDERS[i]));
+        }
+        loaded.start();
+
+        awaitOrder(loaded, ORDERS[ORDERS.length - 1]);
+        assertMatchesReplay(loaded);
+        assertThat(loaded.alsoBought(2, PRODUCTS))
+                .filteredOn(recommendation -> recommendation.productId() == 4)
+                .extracting(ProductRecommendation::coPurchases)
+                .containsExactly(1);
+    }
+
+    @Test
+    void failedLoadDiscardsBufferedEventsAndIsRetried() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = database(ORDERS);
+        jdbcTemplate.execute("ALTER TABLE order_items RENAME TO order_items_pending");
+        CoPurchaseEngine loaded = engine(jdbcTemplate);
+        // Eventos de órdenes que ya están en la base: si sobrevivieran a la
+        // carga fallida se contarían dos veces
+        for (int i = 2; i < ORDERS.length; i++) {
+            loaded.onOrderPlaced(event(ORDERS[i]));
+        }
+        loaded.start();
+
+        Thread.sleep(100);
+        assertThat(loaded.alsoBought(ORDERS[0][2], PRODUCTS)).isEmpty();
+        jdbcTemplate.execute("ALTER TABLE order_items_pending RENAME TO order_items");
+
+        awaitOrder(loaded, ORDERS[ORDERS.length - 1]);
+        assertMatchesReplay(loaded);
+    }
+
+    @Test
+    void topNRanksByScoreThenIdAndSkipsExcluded() {
+        LongIntHashMap scores = new LongIntHashMap();
+        scores.put(10, 5);
+        scores.put(3, 7);
+        scores.put(0, 5);
+        scores.put(7, 5);
+        scores.put(4, 9);
+        scores.put(12, 1);
+
+        assertThat(CoPurchaseEngine.topN(scores, 4, id -> false)).containsExactly(4, 3, 0, 7);
+        assertThat(CoPurchaseEngine.topN(scores, 4, id -> id == 3 || id == 0)).containsExactly(4, 7, 10, 12);
+        assertThat(CoPurchaseEngine.topN(scores, 10, id -> false)).containsExactly(4, 3, 0, 7, 10, 12);
+        assertThat(CoPurchaseEngine.topN(scores, 0, id -> false)).isEmpty();
+    }
+
+    /**
+     * Compara la matriz con la de un motor que recibió como eventos todas las
+     * órdenes de {@link #ORDERS}.
+     */
+    private void assertMatchesReplay(CoPurchaseEngine loaded) throws InterruptedException {
+        CoPurchaseEngine replayed = engine(database());
+        for (long[] order : ORDERS) {
+            replayed.onOrderPlaced(event(order));
+        }
+        replayed.start();
+        awaitOrder(replayed, ORDERS[ORDERS.length - 1]);
+
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            assertThat(loaded.alsoBought(productId, PRODUCTS))
+                    .as("producto %d", productId)
+                    .isEqualTo(replayed.alsoBought(productId, PRODUCTS));
+        }
+        for (long clientId : new long[] { CLIENT_A, CLIENT_B }) {
+            assertThat(loaded.recommendForClient(clientId, PRODUCTS))
+                    .as("cliente %d", clientId)
+                    .isEqualTo(replayed.recommendForClient(clientId, PRODUCTS));
+        }
+    }
+
+    /**
+     * Base nueva con los productos y las órdenes indicadas.
+     */
+    private static JdbcTemplate database(long[]... orders) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:co-purchase-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, client_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE order_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, order_id BIGINT, "
+                + "product_id BIGINT, quantity INT)");
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            jdbcTemplate.update("INSERT INTO products (id, name) VALUES (?, ?)", productId, name(productId));
+        }
+        for (long[] order : orders) {
+            jdbcTemplate.update("INSERT INTO orders (id, client_id) VALUES (?, ?)", order[0], order[1]);
+            for (int j = 2; j < order.length; j += 2) {
+                jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)",
+                        order[0], order[j], order[j + 1]);
+            }
+        }
+        return jdbcTemplate;
+    }
+
+    private CoPurchaseEngine engine(JdbcTemplate jdbcTemplate) {
+        CoPurchaseEngine engine = new CoPurchaseEngine(jdbcTemplate,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()), new SimpleMeterRegistry(), true,
+                MAX_ITEMS_PER_ORDER, 1000, Duration.ofMillis(20), Duration.ofMillis(100));
+        engines.add(engine);
+        return engine;
+    }
+
+    /**
+     * Evento de la orden con las líneas en orden inverso al de la base.
+     */
+    private static OrderPlacedEvent event(long[] order) {
+        List<OrderPlacedEvent.Line> lines = new ArrayList<>();
+        for (int j = order.length - 2; j >= 2; j -= 2) {
+            lines.add(new OrderPlacedEvent.Line(order[j], name(order[j]), (int) order[j + 1], BigDecimal.ONE));
+        }
+        return new OrderPlacedEvent(order[0], order[1], BigDecimal.TEN, LocalDateTime.of(2024, 1, 1, 10, 0), lines);
+    }
+
+    private static String name(long productId) {
+        return "Producto " + (char) ('A' + productId - 1);
+    }
+
+    /**
+     * La carga corre en un hilo virtual: espera hasta que la matriz incluya
+     * la orden.
+     */
+    private static void awaitOrder(CoPurchaseEngine engine, long[] order) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            if (!engine.alsoBought(order[2], PRODUCTS).isEmpty()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("La matriz de co-compra no terminó de cargarse");
+    }
+}
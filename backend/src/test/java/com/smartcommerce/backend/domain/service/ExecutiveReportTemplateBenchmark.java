@@ -0,0 +1,86 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.lowagie.text.DocumentException;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders por segundo en un hilo (un núcleo) del informe ejecutivo: el render
+ * anterior de ReportService ({@link LegacyReportRenderer}) contra
+ * {@link ExecutiveReportTemplate}.
+ *
+ * Ejecutar con {@code mvn test-compile} y luego la clase main desde el IDE, o
+ * con {@code -prof gc} para ver la asignación por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class ExecutiveReportTemplateBenchmark {
+
+    /**
+     * Párrafos del resumen ejecutivo: con 40 el informe ocupa varias páginas.
+     */
+    @Param({"1", "40"})
+    public int summaryParagraphs;
+
+    private ExecutiveReportTemplate template;
+    private ExecutiveReport report;
+    private LocalDate generatedOn;
+
+    @Setup
+    public void setUp() {
+        template = new ExecutiveReportTemplate();
+        generatedOn = LocalDate.of(2024, 3, 31);
+
+        List<ProductStats> products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            products.add(new ProductStats("Producto " + i, 120L - i * 10, 15_000.0 - i * 1_250));
+        }
+        String summary = "El cliente mantiene compras recurrentes y un ticket promedio en alza; "
+                .repeat(6) + "\n";
+        report = new ExecutiveReport(1L, "Distribuidora del Sur", "Retail", "compras@example.com", 182_500.75,
+                "Ferretería", 8, summary.repeat(summaryParagraphs),
+                "Ofrecer un contrato anual con descuento escalonado.", products);
+    }
+
+    @Benchmark
+    public void legacyRender() throws DocumentException {
+        LegacyReportRenderer.render(report, generatedOn, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void templateRender() throws DocumentException {
+        template.render(report, generatedOn, OutputStream.nullOutputStream());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutiveReportTemplateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ExecutiveReportTemplate} tiene que producir el mismo texto, página por
+ * página, que el render anterior ({@link LegacyReportRenderer}); si no, los
+ * informes ya generados quedarían con otro contenido bajo la misma
+ * {@code ReportVersion}. Se compara también un segundo render con el mismo
+ * template, que reutiliza las celdas y el pie compartidos.
+ */
+class ExecutiveReportTemplateTest {
+
+    private static final LocalDate GENERATED_ON = LocalDate.of(2024, 3, 31);
+
+    private final ExecutiveReportTemplate template = new ExecutiveReportTemplate();
+
+    @Test
+    void singlePageReportHasTheLegacyText() throws Exception {
+        assertSameTextAsLegacy(report(1));
+    }
+
+    @Test
+    void multiPageReportHasTheLegacyTextOnEveryPage() throws Exception {
+        ExecutiveReport report = report(40);
+
+        List<String> pages = assertSameTextAsLegacy(report);
+
+        assertThat(pages).hasSizeGreaterThan(1);
+        assertThat(pages).allSatisfy(page ->
+                assertThat(page).contains("Generado automáticamente por SmartCommerce AI Engine"));
+    }
+
+    private List<String> assertSameTextAsLegacy(ExecutiveReport report) throws Exception {
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        LegacyReportRenderer.render(report, GENERATED_ON, legacy);
+        List<String> expected = pages(legacy.toByteArray());
+
+        for (int render = 0; render < 2; render++) {
+            ByteArrayOutputStream current = new ByteArrayOutputStream();
+            template.render(report, GENERATED_ON, current);
+            assertThat(pages(current.toByteArray())).as("render %d", render + 1).isEqualTo(expected);
+        }
+        assertThat(expected.get(0))
+                .contains("Generado el: 31/03/2024", "Distribuidora del Sur", "Oportunidad de Negocio: 8/10");
+        return expected;
+    }
+
+    private static List<String> pages(byte[] pdf) throws IOException {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            List<String> pages = new ArrayList<>();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                pages.add(extractor.getTextFromPage(page));
+            }
+            return pages;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static ExecutiveReport report(int summaryParagraphs) {
+        List<ProductStats> products = new ArrayList<>();
+        products.add(new ProductStats("Tornillo Ñandú 3/8\"", 130L, 16_250.0));
+        for (int i = 1; i < 5; i++) {
+            products.add(new ProductStats("Producto " + i, 120L - i * 10, 15_000.0 - i * 1_250));
+        }
+        String summary = "El cliente mantiene compras recurrentes y un ticket promedio en alza; "
+                .repeat(6) + "\n";
+        return new ExecutiveReport(1L, "Distribuidora del Sur", "Retail", "compras@example.com", 182_500.75,
+                "Ferretería", 8, summary.repeat(summaryParagraphs),
+                "Ofrecer un contrato anual con descuento escalonado.", products);
+    }
+}
@@ -0,0 +1,60 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.AnalyticsDTO;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+import com.smartcommerce.backend.domain.model.Order;
+import com.smartcommerce.backend.domain.model.OrderItem;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lo que hacía ReportService antes de {@link ReportDataAssembler}: analytics
+ * por un lado, órdenes por otro y recorrer los ítems para el top 5. Línea de
+ * base para {@link ReportDataAssemblerTest} y
+ * {@link ReportDataAssemblerBenchmark}; necesita una transacción abierta para
+ * recorrer los ítems.
+ */
+final class LegacyReportLoader {
+
+    private LegacyReportLoader() {
+    }
+
+    static LegacyReport load(AnalyticsService analyticsService, OrderRepository orderRepository, Long clientId) {
+        AnalyticsDTO analytics = analyticsService.getAnalytics(clientId);
+        List<Order> orders = orderRepository.findByClientId(clientId);
+
+        double totalSpent = orders.stream()
+                .map(Order::getTotal)
+                .mapToDouble(BigDecimal::doubleValue)
+                .sum();
+        String mainCategory = analytics.getSalesByCategory().entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("N/A");
+
+        Map<String, ProductStats> stats = new HashMap<>();
+        for (Order order : orders) {
+            for (OrderItem item : order.getItems()) {
+                String name = item.getProduct().getName();
+                ProductStats added = new ProductStats(name, item.getQuantity(),
+                        item.getPrice().doubleValue() * item.getQuantity());
+                stats.merge(name, added, (current, next) -> new ProductStats(name,
+                        current.quantity() + next.quantity(), current.total() + next.total()));
+            }
+        }
+        List<ProductStats> top = stats.values().stream()
+                .sorted(Comparator.comparingDouble(ProductStats::total).reversed()
+                        .thenComparing(ProductStats::name))
+                .limit(ReportDataAssembler.TOP_PRODUCTS)
+                .toList();
+        return new LegacyReport(totalSpent, mainCategory, top);
+    }
+
+    record LegacyReport(double totalSpent, String mainCategory, List<ProductStats> topProducts) {
+    }
+}
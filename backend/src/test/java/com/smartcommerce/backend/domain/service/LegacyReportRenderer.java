@@ -0,0 +1,135 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+
+import java.awt.Color;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Copia del render anterior de ReportService (cuatro FontFactory.getFont por
+ * informe, un FooterEvent nuevo que vuelve a resolver la fuente en cada
+ * página), como línea de base de {@link ExecutiveReportTemplate}. La fecha se
+ * recibe como parámetro en lugar de leer {@code LocalDate.now()}.
+ */
+final class LegacyReportRenderer {
+
+    private LegacyReportRenderer() {
+    }
+
+    static void render(ExecutiveReport report, LocalDate generatedOn, OutputStream out) throws DocumentException {
+        Document document = new Document(PageSize.A4);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        writer.setPageEvent(new FooterEvent());
+        document.open();
+
+        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.DARK_GRAY);
+        Font sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, new Color(50, 50, 150));
+        Font textFont = FontFactory.getFont(FontFactory.HELVETICA, 11, Color.BLACK);
+        Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, Color.BLACK);
+
+        Paragraph header = new Paragraph("SmartCommerce B2B - Informe Estratégico de Inteligencia", titleFont);
+        header.setAlignment(Element.ALIGN_CENTER);
+        header.setSpacingAfter(10);
+        document.add(header);
+
+        Paragraph date = new Paragraph(
+                "Generado el: " + generatedOn.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), textFont);
+        date.setAlignment(Element.ALIGN_CENTER);
+        date.setSpacingAfter(20);
+        document.add(date);
+        document.add(new Paragraph(" "));
+
+        document.add(new Paragraph("1. Perfil del Cliente", sectionFont));
+        document.add(new Paragraph(" "));
+
+        PdfPTable profileTable = new PdfPTable(2);
+        profileTable.setWidthPercentage(100);
+        profileTable.setWidths(new float[] { 3f, 7f });
+        addProfileRow(profileTable, "Cliente:", report.clientName(), boldFont, textFont);
+        addProfileRow(profileTable, "Industria:", report.industry(), boldFont, textFont);
+        addProfileRow(profileTable, "Email Contacto:", report.contactEmail(), boldFont, textFont);
+        addProfileRow(profileTable, "Gasto Total Histórico:", String.format("$%,.2f", report.totalSpent()),
+                boldFont, textFont);
+        addProfileRow(profileTable, "Categoría Principal:", report.mainCategory(), boldFont, textFont);
+        document.add(profileTable);
+        document.add(new Paragraph(" "));
+
+        document.add(new Paragraph("2. Análisis de Inteligencia Artificial", sectionFont));
+        document.add(new Paragraph(" "));
+        Paragraph score = new Paragraph("Oportunidad de Negocio: " + report.analysisScore() + "/10", boldFont);
+        score.setSpacingAfter(5);
+        document.add(score);
+        document.add(new Paragraph("Resumen Ejecutivo:", boldFont));
+        document.add(new Paragraph(report.executiveSummary(), textFont));
+        document.add(new Paragraph(" "));
+        document.add(new Paragraph("Recomendación Estratégica:", boldFont));
+        document.add(new Paragraph(report.recommendation(), textFont));
+        document.add(new Paragraph(" "));
+
+        document.add(new Paragraph("3. Desglose de Ventas (Top 5 Productos)", sectionFont));
+        document.add(new Paragraph(" "));
+
+        PdfPTable table = new PdfPTable(3);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[] { 6f, 2f, 2f });
+        table.setHeaderRows(1);
+        addTableHeader(table, "Producto", boldFont);
+        addTableHeader(table, "Cantidad", boldFont);
+        addTableHeader(table, "Total", boldFont);
+        for (ProductStats p : report.topProducts()) {
+            table.addCell(new PdfPCell(new Phrase(p.name(), textFont)));
+            table.addCell(new PdfPCell(new Phrase(String.valueOf(p.quantity()), textFont)));
+            table.addCell(new PdfPCell(new Phrase(String.format("$%,.2f", p.total()), textFont)));
+        }
+        document.add(table);
+
+        document.close();
+    }
+
+    private static void addProfileRow(PdfPTable table, String label, String value, Font bold, Font normal) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, bold));
+        labelCell.setBorder(Rectangle.NO_BORDER);
+        table.addCell(labelCell);
+
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, normal));
+        valueCell.setBorder(Rectangle.NO_BORDER);
+        table.addCell(valueCell);
+    }
+
+    private static void addTableHeader(PdfPTable table, String header, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(header, font));
+        cell.setBackgroundColor(Color.LIGHT_GRAY);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setPadding(5);
+        table.addCell(cell);
+    }
+
+    private static final class FooterEvent extends PdfPageEventHelper {
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            Font font = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 9, Color.GRAY);
+            ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_CENTER,
+                    new Phrase("Generado automáticamente por SmartCommerce AI Engine", font),
+                    (document.right() - document.left()) / 2 + document.leftMargin(),
+                    document.bottom() - 10, 0);
+        }
+    }
+}
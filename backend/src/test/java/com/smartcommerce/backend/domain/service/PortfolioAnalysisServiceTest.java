@@ -0,0 +1,212 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.AiContextDTO;
+import com.smartcommerce.backend.domain.dto.ClientOrderAggregate;
+import com.smartcommerce.backend.domain.dto.ClientOrderId;
+import com.smartcommerce.backend.domain.dto.ClientProductQuantity;
+import com.smartcommerce.backend.domain.dto.PortfolioAnalysisProgress;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.SalesAnalysis;
+import com.smartcommerce.backend.domain.model.SalesAnalysisResponse;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderItemRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.SalesAnalysisRepository;
+import com.smartcommerce.iam.domain.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Los análisis de la cartera se guardan por lotes y el evento {@code client}
+ * de cada uno se envía recién cuando su lote se confirmó. Si un lote falla se
+ * reintenta fila por fila: los clientes que se pudieron guardar se informan
+ * como exitosos y el que no, como fallido, igual que un fallo del modelo.
+ */
+class PortfolioAnalysisServiceTest {
+
+    private static final int CLIENTS = 12;
+    private static final int BATCH_SIZE = 5;
+    private static final long LLM_FAILURE = 3;
+    private static final long PERSIST_FAILURE = 7;
+
+    private final List<String> timeline = Collections.synchronizedList(new ArrayList<>());
+    private AiService aiService;
+    private SalesAnalysisRepository salesAnalysisRepository;
+    private PortfolioAnalysisService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(7L).email("seller@example.com").password("secret").build();
+        aiService = mock(AiService.class);
+        ClientRepository clientRepository = mock(ClientRepository.class);
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        salesAnalysisRepository = mock(SalesAnalysisRepository.class);
+
+        List<Client> clients = new ArrayList<>();
+        List<ClientOrderAggregate> aggregates = new ArrayList<>();
+        List<ClientOrderId> orderIds = new ArrayList<>();
+        List<ClientProductQuantity> quantities = new ArrayList<>();
+        for (long id = 1; id <= CLIENTS; id++) {
+            clients.add(Client.builder().id(id).name(name(id)).user(user).build());
+            LocalDateTime at = LocalDateTime.of(2024, 1, 1, 10, 0).plusDays(id);
+            aggregates.add(new ClientOrderAggregate(id, 1L, BigDecimal.valueOf(100 * id), at, at, id * 10));
+            orderIds.add(new ClientOrderId(id, id * 10));
+            quantities.add(new ClientProductQuantity(id, "Producto " + id, 2L));
+        }
+        when(clientRepository.findByUser(user)).thenReturn(clients);
+        when(orderRepository.aggregateByClientUserId(user.getId())).thenReturn(aggregates);
+        when(orderRepository.findClientOrderIdsByUserId(user.getId())).thenReturn(orderIds);
+        when(orderItemRepository.sumQuantitiesByClientForUser(user.getId())).thenReturn(quantities);
+
+        when(aiService.requestAnalysis(any())).thenAnswer(invocation -> {
+            String clientName = invocation.<AiContextDTO>getArgument(0).clientName();
+            if (clientName.equals(name(LLM_FAILURE))) {
+                throw new IllegalStateException("Modelo no disponible");
+            }
+            return new SalesAnalysisResponse("Resumen " + clientName, 7, List.of(), "Llamar");
+        });
+        when(salesAnalysisRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<SalesAnalysis> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(analysis -> analysis.getClient().getId() == PERSIST_FAILURE)) {
+                timeline.add("lote fallido");
+                throw new DataIntegrityViolationException("Resumen demasiado largo");
+            }
+            batch.forEach(analysis -> timeline.add("guardado " + analysis.getClient().getId()));
+            return batch;
+        });
+        when(salesAnalysisRepository.save(any())).thenAnswer(invocation -> {
+            SalesAnalysis analysis = invocation.getArgument(0);
+            if (analysis.getClient().getId() == PERSIST_FAILURE) {
+                throw new DataIntegrityViolationException("Resumen demasiado largo");
+            }
+            timeline.add("guardado " + analysis.getClient().getId());
+            return analysis;
+        });
+
+        AiContextAssembler contextAssembler = new AiContextAssembler(orderRepository, orderItemRepository,
+                mock(CoPurchaseEngine.class));
+        service = new PortfolioAnalysisService(aiService, contextAssembler, clientRepository, orderRepository,
+                orderItemRepository, salesAnalysisRepository, mock(SalesAnalysisCache.class),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1, BATCH_SIZE,
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    void progressIsSentAfterEachBatchCommitsAndFailedRowsAreReported() {
+        RecordingEmitter emitter = new RecordingEmitter(timeline);
+
+        service.run(user, emitter);
+
+        // 11 análisis: dos lotes completos y el resto en el flush final
+        verify(salesAnalysisRepository, times(3)).saveAll(anyList());
+        // El lote con el cliente 7 se reintentó fila por fila
+        verify(salesAnalysisRepository, times(BATCH_SIZE)).save(any());
+
+        List<PortfolioAnalysisProgress> progress = emitter.events("client").stream()
+                .map(PortfolioAnalysisProgress.class::cast)
+                .toList();
+        assertThat(progress).hasSize(CLIENTS);
+        assertThat(progress).extracting(PortfolioAnalysisProgress::completed)
+                .containsExactlyElementsOf(range(1, CLIENTS));
+        assertThat(progress).filteredOn(event -> !event.success())
+                .extracting(PortfolioAnalysisProgress::clientId, PortfolioAnalysisProgress::error)
+                .containsExactlyInAnyOrder(
+                        tuple(LLM_FAILURE, "Modelo no disponible"),
+                        tuple(PERSIST_FAILURE, "Resumen demasiado largo"));
+
+        // Cada éxito se informa después de que su fila quedó guardada
+        for (PortfolioAnalysisProgress event : progress) {
+            if (event.success()) {
+                assertThat(timeline.indexOf("guardado " + event.clientId()))
+                        .as("cliente %d", event.clientId())
+                        .isNotNegative()
+                        .isLessThan(timeline.indexOf("evento " + event.clientId()));
+            }
+        }
+        assertThat(timeline).doesNotContain("guardado " + PERSIST_FAILURE);
+
+        assertThat(emitter.events("completed")).singleElement()
+                .asInstanceOf(MAP)
+                .containsEntry("total", CLIENTS)
+                .containsEntry("succeeded", CLIENTS - 2)
+                .containsEntry("failed", 2);
+        assertThat(emitter.completed).isTrue();
+    }
+
+    private static String name(long id) {
+        return "Cliente " + id;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    /**
+     * Guarda los eventos enviados en lugar de escribirlos en una respuesta.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> timeline;
+        private final List<Map.Entry<String, Object>> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean completed;
+
+        RecordingEmitter(List<String> timeline) {
+            this.timeline = timeline;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            Set<DataWithMediaType> parts = builder.build();
+            String name = null;
+            Object data = null;
+            for (DataWithMediaType part : parts) {
+                if (part.getData() instanceof String text && text.startsWith("event:")) {
+                    name = text.substring("event:".length(), text.indexOf('\n'));
+                } else if (!(part.getData() instanceof String)) {
+                    data = part.getData();
+                }
+            }
+            if (data instanceof PortfolioAnalysisProgress progress) {
+                timeline.add("evento " + progress.clientId());
+            }
+            events.add(Map.entry(name, data));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<Object> events(String name) {
+            return events.stream().filter(event -> name.equals(event.getKey())).map(Map.Entry::getValue).toList();
+        }
+    }
+}
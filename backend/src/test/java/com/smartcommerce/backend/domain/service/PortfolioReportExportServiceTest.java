@@ -0,0 +1,171 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.report.PortfolioExportProgress;
+import com.smartcommerce.backend.domain.dto.report.PortfolioExportStatus;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.iam.domain.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Estructura del ZIP de {@link PortfolioReportExportService}: un PDF por
+ * cliente, una entrada de error por cliente fallido sin cortar la exportación
+ * e {@code indice.csv} al final; los renders van por el presupuesto propio de
+ * las exportaciones y no por el cupo interactivo.
+ */
+class PortfolioReportExportServiceTest {
+
+    private static final int PARALLELISM = 4;
+    private static final int MAX_CONCURRENT_RENDERS = 2;
+
+    private ReportService reportService;
+    private ClientRepository clientRepository;
+    private PortfolioReportExportService exportService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        reportService = mock(ReportService.class);
+        clientRepository = mock(ClientRepository.class);
+        exportService = new PortfolioReportExportService(reportService, clientRepository, new SimpleMeterRegistry(),
+                mock(PlatformTransactionManager.class), PARALLELISM, MAX_CONCURRENT_RENDERS, 2000, Duration.ofHours(1));
+        user = User.builder().id(7L).email("seller@example.com").password("secret").build();
+        when(reportService.etag(any())).thenReturn("\"v1\"");
+    }
+
+    @Test
+    void failedClientLeavesAnErrorEntryAndTheRestOfTheZip() throws IOException {
+        portfolio(client(1L, "Distribuidora Núñez"), client(2L, "Ferretería \"El Clavo\""), client(3L, "Limpieza/Sur"));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(("%PDF cliente " + invocation.getArgument(0)).getBytes());
+            return null;
+        }).when(reportService).writeBatchReport(anyLong(), anyString(), any());
+        doThrow(new IllegalStateException("Fuente no disponible"))
+                .when(reportService).writeBatchReport(eq(2L), anyString(), any());
+
+        PortfolioReportExportService.PortfolioExport export = exportService.startExport(user);
+        Map<String, String> entries = unzip(export);
+
+        assertThat(entries.keySet()).containsExactlyInAnyOrder(
+                "1-Distribuidora_Nunez.pdf",
+                "2-Ferreteria_El_Clavo-ERROR.txt",
+                "3-Limpieza_Sur.pdf",
+                "indice.csv");
+        assertThat(List.copyOf(entries.keySet())).last().isEqualTo("indice.csv");
+        assertThat(entries.get("1-Distribuidora_Nunez.pdf")).isEqualTo("%PDF cliente 1");
+        assertThat(entries.get("2-Ferreteria_El_Clavo-ERROR.txt")).contains("Fuente no disponible");
+
+        List<String> index = entries.get("indice.csv").lines().toList();
+        assertThat(index.get(0)).isEqualTo("cliente_id,cliente,estado,detalle");
+        assertThat(index.subList(1, index.size())).containsExactlyInAnyOrder(
+                "1,\"Distribuidora Núñez\",OK,\"1-Distribuidora_Nunez.pdf\"",
+                "2,\"Ferretería \"\"El Clavo\"\"\",ERROR,\"Fuente no disponible\"",
+                "3,\"Limpieza/Sur\",OK,\"3-Limpieza_Sur.pdf\"");
+
+        PortfolioExportProgress progress = exportService.getProgress(user, export.exportId());
+        assertThat(progress.status()).isEqualTo(PortfolioExportStatus.COMPLETED);
+        assertThat(progress.total()).isEqualTo(3);
+        assertThat(progress.completed()).isEqualTo(3);
+        assertThat(progress.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void rendersStayWithinTheExportBudgetAndSkipTheInteractivePermits() throws IOException {
+        Client[] clients = new Client[12];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = client(i + 1L, "Cliente " + i);
+        }
+        portfolio(clients);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            invocation.<OutputStream>getArgument(2).write("%PDF".getBytes());
+            return null;
+        }).when(reportService).writeBatchReport(anyLong(), anyString(), any());
+
+        Map<String, String> entries = unzip(exportService.startExport(user));
+
+        assertThat(entries).hasSize(clients.length + 1);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(MAX_CONCURRENT_RENDERS);
+        verify(reportService, never()).writeExecutiveReport(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void emptyPortfolioIsRejected() {
+        portfolio();
+
+        assertThat(catchThrowableOfType(
+                () -> exportService.startExport(user), ResponseStatusException.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void progressIsOnlyVisibleToItsOwner() throws IOException {
+        portfolio(client(1L, "Cliente"));
+        PortfolioReportExportService.PortfolioExport export = exportService.startExport(user);
+        unzip(export);
+
+        User other = User.builder().id(8L).email("other@example.com").password("secret").build();
+        assertThat(catchThrowableOfType(
+                () -> exportService.getProgress(other, export.exportId()), ResponseStatusException.class)
+                .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private void portfolio(Client... clients) {
+        when(clientRepository.findByUser(user)).thenReturn(List.of(clients));
+    }
+
+    private Client client(Long id, String name) {
+        return Client.builder().id(id).name(name).user(user).build();
+    }
+
+    /**
+     * Entradas del ZIP en el orden en que se escribieron.
+     */
+    private static Map<String, String> unzip(PortfolioReportExportService.PortfolioExport export) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.body().writeTo(out);
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()),
+                StandardCharsets.UTF_8)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,189 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.SmartCommerceApplication;
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.model.Category;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.Order;
+import com.smartcommerce.backend.domain.model.OrderItem;
+import com.smartcommerce.backend.domain.model.OrderStatus;
+import com.smartcommerce.backend.domain.model.Product;
+import com.smartcommerce.backend.domain.repository.CategoryRepository;
+import com.smartcommerce.backend.domain.repository.ClientRepository;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.repository.ProductRepository;
+import com.smartcommerce.backend.domain.service.LegacyReportLoader.LegacyReport;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.iam.domain.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga completa de los datos del informe de un cliente contra H2: el
+ * recorrido anterior de entidades ({@link LegacyReportLoader}) contra
+ * {@link ReportDataAssembler}. Cada operación corre en su propia transacción
+ * de solo lectura, así que no hay caché de primer nivel entre iteraciones.
+ *
+ * Ejecutar con {@code mvn test-compile} y luego la clase main desde el IDE, o
+ * con {@code -prof gc} para ver la asignación por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportDataAssemblerBenchmark {
+
+    /**
+     * Órdenes del cliente, con dos ítems cada una.
+     */
+    @Param({"1000", "10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTransaction;
+    private ReportDataAssembler assembler;
+    private AnalyticsService analyticsService;
+    private OrderRepository orderRepository;
+    private Long clientId;
+
+    @Setup
+    public void setUp() {
+        // Como argumentos: lo que se pasa por properties() es un valor por defecto y application.yml lo pisa
+        context = new SpringApplicationBuilder(SmartCommerceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:report-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.enabled=false",
+                        "--spring.sql.init.mode=never",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--app.jwt.secret=benchmark-secret-benchmark-secret-benchmark-secret-benchmark-1234",
+                        "--app.jwt.expiration-ms=3600000",
+                        "--app.ai.gateway.provider=stub",
+                        "--app.ai.chat.semantic-cache.enabled=false",
+                        "--app.catalog.substitutes.enabled=false",
+                        "--app.recommendations.enabled=false");
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        assembler = context.getBean(ReportDataAssembler.class);
+        analyticsService = context.getBean(AnalyticsService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        clientId = seed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LegacyReport legacyLoad() {
+        return readOnlyTransaction.execute(status ->
+                LegacyReportLoader.load(analyticsService, orderRepository, clientId));
+    }
+
+    @Benchmark
+    public Optional<ExecutiveReport> assemblerLoad() {
+        return readOnlyTransaction.execute(status -> assembler.forClient(clientId));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReportDataAssemblerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Un cliente con {@link #orders} órdenes sobre 12 productos, dos sin
+     * categoría, igual que en {@link ReportDataAssemblerTest}.
+     */
+    private Long seed() {
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .email("seller@example.com")
+                .password("secret")
+                .firstName("Ana")
+                .lastName("Pérez")
+                .build());
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        Category hardware = categoryRepository.save(Category.builder().name("Ferretería").build());
+        Category cleaning = categoryRepository.save(Category.builder().name("Limpieza").build());
+
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Category category = i < 6 ? hardware : i < 10 ? cleaning : null;
+            products.add(productRepository.save(Product.builder()
+                    .sku("SKU-" + i)
+                    .name("Producto " + i)
+                    .price(BigDecimal.valueOf(10 + i))
+                    .stockQuantity(1000)
+                    .category(category)
+                    .build()));
+        }
+        Client client = context.getBean(ClientRepository.class).save(Client.builder()
+                .name("Cliente grande")
+                .industry("Retail")
+                .tier("Gold")
+                .user(user)
+                .build());
+
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 10, 0);
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            Order order = Order.builder()
+                    .user(user)
+                    .client(client)
+                    .status(OrderStatus.COMPLETED)
+                    .createdAt(start.plusHours(i))
+                    .build();
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < 2; j++) {
+                Product product = products.get((i * 7 + j * 5) % products.size());
+                int quantity = 1 + (i + j) % 4;
+                order.getItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(quantity)
+                        .price(product.getPrice())
+                        .build());
+                total = total.add(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+            }
+            order.setTotal(total);
+            batch.add(order);
+            if (batch.size() == 500) {
+                orderRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        orderRepository.saveAll(batch);
+        return client.getId();
+    }
+}
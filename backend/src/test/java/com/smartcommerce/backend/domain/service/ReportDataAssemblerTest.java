@@ -0,0 +1,209 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.smartcommerce.backend.domain.dto.report.ExecutiveReport;
+import com.smartcommerce.backend.domain.dto.report.ProductStats;
+import com.smartcommerce.backend.domain.model.Category;
+import com.smartcommerce.backend.domain.model.Client;
+import com.smartcommerce.backend.domain.model.Order;
+import com.smartcommerce.backend.domain.model.OrderItem;
+import com.smartcommerce.backend.domain.model.OrderStatus;
+import com.smartcommerce.backend.domain.model.Product;
+import com.smartcommerce.backend.domain.repository.OrderRepository;
+import com.smartcommerce.backend.domain.service.LegacyReportLoader.LegacyReport;
+import com.smartcommerce.iam.domain.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Compara {@link ReportDataAssembler} con la carga anterior del informe
+ * ({@link AnalyticsService#getAnalytics(Long)} más {@code findByClientId} y
+ * recorrer los ítems): mismos resultados y sentencias constantes, también con
+ * 10k órdenes. Los tiempos se comparan en {@link ReportDataAssemblerBenchmark}.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ ReportDataAssembler.class, AnalyticsService.class })
+class ReportDataAssemblerTest {
+
+    private static final int LARGE_CLIENT_ORDERS = 10_000;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReportDataAssembler assembler;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = entityManager.persist(User.builder()
+                .email("seller@example.com")
+                .password("secret")
+                .firstName("Ana")
+                .lastName("Pérez")
+                .build());
+
+        Category hardware = entityManager.persist(Category.builder().name("Ferretería").build());
+        Category cleaning = entityManager.persist(Category.builder().name("Limpieza").build());
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            // Los últimos dos sin categoría: el reparto usa el nombre del producto
+            Category category = i < 6 ? hardware : i < 10 ? cleaning : null;
+            products.add(entityManager.persist(Product.builder()
+                    .sku("SKU-" + i)
+                    .name("Producto " + i)
+                    .price(BigDecimal.valueOf(10 + i))
+                    .stockQuantity(1000)
+                    .category(category)
+                    .build()));
+        }
+    }
+
+    @Test
+    void matchesTheEntityWalk() {
+        Client client = createOrders("Cliente A", 40);
+        clearContext();
+
+        ExecutiveReport report = assembler.forClient(client.getId()).orElseThrow();
+
+        assertThat(report.clientName()).isEqualTo("Cliente A");
+        assertThat(report.industry()).isEqualTo("Retail");
+        assertMatchesLegacy(report, legacyLoad(client.getId()));
+        assertThat(report.hasAnalysis()).isFalse();
+    }
+
+
+    @Test
+    void unknownClientProducesNoReport() {
+        assertThat(assembler.forClient(-1L)).isEmpty();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithOrderCount() {
+        Client few = createOrders("Cliente A", 5);
+        Client many = createOrders("Cliente B", 300);
+
+        long fewStatements = statementsFor(() -> assembler.forClient(few.getId()));
+        long manyStatements = statementsFor(() -> assembler.forClient(many.getId()));
+
+        assertThat(fewStatements).isLessThanOrEqualTo(4);
+        assertThat(manyStatements).isEqualTo(fewStatements);
+    }
+
+    @Test
+    void clientWithTenThousandOrdersMatchesWithConstantStatements() {
+        Client client = createOrders("Cliente grande", LARGE_CLIENT_ORDERS);
+        clearContext();
+
+        assertMatchesLegacy(assembler.forClient(client.getId()).orElseThrow(), legacyLoad(client.getId()));
+
+        long legacyStatements = statementsFor(() -> legacyLoad(client.getId()));
+        long assemblerStatements = statementsFor(() -> assembler.forClient(client.getId()));
+        assertThat(assemblerStatements).isLessThanOrEqualTo(4);
+        assertThat(legacyStatements).isGreaterThan(assemblerStatements);
+    }
+
+    private static void assertMatchesLegacy(ExecutiveReport report, LegacyReport legacy) {
+        assertThat(report.totalSpent()).isCloseTo(legacy.totalSpent(), within(0.001));
+        assertThat(report.mainCategory()).isEqualTo(legacy.mainCategory());
+        assertThat(report.topProducts()).hasSize(ReportDataAssembler.TOP_PRODUCTS);
+        for (int i = 0; i < report.topProducts().size(); i++) {
+            ProductStats actual = report.topProducts().get(i);
+            ProductStats expected = legacy.topProducts().get(i);
+            assertThat(actual.name()).isEqualTo(expected.name());
+            assertThat(actual.quantity()).isEqualTo(expected.quantity());
+            assertThat(actual.total()).isCloseTo(expected.total(), within(0.001));
+        }
+    }
+
+    private long statementsFor(Supplier<?> load) {
+        clearContext();
+        statistics.clear();
+        load.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void clearContext() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private LegacyReport legacyLoad(Long clientId) {
+        return LegacyReportLoader.load(analyticsService, orderRepository, clientId);
+    }
+
+    private Client createOrders(String clientName, int count) {
+        Client client = entityManager.persist(Client.builder()
+                .name(clientName)
+                .industry("Retail")
+                .tier("Gold")
+                .user(user)
+                .build());
+
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 10, 0);
+        for (int i = 0; i < count; i++) {
+            Order order = Order.builder()
+                    .user(user)
+                    .client(client)
+                    .status(OrderStatus.COMPLETED)
+                    .createdAt(start.plusHours(i))
+                    .build();
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < 2; j++) {
+                Product product = products.get((i * 7 + j * 5) % products.size());
+                int quantity = 1 + (i + j) % 4;
+                order.getItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(quantity)
+                        .price(product.getPrice())
+                        .build());
+                total = total.add(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+            }
+            order.setTotal(total);
+            entityManager.persist(order);
+            if (i % 500 == 499) {
+                clearContext();
+                user = entityManager.find(User.class, user.getId());
+                client = entityManager.find(Client.class, client.getId());
+                products = products.stream().map(p -> entityManager.find(Product.class, p.getId())).toList();
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,149 @@
+package com.smartcommerce.backend.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.ai_engine.gateway.LlmGateway;
+import com.smartcommerce.ai_engine.gateway.LlmOperation;
+import com.smartcommerce.ai_engine.gateway.LlmRequest;
+import com.smartcommerce.ai_engine.gateway.StubLlmGateway;
+import com.smartcommerce.backend.domain.dto.SimulationResponse;
+import com.smartcommerce.backend.domain.dto.SimulationSweepRequest;
+import com.smartcommerce.backend.domain.dto.SimulationSweepRequest.Range;
+import com.smartcommerce.backend.domain.dto.SimulationSweepResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Las celdas del barrido se llenan por descuento y plazo: el gateway de la
+ * prueba devuelve cada grupo en orden inverso, omite un escenario y agrega uno
+ * que no se pidió. El escenario omitido queda en null y se informa como error.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:simulation-sweep;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.jwt.secret=test-secret-test-secret-test-secret-test-secret-test-secret-1234",
+        "app.jwt.expiration-ms=3600000",
+        "app.ai.gateway.provider=stub",
+        "app.ai.gateway.rate-limit.enabled=false",
+        "app.ai.chat.semantic-cache.enabled=false",
+        "app.ai.simulation-sweep.scenarios-per-call=4",
+        "app.catalog.substitutes.enabled=false",
+        "app.recommendations.enabled=false"
+})
+class SimulationSweepServiceTest {
+
+    private static final int SKIPPED_DISCOUNT = 10;
+    private static final int SKIPPED_MONTHS = 24;
+
+    @Autowired
+    private SimulationSweepService sweepService;
+
+    @Test
+    void cellsAreMatchedByDiscountAndTermAndMissingOnesAreReported() {
+        SimulationSweepResponse response = sweepService.sweep(new SimulationSweepRequest(
+                999L, new Range(5, 15, 5), new Range(12, 36, 12)));
+
+        assertThat(response.modelCalls()).isEqualTo(3);
+        for (int d = 0; d < response.discountPercentages().size(); d++) {
+            int discount = response.discountPercentages().get(d);
+            for (int m = 0; m < response.contractDurationMonths().size(); m++) {
+                int months = response.contractDurationMonths().get(m);
+                SimulationResponse cell = response.results().get(d).get(m);
+                if (discount == SKIPPED_DISCOUNT && months == SKIPPED_MONTHS) {
+                    assertThat(cell).isNull();
+                } else {
+                    assertThat(cell).as("%d%%/%dm", discount, months).isNotNull();
+                    assertThat(cell.explanation()).isEqualTo(ScrambledSweepGateway.explanation(discount, months));
+                }
+            }
+        }
+        assertThat(response.errors()).containsExactly("escenario 10%/24m: el modelo no lo evaluó");
+    }
+
+    @TestConfiguration
+    static class GatewayConfig {
+
+        @Bean
+        @Primary
+        LlmGateway scrambledSweepGateway(ObjectMapper objectMapper) {
+            return new ScrambledSweepGateway(objectMapper);
+        }
+    }
+
+    /**
+     * Responde los barridos con los escenarios del prompt en orden inverso,
+     * sin el de {@link #SKIPPED_DISCOUNT}/{@link #SKIPPED_MONTHS} y con uno de
+     * más; el resto de las operaciones las delega en el stub.
+     */
+    static class ScrambledSweepGateway implements LlmGateway {
+
+        private static final Pattern SCENARIO = Pattern.compile("\\d+\\) Descuento (\\d+)%, Contrato (\\d+) meses");
+
+        private final ObjectMapper objectMapper;
+        private final StubLlmGateway stub;
+
+        ScrambledSweepGateway(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            this.stub = new StubLlmGateway(objectMapper, Duration.ZERO);
+        }
+
+        static String explanation(int discount, int months) {
+            return "Escenario " + discount + "/" + months;
+        }
+
+        @Override
+        public String generate(LlmRequest request) {
+            if (request.operation() != LlmOperation.SIMULATE_SWEEP) {
+                return stub.generate(request);
+            }
+            Matcher matcher = SCENARIO.matcher(request.contents().get(request.contents().size() - 1).text());
+            List<Map<String, Object>> items = new ArrayList<>();
+            while (matcher.find()) {
+                int discount = Integer.parseInt(matcher.group(1));
+                int months = Integer.parseInt(matcher.group(2));
+                if (discount != SKIPPED_DISCOUNT || months != SKIPPED_MONTHS) {
+                    items.add(item(discount, months));
+                }
+            }
+            Collections.reverse(items);
+            items.add(item(99, 1));
+            try {
+                return objectMapper.writeValueAsString(Map.of("candidates", List.of(Map.of(
+                        "content", Map.of("parts", List.of(Map.of(
+                                "text", objectMapper.writeValueAsString(items))))))));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void stream(LlmRequest request, Consumer<String> onEvent, BooleanSupplier cancelled) {
+            stub.stream(request, onEvent, cancelled);
+        }
+
+        private static Map<String, Object> item(int discount, int months) {
+            return Map.of("discountPercentage", discount, "contractDurationMonths", months,
+                    "acceptanceProbability", 50, "financialImpact", "Rentable",
+                    "explanation", explanation(discount, months));
+        }
+    }
+}
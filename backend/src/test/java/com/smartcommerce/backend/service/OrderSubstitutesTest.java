@@ -0,0 +1,160 @@
+package com.smartcommerce.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcommerce.backend.domain.dto.OrderItemRequest;
+import com.smartcommerce.backend.domain.dto.OrderRequest;
+import com.smartcommerce.backend.domain.dto.ProductRequest;
+import com.smartcommerce.backend.domain.dto.ProductSubstitute;
+import com.smartcommerce.backend.domain.model.Category;
+import com.smartcommerce.backend.domain.repository.CategoryRepository;
+import com.smartcommerce.backend.domain.repository.ProductEmbeddingRepository;
+import com.smartcommerce.backend.domain.repository.ProductRepository;
+import com.smartcommerce.iam.domain.model.User;
+import com.smartcommerce.iam.domain.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Una orden sin stock suficiente responde 409 con sustitutos que sí cubren la
+ * cantidad pedida. Los productos se dan de alta por {@link ProductService}, así
+ * que llegan al índice por el mismo camino que en producción (evento, cola y
+ * embedder por hashing); el repositorio de embeddings usa pgvector y se
+ * reemplaza por un mock.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-substitutes;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=false",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.jwt.secret=test-secret-test-secret-test-secret-test-secret-test-secret-1234",
+        "app.jwt.expiration-ms=3600000",
+        "app.ai.gateway.provider=stub",
+        "app.ai.embedding.provider=hashing",
+        "app.ai.embedding.dimensions=256",
+        "app.ai.chat.semantic-cache.enabled=false",
+        "app.catalog.substitutes.enabled=true",
+        "app.recommendations.enabled=false"
+})
+@AutoConfigureMockMvc
+class OrderSubstitutesTest {
+
+    private static final String BUYER = "buyer@example.com";
+    private static final int REQUESTED = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSubstitutionService substitutionService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ProductEmbeddingRepository embeddingRepository;
+
+    @Test
+    @WithMockUser(username = BUYER, roles = "USER")
+    void insufficientStockReturnsConflictWithInStockSubstitutes() throws Exception {
+        userRepository.save(User.builder().email(BUYER).password("secret").firstName("Compras").lastName("B2B")
+                .build());
+        Long categoryId = categoryRepository.save(Category.builder().name("Seguridad").build()).getId();
+
+        Long wanted = create("GNT-M", "Guante de nitrilo talle M", 1, categoryId);
+        Long larger = create("GNT-L", "Guante de nitrilo talle L", 50, categoryId);
+        Long latex = create("GLX-M", "Guante de látex talle M", 50, categoryId);
+        Long zeroedInDatabase = create("GNR-M", "Guante de nitrilo reforzado talle M", 50, categoryId);
+        Long tooFew = create("GNT-S", "Guante de nitrilo talle S", REQUESTED - 1, categoryId);
+        create("PNT-4", "Pintura esmalte sintético 4 litros", 50, categoryId);
+        awaitIndexed(wanted, List.of(larger, latex, zeroedInDatabase));
+
+        // Sin evento de stock: solo la relectura en la base lo descarta
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 0 WHERE id = ?", zeroedInDatabase);
+
+        OrderRequest order = OrderRequest.builder()
+                .items(List.of(OrderItemRequest.builder().productId(wanted).quantity(REQUESTED).build()))
+                .build();
+        String body = mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isConflict())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode conflict = objectMapper.readTree(body);
+        assertThat(conflict.get("productId").asLong()).isEqualTo(wanted);
+        assertThat(conflict.get("requested").asInt()).isEqualTo(REQUESTED);
+        assertThat(conflict.get("available").asInt()).isEqualTo(1);
+
+        List<ProductSubstitute> substitutes = new ArrayList<>();
+        for (JsonNode node : conflict.get("substitutes")) {
+            substitutes.add(objectMapper.treeToValue(node, ProductSubstitute.class));
+        }
+        assertThat(substitutes).extracting(ProductSubstitute::productId)
+                .contains(larger, latex)
+                .doesNotContain(wanted, zeroedInDatabase, tooFew);
+        assertThat(substitutes).allMatch(substitute -> substitute.stockQuantity() >= REQUESTED);
+        assertThat(substitutes.get(0).productId()).isIn(larger, latex);
+
+        // La orden rechazada no descontó stock
+        assertThat(productRepository.findById(wanted).orElseThrow().getStockQuantity()).isEqualTo(1);
+    }
+
+    private Long create(String sku, String name, int stock, Long categoryId) {
+        ProductRequest request = new ProductRequest();
+        request.setSku(sku);
+        request.setName(name);
+        request.setPrice(BigDecimal.TEN);
+        request.setStockQuantity(stock);
+        request.setCategoryId(categoryId);
+        return productService.createProduct(request).getId();
+    }
+
+    /**
+     * Las altas se embeben en el hilo del servicio: espera hasta que los
+     * sustitutos esperados aparezcan en el índice.
+     */
+    private void awaitIndexed(Long productId, List<Long> expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            List<Long> found = substitutionService.findSubstitutes(productId, 1, 10).stream()
+                    .map(ProductSubstitute::productId)
+                    .toList();
+            if (found.containsAll(expected)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Los productos no llegaron al índice de sustitutos");
+    }
+}
@@ -0,0 +1,88 @@
+package com.smartcommerce.kernel.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link LongIntHashMap} contra un {@link HashMap} de referencia, cruzando
+ * varios rehash, con la clave 0 (la que marca celdas libres) y con claves que
+ * colisionan en la tabla.
+ */
+class LongIntHashMapTest {
+
+    @Test
+    void putAndAddToMatchAReferenceMapAcrossRehash() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        Map<Long, Integer> reference = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(3);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextLong(-5_000, 5_000);
+            int value = random.nextInt(100);
+            if (random.nextBoolean()) {
+                Integer previous = reference.put(key, value);
+                assertThat(map.put(key, value)).isEqualTo(previous != null ? previous : 0);
+            } else {
+                int expected = reference.merge(key, value, Integer::sum);
+                assertThat(map.addTo(key, value)).isEqualTo(expected);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        reference.forEach((key, value) -> assertThat(map.get(key)).as("clave %d", key).isEqualTo(value));
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(reference);
+        assertThat(Arrays.stream(map.keys()).boxed()).containsExactlyInAnyOrderElementsOf(reference.keySet());
+    }
+
+    @Test
+    void zeroIsAnOrdinaryKey() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertThat(map.containsKey(0)).isFalse();
+        assertThat(map.get(0)).isZero();
+        assertThat(map.addTo(0, 4)).isEqualTo(4);
+        assertThat(map.addTo(0, 3)).isEqualTo(7);
+        assertThat(map.put(0, 1)).isEqualTo(7);
+        map.put(Long.MIN_VALUE, 2);
+
+        assertThat(map.containsKey(0)).isTrue();
+        assertThat(map.get(0)).isEqualTo(1);
+        assertThat(map.get(Long.MIN_VALUE)).isEqualTo(2);
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.keys()).containsExactlyInAnyOrder(0L, Long.MIN_VALUE);
+    }
+
+    @Test
+    void missingKeysReadAsZero() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(42, 5);
+
+        assertThat(map.get(43)).isZero();
+        assertThat(map.containsKey(43)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void clearEmptiesTheMapIncludingTheZeroKey() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long key = 0; key < 100; key++) {
+            map.addTo(key, 1);
+        }
+
+        map.clear();
+
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.containsKey(0)).isFalse();
+        assertThat(map.get(50)).isZero();
+        assertThat(map.keys()).isEmpty();
+        assertThat(map.addTo(50, 2)).isEqualTo(2);
+    }
+}
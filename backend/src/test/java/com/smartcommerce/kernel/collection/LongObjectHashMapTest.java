@@ -0,0 +1,72 @@
+package com.smartcommerce.kernel.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link LongObjectHashMap} contra un {@link HashMap} de referencia, cruzando
+ * varios rehash y con la clave 0.
+ */
+class LongObjectHashMapTest {
+
+    @Test
+    void putAndGetMatchAReferenceMapAcrossRehash() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(2);
+        Map<Long, String> reference = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(5);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextLong(-5_000, 5_000);
+            String value = "v" + i;
+            assertThat(map.put(key, value)).isEqualTo(reference.put(key, value));
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        reference.forEach((key, value) -> assertThat(map.get(key)).as("clave %d", key).isEqualTo(value));
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(reference);
+    }
+
+    @Test
+    void zeroIsAnOrdinaryKey() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThat(map.get(0)).isNull();
+        assertThat(map.put(0, "cero")).isNull();
+        assertThat(map.put(0, "otro")).isEqualTo("cero");
+
+        assertThat(map.get(0)).isEqualTo("otro");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void computeIfAbsentCreatesOnlyOnce() {
+        LongObjectHashMap<StringBuilder> map = new LongObjectHashMap<>();
+        int[] created = {0};
+
+        for (int i = 0; i < 3; i++) {
+            map.computeIfAbsent(7, key -> {
+                created[0]++;
+                return new StringBuilder();
+            }).append(i);
+        }
+
+        assertThat(created[0]).isEqualTo(1);
+        assertThat(map.get(7)).hasToString("012");
+    }
+
+    @Test
+    void rejectsNullValues() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThatThrownBy(() -> map.put(1, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(map.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+package com.smartcommerce.kernel.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Concurrencia, cola y rechazo de {@link BoundedVirtualThreadExecutor}, con
+ * las tareas retenidas en un latch para observar el estado sin depender de
+ * tiempos.
+ */
+class BoundedVirtualThreadExecutorTest {
+
+    private static final int CONCURRENCY = 2;
+    private static final int QUEUE_CAPACITY = 3;
+
+    @Test
+    void runsUpToConcurrencyQueuesTheRestAndRejectsBeyondCapacity() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", CONCURRENCY,
+                QUEUE_CAPACITY);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(CONCURRENCY);
+        CountDownLatch finished = new CountDownLatch(CONCURRENCY + QUEUE_CAPACITY);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<String> threadNames = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < CONCURRENCY + QUEUE_CAPACITY; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                threadNames.add(Thread.currentThread().getName());
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.activeCount()).isEqualTo(CONCURRENCY);
+        assertThat(executor.queuedCount()).isEqualTo(QUEUE_CAPACITY);
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(CONCURRENCY);
+        assertThat(threadNames).allMatch(name -> name.startsWith("test-"));
+
+        // Los cupos se devuelven al terminar
+        CountDownLatch again = new CountDownLatch(1);
+        executor.execute(again::countDown);
+        assertThat(again.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void aFailingTaskReturnsItsPermits() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 1, 0);
+        CountDownLatch failed = new CountDownLatch(1);
+        executor.execute(() -> {
+            failed.countDown();
+            throw new IllegalStateException("falla");
+        });
+        assertThat(failed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CountDownLatch next = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                executor.execute(next::countDown);
+                break;
+            } catch (RejectedExecutionException e) {
+                // El hilo que falló todavía no devolvió el cupo
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.sleep(10);
+            }
+        }
+        assertThat(next.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectsAfterShutdown() {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 1, 1);
+
+        executor.shutdown();
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+}